@@ -1,16 +1,15 @@
 package cws.core;
 
+import java.util.Collections;
 import java.util.HashSet;
-import java.util.List;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
-import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableList.Builder;
-
 import cws.core.cloudsim.CWSSimEntity;
 import cws.core.cloudsim.CWSSimEvent;
 import cws.core.cloudsim.CloudSimWrapper;
 import cws.core.exception.UnknownWorkflowEventException;
+import cws.core.storage.StorageManager;
 
 /**
  * A Cloud is an entity that handles the provisioning and deprovisioning
@@ -25,45 +24,89 @@ public class Cloud extends CWSSimEntity {
      * to be launched). This is the collection that was previously returned
      * by getAllVMs().
      */
-    private final Set<VM> availableVMs = new HashSet<VM>();
+    private final Set<VM> availableVMs = new VMSet();
+
+    /** Available VMs which are not terminated and have an idle core. Updated when a VM's state changes. */
+    private final Set<VM> freeVMs = new VMSet();
+
+    /** Available VMs which are not terminated and have no idle core. Updated when a VM's state changes. */
+    private final Set<VM> busyVMs = new VMSet();
+
+    private final Set<VM> availableVMsView = Collections.unmodifiableSet(availableVMs);
+    private final Set<VM> freeVMsView = Collections.unmodifiableSet(freeVMs);
+    private final Set<VM> busyVMsView = Collections.unmodifiableSet(busyVMs);
 
     /** The set of currently active VMs, used for internal sanity checks
      * only. */
     private final Set<VM> _vmsForSanityCheck = new HashSet<VM>();
 
 
-    private final Set<VMListener> vmListeners = new HashSet<VMListener>();
+    private final Set<VMListener> vmListeners = new LinkedHashSet<VMListener>();
+
+    /** Storage manager which stops the transfers of terminated VMs, or null if there is none */
+    private StorageManager storageManager;
 
     public Cloud(CloudSimWrapper cloudsim) {
         super("Cloud", cloudsim);
     }
 
+    public void setStorageManager(StorageManager storageManager) {
+        this.storageManager = storageManager;
+    }
+
     public void addVMListener(VMListener l) {
         vmListeners.add(l);
     }
 
-    public List<VM> getAvailableVMs() {
-        return ImmutableList.copyOf(availableVMs);
+    /**
+     * @return Live, unmodifiable view of the available VMs, in the order of their ids. Copy it before launching or
+     *         terminating VMs while iterating.
+     */
+    public Set<VM> getAvailableVMs() {
+        return availableVMsView;
     }
 
-    public List<VM> getFreeVMs() {
-        Builder<VM> free = ImmutableList.<VM>builder();
-        for (VM vm : availableVMs) {
-            if (!vm.isTerminated() && vm.isFree()) {
-                free.add(vm);
-            }
-        }
-        return free.build();
+    /**
+     * @return Live, unmodifiable view of the available VMs which are not terminated and have an idle core, in the
+     *         order of their ids. Copy it before submitting jobs while iterating.
+     */
+    public Set<VM> getFreeVMs() {
+        return freeVMsView;
+    }
+
+    /**
+     * @return Live, unmodifiable view of the available VMs which are not terminated and have no idle core, in the
+     *         order of their ids.
+     */
+    public Set<VM> getBusyVMs() {
+        return busyVMsView;
+    }
+
+    public int getAvailableVMCount() {
+        return availableVMs.size();
+    }
+
+    public int getFreeVMCount() {
+        return freeVMs.size();
+    }
+
+    public int getBusyVMCount() {
+        return busyVMs.size();
     }
 
-    public List<VM> getBusyVMs() {
-        Builder<VM> busy = ImmutableList.<VM>builder();
-        for (VM vm : availableVMs) {
-            if (!vm.isTerminated() && !vm.isFree()) {
-                busy.add(vm);
-            }
+    /**
+     * Called by the VM when it gets or loses its last idle core or when it is terminated, so that it is moved to the
+     * right set. VMs which are not available yet are classified when they become available.
+     */
+    void vmStateChanged(VM vm) {
+        if (!availableVMs.contains(vm)) {
+            return;
+        }
+        freeVMs.remove(vm);
+        busyVMs.remove(vm);
+        if (!vm.isTerminated()) {
+            (vm.isFree() ? freeVMs : busyVMs).add(vm);
         }
-        return busy.build();
     }
 
     @Override
@@ -91,7 +134,7 @@ public class Cloud extends CWSSimEntity {
      */
     public void launchVM(int owner, VM vm) {
         vm.setOwner(owner);
-        vm.setCloud(getId());
+        vm.setCloud(this);
         vm.setLaunchTime(getCloudsim().clock());
         _vmsForSanityCheck.add(vm);
 
@@ -123,6 +166,7 @@ public class Cloud extends CWSSimEntity {
 
         // VM is now available
         availableVMs.add(vm);
+        vmStateChanged(vm);
 
         // Listeners are informed
         for (VMListener l : vmListeners) {
@@ -144,16 +188,26 @@ public class Cloud extends CWSSimEntity {
         // We terminate the VM now...
         vm.terminate();
 
+        // ... so its transfers are stopped
+        if (storageManager != null) {
+            getCloudsim().sendNow(getId(), storageManager.getId(), WorkflowEvent.STORAGE_VM_TERMINATED, vm);
+        }
+
         // But it isn't gone until after the delay
         getCloudsim().send(getId(), getId(), vm.getDeprovisioningDelay(), WorkflowEvent.VM_TERMINATED, vm);
         _vmsForSanityCheck.remove(vm);
     }
 
     private void vmTerminated(VM vm) {
-        getCloudsim().log(String.format("VM %d terminated", vm.getId()));
+        getCloudsim().logMessage("VM %d terminated").arg(vm.getId()).log();
+        if (getCloudsim().isTracing()) {
+            getCloudsim().getTraceSink().vmTerminated(getCloudsim().clock(), vm.getId());
+        }
 
         // VM is no longer available
         availableVMs.remove(vm);
+        freeVMs.remove(vm);
+        busyVMs.remove(vm);
 
         // Listeners find out
         for (VMListener l : vmListeners) {
@@ -48,7 +48,6 @@ import com.google.common.base.Preconditions;
  */
 public class VM extends CWSSimEntity {
 
-    private static int nextId = 0;
 
     /** Contains VM parameters like cores number, price for billing unit **/
     private final VMType vmType;
@@ -59,6 +58,9 @@ public class VM extends CWSSimEntity {
     /** The Cloud that runs this VM */
     private int cloud = -1;
 
+    /** The Cloud which keeps track of free and busy VMs, notified when this VM's state changes */
+    private Cloud cloudIndex;
+
     /** Current idle cores */
     private int idleCores;
 
@@ -96,7 +98,7 @@ public class VM extends CWSSimEntity {
     private final Map<Job, Interval> computationIntervals = new HashMap<Job, VM.Interval>();
 
     VM(VMType vmType, CloudSimWrapper cloudsim, FailureModel failureModel, RuntimeDistribution runtimeDistribution) {
-        super("VM" + (nextId++), cloudsim);
+        super("VM" + cloudsim.getIds().nextVMId(), cloudsim);
         this.vmType = vmType;
         this.jobs = new LinkedList<Job>();
         this.runningJobs = new HashSet<Job>();
@@ -185,7 +187,10 @@ public class VM extends CWSSimEntity {
     void launch() {
         Preconditions.checkState(!isLaunched, "Attempted to launch already launched VM:" + this.getId());
         isLaunched = true;
-        getCloudsim().log(String.format("VM %d with %d cores started", getId(), this.vmType.getCores()));
+        getCloudsim().logMessage("VM %d with %d cores started").arg(getId()).arg(this.vmType.getCores()).log();
+        if (getCloudsim().isTracing()) {
+            getCloudsim().getTraceSink().vmLaunched(getCloudsim().clock(), getId(), this.vmType.getCores());
+        }
     }
 
     /**
@@ -193,18 +198,20 @@ public class VM extends CWSSimEntity {
      */
     void terminate() {
         Preconditions.checkState(!isTerminated, "Cannot terminate already terminated VM");
-        getCloudsim().log("VM " + getId() + " is going to terminate");
+        getCloudsim().logMessage("VM %d is going to terminate").arg(getId()).log();
         // Can no longer accept jobs
         isTerminated = true;
 
         // Log termination only for running jobs
         for (Job runningJob : runningJobs) {
-            getCloudsim().log("Terminating job " + runningJob.getID() + " on VM " + runningJob.getVM().getId());
+            getCloudsim().logMessage("Terminating job %d on VM %d").arg(runningJob.getID())
+                    .arg(runningJob.getVM().getId()).log();
         }
 
         // Log that queued jobs were not executed
         for (Job queuedJob : jobs) {
-            getCloudsim().log("Removing job " + queuedJob.getID() + " from queue on VM " + queuedJob.getVM().getId());
+            getCloudsim().logMessage("Removing job %d from queue on VM %d").arg(queuedJob.getID())
+                    .arg(queuedJob.getVM().getId()).log();
         }
 
         // Move running jobs back to the queue...
@@ -220,7 +227,8 @@ public class VM extends CWSSimEntity {
         // Reset dynamic state
         jobs.clear();
         idleCores = vmType.getCores();
-        getCloudsim().log(String.format("VM %d terminate request success", getId()));
+        stateChanged();
+        getCloudsim().logMessage("VM %d terminate request success").arg(getId()).log();
     }
 
     /**
@@ -260,10 +268,14 @@ public class VM extends CWSSimEntity {
         }
 
         getCloudsim()
-                .log(String
-                        .format("Starting computational part of job %s (task_id = %s, workflow = %s) on VM %s. Will finish in %f",
-                                job.getID(), job.getTask().getId(), job.getDAGJob().getDAG().getId(), job.getVM()
-                                        .getId(), actualRuntime));
+                .logMessage(
+                        "Starting computational part of job %s (task_id = %s, workflow = %s) on VM %s. Will finish in %f")
+                .arg(job.getID()).arg(job.getTask().getId()).arg(job.getDAGJob().getDAG().getId())
+                .arg(job.getVM().getId()).arg(actualRuntime).log();
+        if (getCloudsim().isTracing()) {
+            getCloudsim().getTraceSink().jobStarted(getCloudsim().clock(), job.getID(), job.getTask().getId(),
+                    job.getDAGJob().getDAG().getId(), getId());
+        }
 
         getCloudsim().send(getId(), getId(), actualRuntime, WorkflowEvent.JOB_FINISHED, job);
 
@@ -289,6 +301,9 @@ public class VM extends CWSSimEntity {
 
         // The core that was running the job is now free
         idleCores++;
+        if (idleCores == 1) {
+            stateChanged();
+        }
 
         // Mark that write has finished.
         writeIntervals.get(job).stop();
@@ -303,7 +318,7 @@ public class VM extends CWSSimEntity {
         } else if (this.idleCores < 1) {
             throw new IllegalStateException("There are no idle cores in this VM.");
         }
-        getCloudsim().log("Starting " + job.toString() + " on VM " + job.getVM().getId());
+        getCloudsim().logMessage("Starting %s on VM %d").arg(job).arg(job.getVM().getId()).log();
         // The job is now running
         job.setStartTime(getCloudsim().clock());
         job.setState(Job.State.RUNNING);
@@ -316,6 +331,9 @@ public class VM extends CWSSimEntity {
 
         // One core is now busy running the job
         this.idleCores--;
+        if (this.idleCores == 0) {
+            stateChanged();
+        }
 
         // Mark that read has started.
         this.readIntervals.put(job, new Interval());
@@ -331,10 +349,14 @@ public class VM extends CWSSimEntity {
             throw new RuntimeException("Non-running job finished:" + job.getID());
         }
 
-        String msg = String.format("Computational part of job %s "
-                + "(task_id = %s, workflow = %s, retry = %s) on VM %s finished", job.getID(), job.getTask().getId(),
-                job.getDAGJob().getDAG().getId(), job.isRetry(), job.getVM().getId());
-        getCloudsim().log(msg);
+        getCloudsim()
+                .logMessage("Computational part of job %s (task_id = %s, workflow = %s, retry = %s) on VM %s finished")
+                .arg(job.getID()).arg(job.getTask().getId()).arg(job.getDAGJob().getDAG().getId())
+                .arg(job.isRetry()).arg(job.getVM().getId()).log();
+        if (getCloudsim().isTracing()) {
+            getCloudsim().getTraceSink().jobFinished(getCloudsim().clock(), job.getID(), job.getTask().getId(),
+                    job.getDAGJob().getDAG().getId(), getId(), job.isRetry());
+        }
 
         getCloudsim().send(getId(), getCloudsim().getEntityId("StorageManager"), 0.0,
                 WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
@@ -375,6 +397,17 @@ public class VM extends CWSSimEntity {
         this.cloud = cloud;
     }
 
+    void setCloud(Cloud cloud) {
+        this.cloud = cloud.getId();
+        this.cloudIndex = cloud;
+    }
+
+    private void stateChanged() {
+        if (cloudIndex != null) {
+            cloudIndex.vmStateChanged(this);
+        }
+    }
+
     public int getIdleCores() {
         return idleCores;
     }
@@ -452,6 +485,15 @@ public class VM extends CWSSimEntity {
         return time;
     }
 
+    /**
+     * VMs are equal only to themselves, but their hash codes are based on ids, so that the iteration order of hashed
+     * collections of VMs does not depend on identity hash codes and is the same in every run of the simulation.
+     */
+    @Override
+    public int hashCode() {
+        return getId();
+    }
+
     /**
      * Represents interval of time in seconds spanning from start time to end time (or VM termination time if not set)
      * or from start time to current CloudSim time if not finished yet.
@@ -6,41 +6,43 @@ import org.apache.commons.cli.Options;
 
 import cws.core.cloudsim.CloudSimWrapper;
 import cws.core.core.VMType;
-import cws.core.jobs.IdentityRuntimeDistribution;
-import cws.core.jobs.RuntimeDistribution;
 import cws.core.jobs.UniformRuntimeDistribution;
 
+/**
+ * Creates VMs with the runtime distribution and failure model of their simulation, see
+ * {@link CloudSimWrapper#getRuntimeDistribution()}. The runtime variance and failure rate read from the command line
+ * are applied to every simulation by {@link #initSimulation(CloudSimWrapper)}, which gives the simulation its own
+ * random generators, so simulations running at the same time do not share them.
+ */
 public class VMFactory {
     private static final double DEFAULT_RUNTIME_VARIANCE = 0.0;
     private static final double DEFAULT_FAILURE_RATE = 0.0;
 
-    private static RuntimeDistribution runtimeDistribution = new IdentityRuntimeDistribution();
-    private static FailureModel failureModel = new FailureModel(0, 0.0);
+    private static long seed;
     private static double runtimeVariance;
     private static double failureRate;
 
-    public static void setRuntimeDistribution(RuntimeDistribution runtimeDistribution) {
-        VMFactory.runtimeDistribution = runtimeDistribution;
-    }
-
-    public static RuntimeDistribution getRuntimeDistribution() {
-        return runtimeDistribution;
-    }
-
-    public static FailureModel getFailureModel() {
-        return failureModel;
-    }
-
-    public static void setFailureModel(FailureModel failureModel) {
-        VMFactory.failureModel = failureModel;
-    }
-
     /**
      * @param cloudSimWrapper - initialized CloudSimWrapper instance. It needs to be inited, because we're creating
      *            storage manager here.
      */
     public static VM createVM(VMType vmType, CloudSimWrapper cloudSimWrapper) {
-        return new VM(vmType, cloudSimWrapper, failureModel, runtimeDistribution);
+        return new VM(vmType, cloudSimWrapper, cloudSimWrapper.getFailureModel(),
+                cloudSimWrapper.getRuntimeDistribution());
+    }
+
+    /**
+     * Sets the runtime distribution and failure model of the simulation according to the options read by
+     * {@link #readCliOptions(CommandLine, long)}. Every simulation gets generators seeded with the same seed, so its
+     * results do not depend on the other simulations.
+     */
+    public static void initSimulation(CloudSimWrapper cloudsim) {
+        if (runtimeVariance > 0.0) {
+            cloudsim.setRuntimeDistribution(new UniformRuntimeDistribution(seed, runtimeVariance));
+        }
+        if (failureRate > 0.0) {
+            cloudsim.setFailureModel(new FailureModel(seed, failureRate));
+        }
     }
 
     public static void buildCliOptions(Options options) {
@@ -61,13 +63,7 @@ public class VMFactory {
         System.out.printf("runtimeVariance = %f\n", runtimeVariance);
         System.out.printf("failureRate = %f\n", failureRate);
 
-        if (runtimeVariance > 0.0) {
-            VMFactory.setRuntimeDistribution(new UniformRuntimeDistribution(seed, runtimeVariance));
-        }
-
-        if (failureRate > 0.0) {
-            VMFactory.setFailureModel(new FailureModel(seed, failureRate));
-        }
+        VMFactory.seed = seed;
     }
 
     public static double getRuntimeVariance() {
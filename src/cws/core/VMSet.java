@@ -0,0 +1,108 @@
+package cws.core;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Set of VMs indexed by their entity ids. Adding and removing a VM is O(1) and does not allocate (except when the
+ * index grows), VMs are iterated in the order of their ids.
+ */
+final class VMSet extends AbstractSet<VM> {
+    /** Ids of the VMs in this set */
+    private final BitSet ids = new BitSet();
+
+    /** VMs by id */
+    private VM[] vms = new VM[64];
+
+    private int size;
+
+    /** Incremented on every modification, so that iterators fail fast */
+    private int modCount;
+
+    @Override
+    public boolean add(VM vm) {
+        int id = vm.getId();
+        if (ids.get(id)) {
+            return false;
+        }
+        if (id >= vms.length) {
+            vms = Arrays.copyOf(vms, Math.max(vms.length * 2, id + 1));
+        }
+        ids.set(id);
+        vms[id] = vm;
+        size++;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!contains(o)) {
+            return false;
+        }
+        int id = ((VM) o).getId();
+        ids.clear(id);
+        vms[id] = null;
+        size--;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof VM)) {
+            return false;
+        }
+        int id = ((VM) o).getId();
+        return id >= 0 && ids.get(id) && vms[id] == o;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<VM> iterator() {
+        return new Iterator<VM>() {
+            private int next = ids.nextSetBit(0);
+            private int last = -1;
+            private int expectedModCount = modCount;
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public VM next() {
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                next = ids.nextSetBit(next + 1);
+                return vms[last];
+            }
+
+            @Override
+            public void remove() {
+                if (last < 0) {
+                    throw new IllegalStateException();
+                }
+                if (modCount != expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                VMSet.this.remove(vms[last]);
+                expectedModCount = modCount;
+                last = -1;
+            }
+        };
+    }
+}
@@ -1,8 +1,10 @@
 package cws.core;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import com.google.common.collect.ImmutableList;
 
@@ -21,12 +23,11 @@ import cws.core.jobs.JobListener;
  * @author Gideon Juve <juve@usc.edu>
  */
 public class WorkflowEngine extends CWSSimEntity implements VMListener {
-    public static int next_id = 0;
 
     /** The list of current {@link DAGJob}s. */
     private final List<DAGJob> dags = new ArrayList<DAGJob>();
 
-    private final HashSet<JobListener> jobListeners = new HashSet<JobListener>();
+    private final Set<JobListener> jobListeners = new LinkedHashSet<JobListener>();
 
     /** The provisioner that allocates resources for this workflow engine */
     private final Provisioner provisioner;
@@ -47,7 +48,7 @@ public class WorkflowEngine extends CWSSimEntity implements VMListener {
 
     public WorkflowEngine(Provisioner provisioner, Scheduler scheduler, double budget, double deadline,
             CloudSimWrapper cloudsim) {
-        super("WorkflowEngine" + (next_id++), cloudsim);
+        super("WorkflowEngine" + cloudsim.getIds().nextWorkflowEngineId(), cloudsim);
         this.provisioner = provisioner;
         this.scheduler = scheduler;
         this.budget = budget;
@@ -72,7 +73,7 @@ public class WorkflowEngine extends CWSSimEntity implements VMListener {
             break;
         case WorkflowEvent.PROVISIONING_REQUEST:
             if (provisioner != null)
-                if (getAvailableVMs().size() > 0 || dags.size() > 0)
+                if (getAvailableVMCount() > 0 || dags.size() > 0)
                     provisioner.provisionResources(this);
             break;
         default:
@@ -170,16 +171,21 @@ public class WorkflowEngine extends CWSSimEntity implements VMListener {
                 }
             }
 
-            getCloudsim().log(job.toString() + " finished on VM " + job.getVM().getId());
+            getCloudsim().logMessage("%s finished on VM %d").arg(job).arg(job.getVM().getId()).log();
         } else if (job.getResult() == Job.Result.FAILURE) { // If the job failed
 
             // Log only if it was running job
             if (job.getStartTime() > 0.0) {
-                getCloudsim().log(
-                        String.format(
-                                "Job %d (task_id = %s, workflow_id = %s, retry = %s) failed on VM %s. Resubmitting...",
-                                job.getID(), job.getTask().getId(), job.getDAGJob().getDAG().getId(), job.isRetry(),
-                                job.getVM().getId()));
+                getCloudsim()
+                        .logMessage(
+                                "Job %d (task_id = %s, workflow_id = %s, retry = %s) failed on VM %s. Resubmitting...")
+                        .arg(job.getID()).arg(job.getTask().getId()).arg(job.getDAGJob().getDAG().getId())
+                        .arg(job.isRetry()).arg(job.getVM().getId()).log();
+                if (getCloudsim().isTracing()) {
+                    getCloudsim().getTraceSink().jobFailed(getCloudsim().clock(), job.getID(),
+                            job.getTask().getId(), job.getDAGJob().getDAG().getId(), job.getVM().getId(),
+                            job.isRetry());
+                }
             }
 
             // Retry the job
@@ -189,9 +195,9 @@ public class WorkflowEngine extends CWSSimEntity implements VMListener {
             jobReleased(retry);
 
         } else {
-            getCloudsim().log(
-                    String.format("Job %d (task_id = %s, workflow_id = %s, retry = %s) exceeded deadline.",
-                            job.getID(), job.getTask().getId(), job.getDAGJob().getDAG().getId(), job.isRetry()));
+            getCloudsim().logMessage("Job %d (task_id = %s, workflow_id = %s, retry = %s) exceeded deadline.")
+                    .arg(job.getID()).arg(job.getTask().getId()).arg(job.getDAGJob().getDAG().getId())
+                    .arg(job.isRetry()).log();
         }
 
         scheduler.scheduleJobs(this);
@@ -215,18 +221,39 @@ public class WorkflowEngine extends CWSSimEntity implements VMListener {
         return provisioner;
     }
 
-    public List<VM> getAvailableVMs() {
-        return new ArrayList<>(provisioner.getCloud().getAvailableVMs());
+    /**
+     * @return Live, unmodifiable view of the VMs which are available for use, see {@link Cloud#getAvailableVMs()}.
+     */
+    public Collection<VM> getAvailableVMs() {
+        return provisioner.getCloud().getAvailableVMs();
     }
 
-    public List<VM> getFreeVMs() {
+    /**
+     * @return Live, unmodifiable view of the free VMs, see {@link Cloud#getFreeVMs()}.
+     */
+    public Collection<VM> getFreeVMs() {
         return provisioner.getCloud().getFreeVMs();
     }
 
-    public List<VM> getBusyVMs() {
+    /**
+     * @return Live, unmodifiable view of the busy VMs, see {@link Cloud#getBusyVMs()}.
+     */
+    public Collection<VM> getBusyVMs() {
         return provisioner.getCloud().getBusyVMs();
     }
 
+    public int getAvailableVMCount() {
+        return provisioner.getCloud().getAvailableVMCount();
+    }
+
+    public int getFreeVMCount() {
+        return provisioner.getCloud().getFreeVMCount();
+    }
+
+    public int getBusyVMCount() {
+        return provisioner.getCloud().getBusyVMCount();
+    }
+
     public void addJobListener(JobListener l) {
         jobListeners.add(l);
     }
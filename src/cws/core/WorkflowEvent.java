@@ -114,4 +114,13 @@ public interface WorkflowEvent {
 
     /** Event indicating the progress of a global storage write */
     int GLOBAL_STORAGE_WRITE_PROGRESS = 37;
+
+    /** Sent when the first of the active global storage reads completes, in the fluid mode */
+    int GLOBAL_STORAGE_READS_COMPLETION = 38;
+
+    /** Sent when the first of the active global storage writes completes, in the fluid mode */
+    int GLOBAL_STORAGE_WRITES_COMPLETION = 39;
+
+    /** Sent to the storage manager when a VM is terminated, so that its transfers are stopped */
+    int STORAGE_VM_TERMINATED = 40;
 }
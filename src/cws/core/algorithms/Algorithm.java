@@ -49,6 +49,13 @@ public abstract class Algorithm extends CWSSimEntity {
     /** Should return the number of wall time nanos spent for planning */
     abstract public long getPlanningnWallTime();
 
+    /**
+     * Returns the number of DAGs the algorithm considered for admission. By default all the DAGs are considered.
+     */
+    public int getNumConsideredDAGs() {
+        return dags.size();
+    }
+
     public final void simulate() {
         simulateInternal();
         printWorkflowLogs();
@@ -40,6 +40,7 @@ public class DynamicAlgorithm extends HomogeneousAlgorithm {
         // builder class or something.
 
         Cloud cloud = new Cloud(getCloudsim());
+        cloud.setStorageManager(getEnvironment().getStorageManager());
 
         this.tempProvisionerStorage.setEnvironment(getEnvironment());
         this.tempProvisionerStorage.setCloud(cloud);
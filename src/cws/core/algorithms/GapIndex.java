@@ -0,0 +1,226 @@
+package cws.core.algorithms;
+
+/**
+ * Index of the gaps between the slots of a resource's schedule, used by {@link SPSS} to find the first gap a task
+ * fits in without walking the whole schedule.
+ *
+ * The slots are kept in a treap ordered by start time. Every node stores the gap between the previous slot's finish
+ * and its start, and every subtree stores the length of its longest gap, so subtrees without a gap long enough for the
+ * task are skipped. Candidate gaps are checked exactly as the linear scan did, so the same gap is found.
+ */
+class GapIndex {
+    /**
+     * Slack for the gap length pruning. A gap may fit a task whose runtime exceeds the computed length of the gap by a
+     * rounding error.
+     */
+    private static final double LENGTH_TOLERANCE = 1e-6;
+
+    /** Gaps which are shorter than this are negative, see {@link #add(double, double)} */
+    private static final double NEGATIVE_GAP_TOLERANCE = 1e-9;
+
+    private static class Node {
+        final double start;
+        double finish;
+        /** Finish of the previous slot, NaN for the first slot */
+        double begin = Double.NaN;
+        double maxLength;
+        final int priority;
+        Node left;
+        Node right;
+
+        Node(double start, double finish) {
+            this.start = start;
+            this.finish = finish;
+            this.priority = priority(start);
+        }
+
+        Node(Node other) {
+            this.start = other.start;
+            this.finish = other.finish;
+            this.begin = other.begin;
+            this.maxLength = other.maxLength;
+            this.priority = other.priority;
+            this.left = other.left == null ? null : new Node(other.left);
+            this.right = other.right == null ? null : new Node(other.right);
+        }
+
+        /**
+         * @return Length of the gap before the slot, -Infinity if there is no gap.
+         */
+        double length() {
+            if (Double.isNaN(begin) || begin == start) {
+                return Double.NEGATIVE_INFINITY;
+            }
+            return start - begin;
+        }
+
+        void update() {
+            double max = length();
+            if (left != null) {
+                max = Math.max(max, left.maxLength);
+            }
+            if (right != null) {
+                max = Math.max(max, right.maxLength);
+            }
+            maxLength = max;
+        }
+    }
+
+    private Node root;
+    private int size;
+
+    GapIndex() {
+    }
+
+    GapIndex(GapIndex other) {
+        this.root = other.root == null ? null : new Node(other.root);
+        this.size = other.size;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Adds the slot, replacing the slot with the same start time if there is one.
+     *
+     * @throws RuntimeException when the slot overlaps the previous or the next slot.
+     */
+    void add(double start, double finish) {
+        Node[] parts = split(root, start, false);
+        Node[] rest = split(parts[1], start, true);
+        Node node;
+        if (rest[0] != null) {
+            node = rest[0];
+            node.finish = finish;
+        } else {
+            node = new Node(start, finish);
+            size++;
+        }
+        Node previous = last(parts[0]);
+        if (previous != null) {
+            node.begin = previous.finish;
+            checkGap(node);
+        }
+        node.update();
+        if (rest[1] != null) {
+            setFirstBegin(rest[1], finish);
+        }
+        root = merge(merge(parts[0], node), rest[1]);
+    }
+
+    /**
+     * Finds the first gap, in the order of the schedule, in which a task of the given runtime can run between the
+     * earliest start and the deadline.
+     *
+     * @return The actual start of the task in the gap, NaN if the task fits in no gap.
+     */
+    double findFirstFit(double earliestStart, double runtime, double deadline) {
+        // The task cannot finish in a gap ending before earliestStart + runtime
+        double minEnd = earliestStart + runtime;
+        Node node = findFirstFit(root, earliestStart, runtime, deadline, minEnd);
+        return node == null ? Double.NaN : actualStart(node, earliestStart);
+    }
+
+    private static Node findFirstFit(Node node, double earliestStart, double runtime, double deadline, double minEnd) {
+        if (node == null || node.maxLength < runtime - LENGTH_TOLERANCE) {
+            return null;
+        }
+        if (node.start >= minEnd) {
+            Node found = findFirstFit(node.left, earliestStart, runtime, deadline, minEnd);
+            if (found != null) {
+                return found;
+            }
+            if (node.length() > Double.NEGATIVE_INFINITY) {
+                double aft = actualStart(node, earliestStart) + runtime;
+                if (aft <= node.start && aft <= deadline) {
+                    return node;
+                }
+            }
+        }
+        return findFirstFit(node.right, earliestStart, runtime, deadline, minEnd);
+    }
+
+    private static double actualStart(Node node, double earliestStart) {
+        return node.begin >= earliestStart ? node.begin : earliestStart;
+    }
+
+    private static void checkGap(Node node) {
+        if (node.begin > node.start && node.begin - node.start > NEGATIVE_GAP_TOLERANCE) {
+            throw new RuntimeException("Negative sized empty slot");
+        }
+    }
+
+    private static void setFirstBegin(Node node, double begin) {
+        if (node.left != null) {
+            setFirstBegin(node.left, begin);
+        } else {
+            node.begin = begin;
+            checkGap(node);
+        }
+        node.update();
+    }
+
+    private static Node last(Node node) {
+        if (node == null) {
+            return null;
+        }
+        while (node.right != null) {
+            node = node.right;
+        }
+        return node;
+    }
+
+    /**
+     * Splits the treap into the nodes with start before the key (or at the key if inclusive) and the other nodes.
+     */
+    private static Node[] split(Node node, double key, boolean inclusive) {
+        if (node == null) {
+            return new Node[] { null, null };
+        }
+        if (node.start < key || (inclusive && node.start == key)) {
+            Node[] parts = split(node.right, key, inclusive);
+            node.right = parts[0];
+            node.update();
+            parts[0] = node;
+            return parts;
+        } else {
+            Node[] parts = split(node.left, key, inclusive);
+            node.left = parts[1];
+            node.update();
+            parts[1] = node;
+            return parts;
+        }
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.update();
+            return left;
+        } else {
+            right.left = merge(left, right.left);
+            right.update();
+            return right;
+        }
+    }
+
+    /**
+     * Deterministic pseudo-random priority, so plans do not depend on a random generator.
+     */
+    private static int priority(double start) {
+        long bits = Double.doubleToLongBits(start);
+        bits ^= bits >>> 33;
+        bits *= 0xff51afd7ed558ccdL;
+        bits ^= bits >>> 33;
+        bits *= 0xc4ceb9fe1a85ec53L;
+        bits ^= bits >>> 33;
+        return (int) bits;
+    }
+}
@@ -1,10 +1,11 @@
  package cws.core.algorithms;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 import cws.core.cloudsim.CloudSimWrapper;
 import cws.core.dag.DAG;
@@ -17,21 +18,35 @@ import cws.core.engine.Environment;
  */
 public class SPSS extends StaticAlgorithm {
 
+    /** Minimal number of resources whose solutions are evaluated by a single fork-join task */
+    private static final int MIN_CHUNK_RESOURCES = 32;
+
     /** Tuning parameter for deadline distribution (low alpha = runtime, high alpha = tasks) */
     private double alpha;
 
+    /** Pool evaluating solutions on large plans in parallel, null if they are evaluated sequentially */
+    private ForkJoinPool planningPool;
+
     public SPSS(double budget, double deadline, List<DAG> dags, double alpha, AlgorithmStatistics ensembleStatistics,
             Environment environment, CloudSimWrapper cloudsim) {
         super(budget, deadline, dags, ensembleStatistics, environment, cloudsim);
         this.alpha = alpha;
     }
 
+    /**
+     * Sets the pool used to evaluate the solutions for a task on the resources of large plans in parallel. The plans
+     * are the same as with the sequential evaluation, which is used if the pool is null (the default).
+     */
+    public void setPlanningPool(ForkJoinPool planningPool) {
+        this.planningPool = planningPool;
+    }
+
     /**
      * Develop a plan for a single DAG
      */
     @Override
     Plan planDAG(DAG dag, Plan currentPlan) throws NoFeasiblePlan {
-        HashMap<Task, Double> runtimes = new HashMap<Task, Double>();
+        double[] runtimes = new double[dag.numTasks()];
         TopologicalOrder order = computeTopologicalOrder(dag, runtimes);
 
         /**
@@ -48,18 +63,18 @@ public class SPSS extends StaticAlgorithm {
          */
 
         // Get deadlines for each task (deadline distribution)
-        final HashMap<Task, Double> deadlines = getDeadlineDistribution(order, runtimes, this.alpha);
+        final double[] deadlines = getDeadlineDistribution(order, runtimes, this.alpha);
 
         // Sort tasks by deadline
-        LinkedList<Task> sortedTasks = new LinkedList<Task>();
+        ArrayList<Task> sortedTasks = new ArrayList<Task>(dag.numTasks());
         for (Task t : order) {
             sortedTasks.add(t);
         }
         Comparator<Task> deadlineComparator = new Comparator<Task>() {
             @Override
             public int compare(Task t1, Task t2) {
-                double d1 = deadlines.get(t1);
-                double d2 = deadlines.get(t2);
+                double d1 = deadlines[t1.getIndex()];
+                double d2 = deadlines[t2.getIndex()];
                 if (d1 < d2) {
                     return -1;
                 } else if (d1 > d2) {
@@ -75,17 +90,21 @@ public class SPSS extends StaticAlgorithm {
         Plan plan = new Plan(currentPlan);
 
         // Actual finish times of tasks
-        HashMap<Task, Double> finishTimes = new HashMap<Task, Double>();
+        double[] finishTimes = new double[dag.numTasks()];
 
         // Assign resources to each task
         for (Task task : sortedTasks) {
-            double runtime = runtimes.get(task);
-            double deadline = deadlines.get(task);
+            if (isPlanningTimeLimitExceeded()) {
+                throw new PlanningTimeLimitExceeded();
+            }
+            int index = task.getIndex();
+            double runtime = runtimes[index];
+            double deadline = deadlines[index];
 
             // Compute earliest start time of task
             double earliestStart = 0.0;
-            for (Task parent : task.getParents()) {
-                earliestStart = Math.max(earliestStart, finishTimes.get(parent));
+            for (int parent : dag.getParentIndices(index)) {
+                earliestStart = Math.max(earliestStart, finishTimes[parent]);
             }
 
             Solution newResource;
@@ -101,142 +120,109 @@ public class SPSS extends StaticAlgorithm {
             }
 
             // Check each resource for a better (cheaper, earlier) solution
-            for (Resource r : plan.resources) {
-                // Try placing task at the beginning of resource schedule
-                if (earliestStart + runtime < r.getStart()) {
-
-                    // Option 1: Leave no gap
-                    nogap: {
-                        double ast = r.getStart() - runtime;
-                        if (ast < earliestStart) {
-                            break nogap;
-                        }
-
-                        double aft = ast + runtime;
-                        if (aft > deadline || aft > r.getStart()) {
-                            break nogap;
-                        }
-
-                        double cost = r.getCostWith(ast, r.getEnd()) - r.getCost();
-                        Slot slot = new Slot(task, ast, runtime);
-                        Solution soln = new Solution(r, slot, cost, false);
-                        if (soln.betterThan(best)) {
-                            best = soln;
-                        }
-                    }
+            List<Resource> resources = plan.resources;
+            if (planningPool != null && resources.size() >= 2 * MIN_CHUNK_RESOURCES) {
+                Solution chunkBest = planningPool.invoke(new FindBestSolution(resources, 0, resources.size(), task,
+                        earliestStart, runtime, deadline));
+                if (chunkBest != null && chunkBest.betterThan(best)) {
+                    best = chunkBest;
+                }
+            } else {
+                best = findBestSolution(resources, 0, resources.size(), task, earliestStart, runtime, deadline, best);
+            }
 
-                    // Option 2: Leave a big gap
-                    biggap: {
-                        int runtimeUnits = (int) Math.ceil(runtime / getEnvironment().getBillingTimeInSeconds());
-
-                        double ast = r.getStart() - (runtimeUnits * getEnvironment().getBillingTimeInSeconds());
-                        if (ast < earliestStart) {
-                            ast = earliestStart;
-                        }
-
-                        double aft = ast + runtime;
-                        if (aft > deadline || aft > r.getStart()) {
-                            break biggap;
-                        }
-
-                        double cost = r.getCostWith(ast, r.getEnd()) - r.getCost();
-                        Slot sl = new Slot(task, ast, runtime);
-                        Solution soln = new Solution(r, sl, cost, false);
-                        if (soln.betterThan(best)) {
-                            best = soln;
-                        }
-                    }
+            if (newResource.cost < best.cost) {
+                getCloudsim().logMessage("%s best: %f %s\n").arg(task.getId()).arg(best.cost)
+                        .arg(newResource.betterThan(best)).log();
+            }
 
-                    // Option 3: Use some slack time (medium gap)
-                    slack: {
-                        double slack = (r.getFullBillingUnits() * getEnvironment().getBillingTimeInSeconds())
-                                - (r.getEnd() - r.getStart());
-
-                        double ast = r.getStart() - slack;
-                        if (ast < earliestStart) {
-                            ast = earliestStart;
-                        }
-
-                        double aft = ast + runtime;
-                        if (aft > deadline || aft > r.getStart()) {
-                            break slack;
-                        }
-
-                        // This solution should be free because we add no billing units
-                        double cost = r.getCostWith(ast, r.getEnd()) - r.getCost();
-                        if (cost > 1e-6) {
-                            throw new RuntimeException("Solution should be free");
-                        }
-                        Slot sl = new Slot(task, ast, runtime);
-                        Solution soln = new Solution(r, sl, cost, false);
-                        if (soln.betterThan(best)) {
-                            best = soln;
-                        }
-                    }
-                }
+            // Schedule task on resource of best solution
+            best.addToPlan(plan);
 
-                // Try placing it in a gap in the schedule
-                double lastEnd = -1;
-                gap: for (double start : r.getStartTimes()) {
-                    double begin = lastEnd;
-                    double end = start;
+            // Save actual finish time of task
+            finishTimes[index] = best.slot.start + runtime;
+        }
 
-                    lastEnd = start + r.schedule.get(start).duration;
+        return plan;
+    }
 
-                    // This just skips the first occupied slot
-                    if (begin < 0) {
-                        continue gap;
+    /**
+     * Checks the resources from index from (inclusive) to index to (exclusive) for a solution better than the given
+     * one, which may be null.
+     * 
+     * Solutions are compared with {@link Solution#betterThan(Solution)}, so of equally good solutions the one found
+     * last wins. Finding the best solutions of consecutive ranges of resources and then comparing them in the order of
+     * the ranges gives the same solution as checking all the resources one by one.
+     */
+    private Solution findBestSolution(List<Resource> resources, int from, int to, Task task, double earliestStart,
+            double runtime, double deadline, Solution best) {
+        for (int i = from; i < to; i++) {
+            Resource r = resources.get(i);
+            // Try placing task at the beginning of resource schedule
+            if (earliestStart + runtime < r.getStart()) {
+
+                // Option 1: Leave no gap
+                nogap: {
+                    double ast = r.getStart() - runtime;
+                    if (ast < earliestStart) {
+                        break nogap;
                     }
 
-                    if (begin == end) {
-                        continue gap;
+                    double aft = ast + runtime;
+                    if (aft > deadline || aft > r.getStart()) {
+                        break nogap;
                     }
 
-                    // Sanity check
-                    if (begin > end && begin - end > 1e-9) {
-                        throw new RuntimeException("Negative sized empty slot");
+                    double cost = r.getCostWith(ast, r.getEnd()) - r.getCost();
+                    Slot slot = new Slot(task, ast, runtime);
+                    Solution soln = new Solution(r, slot, cost, false);
+                    if (soln.betterThan(best)) {
+                        best = soln;
                     }
+                }
+
+                // Option 2: Leave a big gap
+                biggap: {
+                    int runtimeUnits = (int) Math.ceil(runtime / getEnvironment().getBillingTimeInSeconds());
 
-                    double ast;
-                    if (begin >= earliestStart) {
-                        ast = begin;
-                    } else {
+                    double ast = r.getStart() - (runtimeUnits * getEnvironment().getBillingTimeInSeconds());
+                    if (ast < earliestStart) {
                         ast = earliestStart;
                     }
 
                     double aft = ast + runtime;
-                    if (aft <= end && aft <= deadline) {
-                        double cost = 0.0; // free as in beer
-                        Slot sl = new Slot(task, ast, runtime);
-                        Solution soln = new Solution(r, sl, cost, false);
-                        if (soln.betterThan(best)) {
-                            best = soln;
-                        }
-
-                        // We won't find a better solution by looking at later
-                        // gaps, so we can stop looking here
-                        break gap;
+                    if (aft > deadline || aft > r.getStart()) {
+                        break biggap;
+                    }
+
+                    double cost = r.getCostWith(ast, r.getEnd()) - r.getCost();
+                    Slot sl = new Slot(task, ast, runtime);
+                    Solution soln = new Solution(r, sl, cost, false);
+                    if (soln.betterThan(best)) {
+                        best = soln;
                     }
                 }
 
-                // Try to placing it at the end of the schedule
-                atend: if (r.getEnd() + runtime < deadline) {
+                // Option 3: Use some slack time (medium gap)
+                slack: {
+                    double slack = (r.getFullBillingUnits() * getEnvironment().getBillingTimeInSeconds())
+                            - (r.getEnd() - r.getStart());
 
-                    // Actual start time
-                    double ast;
-                    if (earliestStart < r.getEnd()) {
-                        ast = r.getEnd();
-                    } else {
+                    double ast = r.getStart() - slack;
+                    if (ast < earliestStart) {
                         ast = earliestStart;
                     }
 
-                    // Actual finish time
                     double aft = ast + runtime;
-                    if (aft > deadline) {
-                        break atend;
+                    if (aft > deadline || aft > r.getStart()) {
+                        break slack;
                     }
 
-                    double cost = r.getCostWith(r.getStart(), aft) - r.getCost();
+                    // This solution should be free because we add no billing units
+                    double cost = r.getCostWith(ast, r.getEnd()) - r.getCost();
+                    if (cost > 1e-6) {
+                        throw new RuntimeException("Solution should be free");
+                    }
                     Slot sl = new Slot(task, ast, runtime);
                     Solution soln = new Solution(r, sl, cost, false);
                     if (soln.betterThan(best)) {
@@ -245,18 +231,90 @@ public class SPSS extends StaticAlgorithm {
                 }
             }
 
-            if (newResource.cost < best.cost) {
-                getCloudsim().log(
-                        String.format("%s best: %f %s\n", task.getId(), best.cost, newResource.betterThan(best)));
+            // Try placing it in a gap in the schedule. We won't find a
+            // better solution in later gaps than in the first one it fits in
+            double gapStart = r.findGap(earliestStart, runtime, deadline);
+            if (!Double.isNaN(gapStart)) {
+                double cost = 0.0; // free as in beer
+                Slot sl = new Slot(task, gapStart, runtime);
+                Solution soln = new Solution(r, sl, cost, false);
+                if (soln.betterThan(best)) {
+                    best = soln;
+                }
             }
 
-            // Schedule task on resource of best solution
-            best.addToPlan(plan);
+            // Try to placing it at the end of the schedule
+            atend: if (r.getEnd() + runtime < deadline) {
 
-            // Save actual finish time of task
-            finishTimes.put(task, best.slot.start + runtime);
+                // Actual start time
+                double ast;
+                if (earliestStart < r.getEnd()) {
+                    ast = r.getEnd();
+                } else {
+                    ast = earliestStart;
+                }
+
+                // Actual finish time
+                double aft = ast + runtime;
+                if (aft > deadline) {
+                    break atend;
+                }
+
+                double cost = r.getCostWith(r.getStart(), aft) - r.getCost();
+                Slot sl = new Slot(task, ast, runtime);
+                Solution soln = new Solution(r, sl, cost, false);
+                if (soln.betterThan(best)) {
+                    best = soln;
+                }
+            }
         }
+        return best;
+    }
 
-        return plan;
+    /**
+     * Finds the best solution on a range of resources, splitting it into halves evaluated in parallel while they are
+     * big enough. See {@link SPSS#findBestSolution(List, int, int, Task, double, double, double, Solution)}.
+     */
+    private class FindBestSolution extends RecursiveTask<Solution> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Resource> resources;
+        private final int from;
+        private final int to;
+        private final Task task;
+        private final double earliestStart;
+        private final double runtime;
+        private final double deadline;
+
+        FindBestSolution(List<Resource> resources, int from, int to, Task task, double earliestStart, double runtime,
+                double deadline) {
+            this.resources = resources;
+            this.from = from;
+            this.to = to;
+            this.task = task;
+            this.earliestStart = earliestStart;
+            this.runtime = runtime;
+            this.deadline = deadline;
+        }
+
+        @Override
+        protected Solution compute() {
+            if (to - from < 2 * MIN_CHUNK_RESOURCES) {
+                return findBestSolution(resources, from, to, task, earliestStart, runtime, deadline, null);
+            }
+            int middle = (from + to) >>> 1;
+            FindBestSolution first = new FindBestSolution(resources, from, middle, task, earliestStart, runtime,
+                    deadline);
+            FindBestSolution second = new FindBestSolution(resources, middle, to, task, earliestStart, runtime,
+                    deadline);
+            first.fork();
+            Solution secondBest = second.compute();
+            Solution best = first.join();
+            // Ties go to the later range, as in the sequential search
+            if (secondBest != null && secondBest.betterThan(best)) {
+                best = secondBest;
+            }
+            return best;
+        }
     }
 }
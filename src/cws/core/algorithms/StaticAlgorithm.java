@@ -1,10 +1,13 @@
 package cws.core.algorithms;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedHashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeMap;
 
@@ -25,6 +28,7 @@ import cws.core.dag.DAG;
 import cws.core.dag.DAGJob;
 import cws.core.dag.Task;
 import cws.core.dag.algorithms.CriticalPath;
+import cws.core.dag.algorithms.TaskLevels;
 import cws.core.dag.algorithms.TopologicalOrder;
 import cws.core.engine.Environment;
 import cws.core.jobs.Job;
@@ -53,6 +57,15 @@ public abstract class StaticAlgorithm extends HomogeneousAlgorithm implements Sc
     private long planningStartWallTime;
     private long planningFinishWallTime;
 
+    /** Wall time limit of planning in seconds, infinite if there is no limit */
+    private double planningTimeLimit = Double.POSITIVE_INFINITY;
+
+    /** Wall time when planning has to stop, see {@link #isPlanningTimeLimitExceeded()} */
+    private long planningLimitWallTime;
+
+    /** Number of DAGs which were admitted or rejected before planning stopped */
+    private int numConsideredDAGs;
+
     public StaticAlgorithm(double budget, double deadline, List<DAG> dags, AlgorithmStatistics ensembleStatistics,
             Environment environment, CloudSimWrapper cloudsim) {
         super(budget, deadline, dags, ensembleStatistics, environment, cloudsim);
@@ -63,12 +76,52 @@ public abstract class StaticAlgorithm extends HomogeneousAlgorithm implements Sc
         return planningFinishWallTime - planningStartWallTime;
     }
 
+    /**
+     * Sets the wall time limit of planning. When it is exceeded, planning stops with the DAGs admitted so far, i.e.
+     * the DAG being planned and the remaining DAGs are rejected. Creating the VMs of the plan afterwards is not
+     * limited. There is no limit by default.
+     * @param seconds the limit in seconds, positive infinity for no limit
+     */
+    public void setPlanningTimeLimit(double seconds) {
+        if (!(seconds >= 0)) {
+            throw new IllegalArgumentException("Invalid planning time limit: " + seconds);
+        }
+        this.planningTimeLimit = seconds;
+    }
+
+    /**
+     * @return true if planning has a time limit and it has been exceeded. Implementations of
+     *         {@link #planDAG(DAG, Plan)} should check it regularly and throw {@link PlanningTimeLimitExceeded}.
+     */
+    protected boolean isPlanningTimeLimitExceeded() {
+        return !Double.isInfinite(planningTimeLimit) && getWallTime() - planningLimitWallTime > 0;
+    }
+
+    /**
+     * @return The current wall time in nanoseconds, which the planning time limit is measured by.
+     */
+    protected long getWallTime() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public int getNumConsideredDAGs() {
+        return numConsideredDAGs;
+    }
+
     /**
      * Develop a plan for running as many DAGs as we can
      */
     public void plan() {
+        if (!Double.isInfinite(planningTimeLimit)) {
+            planningLimitWallTime = getWallTime() + (long) (planningTimeLimit * 1.0e9);
+        }
         // We assume the dags are in priority order
         for (DAG dag : getAllDags()) {
+            if (isPlanningTimeLimitExceeded()) {
+                getCloudsim().log("Planning time limit exceeded, not considering remaining DAGs");
+                break;
+            }
             try {
                 Plan newPlan = planDAG(dag, plan);
                 // Plan was feasible
@@ -79,9 +132,13 @@ public abstract class StaticAlgorithm extends HomogeneousAlgorithm implements Sc
                 } else {
                     getCloudsim().log("Rejecting DAG: New plan exceeds budget: " + newPlan.getCost());
                 }
+            } catch (PlanningTimeLimitExceeded e) {
+                getCloudsim().log("Rejecting DAG: " + e.getMessage() + ", not considering remaining DAGs");
+                break;
             } catch (NoFeasiblePlan m) {
                 getCloudsim().log("Rejecting DAG: " + m.getMessage());
             }
+            numConsideredDAGs++;
         }
 
         for (Resource r : plan.resources) {
@@ -117,50 +174,21 @@ public abstract class StaticAlgorithm extends HomogeneousAlgorithm implements Sc
 
     /**
      * Assign deadlines to each task in the DAG
+     * @param runtimes runtimes of tasks indexed by {@link Task#getIndex()}
+     * @return deadlines of tasks indexed by {@link Task#getIndex()}
      */
-    protected HashMap<Task, Double> getDeadlineDistribution(TopologicalOrder order, HashMap<Task, Double> runtimes,
-            double alpha) {
+    protected double[] getDeadlineDistribution(TopologicalOrder order, double[] runtimes, double alpha) {
         // Sanity check
         if (alpha < 0 || alpha > 1) {
             throw new RuntimeException("Invalid alpha: " + alpha + ". Valid range is [0,1].");
         }
 
-        // The level of each task is max[p in parents](p.level) + 1
-        HashMap<Task, Integer> levels = new HashMap<Task, Integer>();
-        int numlevels = 0;
-        for (Task t : order) {
-            int level = 0;
-            for (Task p : t.getParents()) {
-                int plevel = levels.get(p);
-                level = Math.max(level, plevel + 1);
-            }
-            levels.put(t, level);
-            numlevels = Math.max(numlevels, level + 1);
-        }
-
-        /*
-         * Compute:
-         * 1. Total number of tasks in DAG
-         * 2. Total number of tasks in each level
-         * 3. Total runtime of tasks in DAG
-         * 4. Total runtime of tasks in each level
-         */
-        double totalTasks = 0;
-        double[] totalTasksByLevel = new double[numlevels];
-
-        double totalRuntime = 0;
-        double[] totalRuntimesByLevel = new double[numlevels];
-
-        for (Task task : order) {
-            double runtime = runtimes.get(task);
-            int level = levels.get(task);
-
-            totalRuntime += runtime;
-            totalRuntimesByLevel[level] += runtime;
-
-            totalTasks += 1;
-            totalTasksByLevel[level] += 1;
-        }
+        // Levels of tasks and their fractions of the spare time do not
+        // depend on the deadline, they are computed once per DAG
+        DAG dag = order.getDAG();
+        TaskLevels levels = TaskLevels.of(order, runtimes);
+        int numlevels = levels.getNumLevels();
+        double[] fractions = levels.getSpareTimeFractions(alpha);
 
         /*
          * The excess time share for each level is:
@@ -182,11 +210,7 @@ public abstract class StaticAlgorithm extends HomogeneousAlgorithm implements Sc
         // subtract estimates for provisioning and deprovisioning delays
         spare = spare - getEnvironment().getVMProvisioningOverallDelayEstimation();
         for (int i = 0; i < numlevels; i++) {
-
-            double taskPart = alpha * (totalTasksByLevel[i] / totalTasks);
-            double runtimePart = (1 - alpha) * (totalRuntimesByLevel[i] / totalRuntime);
-
-            shares[i] = (taskPart + runtimePart) * spare;
+            shares[i] = fractions[i] * spare;
         }
 
         /*
@@ -194,17 +218,18 @@ public abstract class StaticAlgorithm extends HomogeneousAlgorithm implements Sc
          *
          * t.deadline = max[p in t.parents](p.deadline) + t.runtime + shares[t.level]
          */
-        HashMap<Task, Double> deadlines = new HashMap<Task, Double>();
+        double[] deadlines = new double[dag.numTasks()];
         for (Task task : order) {
-            int level = levels.get(task);
+            int index = task.getIndex();
+            int level = levels.getLevel(index);
             double latestDeadline = 0.0;
-            for (Task parent : task.getParents()) {
-                double pdeadline = deadlines.get(parent);
+            for (int parent : dag.getParentIndices(index)) {
+                double pdeadline = deadlines[parent];
                 latestDeadline = Math.max(latestDeadline, pdeadline);
             }
-            double runtime = runtimes.get(task);
+            double runtime = runtimes[index];
             double deadline = latestDeadline + runtime + shares[level];
-            deadlines.put(task, deadline);
+            deadlines[index] = deadline;
         }
 
         return deadlines;
@@ -344,6 +369,7 @@ public abstract class StaticAlgorithm extends HomogeneousAlgorithm implements Sc
         // builder class or something.
 
         Cloud cloud = new Cloud(getCloudsim());
+        cloud.setStorageManager(getEnvironment().getStorageManager());
 
         Provisioner provisioner = new NullProvisioner(getCloudsim());
         provisioner.setCloud(cloud);
@@ -362,15 +388,15 @@ public abstract class StaticAlgorithm extends HomogeneousAlgorithm implements Sc
     /**
      * Computes and returns {@link TopologicalOrder} for the given parameters.
      * @param dag DAG with tasks
-     * @param runtimes hash map of Task -> predicted runtime
+     * @param runtimes array to store predicted runtimes of tasks in, indexed by {@link Task#getIndex()}
      * @return TopologicalOrder
      * @throws NoFeasiblePlan when best critical path > deadline
      */
-    protected TopologicalOrder computeTopologicalOrder(DAG dag, HashMap<Task, Double> runtimes) throws NoFeasiblePlan {
-        TopologicalOrder order = new TopologicalOrder(dag);
+    protected TopologicalOrder computeTopologicalOrder(DAG dag, double[] runtimes) throws NoFeasiblePlan {
+        TopologicalOrder order = TopologicalOrder.of(dag);
         for (Task task : order) {
             double runtime = getPredictedTaskRuntime(task);
-            runtimes.put(task, runtime);
+            runtimes[task.getIndex()] = runtime;
         }
 
         // Make sure a plan is feasible given the deadline and available VMs
@@ -385,11 +411,12 @@ public abstract class StaticAlgorithm extends HomogeneousAlgorithm implements Sc
     }
 
     /**
-     * Creates and returns new {@link CriticalPath} object. May be overridden by subclasses to provide different
-     * implementations.
+     * Returns the {@link CriticalPath} for the given runtimes. Critical paths are memoized, so computing the same
+     * path again (e.g. for the deadline distribution or in other sweep points) is cheap. May be overridden by
+     * subclasses to provide different implementations.
      */
-    protected CriticalPath newCriticalPath(TopologicalOrder order, HashMap<Task, Double> runtimes) {
-        return new CriticalPath(order, runtimes, getEnvironment().getVMType());
+    protected CriticalPath newCriticalPath(TopologicalOrder order, double[] runtimes) {
+        return CriticalPath.of(order, runtimes);
     }
 
     /**
@@ -412,47 +439,79 @@ public abstract class StaticAlgorithm extends HomogeneousAlgorithm implements Sc
         }
     }
 
-    private static int nextresourceid = 0;
-
+    /**
+     * A resource with its schedule. Slots are added only with {@link #addSlot(Slot)}, which updates the cached start,
+     * end, cost and billing units and the index of gaps in the schedule.
+     */
     class Resource {
-        int id = nextresourceid++;
+        int id = getCloudsim().getIds().nextResourceId();
         Environment environment;
         TreeMap<Double, Slot> schedule;
+        private final GapIndex gaps;
+        private double start;
+        private double end;
+        private double cost;
+        private int fullBillingUnits;
 
         public Resource(Resource other) {
-            this(other.environment);
-            for (Double s : other.schedule.navigableKeySet()) {
-                schedule.put(s, other.schedule.get(s));
-            }
+            this.environment = other.environment;
+            this.schedule = new TreeMap<Double, Slot>(other.schedule);
+            this.gaps = new GapIndex(other.gaps);
+            this.start = other.start;
+            this.end = other.end;
+            this.cost = other.cost;
+            this.fullBillingUnits = other.fullBillingUnits;
         }
 
         public Resource(Environment environment) {
             this.environment = environment;
             this.schedule = new TreeMap<Double, Slot>();
+            this.gaps = new GapIndex();
+            updateCachedValues();
+        }
+
+        public void addSlot(Slot slot) {
+            schedule.put(slot.start, slot);
+            gaps.add(slot.start, slot.start + slot.duration);
+            updateCachedValues();
+        }
+
+        private void updateCachedValues() {
+            if (schedule.size() == 0) {
+                start = 0.0;
+                end = 0.0;
+            } else {
+                start = schedule.firstKey();
+                double last = schedule.lastKey();
+                Slot lastSlot = schedule.get(last);
+                end = last + lastSlot.duration + environment.getDeprovisioningDelayEstimation();
+            }
+            cost = getCostWith(start, end);
+            fullBillingUnits = getFullBillingUnitsWith(start, end);
         }
 
         public SortedSet<Double> getStartTimes() {
             return schedule.navigableKeySet();
         }
 
+        /**
+         * @return The start of the task in the first gap of the schedule it fits in, NaN if there is no such gap.
+         * @see GapIndex#findFirstFit(double, double, double)
+         */
+        public double findGap(double earliestStart, double runtime, double deadline) {
+            return gaps.findFirstFit(earliestStart, runtime, deadline);
+        }
+
         public double getStart() {
-            if (schedule.size() == 0) {
-                return 0.0;
-            }
-            return schedule.firstKey();
+            return start;
         }
 
         public double getEnd() {
-            if (schedule.size() == 0) {
-                return 0.0;
-            }
-            double last = schedule.lastKey();
-            Slot lastSlot = schedule.get(last);
-            return last + lastSlot.duration + environment.getDeprovisioningDelayEstimation();
+            return end;
         }
 
         public int getFullBillingUnits() {
-            return getFullBillingUnitsWith(getStart(), getEnd());
+            return fullBillingUnits;
         }
 
         public int getFullBillingUnitsWith(double start, double end) {
@@ -467,7 +526,7 @@ public abstract class StaticAlgorithm extends HomogeneousAlgorithm implements Sc
         }
 
         public double getCost() {
-            return getCostWith(getStart(), getEnd());
+            return cost;
         }
 
         public double getUtilization() {
@@ -526,23 +585,54 @@ public abstract class StaticAlgorithm extends HomogeneousAlgorithm implements Sc
         }
 
         public void addToPlan(Plan p) {
-            resource.schedule.put(slot.start, slot);
-            p.resources.add(resource);
+            if (newresource) {
+                p.addResource(resource);
+            } else {
+                resource = p.getModifiableResource(resource);
+            }
+            resource.addSlot(slot);
         }
     }
 
+    /**
+     * A plan is a list of resources. Copies of a plan share the resources with the original plan until a slot is
+     * added to them, see {@link Solution#addToPlan(Plan)}, so planning a DAG on a copy of the current plan costs only
+     * as much as the resources the DAG uses, also when the DAG is rejected.
+     */
     class Plan {
-        LinkedHashSet<Resource> resources;
+        List<Resource> resources;
+
+        /** Resources which were created or copied by this plan and can be modified */
+        private final Set<Resource> ownResources = Collections.newSetFromMap(new IdentityHashMap<Resource, Boolean>());
 
         public Plan() {
-            this.resources = new LinkedHashSet<Resource>();
+            this.resources = new ArrayList<Resource>();
         }
 
         public Plan(Plan other) {
-            this.resources = new LinkedHashSet<Resource>();
-            for (Resource r : other.resources) {
-                this.resources.add(new Resource(r));
+            this.resources = new ArrayList<Resource>(other.resources);
+        }
+
+        void addResource(Resource resource) {
+            resources.add(resource);
+            ownResources.add(resource);
+        }
+
+        /**
+         * @return The resource itself if this plan owns it, otherwise its copy which replaces it in this plan.
+         */
+        Resource getModifiableResource(Resource resource) {
+            if (ownResources.contains(resource)) {
+                return resource;
             }
+            int index = resources.indexOf(resource);
+            if (index < 0) {
+                throw new IllegalArgumentException("Resource is not in the plan");
+            }
+            Resource copy = new Resource(resource);
+            resources.set(index, copy);
+            ownResources.add(copy);
+            return copy;
         }
 
         public double getCost() {
@@ -561,4 +651,12 @@ public abstract class StaticAlgorithm extends HomogeneousAlgorithm implements Sc
             super(msg);
         }
     }
+
+    class PlanningTimeLimitExceeded extends NoFeasiblePlan {
+        private static final long serialVersionUID = 1L;
+
+        public PlanningTimeLimitExceeded() {
+            super("Planning time limit exceeded");
+        }
+    }
 }
@@ -3,12 +3,8 @@ package cws.core.algorithms;
 import cws.core.cloudsim.CloudSimWrapper;
 import cws.core.dag.DAG;
 import cws.core.dag.Task;
-import cws.core.dag.algorithms.CriticalPath;
-import cws.core.dag.algorithms.StorageAwareCriticalPath;
-import cws.core.dag.algorithms.TopologicalOrder;
 import cws.core.engine.Environment;
 
-import java.util.HashMap;
 import java.util.List;
 
 /**
@@ -22,13 +18,6 @@ public class StorageAwareSPSS extends SPSS {
         super(budget, deadline, dags, alpha, ensembleStatistics, environment, cloudsim);
     }
 
-    @Override
-    protected CriticalPath newCriticalPath(TopologicalOrder order, HashMap<Task, Double> runtimes) {
-        return new StorageAwareCriticalPath(order, runtimes,
-                getEnvironment().getVMType(),
-                getEnvironment().getStorageManager());
-    }
-
     @Override
     protected double getPredictedTaskRuntime(Task task) {
         return getEnvironment().getComputationPredictedRuntime(task)
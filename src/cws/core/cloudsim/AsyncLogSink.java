@@ -0,0 +1,261 @@
+package cws.core.cloudsim;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Log sink which writes the lines of {@link PrintStreamLogSink} to the stream in a background thread.
+ *
+ * Lines are appended to fixed-size blocks which circulate in a ring: the simulation fills a block and hands it to the
+ * writer thread, which writes it to the stream with a single call and returns it. The memory used is bounded by the
+ * number of blocks; when all of them wait to be written, the simulation blocks until the writer catches up, so no line
+ * is ever lost.
+ *
+ * {@link #flush()} waits until all the lines logged so far are written, it is called by
+ * {@link CloudSimWrapper#startSimulation()} after the entities are shut down. {@link #close()} also stops the writer
+ * thread and closes the stream.
+ */
+public class AsyncLogSink implements LogSink, Closeable {
+    /** Default size of a block */
+    public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+    /** Default number of blocks */
+    public static final int DEFAULT_BLOCKS = 16;
+
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+    /** Tells the writer thread to stop */
+    private static final Block STOP = new Block(0);
+
+    private final OutputStream out;
+    private final Charset charset = Charset.defaultCharset();
+    private final int blockSize;
+
+    /** Blocks which can be filled */
+    private final BlockingQueue<Block> free;
+
+    /** Blocks which wait to be written */
+    private final BlockingQueue<Block> full;
+
+    private final Thread writer;
+
+    /** The block being filled */
+    private Block current;
+
+    /** Number of blocks handed to the writer, used only by the logging thread */
+    private long submitted;
+
+    /** Number of blocks written */
+    private long written;
+
+    /** The first error of the writer thread */
+    private volatile IOException error;
+
+    private boolean closed;
+
+    private static class Block {
+        final byte[] data;
+        int length;
+
+        Block(int size) {
+            this.data = new byte[size];
+        }
+    }
+
+    public AsyncLogSink(OutputStream out) {
+        this(out, DEFAULT_BLOCK_SIZE, DEFAULT_BLOCKS);
+    }
+
+    /**
+     * @param out - the stream to write to.
+     * @param blockSize - size of a block in bytes. Lines longer than a block are written separately.
+     * @param blocks - number of blocks, i.e. the memory used is blockSize * blocks.
+     */
+    public AsyncLogSink(OutputStream out, int blockSize, int blocks) {
+        if (blockSize <= 0 || blocks < 2) {
+            throw new IllegalArgumentException("At least two blocks of positive size are required");
+        }
+        this.out = out;
+        this.blockSize = blockSize;
+        this.free = new ArrayBlockingQueue<Block>(blocks);
+        this.full = new ArrayBlockingQueue<Block>(blocks + 1);
+        for (int i = 1; i < blocks; i++) {
+            free.add(new Block(blockSize));
+        }
+        this.current = new Block(blockSize);
+        this.writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeBlocks();
+            }
+        }, "AsyncLogSink");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void log(double time, String message) {
+        checkError();
+        if (closed) {
+            throw new IllegalStateException("Log sink is closed");
+        }
+        if (!Double.isNaN(time)) {
+            append("(");
+            append(Double.toString(time));
+            append(") ");
+        }
+        append(message);
+        append(LINE_SEPARATOR);
+    }
+
+    /**
+     * Appends the string to the current block. ASCII strings are copied directly, other strings are encoded.
+     */
+    private void append(String s) {
+        int length = s.length();
+        if (current.length + length <= blockSize) {
+            byte[] data = current.data;
+            int pos = current.length;
+            int i = 0;
+            for (; i < length; i++) {
+                char c = s.charAt(i);
+                if (c >= 0x80) {
+                    break;
+                }
+                data[pos + i] = (byte) c;
+            }
+            if (i == length) {
+                current.length += length;
+                return;
+            }
+        }
+        append(s.getBytes(charset));
+    }
+
+    private void append(byte[] bytes) {
+        if (current.length + bytes.length > blockSize) {
+            submit();
+        }
+        if (bytes.length > blockSize) {
+            Block large = new Block(bytes.length);
+            System.arraycopy(bytes, 0, large.data, 0, bytes.length);
+            large.length = bytes.length;
+            put(full, large);
+            submitted++;
+        } else {
+            System.arraycopy(bytes, 0, current.data, current.length, bytes.length);
+            current.length += bytes.length;
+        }
+    }
+
+    /**
+     * Hands the current block to the writer and takes a free one, waiting for the writer if there is none.
+     */
+    private void submit() {
+        if (current.length == 0) {
+            return;
+        }
+        put(full, current);
+        submitted++;
+        try {
+            current = free.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the log writer", e);
+        }
+        current.length = 0;
+    }
+
+    private static void put(BlockingQueue<Block> queue, Block block) {
+        try {
+            queue.put(block);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for the log writer", e);
+        }
+    }
+
+    private void writeBlocks() {
+        try {
+            while (true) {
+                Block block = full.take();
+                if (block == STOP) {
+                    return;
+                }
+                try {
+                    if (error == null) {
+                        out.write(block.data, 0, block.length);
+                        if (full.isEmpty()) {
+                            out.flush();
+                        }
+                    }
+                } catch (IOException e) {
+                    error = e;
+                }
+                if (block.data.length == blockSize) {
+                    free.add(block);
+                }
+                synchronized (this) {
+                    written++;
+                    notifyAll();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Waits until all the lines logged so far are written to the stream.
+     */
+    @Override
+    public void flush() {
+        if (closed) {
+            return;
+        }
+        submit();
+        synchronized (this) {
+            while (written < submitted && writer.isAlive()) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while waiting for the log writer", e);
+                }
+            }
+        }
+        checkError();
+    }
+
+    /**
+     * Writes all the lines, stops the writer thread and closes the stream.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            closed = true;
+            put(full, STOP);
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            out.close();
+        }
+    }
+
+    private void checkError() {
+        if (error != null) {
+            throw new RuntimeException("Unable to write log", error);
+        }
+    }
+}
@@ -1,46 +1,55 @@
 package cws.core.cloudsim;
 
-import org.cloudbus.cloudsim.core.SimEntity;
-import org.cloudbus.cloudsim.core.SimEvent;
-
 import com.google.common.base.Preconditions;
 
-public abstract class CWSSimEntity extends SimEntity {
+/**
+ * Base class of all the simulation entities. Entities register themselves in the given simulation on creation and
+ * receive events sent to their id in {@link #processEvent(CWSSimEvent)}.
+ */
+public abstract class CWSSimEntity {
+
+    private final String name;
 
     private final CloudSimWrapper cloudsim;
 
+    private int id = -1;
+
     public CWSSimEntity(String name, CloudSimWrapper cloudsim) {
-        super(name);
         Preconditions.checkNotNull(cloudsim);
+        Preconditions.checkArgument(name.indexOf(' ') == -1, "Entity names can't contain spaces.");
+        this.name = name;
         this.cloudsim = cloudsim;
+        cloudsim.addEntity(this);
     }
 
     public CloudSimWrapper getCloudsim() {
         return cloudsim;
     }
 
-    @Deprecated
-    @Override
-    protected void send(int entityId, double delay, int cloudSimTag) {
-        super.send(entityId, delay, cloudSimTag);
+    public int getId() {
+        return id;
     }
 
-    @Deprecated
-    @Override
-    protected void send(int entityId, double delay, int cloudSimTag, Object data) {
-        super.send(entityId, delay, cloudSimTag, data);
+    void setId(int id) {
+        this.id = id;
     }
 
-    @Deprecated
-    @Override
-    protected void send(String entityName, double delay, int cloudSimTag, Object data) {
-        super.send(entityName, delay, cloudSimTag, data);
+    public String getName() {
+        return name;
     }
 
-    @Deprecated
-    @Override
-    protected void send(String entityName, double delay, int cloudSimTag) {
-        super.send(entityName, delay, cloudSimTag);
+    /**
+     * Sends an event to the given entity with no delay.
+     */
+    protected void sendNow(int entityId, int cloudSimTag) {
+        cloudsim.send(getId(), entityId, 0.0, cloudSimTag, null);
+    }
+
+    /**
+     * Sends an event with the given data to the given entity with no delay.
+     */
+    protected void sendNow(int entityId, int cloudSimTag, Object data) {
+        cloudsim.send(getId(), entityId, 0.0, cloudSimTag, data);
     }
 
     /**
@@ -50,26 +59,18 @@ public abstract class CWSSimEntity extends SimEntity {
         // Do nothing by default
     }
 
-    @Deprecated
-    @Override
-    public final void processEvent(SimEvent ev) {
-        processEvent(new CWSSimEvent(ev));
-    }
-
     /**
-     * This is overridden and does nothing by default, because almost everywhere we do nothing in this method.
-     * @see SimEntity#startEntity()
+     * Called when the simulation starts, or right away if the entity was created while the simulation was running.
+     * This does nothing by default, because almost everywhere we do nothing in this method.
      */
-    @Override
     public void startEntity() {
         // Do nothing by default
     }
 
     /**
-     * This is overridden and does nothing by default, because almost everywhere we do nothing in this method.
-     * @see SimEntity#shutdownEntity()
+     * Called when the simulation finishes. This does nothing by default, because almost everywhere we do nothing in
+     * this method.
      */
-    @Override
     public void shutdownEntity() {
         // Do nothing by default
     }
@@ -1,127 +1,88 @@
 package cws.core.cloudsim;
 
-import org.cloudbus.cloudsim.core.SimEvent;
-
-public class CWSSimEvent {
-    private SimEvent simEvent;
-
-    public CWSSimEvent(SimEvent simEvent) {
-        this.simEvent = simEvent;
+/**
+ * An event scheduled in the simulation kernel of a {@link CloudSimWrapper}. Events are ordered by their time and then
+ * by the order they were scheduled in.
+ */
+public class CWSSimEvent implements Comparable<CWSSimEvent> {
+    /** A message sent from one entity to another */
+    static final int SEND = 1;
+
+    /** Starts an entity which was created while the simulation was running */
+    static final int CREATE = 3;
+
+    private final int type;
+    private final double time;
+    private final long serial;
+    private int source;
+    private int destination;
+    private final int tag;
+    private final Object data;
+    private boolean cancelled;
+
+    CWSSimEvent(int type, double time, long serial, int source, int destination, int tag, Object data) {
+        this.type = type;
+        this.time = time;
+        this.serial = serial;
+        this.source = source;
+        this.destination = destination;
+        this.tag = tag;
+        this.data = data;
     }
 
-    /**
-     * @return
-     * @see org.cloudbus.cloudsim.core.SimEvent#toString()
-     */
     @Override
     public String toString() {
-        return simEvent.toString();
+        return "Event tag = " + tag + " source = " + source + " destination = " + destination;
     }
 
-    /**
-     * @return
-     * @see org.cloudbus.cloudsim.core.SimEvent#getType()
-     */
     public int getType() {
-        return simEvent.getType();
+        return type;
     }
 
-    /**
-     * @param event
-     * @return
-     * @see org.cloudbus.cloudsim.core.SimEvent#compareTo(org.cloudbus.cloudsim.core.SimEvent)
-     */
-    public int compareTo(SimEvent event) {
-        return simEvent.compareTo(event);
+    @Override
+    public int compareTo(CWSSimEvent event) {
+        if (time != event.time) {
+            return time < event.time ? -1 : 1;
+        }
+        return serial < event.serial ? -1 : (serial == event.serial ? 0 : 1);
     }
 
-    /**
-     * @return
-     * @see org.cloudbus.cloudsim.core.SimEvent#getDestination()
-     */
     public int getDestination() {
-        return simEvent.getDestination();
+        return destination;
     }
 
-    /**
-     * @return
-     * @see org.cloudbus.cloudsim.core.SimEvent#getSource()
-     */
     public int getSource() {
-        return simEvent.getSource();
+        return source;
     }
 
-    /**
-     * @return
-     * @see org.cloudbus.cloudsim.core.SimEvent#eventTime()
-     */
     public double eventTime() {
-        return simEvent.eventTime();
+        return time;
     }
 
-    /**
-     * @return
-     * @see org.cloudbus.cloudsim.core.SimEvent#endWaitingTime()
-     */
-    public double endWaitingTime() {
-        return simEvent.endWaitingTime();
-    }
-
-    /**
-     * @return
-     * @see org.cloudbus.cloudsim.core.SimEvent#type()
-     */
-    public int type() {
-        return simEvent.type();
-    }
-
-    /**
-     * @return
-     * @see org.cloudbus.cloudsim.core.SimEvent#scheduledBy()
-     */
-    public int scheduledBy() {
-        return simEvent.scheduledBy();
-    }
-
-    /**
-     * @return
-     * @see org.cloudbus.cloudsim.core.SimEvent#getTag()
-     */
     public int getTag() {
-        return simEvent.getTag();
+        return tag;
     }
 
-    /**
-     * @return
-     * @see org.cloudbus.cloudsim.core.SimEvent#getData()
-     */
     public Object getData() {
-        return simEvent.getData();
+        return data;
     }
 
     /**
-     * @return
-     * @see org.cloudbus.cloudsim.core.SimEvent#clone()
+     * @return Whether the event was cancelled, see {@link CloudSimWrapper#cancel(CWSSimEvent)}.
      */
-    @Override
-    public Object clone() {
-        return simEvent.clone();
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    void cancel() {
+        cancelled = true;
     }
 
-    /**
-     * @param s
-     * @see org.cloudbus.cloudsim.core.SimEvent#setSource(int)
-     */
     public void setSource(int s) {
-        simEvent.setSource(s);
+        this.source = s;
     }
 
-    /**
-     * @param d
-     * @see org.cloudbus.cloudsim.core.SimEvent#setDestination(int)
-     */
     public void setDestination(int d) {
-        simEvent.setDestination(d);
+        this.destination = d;
     }
-
 }
@@ -2,33 +2,54 @@ package cws.core.cloudsim;
 
 import java.io.OutputStream;
 import java.io.PrintStream;
-import java.util.Calendar;
+import java.util.List;
 
-import org.cloudbus.cloudsim.core.CloudSim;
-import org.cloudbus.cloudsim.core.predicates.Predicate;
+import com.google.common.base.Predicate;
+
+import cws.core.FailureModel;
+import cws.core.jobs.IdentityRuntimeDistribution;
+import cws.core.jobs.RuntimeDistribution;
 
 /**
- * Wrapper for CloudSim class. Why did we need this class? Because CloudSim has only static methods and we wanted to
- * make code more testable, hence we have created this class.
+ * A single simulation. It used to wrap the static CloudSim class to make the code more testable, now every instance
+ * owns its own {@link SimulationKernel}, so many simulations can run at the same time.
  */
 public class CloudSimWrapper {
+    /** The kernel running this simulation */
+    private SimulationKernel kernel = new SimulationKernel();
+
+    /** Ids of the objects created in this simulation */
+    private IdGenerator ids = new IdGenerator();
+
     /** Simulation wall start time in nanos */
     private long simulationStartWallTime;
 
     /** Simulation wall finish time in nanos */
     private long simulationFinishWallTime;
 
-    /** The input stream to write logs to */
-    private PrintStream logPrintStream;
+    /** The sink to write logs to, or null */
+    private final LogSink logSink;
+
+    /** Whether messages are written, i.e. logging is enabled and there is a sink */
+    private boolean logging;
+
+    /** The sink to write the trace to, or null */
+    private TraceSink traceSink;
 
-    /** Whether logging is enabled. Defaults to true. */
-    private boolean logsEnabled = true;
+    /** Statistics of the kernel, or null if they are not collected */
+    private KernelStatistics kernelStatistics;
+
+    /** Runtime distribution of the VMs of this simulation, with its own random generator */
+    private RuntimeDistribution runtimeDistribution = new IdentityRuntimeDistribution();
+
+    /** Failure model of the VMs of this simulation, with its own random generator */
+    private FailureModel failureModel = new FailureModel(0, 0.0);
 
     /**
      * Creates CloudSimWrapper which prints logs to stdout.
      */
     public CloudSimWrapper() {
-        logPrintStream = System.out;
+        this(new PrintStreamLogSink(System.out));
     }
 
     /**
@@ -36,59 +57,135 @@ public class CloudSimWrapper {
      * @param logOutputStream The stream to print logs to.
      */
     public CloudSimWrapper(OutputStream logOutputStream) {
-        this.logPrintStream = new PrintStream(logOutputStream);
+        this(new PrintStreamLogSink(new PrintStream(logOutputStream)));
+    }
+
+    /**
+     * Creates CloudSimWrapper which writes logs to the given sink.
+     * @param logSink The sink to write logs to, or null to disable logging.
+     */
+    public CloudSimWrapper(LogSink logSink) {
+        this.logSink = logSink;
+        this.logging = logSink != null;
     }
 
     /**
-     * @see CloudSim#clock()
+     * @return The current simulation time.
      */
     public double clock() {
-        return CloudSim.clock();
+        return kernel.clock();
     }
 
     /**
-     * @see CloudSim#cancelAll(int, Predicate)
+     * Removes all the future events sent by the given entity that match the predicate.
      */
-    public void cancelAll(int src, Predicate p) {
-        CloudSim.cancelAll(src, p);
+    public void cancelAll(int src, Predicate<CWSSimEvent> p) {
+        kernel.cancelAll(src, p);
     }
 
     /**
-     * Calls {@link CloudSim#init(int, Calendar, boolean)} with params 1, null, false.
-     * @see CloudSim#init(int, Calendar, boolean)
+     * Starts a new simulation, forgetting all the entities and events of the previous one.
      */
     public void init() {
-        CloudSim.init(1, null, false);
+        kernel = new SimulationKernel();
+        ids = new IdGenerator();
+        if (kernelStatistics != null) {
+            kernelStatistics = new KernelStatistics();
+            kernel.setStatistics(kernelStatistics);
+        }
+    }
+
+    public RuntimeDistribution getRuntimeDistribution() {
+        return runtimeDistribution;
+    }
+
+    public void setRuntimeDistribution(RuntimeDistribution runtimeDistribution) {
+        this.runtimeDistribution = runtimeDistribution;
+    }
+
+    public FailureModel getFailureModel() {
+        return failureModel;
+    }
+
+    public void setFailureModel(FailureModel failureModel) {
+        this.failureModel = failureModel;
     }
 
     /**
-     * @see CloudSim#startSimulation()
+     * @return The generator of ids of the objects created in this simulation.
      */
-    public void startSimulation() {
+    public IdGenerator getIds() {
+        return ids;
+    }
+
+    /**
+     * Runs the simulation until there are no more events. The log is flushed after the entities are shut down.
+     * @return The time of the last event.
+     */
+    public double startSimulation() {
         simulationStartWallTime = System.nanoTime();
-        CloudSim.startSimulation();
+        double lastEventTime = kernel.run();
         simulationFinishWallTime = System.nanoTime();
+        if (kernelStatistics != null) {
+            kernelStatistics.simulationFinished(lastEventTime, simulationFinishWallTime - simulationStartWallTime);
+        }
+        if (logSink != null) {
+            logSink.flush();
+        }
+        return lastEventTime;
     }
 
     /**
-     * @see CloudSim#getEntityId(String)
+     * Registers the entity in the simulation. It is called by {@link CWSSimEntity} constructor.
+     */
+    public void addEntity(CWSSimEntity entity) {
+        entity.setId(kernel.addEntity(entity));
+    }
+
+    /**
+     * @return The id of the entity with the given name or -1 if there is no such entity.
      */
     public int getEntityId(String entityName) {
-        return CloudSim.getEntityId(entityName);
+        CWSSimEntity entity = kernel.getEntity(entityName);
+        return entity == null ? -1 : entity.getId();
     }
 
     /**
-     * @see CloudSim#getEntity(String)
+     * @return The entity with the given name or null if there is no such entity.
      */
     public Object getEntityByName(String name) {
-        return CloudSim.getEntity(name);
+        return kernel.getEntity(name);
+    }
+
+    /**
+     * @return All the entities of this simulation, entity id is the index in this list.
+     */
+    public List<CWSSimEntity> getEntities() {
+        return kernel.getEntities();
     }
 
     /**
-     * @see CloudSim#send(int, int, double, int, Object)
+     * Sends an event to the dest entity which will be received after the given delay.
      */
     public void send(int src, int dest, double delay, int tag, Object data) {
-        CloudSim.send(src, dest, delay, tag, data);
+        kernel.send(src, dest, delay, tag, data);
+    }
+
+    /**
+     * Sends the event like {@link #send(int, int, double, int, Object)} does.
+     * @return The sent event, to be passed to {@link #cancel(CWSSimEvent)}.
+     */
+    public CWSSimEvent sendCancellable(int src, int dest, double delay, int tag, Object data) {
+        return kernel.send(src, dest, delay, tag, data);
+    }
+
+    /**
+     * Cancels the event returned by {@link #sendCancellable(int, int, double, int, Object)} in constant time, unlike
+     * {@link #cancelAll(int, Predicate)} which scans all the future events. An event which is already due is still
+     * delivered, so its receiver has to recognize it.
+     */
+    public void cancel(CWSSimEvent ev) {
+        kernel.cancel(ev);
     }
 
     /**
@@ -117,20 +214,70 @@ public class CloudSimWrapper {
      * @param msg The message to logs.
      */
     public void log(String msg) {
-        if (logsEnabled) {
-            if (CloudSim.running()) {
-                logPrintStream.println("(" + clock() + ") " + msg);
-            } else {
-                logPrintStream.println(msg);
-            }
+        if (logging) {
+            logSink.log(kernel.isRunning() ? clock() : Double.NaN, msg);
         }
     }
 
+    /**
+     * Starts a message which is formatted only if logging is enabled, see {@link LogMessage}. Prefer it to
+     * {@link #log(String)} when the message has to be built. The method is final, so that mocked simulations
+     * return a disabled message.
+     * @param format The format of the message, see {@link String#format(String, Object...)}.
+     */
+    public final LogMessage logMessage(String format) {
+        return logging ? new LogMessage(this, format) : LogMessage.DISABLED;
+    }
+
+    /**
+     * @return Whether logged messages are written anywhere. Check it before building expensive messages.
+     */
+    public boolean isLogEnabled() {
+        return logging;
+    }
+
+    /**
+     * @return Whether a trace is written, see {@link #getTraceSink()}.
+     */
+    public boolean isTracing() {
+        return traceSink != null;
+    }
+
+    /**
+     * @return The sink to write the trace of this simulation to, or null if the trace is not written.
+     */
+    public TraceSink getTraceSink() {
+        return traceSink;
+    }
+
+    /**
+     * @param traceSink The sink to write the trace of this simulation to, or null to not write it.
+     */
+    public void setTraceSink(TraceSink traceSink) {
+        this.traceSink = traceSink;
+    }
+
+    /**
+     * @param enabled Whether to collect {@link KernelStatistics} of this simulation. Set it before the entities are
+     *            created, as the statistics are reset by {@link #init()}.
+     */
+    public void setKernelStatisticsEnabled(boolean enabled) {
+        kernelStatistics = enabled ? new KernelStatistics() : null;
+        kernel.setStatistics(kernelStatistics);
+    }
+
+    /**
+     * @return Statistics of the kernel, or null if they are not collected.
+     */
+    public KernelStatistics getKernelStatistics() {
+        return kernelStatistics;
+    }
+
     /**
      * @param logsEnabled Whether logging should be enabled.
      */
     public void setLogsEnabled(boolean logsEnabled) {
-        this.logsEnabled = logsEnabled;
+        this.logging = logsEnabled && logSink != null;
     }
 
     /**
@@ -0,0 +1,52 @@
+package cws.core.cloudsim;
+
+/**
+ * Allocates ids of the objects created in a single simulation. Every simulation has its own generator (see
+ * {@link CloudSimWrapper#getIds()}), so ids always start from 0 and do not depend on other simulations run in the same
+ * JVM. A simulation runs on a single thread, so no synchronization is needed.
+ */
+public class IdGenerator {
+    private int nextVMId = 0;
+    private int nextJobId = 0;
+    private long nextTransferId = 0;
+    private int nextGlobalStorageTransferId = 0;
+    private int nextWorkflowEngineId = 0;
+    private int nextResourceId = 0;
+    private int nextPortId = 0;
+    private int nextLinkId = 0;
+
+    public int nextVMId() {
+        return nextVMId++;
+    }
+
+    public int nextJobId() {
+        return nextJobId++;
+    }
+
+    public long nextTransferId() {
+        return nextTransferId++;
+    }
+
+    public int nextGlobalStorageTransferId() {
+        return nextGlobalStorageTransferId++;
+    }
+
+    public int nextWorkflowEngineId() {
+        return nextWorkflowEngineId++;
+    }
+
+    /**
+     * @return The id of the next resource of a static algorithm's plan.
+     */
+    public int nextResourceId() {
+        return nextResourceId++;
+    }
+
+    public int nextPortId() {
+        return nextPortId++;
+    }
+
+    public int nextLinkId() {
+        return nextLinkId++;
+    }
+}
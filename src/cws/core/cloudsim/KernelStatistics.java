@@ -0,0 +1,135 @@
+package cws.core.cloudsim;
+
+import java.util.Arrays;
+
+/**
+ * Instrumentation of a {@link SimulationKernel}: the number of events processed per tag and per entity, the wall time
+ * spent in every entity's {@link CWSSimEntity#processEvent(CWSSimEvent)}, the high-water mark of the future event
+ * queue and the speed of the simulation.
+ *
+ * It is collected only when enabled with {@link CloudSimWrapper#setKernelStatisticsEnabled(boolean)}, because timing
+ * every event is not free.
+ */
+public class KernelStatistics {
+    /** Events processed, indexed by tag */
+    private long[] eventsByTag = new long[64];
+
+    /** Events processed, indexed by entity id */
+    private long[] eventsByEntity = new long[64];
+
+    /** Nanos spent processing events, indexed by entity id */
+    private long[] nanosByEntity = new long[64];
+
+    private long events;
+
+    private int maxFutureQueueSize;
+
+    /** Simulated seconds, i.e. the time of the last event */
+    private double simulatedTime;
+
+    /** Wall time of the simulation in nanos */
+    private long wallTime;
+
+    void eventProcessed(int entity, int tag, long nanos) {
+        events++;
+        if (tag >= 0) {
+            if (tag >= eventsByTag.length) {
+                eventsByTag = Arrays.copyOf(eventsByTag, Math.max(tag + 1, eventsByTag.length * 2));
+            }
+            eventsByTag[tag]++;
+        }
+        if (entity >= eventsByEntity.length) {
+            int length = Math.max(entity + 1, eventsByEntity.length * 2);
+            eventsByEntity = Arrays.copyOf(eventsByEntity, length);
+            nanosByEntity = Arrays.copyOf(nanosByEntity, length);
+        }
+        eventsByEntity[entity]++;
+        nanosByEntity[entity] += nanos;
+    }
+
+    void futureQueueSize(int size) {
+        if (size > maxFutureQueueSize) {
+            maxFutureQueueSize = size;
+        }
+    }
+
+    void simulationFinished(double simulatedTime, long wallTime) {
+        this.simulatedTime = simulatedTime;
+        this.wallTime = wallTime;
+    }
+
+    /**
+     * @return The total number of events processed by the entities.
+     */
+    public long getEvents() {
+        return events;
+    }
+
+    /**
+     * @return The number of events with the given tag processed by the entities. Events with negative tags are only
+     *         counted in the totals.
+     */
+    public long getEvents(int tag) {
+        return tag >= 0 && tag < eventsByTag.length ? eventsByTag[tag] : 0;
+    }
+
+    /**
+     * @return One more than the greatest tag of a processed event.
+     */
+    public int getTagLimit() {
+        int limit = eventsByTag.length;
+        while (limit > 0 && eventsByTag[limit - 1] == 0) {
+            limit--;
+        }
+        return limit;
+    }
+
+    /**
+     * @return The number of events processed by the entity with the given id.
+     */
+    public long getEntityEvents(int entity) {
+        return entity < eventsByEntity.length ? eventsByEntity[entity] : 0;
+    }
+
+    /**
+     * @return The wall time in nanos spent processing the events of the entity with the given id.
+     */
+    public long getEntityNanos(int entity) {
+        return entity < nanosByEntity.length ? nanosByEntity[entity] : 0;
+    }
+
+    /**
+     * @return The greatest number of events waiting in the future event queue.
+     */
+    public int getMaxFutureQueueSize() {
+        return maxFutureQueueSize;
+    }
+
+    /**
+     * @return The time of the last event of the simulation.
+     */
+    public double getSimulatedTime() {
+        return simulatedTime;
+    }
+
+    /**
+     * @return The wall time of the simulation in nanos.
+     */
+    public long getWallTime() {
+        return wallTime;
+    }
+
+    /**
+     * @return Simulated seconds per wall second, or 0 if the simulation has not run.
+     */
+    public double getSimulationSpeed() {
+        return wallTime > 0 ? simulatedTime / (wallTime / 1.0e9) : 0.0;
+    }
+
+    /**
+     * @return Events processed per wall second, or 0 if the simulation has not run.
+     */
+    public double getEventRate() {
+        return wallTime > 0 ? events / (wallTime / 1.0e9) : 0.0;
+    }
+}
@@ -0,0 +1,133 @@
+package cws.core.cloudsim;
+
+import java.util.Arrays;
+
+/**
+ * A log message with typed arguments, which is formatted with {@link String#format(String, Object...)} only when it is
+ * logged. Use it on hot paths instead of building the message with {@link String#format(String, Object...)} or string
+ * concatenation:
+ *
+ * <pre>
+ * getCloudsim().logMessage(&quot;VM %d with %d cores started&quot;).arg(getId()).arg(cores).log();
+ * </pre>
+ *
+ * When logging is disabled, {@link CloudSimWrapper#logMessage(String)} returns a message which ignores its arguments,
+ * so the call neither formats nor allocates anything. When logging is enabled, every call returns a new message, so
+ * messages can be built while other messages are logged (e.g. by the arguments' toString()).
+ */
+public class LogMessage {
+    private static final byte LONG = 0;
+    private static final byte INT = 1;
+    private static final byte DOUBLE = 2;
+    private static final byte BOOLEAN = 3;
+    private static final byte OBJECT = 4;
+
+    /** The message returned when logging is disabled */
+    static final LogMessage DISABLED = new LogMessage(null, null);
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private final CloudSimWrapper cloudsim;
+    private final String format;
+
+    /** Arguments are kept unboxed until the message is formatted */
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private long[] longs = new long[INITIAL_CAPACITY];
+    private double[] doubles = new double[INITIAL_CAPACITY];
+    private Object[] objects = new Object[INITIAL_CAPACITY];
+    private int size;
+
+    LogMessage(CloudSimWrapper cloudsim, String format) {
+        this.cloudsim = cloudsim;
+        this.format = format;
+    }
+
+    public LogMessage arg(int value) {
+        if (cloudsim != null) {
+            add(INT).longs[size - 1] = value;
+        }
+        return this;
+    }
+
+    public LogMessage arg(long value) {
+        if (cloudsim != null) {
+            add(LONG).longs[size - 1] = value;
+        }
+        return this;
+    }
+
+    public LogMessage arg(double value) {
+        if (cloudsim != null) {
+            add(DOUBLE).doubles[size - 1] = value;
+        }
+        return this;
+    }
+
+    public LogMessage arg(boolean value) {
+        if (cloudsim != null) {
+            add(BOOLEAN).longs[size - 1] = value ? 1 : 0;
+        }
+        return this;
+    }
+
+    /**
+     * Adds an object argument. Its toString() is called only when the message is logged.
+     */
+    public LogMessage arg(Object value) {
+        if (cloudsim != null) {
+            add(OBJECT).objects[size - 1] = value;
+        }
+        return this;
+    }
+
+    private LogMessage add(byte type) {
+        if (size == types.length) {
+            types = Arrays.copyOf(types, size * 2);
+            longs = Arrays.copyOf(longs, size * 2);
+            doubles = Arrays.copyOf(doubles, size * 2);
+            objects = Arrays.copyOf(objects, size * 2);
+        }
+        types[size++] = type;
+        return this;
+    }
+
+    /**
+     * Formats the message and logs it.
+     */
+    public void log() {
+        if (cloudsim != null) {
+            cloudsim.log(toString());
+        }
+    }
+
+    /**
+     * @return The formatted message.
+     */
+    @Override
+    public String toString() {
+        if (cloudsim == null) {
+            return "";
+        }
+        Object[] args = new Object[size];
+        for (int i = 0; i < size; i++) {
+            switch (types[i]) {
+            case LONG:
+                args[i] = longs[i];
+                break;
+            case INT:
+                args[i] = (int) longs[i];
+                break;
+            case DOUBLE:
+                args[i] = doubles[i];
+                break;
+            case BOOLEAN:
+                args[i] = longs[i] != 0;
+                break;
+            default:
+                args[i] = objects[i];
+                break;
+            }
+        }
+        return String.format(format, args);
+    }
+}
@@ -0,0 +1,18 @@
+package cws.core.cloudsim;
+
+/**
+ * Destination of the log messages of a simulation, see {@link CloudSimWrapper#log(String)}.
+ */
+public interface LogSink {
+    /**
+     * Writes the message to the log.
+     * @param time - the simulation time of the message or {@link Double#NaN} if the simulation is not running.
+     * @param message - the message.
+     */
+    void log(double time, String message);
+
+    /**
+     * Writes all the messages logged so far.
+     */
+    void flush();
+}
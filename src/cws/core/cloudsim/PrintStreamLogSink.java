@@ -0,0 +1,28 @@
+package cws.core.cloudsim;
+
+import java.io.PrintStream;
+
+/**
+ * Prints every message on a separate line, prefixed with the simulation time in parentheses.
+ */
+public class PrintStreamLogSink implements LogSink {
+    private final PrintStream out;
+
+    public PrintStreamLogSink(PrintStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void log(double time, String message) {
+        if (Double.isNaN(time)) {
+            out.println(message);
+        } else {
+            out.println("(" + time + ") " + message);
+        }
+    }
+
+    @Override
+    public void flush() {
+        out.flush();
+    }
+}
@@ -0,0 +1,223 @@
+package cws.core.cloudsim;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Predicate;
+
+/**
+ * Discrete-event simulation kernel of a single simulation. It has its own clock, future event queue and entity
+ * registry, so any number of simulations can run at the same time.
+ *
+ * Events are delivered in the same order as in CloudSim: in every clock tick each entity, in the order of ids,
+ * processes all its events which are due. Then all the future events with the earliest time become due and the clock
+ * advances to their time. Events sent in the meantime (even with no delay) are processed in one of the next ticks.
+ */
+class SimulationKernel {
+    /** Registered entities, entity id is the index in this list */
+    private final List<CWSSimEntity> entities = new ArrayList<CWSSimEntity>();
+
+    private final Map<String, CWSSimEntity> entitiesByName = new HashMap<String, CWSSimEntity>();
+
+    /** Events which are not due yet, ordered by time and serial */
+    private final PriorityQueue<CWSSimEvent> future = new PriorityQueue<CWSSimEvent>();
+
+    /** Due events of every entity, in the order they were sent */
+    private final List<ArrayDeque<CWSSimEvent>> deferred = new ArrayList<ArrayDeque<CWSSimEvent>>();
+
+    /** Ids of entities which have due events */
+    private final BitSet entitiesWithDeferredEvents = new BitSet();
+
+    /** Serial number of the next scheduled event, it breaks ties between events with the same time */
+    private long serial;
+
+    private double clock;
+
+    private boolean running;
+
+    /** Collected statistics, or null if they are not collected */
+    private KernelStatistics statistics;
+
+    public double clock() {
+        return clock;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Registers the entity and returns its id. Entities added while the simulation is running are started at the
+     * current time.
+     */
+    public int addEntity(CWSSimEntity entity) {
+        int id = entities.size();
+        entities.add(entity);
+        entitiesByName.put(entity.getName(), entity);
+        deferred.add(new ArrayDeque<CWSSimEvent>());
+        if (running) {
+            schedule(CWSSimEvent.CREATE, id, id, 0.0, 0, entity);
+        }
+        return id;
+    }
+
+    public CWSSimEntity getEntity(String name) {
+        return entitiesByName.get(name);
+    }
+
+    /**
+     * @return Registered entities, entity id is the index in this list.
+     */
+    public List<CWSSimEntity> getEntities() {
+        return Collections.unmodifiableList(entities);
+    }
+
+    /**
+     * @param statistics Where to collect statistics of the processed events, or null to not collect them.
+     */
+    public void setStatistics(KernelStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    /**
+     * @return The sent event, which can be passed to {@link #cancel(CWSSimEvent)}.
+     */
+    public CWSSimEvent send(int src, int dest, double delay, int tag, Object data) {
+        Preconditions.checkArgument(delay >= 0.0, "Send delay can't be negative.");
+        return schedule(CWSSimEvent.SEND, src, dest, delay, tag, data);
+    }
+
+    private CWSSimEvent schedule(int type, int src, int dest, double delay, int tag, Object data) {
+        CWSSimEvent ev = new CWSSimEvent(type, clock + delay, serial++, src, dest, tag, data);
+        future.add(ev);
+        if (statistics != null) {
+            statistics.futureQueueSize(future.size());
+        }
+        return ev;
+    }
+
+    /**
+     * Cancels the future event in constant time. It stays in the queue and is dropped when it becomes the earliest
+     * one, so it neither advances the clock nor is delivered. An event which is already due is still delivered.
+     */
+    public void cancel(CWSSimEvent ev) {
+        ev.cancel();
+    }
+
+    /**
+     * Removes all the future events sent by the given entity that match the predicate.
+     * @return Whether any event was removed.
+     */
+    public boolean cancelAll(int src, Predicate<CWSSimEvent> predicate) {
+        boolean cancelled = false;
+        Iterator<CWSSimEvent> it = future.iterator();
+        while (it.hasNext()) {
+            CWSSimEvent ev = it.next();
+            if (ev.getSource() == src && predicate.apply(ev)) {
+                it.remove();
+                cancelled = true;
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * Runs the simulation until there are no more events and shuts down all the entities.
+     * @return The time of the last event.
+     */
+    public double run() {
+        running = true;
+        int started = entities.size();
+        for (int id = 0; id < started; id++) {
+            entities.get(id).startEntity();
+        }
+        while (runClockTick()) {
+            // Keep going until there are no future events.
+        }
+        double lastEventTime = clock;
+        finish();
+        return lastEventTime;
+    }
+
+    /**
+     * @return false when there are no more future events.
+     */
+    private boolean runClockTick() {
+        runEntities();
+        CWSSimEvent first = peekFuture();
+        if (first == null) {
+            running = false;
+            return false;
+        }
+        double time = first.eventTime();
+        do {
+            dispatch(future.poll());
+            first = peekFuture();
+        } while (first != null && first.eventTime() == time);
+        return true;
+    }
+
+    /**
+     * @return The earliest future event which is not cancelled, or null if there is none. The cancelled events before
+     *         it are dropped.
+     */
+    private CWSSimEvent peekFuture() {
+        CWSSimEvent ev;
+        while ((ev = future.peek()) != null && ev.isCancelled()) {
+            future.poll();
+        }
+        return ev;
+    }
+
+    private void runEntities() {
+        for (int id = entitiesWithDeferredEvents.nextSetBit(0); id >= 0; id = entitiesWithDeferredEvents
+                .nextSetBit(id + 1)) {
+            entitiesWithDeferredEvents.clear(id);
+            CWSSimEntity entity = entities.get(id);
+            ArrayDeque<CWSSimEvent> events = deferred.get(id);
+            CWSSimEvent ev;
+            if (statistics == null) {
+                while ((ev = events.poll()) != null) {
+                    entity.processEvent(ev);
+                }
+            } else {
+                while ((ev = events.poll()) != null) {
+                    long start = System.nanoTime();
+                    entity.processEvent(ev);
+                    statistics.eventProcessed(id, ev.getTag(), System.nanoTime() - start);
+                }
+            }
+        }
+    }
+
+    private void dispatch(CWSSimEvent ev) {
+        clock = ev.eventTime();
+        if (ev.getType() == CWSSimEvent.CREATE) {
+            ((CWSSimEntity) ev.getData()).startEntity();
+        } else {
+            int dest = ev.getDestination();
+            Preconditions.checkArgument(dest >= 0, "Attempt to send to a null entity detected.");
+            deferred.get(dest).add(ev);
+            entitiesWithDeferredEvents.set(dest);
+        }
+    }
+
+    private void finish() {
+        runEntities();
+        int count = entities.size();
+        for (int id = 0; id < count; id++) {
+            entities.get(id).shutdownEntity();
+        }
+        future.clear();
+        clock = 0.0;
+        running = false;
+    }
+}
@@ -0,0 +1,41 @@
+package cws.core.cloudsim;
+
+/**
+ * Receives typed records of the events which are needed to validate a simulation and to draw its gantt charts, i.e.
+ * the same information as the corresponding log messages, but without formatting. Simulation times are given in
+ * seconds.
+ *
+ * A trace is written by {@code cws.core.log.BinaryTraceWriter} and read back by {@code cws.core.log.BinaryTraceReader},
+ * which passes the records to another sink.
+ */
+public interface TraceSink {
+    /** The budget and the deadline of the simulation */
+    void settings(double budget, double deadline);
+
+    /** A workflow of the ensemble */
+    void workflow(String id, int priority, String filename);
+
+    /** The VM was launched */
+    void vmLaunched(double time, int vm, int cores);
+
+    /** The VM was terminated, i.e. its deprovisioning delay has passed */
+    void vmTerminated(double time, int vm);
+
+    /** The computational part of the job has started, i.e. its inputs were transferred */
+    void jobStarted(double time, int job, String task, String workflow, int vm);
+
+    /** The computational part of the job has finished */
+    void jobFinished(double time, int job, String task, String workflow, int vm, boolean retry);
+
+    /** The job failed and will be resubmitted */
+    void jobFailed(double time, int job, String task, String workflow, int vm, boolean retry);
+
+    /** A transfer of the file between the VM and the storage has started */
+    void transferStarted(double time, int transfer, boolean read, String file, long size, int vm, int job);
+
+    /** The transfer has finished */
+    void transferFinished(double time, int transfer, boolean read, long bytes, double duration);
+
+    /** The number of transfers or the speeds of the global storage have changed */
+    void storageState(double time, int readers, int writers, double readSpeed, double writeSpeed);
+}
@@ -34,6 +34,7 @@ public class GlobalStorageParamsLoader {
     static final String GS_LATENCY_CONFIG_ENTRY = "latency";
     static final String GS_CHUNK_TRANSFER_TIME_CONFIG_ENTRY = "chunkTransferTime";
     static final String GS_REPLICAS_NUMBER_CONFIG_ENTRY = "replicas";
+    static final String GS_FLUID_TRANSFERS_CONFIG_ENTRY = "fluidTransfers";
     static final String GS_CONFIGS_DIRECTORY_OPTION_NAME = "global-storage-directory";
     static final String GS_CONFIGS_DIRECTORY_SHORT_OPTION_NAME = "gsd";
     private static final String DEFAULT_GS_CONFIGS_DIRECTORY = "gs/";
@@ -48,6 +49,8 @@ public class GlobalStorageParamsLoader {
     static final String GS_CHUNK_TRANSFER_TIME_SHORT_OPTION_NAME = "gsct";
     static final String GS_REPLICAS_NUMBER_OPTION_NAME = "gs-replicas";
     static final String GS_REPLICAS_NUMBER_SHORT_OPTION_NAME = "gsr";
+    static final String GS_FLUID_TRANSFERS_OPTION_NAME = "gs-fluid-transfers";
+    static final String GS_FLUID_TRANSFERS_SHORT_OPTION_NAME = "gsft";
 
     public static void buildCliOptions(Options options) {
         Option globalStorage = new Option(GS_TYPE_SHORT_OPTION_NAME, GS_TYPE_OPTION_NAME, HAS_ARG, String.format(
@@ -89,6 +92,11 @@ public class GlobalStorageParamsLoader {
                 GS_CHUNK_TRANSFER_TIME_OPTION_NAME, HAS_ARG, "Overrides Global Storage transfer time");
         chunkTransferTime.setArgName("SECONDS");
         options.addOption(chunkTransferTime);
+
+        Option fluidTransfers = new Option(GS_FLUID_TRANSFERS_SHORT_OPTION_NAME, GS_FLUID_TRANSFERS_OPTION_NAME,
+                HAS_ARG, "Overrides whether Global Storage transfers are fluid instead of chunked");
+        fluidTransfers.setArgName("BOOL");
+        options.addOption(fluidTransfers);
     }
 
     public GlobalStorageParams determineGlobalStorageParams(CommandLine args) throws IllegalCWSArgumentException {
@@ -103,6 +111,18 @@ public class GlobalStorageParamsLoader {
         overrideLatency(globalStorageConfig, args);
         overrideChunkTransferTime(globalStorageConfig, args);
         overrideReplicasNumber(globalStorageConfig, args);
+        overrideFluidTransfers(globalStorageConfig, args);
+    }
+
+    private void overrideFluidTransfers(Map<String, Object> globalStorageConfig, CommandLine args) {
+        if (args.hasOption(GS_FLUID_TRANSFERS_OPTION_NAME)) {
+            String value = args.getOptionValue(GS_FLUID_TRANSFERS_OPTION_NAME);
+            if (!"true".equalsIgnoreCase(value) && !"false".equalsIgnoreCase(value)) {
+                throw new IllegalCWSArgumentException(GS_FLUID_TRANSFERS_CONFIG_ENTRY
+                        + " was overrode with a non-boolean value");
+            }
+            globalStorageConfig.put(GS_FLUID_TRANSFERS_CONFIG_ENTRY, Boolean.valueOf(value));
+        }
     }
 
     private void overrideReplicasNumber(Map<String, Object> globalStorageConfig, CommandLine args) {
@@ -188,6 +208,7 @@ public class GlobalStorageParamsLoader {
         double latency = loadLatency(config);
         double chunkTransferTime = loadChunkTransferTime(config);
         int replicasNumber = loadReplicasNumber(config);
+        boolean fluidTransfers = loadFluidTransfers(config);
 
         // TODO(mequrel): convert into builder
         GlobalStorageParams params = new GlobalStorageParams();
@@ -196,6 +217,7 @@ public class GlobalStorageParamsLoader {
         params.setLatency(latency);
         params.setChunkTransferTime(chunkTransferTime);
         params.setNumReplicas(replicasNumber);
+        params.setFluidTransfers(fluidTransfers);
 
         return params;
     }
@@ -208,6 +230,19 @@ public class GlobalStorageParamsLoader {
         return replicasNumber;
     }
 
+    /**
+     * The entry is optional, transfers are chunked by default.
+     */
+    private boolean loadFluidTransfers(Map<String, Object> config) {
+        if (!config.containsKey(GS_FLUID_TRANSFERS_CONFIG_ENTRY)) {
+            return false;
+        }
+        if (!(config.get(GS_FLUID_TRANSFERS_CONFIG_ENTRY) instanceof Boolean)) {
+            throw new IllegalCWSArgumentException(GS_FLUID_TRANSFERS_CONFIG_ENTRY + " configuration is not a boolean");
+        }
+        return (Boolean) config.get(GS_FLUID_TRANSFERS_CONFIG_ENTRY);
+    }
+
     private double loadChunkTransferTime(Map<String, Object> config) {
         assertRequiredOptionIsNotMissing(config, GS_CHUNK_TRANSFER_TIME_CONFIG_ENTRY);
         assertIsNumber(config, GS_CHUNK_TRANSFER_TIME_CONFIG_ENTRY);
@@ -1,8 +1,12 @@
 package cws.core.dag;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 
+import com.google.common.base.Preconditions;
+
 import cws.core.dag.exception.DAGFileNotFoundException;
 
 /**
@@ -12,16 +16,87 @@ public class DAG {
     private HashMap<String, Long> files = new HashMap<String, Long>();
     private HashMap<String, Task> tasks = new HashMap<String, Task>();
 
+    /** Tasks by their index, see {@link Task#getIndex()} */
+    private ArrayList<Task> taskList = new ArrayList<Task>();
+
+    /** Incremented whenever tasks or edges are added */
+    private int modificationCount;
+
+    /** Parent and child indices of tasks, computed when needed */
+    private volatile Adjacency adjacency;
+
     private String id; // for logging purposes
 
+    /** Immutable DAGs are shared (e.g. by {@link DAGCache}), they can be only copied */
+    private boolean immutable = false;
+
+    /**
+     * Makes this DAG immutable. Any further attempt to modify it fails.
+     */
+    public void makeImmutable() {
+        immutable = true;
+    }
+
+    public boolean isImmutable() {
+        return immutable;
+    }
+
+    private void checkMutable() {
+        Preconditions.checkState(!immutable, "Attempted to modify immutable DAG");
+    }
+
+    /**
+     * Returns a mutable copy of this DAG, with new tasks and files, and with task sizes multiplied by the given
+     * factor. The tasks of the copy are never equal to the tasks of this DAG, so that many copies of a single DAG can
+     * run in one ensemble. The order of tasks' parents, children and files is preserved.
+     */
+    public DAG copy(double scalingFactor) {
+        DAG copy = new DAG();
+        copy.files.putAll(files);
+        for (Task task : taskList) {
+            Task t = new Task(task.getId(), task.getTransformation(), task.getSize() * scalingFactor);
+            t.addInputFiles(copyFiles(task.getInputFiles(), copy));
+            t.addOutputFiles(copyFiles(task.getOutputFiles(), copy));
+            copy.addTask(t);
+        }
+        for (Task task : taskList) {
+            Task t = copy.taskList.get(task.getIndex());
+            for (Task parent : task.getParents()) {
+                t.addParent(copy.taskList.get(parent.getIndex()));
+            }
+            for (Task child : task.getChildren()) {
+                t.addChild(copy.taskList.get(child.getIndex()));
+            }
+        }
+        copy.id = id;
+        return copy;
+    }
+
+    /**
+     * Task's files keep their own sizes, as in DAX files the same file may have different sizes in different tasks.
+     */
+    private static List<DAGFile> copyFiles(List<DAGFile> files, DAG copy) {
+        List<DAGFile> copied = new ArrayList<DAGFile>(files.size());
+        for (DAGFile file : files) {
+            copied.add(new DAGFile(file.getName(), file.getSize(), copy));
+        }
+        return copied;
+    }
+
     public void addTask(Task t) {
+        checkMutable();
         if (tasks.containsKey(t.getId())) {
             throw new RuntimeException("Task already exists: " + t.getId());
         }
+        t.setIndex(taskList.size());
+        taskList.add(t);
         tasks.put(t.getId(), t);
+        adjacency = null;
+        modificationCount++;
     }
 
     public void addFile(String name, long size) {
+        checkMutable();
         if (size < 0) {
             throw new RuntimeException("Invalid size for file '" + name + "': " + size);
         }
@@ -29,6 +104,7 @@ public class DAG {
     }
 
     public void addEdge(String parent, String child) {
+        checkMutable();
         Task p = tasks.get(parent);
         if (p == null) {
             throw new RuntimeException("Invalid edge: Parent not found: " + parent);
@@ -37,16 +113,20 @@ public class DAG {
         if (c == null) {
             throw new RuntimeException("Invalid edge: Child not found: " + child);
         }
-        p.getChildren().add(c);
-        c.getParents().add(p);
+        p.addChild(c);
+        c.addParent(p);
+        adjacency = null;
+        modificationCount++;
     }
 
     public void setInputs(String taskId, List<DAGFile> inputs) {
+        checkMutable();
         Task t = getTaskById(taskId);
         t.addInputFiles(inputs);
     }
 
     public void setOutputs(String task, List<DAGFile> outputs) {
+        checkMutable();
         Task t = getTaskById(task);
         t.addOutputFiles(outputs);
     }
@@ -66,6 +146,89 @@ public class DAG {
         return tasks.get(id);
     }
 
+    /**
+     * @return The number of times tasks or edges were added to this DAG. Data derived from the DAG's structure can be
+     *         cached as long as this number does not change.
+     */
+    public int getModificationCount() {
+        return modificationCount;
+    }
+
+    /**
+     * @return The task with the given index, see {@link Task#getIndex()}.
+     */
+    public Task getTask(int index) {
+        return taskList.get(index);
+    }
+
+    /**
+     * @return Indices of the tasks without parents, in the order of {@link #getTasks()}. The returned array must not
+     *         be modified.
+     */
+    public int[] getRootIndices() {
+        return getAdjacency().roots;
+    }
+
+    /**
+     * @return Indices of the parents of the task with the given index, in the order of {@link Task#getParents()}. The
+     *         returned array must not be modified.
+     */
+    public int[] getParentIndices(int index) {
+        return getAdjacency().parents[index];
+    }
+
+    /**
+     * @return Indices of the children of the task with the given index, in the order of {@link Task#getChildren()}.
+     *         The returned array must not be modified.
+     */
+    public int[] getChildIndices(int index) {
+        return getAdjacency().children[index];
+    }
+
+    private Adjacency getAdjacency() {
+        Adjacency result = adjacency;
+        if (result == null) {
+            result = new Adjacency(taskList, tasks.values());
+            adjacency = result;
+        }
+        return result;
+    }
+
+    /**
+     * Parent and child indices of all the tasks. It is computed on the first use after the DAG was modified, so the
+     * parent and child lists of tasks must be modified only through {@link #addEdge(String, String)} once the DAG is
+     * in use.
+     */
+    private static class Adjacency {
+        final int[][] parents;
+        final int[][] children;
+        final int[] roots;
+
+        Adjacency(List<Task> tasks, Collection<Task> tasksInIdOrder) {
+            parents = new int[tasks.size()][];
+            children = new int[tasks.size()][];
+            for (Task task : tasks) {
+                parents[task.getIndex()] = indices(task.getParents());
+                children[task.getIndex()] = indices(task.getChildren());
+            }
+            List<Task> rootTasks = new ArrayList<Task>();
+            for (Task task : tasksInIdOrder) {
+                if (task.getParents().isEmpty()) {
+                    rootTasks.add(task);
+                }
+            }
+            roots = indices(rootTasks);
+        }
+
+        private static int[] indices(List<Task> tasks) {
+            int[] indices = new int[tasks.size()];
+            for (int i = 0; i < indices.length; i++) {
+                indices[i] = tasks.get(i).getIndex();
+            }
+            return indices;
+        }
+    }
+
     public long getFileSize(String name) {
         if (!files.containsKey(name)) {
             throw new DAGFileNotFoundException(name);
@@ -86,6 +249,7 @@ public class DAG {
     }
 
     public void setId(String id) {
+        checkMutable();
         this.id = id;
     }
 }
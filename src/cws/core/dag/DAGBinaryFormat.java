@@ -0,0 +1,329 @@
+package cws.core.dag;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+
+import com.google.common.base.Charsets;
+
+/**
+ * Compact binary DAG format. Loading a binary DAG is much faster than parsing the text or the DAX format, since all
+ * the numbers are stored as arrays and the file is memory-mapped.
+ *
+ * The file consists of (all numbers are big-endian):
+ *
+ * <pre>
+ * int magic, int version
+ * int strings, then for every string: int length, UTF-8 bytes
+ * int files, int[files] name (string index), long[files] size
+ * int tasks, int[tasks] id (string index), int[tasks] transformation (string index), double[tasks] size
+ * parents:  int[tasks + 1] offsets, int[offsets[tasks]] task indices
+ * children: int[tasks + 1] offsets, int[offsets[tasks]] task indices
+ * inputs:   int[tasks + 1] offsets, int[offsets[tasks]] file indices, long[offsets[tasks]] file sizes
+ * outputs:  int[tasks + 1] offsets, int[offsets[tasks]] file indices, long[offsets[tasks]] file sizes
+ * </pre>
+ *
+ * Adjacency lists are stored in the CSR (compressed sparse row) form: the entries of task i are the entries from
+ * offsets[i] to offsets[i + 1]. Strings are interned, i.e. every distinct string is stored once. Files of tasks have
+ * their own sizes, since in DAX files the same file may have different sizes in different tasks.
+ *
+ * Use {@link #main(String[])} to convert text and DAX DAGs to this format.
+ */
+public class DAGBinaryFormat {
+    /** Identifies binary DAG files */
+    private static final int MAGIC = 0x43575344;
+
+    /** Version of the format */
+    private static final int VERSION = 2;
+
+    /** Extension of binary DAG files */
+    public static final String EXTENSION = ".bdag";
+
+    private DAGBinaryFormat() {
+    }
+
+    /**
+     * Converts the given DAG files (text or DAX) to the binary format. Every file is converted to a file with the same
+     * name followed by the {@value #EXTENSION} extension.
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("Usage: DAGBinaryFormat DAGFILE...");
+            System.exit(1);
+        }
+        for (String arg : args) {
+            File input = new File(arg);
+            File output = getBinaryFile(input);
+            write(DAGParser.parse(input), output);
+            System.out.println(input + " -> " + output);
+        }
+    }
+
+    /**
+     * @return The binary DAG file which corresponds to the given text or DAX file, i.e. the file with the same name
+     *         followed by the {@value #EXTENSION} extension. The original extension is kept, so that e.g. x.dag and
+     *         x.xml in one directory are converted to different files.
+     */
+    public static File getBinaryFile(File file) {
+        return new File(file.getParentFile(), file.getName() + EXTENSION);
+    }
+
+    /**
+     * Writes the DAG in the binary format.
+     */
+    public static void write(DAG dag, File file) {
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            write(dag, out);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to write DAG: I/O error", e);
+        } finally {
+            IOUtils.closeQuietly(out);
+        }
+    }
+
+    private static void write(DAG dag, DataOutputStream out) throws IOException {
+        StringTable strings = new StringTable();
+        String[] fileNames = dag.getFiles();
+        Map<String, Integer> fileIndices = new HashMap<String, Integer>();
+        int[] fileNameIndices = new int[fileNames.length];
+        long[] fileSizes = new long[fileNames.length];
+        for (int i = 0; i < fileNames.length; i++) {
+            fileIndices.put(fileNames[i], i);
+            fileNameIndices[i] = strings.intern(fileNames[i]);
+            fileSizes[i] = dag.getFileSize(fileNames[i]);
+        }
+
+        // Tasks are written in the order of their indices, so that they have the same indices when read
+        Task[] tasks = new Task[dag.numTasks()];
+        int[] ids = new int[tasks.length];
+        int[] transformations = new int[tasks.length];
+        double[] sizes = new double[tasks.length];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = dag.getTask(i);
+            ids[i] = strings.intern(tasks[i].getId());
+            transformations[i] = strings.intern(tasks[i].getTransformation());
+            sizes[i] = tasks[i].getSize();
+        }
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(strings.strings.size());
+        for (String s : strings.strings) {
+            byte[] bytes = s.getBytes(Charsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        out.writeInt(fileNames.length);
+        writeInts(out, fileNameIndices);
+        writeLongs(out, fileSizes);
+        out.writeInt(tasks.length);
+        writeInts(out, ids);
+        writeInts(out, transformations);
+        for (double size : sizes) {
+            out.writeDouble(size);
+        }
+        writeTasks(out, tasks, true);
+        writeTasks(out, tasks, false);
+        writeFiles(out, tasks, fileIndices, true);
+        writeFiles(out, tasks, fileIndices, false);
+    }
+
+    private static void writeTasks(DataOutputStream out, Task[] tasks, boolean parents) throws IOException {
+        int offset = 0;
+        out.writeInt(offset);
+        for (Task task : tasks) {
+            offset += (parents ? task.getParents() : task.getChildren()).size();
+            out.writeInt(offset);
+        }
+        for (Task task : tasks) {
+            for (Task t : parents ? task.getParents() : task.getChildren()) {
+                out.writeInt(t.getIndex());
+            }
+        }
+    }
+
+    private static void writeFiles(DataOutputStream out, Task[] tasks, Map<String, Integer> indices, boolean inputs)
+            throws IOException {
+        int offset = 0;
+        out.writeInt(offset);
+        for (Task task : tasks) {
+            offset += (inputs ? task.getInputFiles() : task.getOutputFiles()).size();
+            out.writeInt(offset);
+        }
+        for (Task task : tasks) {
+            for (DAGFile file : inputs ? task.getInputFiles() : task.getOutputFiles()) {
+                Integer index = indices.get(file.getName());
+                if (index == null) {
+                    throw new RuntimeException("Unable to write DAG: unknown file " + file.getName() + " of task "
+                            + task.getId());
+                }
+                out.writeInt(index);
+            }
+        }
+        for (Task task : tasks) {
+            for (DAGFile file : inputs ? task.getInputFiles() : task.getOutputFiles()) {
+                out.writeLong(file.getSize());
+            }
+        }
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static void writeLongs(DataOutputStream out, long[] values) throws IOException {
+        for (long value : values) {
+            out.writeLong(value);
+        }
+    }
+
+    /**
+     * Reads a DAG in the binary format. The file is memory-mapped and all the arrays are read in bulk.
+     */
+    public static DAG read(File file) {
+        FileInputStream in = null;
+        try {
+            in = new FileInputStream(file);
+            FileChannel channel = in.getChannel();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return read(buffer);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to read DAG: I/O error", e);
+        } catch (BufferUnderflowException e) {
+            throw new RuntimeException("Unable to read DAG: truncated file " + file, e);
+        } catch (IndexOutOfBoundsException e) {
+            throw new RuntimeException("Unable to read DAG: corrupted file " + file, e);
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    private static DAG read(ByteBuffer buffer) {
+        if (buffer.remaining() < 8 || buffer.getInt() != MAGIC) {
+            throw new RuntimeException("Unable to read DAG: not a binary DAG file");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new RuntimeException("Unable to read DAG: unsupported version " + version);
+        }
+
+        String[] strings = new String[buffer.getInt()];
+        for (int i = 0; i < strings.length; i++) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            strings[i] = new String(bytes, Charsets.UTF_8);
+        }
+
+        DAG dag = new DAG();
+        int numFiles = buffer.getInt();
+        int[] fileNames = readInts(buffer, numFiles);
+        long[] fileSizes = readLongs(buffer, numFiles);
+        for (int i = 0; i < numFiles; i++) {
+            dag.addFile(strings[fileNames[i]], fileSizes[i]);
+        }
+
+        int numTasks = buffer.getInt();
+        int[] ids = readInts(buffer, numTasks);
+        int[] transformations = readInts(buffer, numTasks);
+        double[] sizes = readDoubles(buffer, numTasks);
+        Task[] tasks = new Task[numTasks];
+        for (int i = 0; i < numTasks; i++) {
+            tasks[i] = new Task(strings[ids[i]], strings[transformations[i]], sizes[i]);
+            dag.addTask(tasks[i]);
+        }
+
+        readTasks(buffer, tasks, true);
+        readTasks(buffer, tasks, false);
+        readFiles(buffer, tasks, strings, fileNames, dag, true);
+        readFiles(buffer, tasks, strings, fileNames, dag, false);
+        return dag;
+    }
+
+    private static void readTasks(ByteBuffer buffer, Task[] tasks, boolean parents) {
+        int[] offsets = readInts(buffer, tasks.length + 1);
+        int[] indices = readInts(buffer, offsets[tasks.length]);
+        for (int i = 0; i < tasks.length; i++) {
+            for (int j = offsets[i]; j < offsets[i + 1]; j++) {
+                if (parents) {
+                    tasks[i].addParent(tasks[indices[j]]);
+                } else {
+                    tasks[i].addChild(tasks[indices[j]]);
+                }
+            }
+        }
+    }
+
+    private static void readFiles(ByteBuffer buffer, Task[] tasks, String[] strings, int[] fileNames, DAG dag,
+            boolean inputs) {
+        int[] offsets = readInts(buffer, tasks.length + 1);
+        int[] indices = readInts(buffer, offsets[tasks.length]);
+        long[] sizes = readLongs(buffer, offsets[tasks.length]);
+        for (int i = 0; i < tasks.length; i++) {
+            List<DAGFile> files = new ArrayList<DAGFile>(offsets[i + 1] - offsets[i]);
+            for (int j = offsets[i]; j < offsets[i + 1]; j++) {
+                files.add(new DAGFile(strings[fileNames[indices[j]]], sizes[j], dag));
+            }
+            if (inputs) {
+                tasks[i].addInputFiles(files);
+            } else {
+                tasks[i].addOutputFiles(files);
+            }
+        }
+    }
+
+    private static int[] readInts(ByteBuffer buffer, int length) {
+        int[] values = new int[length];
+        buffer.asIntBuffer().get(values);
+        buffer.position(buffer.position() + length * 4);
+        return values;
+    }
+
+    private static long[] readLongs(ByteBuffer buffer, int length) {
+        long[] values = new long[length];
+        buffer.asLongBuffer().get(values);
+        buffer.position(buffer.position() + length * 8);
+        return values;
+    }
+
+    private static double[] readDoubles(ByteBuffer buffer, int length) {
+        double[] values = new double[length];
+        buffer.asDoubleBuffer().get(values);
+        buffer.position(buffer.position() + length * 8);
+        return values;
+    }
+
+    /**
+     * Assigns consecutive indices to distinct strings.
+     */
+    private static class StringTable {
+        final List<String> strings = new ArrayList<String>();
+        final Map<String, Integer> indices = new HashMap<String, Integer>();
+
+        int intern(String s) {
+            Integer index = indices.get(s);
+            if (index == null) {
+                index = strings.size();
+                strings.add(s);
+                indices.put(s, index);
+            }
+            return index;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package cws.core.dag;
+
+import java.io.File;
+import java.io.IOException;
+
+import com.google.common.base.Charsets;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+
+/**
+ * Cache of parsed DAGs keyed by the file's path and modification time. The returned DAGs are immutable and shared by
+ * all the users of the cache, use {@link DAG#copy(double)} to get a DAG which can be run in an ensemble.
+ *
+ * Optionally, parsed DAGs are also stored in a cache directory in the {@link DAGBinaryFormat}, so that other processes
+ * do not have to parse the same files again. An entry of the directory is used only if the file has not changed since
+ * the entry was written.
+ */
+public class DAGCache {
+    /** The cache shared by all simulations run in this JVM */
+    private static final DAGCache SHARED = new DAGCache(null);
+
+    /** Parsed DAGs by canonical path. Values are soft, so the cache never causes OutOfMemoryError. */
+    private final Cache<String, Entry> dags = CacheBuilder.newBuilder().softValues().build();
+
+    /** The directory to store preprocessed DAGs in, or null */
+    private final File cacheDir;
+
+    private static class Entry {
+        final long lastModified;
+        final long length;
+        final DAG dag;
+
+        Entry(long lastModified, long length, DAG dag) {
+            this.lastModified = lastModified;
+            this.length = length;
+            this.dag = dag;
+        }
+    }
+
+    /**
+     * @param cacheDir - the directory to store preprocessed DAGs in, or null to keep them only in memory.
+     */
+    public DAGCache(File cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    /**
+     * @return The cache shared by all simulations run in this JVM, without on-disk cache.
+     */
+    public static DAGCache getSharedCache() {
+        return SHARED;
+    }
+
+    /**
+     * Returns the immutable DAG parsed from the given file with {@link DAGParser#parse(File)}. If the file was
+     * converted to the binary format (see {@link DAGBinaryFormat#getBinaryFile(File)}), the binary DAG is loaded.
+     */
+    public DAG getDAG(File file) {
+        String path = canonicalPath(file);
+        long lastModified = file.lastModified();
+        long length = file.length();
+        Entry entry = dags.getIfPresent(path);
+        if (entry == null || entry.lastModified != lastModified || entry.length != length) {
+            entry = new Entry(lastModified, length, load(file, path, lastModified, length));
+            dags.put(path, entry);
+        }
+        return entry.dag;
+    }
+
+    private DAG load(File file, String path, long lastModified, long length) {
+        File cached = cacheDir == null ? null : new File(cacheDir, cacheFileName(path, lastModified, length));
+        DAG dag = null;
+        if (cached != null && cached.isFile()) {
+            dag = read(cached);
+        }
+        if (dag == null) {
+            dag = parse(file);
+            if (cached != null) {
+                write(dag, cached);
+            }
+        }
+        dag.makeImmutable();
+        return dag;
+    }
+
+    /**
+     * Loads the converted binary DAG instead of parsing the file, if it exists and it is not older than the file.
+     */
+    private static DAG parse(File file) {
+        File binary = DAGBinaryFormat.getBinaryFile(file);
+        if (!binary.equals(file) && binary.isFile() && binary.lastModified() >= file.lastModified()) {
+            DAG dag = read(binary);
+            if (dag != null) {
+                return dag;
+            }
+        }
+        return DAGParser.parse(file);
+    }
+
+    private static String canonicalPath(File file) {
+        try {
+            return file.getCanonicalPath();
+        } catch (IOException e) {
+            return file.getAbsolutePath();
+        }
+    }
+
+    private static String cacheFileName(String path, long lastModified, long length) {
+        String key = path + ":" + lastModified + ":" + length;
+        return Hashing.sha1().hashString(key, Charsets.UTF_8).toString() + DAGBinaryFormat.EXTENSION;
+    }
+
+    /**
+     * Writes the DAG to the cache file. Files are written to a temporary file first, so that other processes never
+     * see partially written entries. Failures are ignored, the cache is only an optimization.
+     */
+    static void write(DAG dag, File cached) {
+        File tmp = new File(cached.getPath() + "." + System.nanoTime() + ".tmp");
+        try {
+            cached.getParentFile().mkdirs();
+            DAGBinaryFormat.write(dag, tmp);
+            if (!tmp.renameTo(cached)) {
+                tmp.delete();
+            }
+        } catch (RuntimeException e) {
+            // E.g. a task's file which is not a file of the DAG, such DAGs are not cached.
+            tmp.delete();
+        }
+    }
+
+    /**
+     * Reads the DAG from the binary file.
+     * @return The DAG or null if the file is not a valid binary DAG.
+     */
+    static DAG read(File cached) {
+        try {
+            return DAGBinaryFormat.read(cached);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -1,31 +1,40 @@
 package cws.core.dag;
 
-import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.Set;
+import java.util.ArrayDeque;
+import java.util.BitSet;
 
 
 /**
  * This class records information about the execution of a DAG, including the
  * state of all tasks.
  * 
+ * The state of tasks is kept in arrays indexed by {@link Task#getIndex()}: every task has a counter of parents which
+ * are not completed yet, so a task is released as soon as its counter drops to zero.
+ * 
  * @author Gideon Juve <juve@usc.edu>
  */
 public class DAGJob {
     /** The entity that owns the DAG */
     private int owner;
 
-    /** The DAG being executed */
-    private DAG dag;
+    /** The DAG being executed, the state of tasks below is sized for it */
+    private final DAG dag;
+
+    /** Tasks that have been released */
+    private final BitSet releasedTasks;
+
+    /** Tasks that are finished */
+    private final BitSet completedTasks;
 
-    /** Set of tasks that have been released */
-    private final Set<Task> releasedTasks;
+    private int numReleasedTasks;
 
-    /** Set of tasks that are finished */
-    private final Set<Task> completedTasks;
+    private int numCompletedTasks;
+
+    /** Number of parents of every task that are not completed yet */
+    private final int[] remainingParents;
 
     /** List of all tasks that are ready but have not been claimed */
-    private final LinkedList<Task> queue;
+    private final ArrayDeque<Task> queue;
 
     /** Workflow priority */
     private int priority;
@@ -33,16 +42,17 @@ public class DAGJob {
     public DAGJob(DAG dag, int owner) {
         this.dag = dag;
         this.owner = owner;
-        this.queue = new LinkedList<Task>();
-        this.releasedTasks = new HashSet<Task>();
-        this.completedTasks = new HashSet<Task>();
+        this.queue = new ArrayDeque<Task>();
+        this.releasedTasks = new BitSet(dag.numTasks());
+        this.completedTasks = new BitSet(dag.numTasks());
+        this.remainingParents = new int[dag.numTasks()];
+        for (int i = 0; i < remainingParents.length; i++) {
+            remainingParents[i] = dag.getParentIndices(i).length;
+        }
 
         // Release all root tasks
-        for (String tid : dag.getTasks()) {
-            Task t = dag.getTaskById(tid);
-            if (t.getParents().size() == 0) {
-                releaseTask(t);
-            }
+        for (int root : dag.getRootIndices()) {
+            releaseTask(root);
         }
     }
 
@@ -58,10 +68,6 @@ public class DAGJob {
         return dag;
     }
 
-    public void setDAG(DAG dag) {
-        this.dag = dag;
-    }
-
     public int getPriority() {
         return priority;
     }
@@ -72,51 +78,58 @@ public class DAGJob {
 
     /** Check to see if a task has been released */
     public boolean isReleased(Task t) {
-        return releasedTasks.contains(t);
+        return belongsToDAG(t) && releasedTasks.get(t.getIndex());
     }
 
     /** Check to see if a task has been completed */
     public boolean isComplete(Task t) {
-        return completedTasks.contains(t);
+        return belongsToDAG(t) && completedTasks.get(t.getIndex());
+    }
+
+    private boolean belongsToDAG(Task t) {
+        int index = t.getIndex();
+        return index >= 0 && index < remainingParents.length && dag.getTask(index) == t;
     }
 
     /** Return true if the workflow is finished */
     public boolean isFinished() {
         // The workflow must be finished if all the tasks that
         // have been released have been completed
-        return releasedTasks.size() == completedTasks.size();
+        return numReleasedTasks == numCompletedTasks;
     }
 
-    private void releaseTask(Task t) {
-        releasedTasks.add(t);
-        queue.add(t);
+    private void releaseTask(int index) {
+        releasedTasks.set(index);
+        numReleasedTasks++;
+        queue.add(dag.getTask(index));
     }
 
     /** Mark a task as completed */
     public void completeTask(Task t) {
         // Sanity check
-        if (!releasedTasks.contains(t)) {
+        if (!isReleased(t)) {
             throw new RuntimeException("Task has not been released: " + t);
         }
 
         // Add it to the list of completed tasks
-        completedTasks.add(t);
+        int index = t.getIndex();
+        if (completedTasks.get(index)) {
+            return;
+        }
+        completedTasks.set(index);
+        numCompletedTasks++;
 
         // Release all ready children
-        for (Task c : t.getChildren()) {
-            if (!releasedTasks.contains(c)) {
-                if (completedTasks.containsAll(c.getParents())) {
-                    releaseTask(c);
-                }
+        for (int child : dag.getChildIndices(index)) {
+            if (--remainingParents[child] == 0) {
+                releaseTask(child);
             }
         }
     }
 
     /** Return the next ready task */
     public Task nextReadyTask() {
-        if (queue.size() <= 0)
-            return null;
-        return queue.pop();
+        return queue.poll();
     }
 
     /** Return the number of ready tasks */
@@ -2,10 +2,10 @@ package cws.core.dag;
 
 import java.io.*;
 import java.util.ArrayList;
-import java.util.regex.Pattern;
 
 import javax.xml.stream.*;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 
 /**
@@ -17,6 +17,21 @@ public class DAGParser {
     private DAGParser() {
     }
 
+    /**
+     * Parse a DAG from a file in the format determined by its extension: {@link #parseDAX(File)} for .xml and .dax
+     * files, {@link DAGBinaryFormat#read(File)} for {@value DAGBinaryFormat#EXTENSION} files and
+     * {@link #parseDAG(File)} for all other files.
+     */
+    public static DAG parse(File file) {
+        String name = file.getName().toLowerCase();
+        if (name.endsWith(".xml") || name.endsWith(".dax")) {
+            return parseDAX(file);
+        } else if (name.endsWith(DAGBinaryFormat.EXTENSION)) {
+            return DAGBinaryFormat.read(file);
+        }
+        return parseDAG(file);
+    }
+
     /**
      * Parse a DAG from a file using the simple text DAG format. The format
      * consists of 5 different record types:
@@ -38,83 +53,13 @@ public class DAGParser {
      * - This record defines the outputs of a task
      */
     public static DAG parseDAG(File dagfile) {
-        DAG dag = new DAG();
-        Pattern split = Pattern.compile("\\s+");
-
-        BufferedReader br = null;
+        byte[] bytes;
         try {
-            br = new BufferedReader(new FileReader(dagfile));
-            for (String line = br.readLine(); line != null; line = br.readLine()) {
-                line = line.trim();
-
-                // Ignore comments
-                if (line.startsWith("#")) {
-                    continue;
-                }
-
-                // Ignore empty lines
-                if (line.length() == 0) {
-                    continue;
-                }
-
-                // Split record
-                String[] rec = split.split(line);
-                String type = rec[0];
-
-                if ("TASK".equalsIgnoreCase(type)) {
-                    if (rec.length != 4) {
-                        throw new RuntimeException("Invalid TASK record: " + line);
-                    }
-                    String id = rec[1];
-                    String xform = rec[2];
-                    double size = Double.parseDouble(rec[3]);
-                    dag.addTask(new Task(id, xform, size));
-                } else if ("FILE".equalsIgnoreCase(type)) {
-                    if (rec.length != 3) {
-                        throw new RuntimeException("Invalid FILE record: " + line);
-                    }
-                    String name = rec[1];
-                    long size = Long.parseLong(rec[2]);
-                    dag.addFile(name, size);
-                } else if ("EDGE".equalsIgnoreCase(type)) {
-                    if (rec.length != 3) {
-                        throw new RuntimeException("Invalid EDGE record: " + line);
-                    }
-                    String parent = rec[1];
-                    String child = rec[2];
-                    dag.addEdge(parent, child);
-                } else if ("INPUTS".equalsIgnoreCase(type)) {
-                    if (rec.length < 3) {
-                        throw new RuntimeException("Invalid INPUTS record: " + line);
-                    }
-                    ArrayList<DAGFile> inputs = new ArrayList<DAGFile>(rec.length - 2);
-                    String task = rec[1];
-                    for (int i = 2; i < rec.length; i++) {
-                        DAGFile file = new DAGFile(rec[i], dag.getFileSize(rec[i]), dag);
-                        inputs.add(file);
-                    }
-                    dag.setInputs(task, inputs);
-                } else if ("OUTPUTS".equalsIgnoreCase(type)) {
-                    if (rec.length < 3) {
-                        throw new RuntimeException("Invalid OUTPUTS record: " + line);
-                    }
-                    ArrayList<DAGFile> outputs = new ArrayList<DAGFile>(rec.length - 2);
-                    String task = rec[1];
-                    for (int i = 2; i < rec.length; i++) {
-                        DAGFile file = new DAGFile(rec[i], dag.getFileSize(rec[i]), dag);
-                        outputs.add(file);
-                    }
-                    dag.setOutputs(task, outputs);
-                } else {
-                    throw new RuntimeException("Unable to read DAG: invalid record: " + line);
-                }
-            }
+            bytes = FileUtils.readFileToByteArray(dagfile);
         } catch (IOException ioe) {
             throw new RuntimeException("Unable to read DAG: I/O error", ioe);
-        } finally {
-            IOUtils.closeQuietly(br);
         }
-        return dag;
+        return new DAGTextParser(bytes).parse();
     }
 
     /**
@@ -1,7 +1,5 @@
 package cws.core.dag;
 
-import java.util.HashMap;
-
 import cws.core.core.VMType;
 import cws.core.dag.algorithms.CriticalPath;
 import cws.core.dag.algorithms.TopologicalOrder;
@@ -12,22 +10,22 @@ public class DAGStats {
     private double totalRuntime;
 
     public DAGStats(DAG dag, VMType vmType) {
-        TopologicalOrder order = new TopologicalOrder(dag);
+        TopologicalOrder order = TopologicalOrder.of(dag);
 
-        HashMap<Task, Double> runTimes = computeMinimumCostOfRunningTheWorkflow(order, vmType);
+        double[] runTimes = computeMinimumCostOfRunningTheWorkflow(order, vmType);
 
         // Make sure a plan is feasible given the deadline and available VMs
-        CriticalPath path = new CriticalPath(order, runTimes, vmType);
+        CriticalPath path = CriticalPath.of(order, runTimes);
         criticalPathLength = path.getCriticalPathLength();
     }
 
-    private HashMap<Task, Double> computeMinimumCostOfRunningTheWorkflow
+    private double[] computeMinimumCostOfRunningTheWorkflow
         (TopologicalOrder order, VMType vmType) {
         totalRuntime = 0.0;
-        HashMap<Task, Double> runTimes = new HashMap<Task, Double>();
+        double[] runTimes = new double[order.getDAG().numTasks()];
         for (Task task : order) {
             double runtime = vmType.getPredictedTaskRuntime(task);
-            runTimes.put(task, runtime);
+            runTimes[task.getIndex()] = runtime;
             totalRuntime += runtime;
         }
 
@@ -0,0 +1,347 @@
+package cws.core.dag;
+
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import cws.core.dag.exception.DAGFileNotFoundException;
+
+/**
+ * Single-pass parser of the simple text DAG format described in {@link DAGParser#parseDAG(java.io.File)}. It works
+ * directly on the bytes of the file: records are tokenized without regular expressions, numbers are parsed in place
+ * and task ids and file names are looked up by their bytes, so a string is created only once for every task, file and
+ * transformation.
+ */
+class DAGTextParser {
+    /** Exact powers of ten, used by the fast path of {@link #parseDouble(int)} */
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1.0;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10.0;
+        }
+    }
+
+    private static final byte[] TASK = "TASK".getBytes();
+    private static final byte[] FILE = "FILE".getBytes();
+    private static final byte[] EDGE = "EDGE".getBytes();
+    private static final byte[] INPUTS = "INPUTS".getBytes();
+    private static final byte[] OUTPUTS = "OUTPUTS".getBytes();
+
+    private final byte[] buf;
+    private final Charset charset = Charset.defaultCharset();
+    private final DAG dag = new DAG();
+
+    /** Tasks by id */
+    private final SymbolTable<Task> tasks = new SymbolTable<Task>();
+
+    /** Files by name, every task shares the same DAGFile instance */
+    private final SymbolTable<DAGFile> files = new SymbolTable<DAGFile>();
+
+    /** Interned transformations */
+    private final SymbolTable<String> transformations = new SymbolTable<String>();
+
+    /** Bounds of the current line */
+    private int lineStart;
+    private int lineEnd;
+
+    /** Bounds of the tokens of the current line */
+    private int[] tokenStart = new int[16];
+    private int[] tokenEnd = new int[16];
+    private int tokens;
+
+    DAGTextParser(byte[] buf) {
+        this.buf = buf;
+    }
+
+    DAG parse() {
+        int pos = 0;
+        while (pos < buf.length) {
+            lineStart = pos;
+            while (pos < buf.length && buf[pos] != '\n' && buf[pos] != '\r') {
+                pos++;
+            }
+            lineEnd = pos;
+            pos++;
+            tokenize();
+            // Ignore empty lines and comments
+            if (tokens == 0 || buf[tokenStart[0]] == '#') {
+                continue;
+            }
+            parseRecord();
+        }
+        return dag;
+    }
+
+    private void tokenize() {
+        tokens = 0;
+        int i = lineStart;
+        while (true) {
+            while (i < lineEnd && isWhitespace(buf[i])) {
+                i++;
+            }
+            if (i == lineEnd) {
+                return;
+            }
+            if (tokens == tokenStart.length) {
+                tokenStart = Arrays.copyOf(tokenStart, tokens * 2);
+                tokenEnd = Arrays.copyOf(tokenEnd, tokens * 2);
+            }
+            tokenStart[tokens] = i;
+            while (i < lineEnd && !isWhitespace(buf[i])) {
+                i++;
+            }
+            tokenEnd[tokens++] = i;
+        }
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == 0x0B || b == '\f' || b == '\r' || b == '\n';
+    }
+
+    private void parseRecord() {
+        if (tokenEquals(0, TASK)) {
+            if (tokens != 4) {
+                throw new RuntimeException("Invalid TASK record: " + line());
+            }
+            String id = string(1);
+            String transformation = transformations.get(buf, tokenStart[2], tokenEnd[2]);
+            if (transformation == null) {
+                transformation = string(2);
+                transformations.put(buf, tokenStart[2], tokenEnd[2], transformation);
+            }
+            Task task = new Task(id, transformation, parseDouble(3));
+            dag.addTask(task);
+            tasks.put(buf, tokenStart[1], tokenEnd[1], task);
+        } else if (tokenEquals(0, FILE)) {
+            if (tokens != 3) {
+                throw new RuntimeException("Invalid FILE record: " + line());
+            }
+            String name = string(1);
+            long size = parseLong(2);
+            dag.addFile(name, size);
+            files.put(buf, tokenStart[1], tokenEnd[1], new DAGFile(name, size, dag));
+        } else if (tokenEquals(0, EDGE)) {
+            if (tokens != 3) {
+                throw new RuntimeException("Invalid EDGE record: " + line());
+            }
+            Task parent = tasks.get(buf, tokenStart[1], tokenEnd[1]);
+            if (parent == null) {
+                throw new RuntimeException("Invalid edge: Parent not found: " + string(1));
+            }
+            Task child = tasks.get(buf, tokenStart[2], tokenEnd[2]);
+            if (child == null) {
+                throw new RuntimeException("Invalid edge: Child not found: " + string(2));
+            }
+            parent.addChild(child);
+            child.addParent(parent);
+        } else if (tokenEquals(0, INPUTS)) {
+            if (tokens < 3) {
+                throw new RuntimeException("Invalid INPUTS record: " + line());
+            }
+            ArrayList<DAGFile> inputs = taskFiles();
+            task(1).addInputFiles(inputs);
+        } else if (tokenEquals(0, OUTPUTS)) {
+            if (tokens < 3) {
+                throw new RuntimeException("Invalid OUTPUTS record: " + line());
+            }
+            ArrayList<DAGFile> outputs = taskFiles();
+            task(1).addOutputFiles(outputs);
+        } else {
+            throw new RuntimeException("Unable to read DAG: invalid record: " + line());
+        }
+    }
+
+    /**
+     * @return The files of the INPUTS or OUTPUTS record.
+     */
+    private ArrayList<DAGFile> taskFiles() {
+        ArrayList<DAGFile> list = new ArrayList<DAGFile>(tokens - 2);
+        for (int i = 2; i < tokens; i++) {
+            DAGFile file = files.get(buf, tokenStart[i], tokenEnd[i]);
+            if (file == null) {
+                throw new DAGFileNotFoundException(string(i));
+            }
+            list.add(file);
+        }
+        return list;
+    }
+
+    private Task task(int token) {
+        Task task = tasks.get(buf, tokenStart[token], tokenEnd[token]);
+        if (task == null) {
+            throw new RuntimeException("Task not found: " + string(token));
+        }
+        return task;
+    }
+
+    /**
+     * Case-insensitive comparison of the token with an upper-case keyword.
+     */
+    private boolean tokenEquals(int token, byte[] keyword) {
+        int start = tokenStart[token];
+        if (tokenEnd[token] - start != keyword.length) {
+            return false;
+        }
+        for (int i = 0; i < keyword.length; i++) {
+            int b = buf[start + i];
+            if (b >= 'a' && b <= 'z') {
+                b -= 'a' - 'A';
+            }
+            if (b != keyword[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String string(int token) {
+        return new String(buf, tokenStart[token], tokenEnd[token] - tokenStart[token], charset);
+    }
+
+    private String line() {
+        return new String(buf, lineStart, lineEnd - lineStart, charset).trim();
+    }
+
+    /**
+     * Parses plain decimal numbers in place. Other numbers (e.g. with exponents or too many digits) are parsed with
+     * {@link Long#parseLong(String)}.
+     */
+    private long parseLong(int token) {
+        int i = tokenStart[token];
+        int end = tokenEnd[token];
+        boolean negative = buf[i] == '-';
+        if (negative || buf[i] == '+') {
+            i++;
+        }
+        if (i == end || end - i > 18) {
+            return Long.parseLong(string(token));
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buf[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return Long.parseLong(string(token));
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses plain decimal numbers in place. The mantissa and the power of ten are exact doubles, so their quotient is
+     * correctly rounded, i.e. equal to the result of {@link Double#parseDouble(String)}. Other numbers are parsed with
+     * {@link Double#parseDouble(String)}.
+     */
+    private double parseDouble(int token) {
+        int i = tokenStart[token];
+        int end = tokenEnd[token];
+        boolean negative = buf[i] == '-';
+        if (negative || buf[i] == '+') {
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean point = false;
+        for (; i < end; i++) {
+            byte b = buf[i];
+            if (b >= '0' && b <= '9') {
+                if (++digits > 15) {
+                    return Double.parseDouble(string(token));
+                }
+                mantissa = mantissa * 10 + (b - '0');
+                if (point) {
+                    scale++;
+                }
+            } else if (b == '.' && !point) {
+                point = true;
+            } else {
+                return Double.parseDouble(string(token));
+            }
+        }
+        if (digits == 0 || scale >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(string(token));
+        }
+        double value = mantissa / POWERS_OF_TEN[scale];
+        return negative ? -value : value;
+    }
+
+    /**
+     * Open-addressing hash table keyed by byte ranges, so that symbols can be looked up without creating strings.
+     */
+    private static class SymbolTable<V> {
+        private byte[][] keys = new byte[1024][];
+        private Object[] values = new Object[1024];
+        private int size;
+
+        @SuppressWarnings("unchecked")
+        V get(byte[] buf, int start, int end) {
+            int mask = keys.length - 1;
+            for (int i = hash(buf, start, end) & mask; keys[i] != null; i = (i + 1) & mask) {
+                if (equals(keys[i], buf, start, end)) {
+                    return (V) values[i];
+                }
+            }
+            return null;
+        }
+
+        void put(byte[] buf, int start, int end, V value) {
+            if (2 * (size + 1) > keys.length) {
+                resize();
+            }
+            int mask = keys.length - 1;
+            int i = hash(buf, start, end) & mask;
+            for (; keys[i] != null; i = (i + 1) & mask) {
+                if (equals(keys[i], buf, start, end)) {
+                    values[i] = value;
+                    return;
+                }
+            }
+            keys[i] = Arrays.copyOfRange(buf, start, end);
+            values[i] = value;
+            size++;
+        }
+
+        private void resize() {
+            byte[][] oldKeys = keys;
+            Object[] oldValues = values;
+            keys = new byte[oldKeys.length * 2][];
+            values = new Object[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldKeys[j] != null) {
+                    int i = hash(oldKeys[j], 0, oldKeys[j].length) & mask;
+                    while (keys[i] != null) {
+                        i = (i + 1) & mask;
+                    }
+                    keys[i] = oldKeys[j];
+                    values[i] = oldValues[j];
+                }
+            }
+        }
+
+        private static int hash(byte[] buf, int start, int end) {
+            int h = 0;
+            for (int i = start; i < end; i++) {
+                h = 31 * h + buf[i];
+            }
+            // Spread similar names (e.g. differing only in a number) over the table
+            h *= 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+
+        private static boolean equals(byte[] key, byte[] buf, int start, int end) {
+            if (key.length != end - start) {
+                return false;
+            }
+            for (int i = 0; i < key.length; i++) {
+                if (key[i] != buf[start + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
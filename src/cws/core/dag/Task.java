@@ -1,6 +1,7 @@
 package cws.core.dag;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import com.google.common.collect.ImmutableList;
@@ -16,7 +17,7 @@ public class Task {
     private final String transformation;
 
     /** Number of MIPS needed to compute this task */
-    private double size;
+    private final double size;
 
     /** Task's parents - the tasks that produce inputFiles */
     private final List<Task> parents = new ArrayList<Task>(2);
@@ -24,12 +25,19 @@ public class Task {
     /** Task's children - the tasks which this Task produce files for */
     private final List<Task> children = new ArrayList<Task>(5);
 
+    /** Read-only views of parents and children, edges are added only by the DAG (see {@link DAG#addEdge}) */
+    private final List<Task> parentsView = Collections.unmodifiableList(parents);
+    private final List<Task> childrenView = Collections.unmodifiableList(children);
+
     /** Task's input files */
     private ImmutableList<DAGFile> inputFiles = ImmutableList.of();
 
     /** Task's output files */
     private ImmutableList<DAGFile> outputFiles = ImmutableList.of();
 
+    /** Index of the task in its DAG, or -1 if it was not added to any DAG yet */
+    private int index = -1;
+
     public Task(String id, String transformation, double size) {
         this.id = id;
         this.transformation = transformation;
@@ -65,10 +73,6 @@ public class Task {
         return "<task id=" + getId() + ">";
     }
 
-    public void scaleSize(double scalingFactor) {
-        size *= scalingFactor;
-    }
-
     public double getSize() {
         return size;
     }
@@ -81,19 +85,48 @@ public class Task {
         return id;
     }
 
+    /**
+     * @return Dense index of the task in its DAG (from 0 to {@link DAG#numTasks()} - 1), which can be used to keep
+     *         per-task values in arrays. See {@link DAG#getTask(int)}.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    void setIndex(int index) {
+        this.index = index;
+    }
+
+    /**
+     * @return Unmodifiable view of the task's parents.
+     */
     public List<Task> getParents() {
-        return parents;
+        return parentsView;
     }
 
+    /**
+     * @return Unmodifiable view of the task's children.
+     */
     public List<Task> getChildren() {
-        return children;
+        return childrenView;
+    }
+
+    void addParent(Task parent) {
+        parents.add(parent);
+    }
+
+    void addChild(Task child) {
+        children.add(child);
     }
 
     public ImmutableList<DAGFile> getInputFiles() {
         return inputFiles;
     }
 
-    public void addInputFiles(List<DAGFile> inputs) {
+    /**
+     * Adds the input files, only while the DAG is built (see {@link DAG#setInputs}) or copied.
+     */
+    void addInputFiles(List<DAGFile> inputs) {
         this.inputFiles = ImmutableList.<DAGFile>builder().addAll(this.inputFiles).addAll(inputs).build();
     }
 
@@ -101,7 +134,10 @@ public class Task {
         return outputFiles;
     }
 
-    public void addOutputFiles(List<DAGFile> outputs) {
+    /**
+     * Adds the output files, only while the DAG is built (see {@link DAG#setOutputs}) or copied.
+     */
+    void addOutputFiles(List<DAGFile> outputs) {
         this.outputFiles = ImmutableList.<DAGFile>builder().addAll(this.outputFiles).addAll(outputs).build();
     }
 }
@@ -1,43 +1,80 @@
 package cws.core.dag.algorithms;
 
-import java.util.HashMap;
-import java.util.Map;
-
+import cws.core.dag.DAG;
 import cws.core.dag.Task;
 import cws.core.core.VMType;
 
 /**
  * Compute longest path using topological order,
  * http://en.wikipedia.org/wiki/Longest_path_problem#Weighted_directed_acyclic_graphs
+ * 
+ * Critical paths are memoized per DAG and task runtimes, use {@link #of(TopologicalOrder, double[])} to get the
+ * memoized critical path.
+ * 
  * @author malawski
  */
 public class CriticalPath {
-    private final Map<Task, Double> earliestFinishTimes = new HashMap<Task, Double>();
+    /** Memoized critical paths */
+    private static final RuntimesMemo<CriticalPath> MEMO = new RuntimesMemo<CriticalPath>() {
+        @Override
+        protected CriticalPath compute(TopologicalOrder order, double[] runtimes) {
+            return new CriticalPath(order, runtimes);
+        }
+    };
+
+    /** Earliest finish times of tasks, indexed by {@link Task#getIndex()} */
+    private double[] earliestFinishTimes;
+
+    private double criticalPathLength;
 
     public CriticalPath(TopologicalOrder order, VMType vmType) {
         this(order, null, vmType);
     }
 
-    public CriticalPath(TopologicalOrder order, Map<Task, Double> runtimes,
-                        VMType vmType) {
+    /**
+     * @param runtimes - runtimes of tasks indexed by {@link Task#getIndex()}, or null to predict them with
+     *            {@link #getPredictedTaskRuntime(Task, VMType)}.
+     */
+    public CriticalPath(TopologicalOrder order, double[] runtimes, VMType vmType) {
         if (runtimes == null) {
-            runtimes = new HashMap<Task, Double>();
+            runtimes = new double[order.getDAG().numTasks()];
             for (Task task : order) {
-                runtimes.put(task, getPredictedTaskRuntime(task, vmType));
+                runtimes[task.getIndex()] = getPredictedTaskRuntime(task, vmType);
             }
         }
+        compute(order, runtimes);
+    }
 
-        // Initially the finish time is whatever the runtime is
-        for (Task task : order) {
-            earliestFinishTimes.put(task, runtimes.get(task));
-        }
+    private CriticalPath(TopologicalOrder order, double[] runtimes) {
+        compute(order, runtimes);
+    }
 
-        // Now we adjust the values in the topological order
-        for (Task task : order) {
-            for (Task child : task.getChildren()) {
-                earliestFinishTimes.put
-                    (child, Math.max(earliestFinishTimes.get(child),
-                                     earliestFinishTimes.get(task) + runtimes.get(child)));
+    /**
+     * @param runtimes - runtimes of tasks indexed by {@link Task#getIndex()}.
+     * @return The critical path of the order's DAG, computed only once for the given runtimes unless the DAG is
+     *         modified.
+     */
+    public static CriticalPath of(TopologicalOrder order, double[] runtimes) {
+        return MEMO.get(order, runtimes);
+    }
+
+    /**
+     * Computes earliest finish times and the critical path length in a single pass over the topological order: the
+     * earliest finish time of a task is its runtime plus the latest earliest finish time of its parents.
+     */
+    private void compute(TopologicalOrder order, double[] runtimes) {
+        DAG dag = order.getDAG();
+        earliestFinishTimes = new double[runtimes.length];
+        criticalPathLength = 0.0;
+        for (int task : order.getTaskIndices()) {
+            double runtime = runtimes[task];
+            double eft = runtime;
+            for (int parent : dag.getParentIndices(task)) {
+                eft = Math.max(eft, earliestFinishTimes[parent] + runtime);
+            }
+            earliestFinishTimes[task] = eft;
+            if (eft > criticalPathLength) {
+                criticalPathLength = eft;
             }
         }
     }
@@ -54,18 +91,13 @@ public class CriticalPath {
      * @return Earliest finish time of task
      */
     public double getEarliestFinishTime(Task task) {
-        return earliestFinishTimes.get(task);
+        return earliestFinishTimes[task.getIndex()];
     }
 
     /**
      * @return Length of critical path
      */
     public double getCriticalPathLength() {
-        double len = 0.0;
-        for (double eft : earliestFinishTimes.values()) {
-            if (eft > len)
-                len = eft;
-        }
-        return len;
+        return criticalPathLength;
     }
 }
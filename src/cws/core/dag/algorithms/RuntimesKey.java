@@ -0,0 +1,29 @@
+package cws.core.dag.algorithms;
+
+import java.util.Arrays;
+
+import cws.core.dag.Task;
+
+/**
+ * Runtimes of tasks indexed by {@link Task#getIndex()}, compared by value, used to memoize results computed from
+ * them. The runtimes are copied, so that callers can reuse their arrays.
+ */
+class RuntimesKey {
+    final double[] runtimes;
+    final int hashCode;
+
+    RuntimesKey(double[] runtimes) {
+        this.runtimes = runtimes.clone();
+        this.hashCode = Arrays.hashCode(runtimes);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof RuntimesKey && Arrays.equals(runtimes, ((RuntimesKey) obj).runtimes);
+    }
+}
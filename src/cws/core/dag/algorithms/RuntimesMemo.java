@@ -0,0 +1,69 @@
+package cws.core.dag.algorithms;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import cws.core.dag.DAG;
+import cws.core.dag.Task;
+
+/**
+ * Memoizes results computed from a DAG and the runtimes of its tasks, e.g. {@link CriticalPath}. DAGs are weak keys
+ * compared by identity, and the results of a DAG are dropped when it is modified. Results must not refer to DAGs.
+ *
+ * @param <T> - type of the results.
+ */
+abstract class RuntimesMemo<T> {
+    /** Maximum number of runtime models memoized per DAG */
+    static final int MAX_MEMOIZED_RUNTIMES = 8;
+
+    private final Cache<DAG, Entries<T>> memo = CacheBuilder.newBuilder().weakKeys().build();
+
+    /**
+     * @param runtimes - runtimes of tasks indexed by {@link Task#getIndex()}.
+     * @return The result for the order's DAG, computed only once for the given runtimes unless the DAG is modified.
+     */
+    T get(TopologicalOrder order, double[] runtimes) {
+        DAG dag = order.getDAG();
+        Entries<T> entries = memo.getIfPresent(dag);
+        if (entries == null || entries.modificationCount != dag.getModificationCount()) {
+            entries = new Entries<T>(dag.getModificationCount());
+            memo.put(dag, entries);
+        }
+        RuntimesKey key = new RuntimesKey(runtimes);
+        synchronized (entries) {
+            T result = entries.results.get(key);
+            if (result == null) {
+                result = compute(order, key.runtimes);
+                entries.results.put(key, result);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Computes the result for the order's DAG.
+     * @param runtimes - runtimes of tasks indexed by {@link Task#getIndex()}, owned by the memo.
+     */
+    protected abstract T compute(TopologicalOrder order, double[] runtimes);
+
+    private static class Entries<T> {
+        final int modificationCount;
+
+        /** Results by runtimes, the least recently used are evicted */
+        final Map<RuntimesKey, T> results = new LinkedHashMap<RuntimesKey, T>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<RuntimesKey, T> eldest) {
+                return size() > MAX_MEMOIZED_RUNTIMES;
+            }
+        };
+
+        Entries(int modificationCount) {
+            this.modificationCount = modificationCount;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package cws.core.dag.algorithms;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import cws.core.dag.DAG;
+import cws.core.dag.Task;
+
+/**
+ * Levels of the tasks of a DAG together with the number and the total runtime of the tasks in every level. The level
+ * of each task is max[p in parents](p.level) + 1, so tasks without parents are in level 0.
+ *
+ * They do not depend on the deadline, so they are memoized per DAG and task runtimes like {@link CriticalPath}, use
+ * {@link #of(TopologicalOrder, double[])} to get the memoized levels.
+ */
+public class TaskLevels {
+    /** Memoized levels */
+    private static final RuntimesMemo<TaskLevels> MEMO = new RuntimesMemo<TaskLevels>() {
+        @Override
+        protected TaskLevels compute(TopologicalOrder order, double[] runtimes) {
+            return new TaskLevels(order, runtimes);
+        }
+    };
+
+    /** Levels of tasks, indexed by {@link Task#getIndex()} */
+    private final int[] levels;
+
+    private final int numLevels;
+
+    private final double totalTasks;
+    private final double[] totalTasksByLevel;
+
+    private final double totalRuntime;
+    private final double[] totalRuntimesByLevel;
+
+    /** Fractions of the spare time of levels by alpha, see {@link #getSpareTimeFractions(double)} */
+    private final Map<Double, double[]> spareTimeFractions = new HashMap<Double, double[]>();
+
+    /**
+     * @param runtimes - runtimes of tasks indexed by {@link Task#getIndex()}.
+     */
+    public TaskLevels(TopologicalOrder order, double[] runtimes) {
+        DAG dag = order.getDAG();
+        levels = new int[dag.numTasks()];
+        int numlevels = 0;
+        for (Task t : order) {
+            int level = 0;
+            for (int p : dag.getParentIndices(t.getIndex())) {
+                int plevel = levels[p];
+                level = Math.max(level, plevel + 1);
+            }
+            levels[t.getIndex()] = level;
+            numlevels = Math.max(numlevels, level + 1);
+        }
+        numLevels = numlevels;
+
+        double tasks = 0;
+        totalTasksByLevel = new double[numlevels];
+        double runtime = 0;
+        totalRuntimesByLevel = new double[numlevels];
+        for (Task task : order) {
+            double taskRuntime = runtimes[task.getIndex()];
+            int level = levels[task.getIndex()];
+
+            runtime += taskRuntime;
+            totalRuntimesByLevel[level] += taskRuntime;
+
+            tasks += 1;
+            totalTasksByLevel[level] += 1;
+        }
+        totalTasks = tasks;
+        totalRuntime = runtime;
+    }
+
+    /**
+     * @param runtimes - runtimes of tasks indexed by {@link Task#getIndex()}.
+     * @return The levels of the order's DAG, computed only once for the given runtimes unless the DAG is modified.
+     */
+    public static TaskLevels of(TopologicalOrder order, double[] runtimes) {
+        return MEMO.get(order, runtimes);
+    }
+
+    /**
+     * @return Level of the task with the given index.
+     */
+    public int getLevel(int taskIndex) {
+        return levels[taskIndex];
+    }
+
+    public int getNumLevels() {
+        return numLevels;
+    }
+
+    public double getTotalTasks() {
+        return totalTasks;
+    }
+
+    public double getTotalTasks(int level) {
+        return totalTasksByLevel[level];
+    }
+
+    public double getTotalRuntime() {
+        return totalRuntime;
+    }
+
+    public double getTotalRuntime(int level) {
+        return totalRuntimesByLevel[level];
+    }
+
+    /**
+     * Returns the fraction of the spare time of the deadline distribution each level gets. It is proportional to the
+     * combination of the number of tasks in the level and their total runtime:
+     * 
+     * <pre>
+     * alpha * tasksInLevel / totalTasks + (1 - alpha) * runtimeInLevel / totalRuntime
+     * </pre>
+     * 
+     * @return Fractions indexed by level, the array is shared and must not be modified.
+     */
+    public synchronized double[] getSpareTimeFractions(double alpha) {
+        double[] fractions = spareTimeFractions.get(alpha);
+        if (fractions == null) {
+            fractions = new double[numLevels];
+            for (int i = 0; i < numLevels; i++) {
+                double taskPart = alpha * (totalTasksByLevel[i] / totalTasks);
+                double runtimePart = (1 - alpha) * (totalRuntimesByLevel[i] / totalRuntime);
+                fractions[i] = taskPart + runtimePart;
+            }
+            spareTimeFractions.put(alpha, fractions);
+        }
+        return fractions;
+    }
+}
@@ -1,10 +1,10 @@
 package cws.core.dag.algorithms;
 
-import java.util.Deque;
-import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.Set;
+import java.util.NoSuchElementException;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 import cws.core.dag.Task;
 import cws.core.dag.DAG;
@@ -16,40 +16,140 @@ import cws.core.dag.DAG;
  * Reverse postorder: Put the vertex on a stack after the recursive calls.
  * See: http://algs4.cs.princeton.edu/42directed/
  * 
+ * The search is iterative, so the depth of the DAG is not limited by the size of the call stack. Orders are memoized
+ * per DAG, use {@link #of(DAG)} to get the memoized order.
+ * 
  * @author malawski
  */
 public class TopologicalOrder implements Iterable<Task> {
-    private final Deque<Task> postorder = new LinkedList<Task>();
+    /** Memoized orders. Keys are weak and compared by identity, values do not refer to DAGs. */
+    private static final Cache<DAG, Memo> MEMO = CacheBuilder.newBuilder().weakKeys().build();
+
+    private static class Memo {
+        final int modificationCount;
+        final int[] order;
+
+        Memo(int modificationCount, int[] order) {
+            this.modificationCount = modificationCount;
+            this.order = order;
+        }
+    }
+
+    private final DAG dag;
+
+    /** Task indices in topological order */
+    private final int[] order;
 
     public TopologicalOrder(DAG dag) {
-        Set<Task> marked = new HashSet<Task>();
-        for (String taskName : dag.getTasks()) {
-            Task task = dag.getTaskById(taskName);
-            if (!marked.contains(task))
-                dfs(task, marked);
+        this(dag, computeOrder(dag));
+    }
+
+    private TopologicalOrder(DAG dag, int[] order) {
+        this.dag = dag;
+        this.order = order;
+    }
+
+    /**
+     * @return The topological order of the DAG, computed only once unless the DAG is modified.
+     */
+    public static TopologicalOrder of(DAG dag) {
+        Memo memo = MEMO.getIfPresent(dag);
+        if (memo == null || memo.modificationCount != dag.getModificationCount()) {
+            memo = new Memo(dag.getModificationCount(), computeOrder(dag));
+            MEMO.put(dag, memo);
         }
+        return new TopologicalOrder(dag, memo.order);
     }
 
-    private void dfs(Task task, Set<Task> marked) {
-        marked.add(task);
-        for (Task child : task.getChildren()) {
-            if (!marked.contains(child))
-                dfs(child, marked);
+    private static int[] computeOrder(DAG dag) {
+        int numTasks = dag.numTasks();
+        int[] order = new int[numTasks];
+        int next = numTasks; // postorder is stored from the end
+
+        boolean[] marked = new boolean[numTasks];
+        // The DFS path and the position of the next child to visit for every task on the path
+        int[] path = new int[numTasks];
+        int[] nextChild = new int[numTasks];
+        for (String taskName : dag.getTasks()) {
+            int root = dag.getTaskById(taskName).getIndex();
+            if (marked[root])
+                continue;
+            marked[root] = true;
+            path[0] = root;
+            nextChild[0] = 0;
+            int depth = 1;
+            while (depth > 0) {
+                int task = path[depth - 1];
+                int[] children = dag.getChildIndices(task);
+                if (nextChild[depth - 1] < children.length) {
+                    int child = children[nextChild[depth - 1]++];
+                    if (!marked[child]) {
+                        marked[child] = true;
+                        path[depth] = child;
+                        nextChild[depth] = 0;
+                        depth++;
+                    }
+                } else {
+                    order[--next] = task;
+                    depth--;
+                }
+            }
         }
-        postorder.add(task);
+        return order;
+    }
+
+    public DAG getDAG() {
+        return dag;
+    }
+
+    /**
+     * @return Task indices (see {@link Task#getIndex()}) in topological order. The array must not be modified.
+     */
+    public int[] getTaskIndices() {
+        return order;
     }
 
     public Iterable<Task> reverse() {
         return new Iterable<Task>() {
             @Override
             public Iterator<Task> iterator() {
-                return postorder.iterator();
+                return new TaskIterator(order.length - 1, -1);
             }
         };
     }
 
     @Override
     public Iterator<Task> iterator() {
-        return postorder.descendingIterator();
+        return new TaskIterator(0, 1);
+    }
+
+    private class TaskIterator implements Iterator<Task> {
+        private int position;
+        private final int step;
+
+        TaskIterator(int position, int step) {
+            this.position = position;
+            this.step = step;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return position >= 0 && position < order.length;
+        }
+
+        @Override
+        public Task next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Task task = dag.getTask(order[position]);
+            position += step;
+            return task;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
     }
 }
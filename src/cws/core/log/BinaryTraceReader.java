@@ -0,0 +1,123 @@
+package cws.core.log;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+
+import cws.core.cloudsim.TraceSink;
+
+/**
+ * Reads traces written by {@link BinaryTraceWriter}. The trace is scanned once and every record is passed to the
+ * given sink, so traces of any size can be processed in constant memory.
+ */
+public class BinaryTraceReader {
+    private final DataInputStream in;
+
+    /** Strings defined so far, by index */
+    private final List<String> strings = new ArrayList<String>();
+
+    private BinaryTraceReader(InputStream in) {
+        this.in = new DataInputStream(new BufferedInputStream(in, 64 * 1024));
+    }
+
+    /**
+     * Passes all the records of the trace file to the sink.
+     */
+    public static void read(File file, TraceSink sink) {
+        InputStream in = null;
+        try {
+            in = new FileInputStream(file);
+            read(in, sink);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to read trace: I/O error", e);
+        } finally {
+            IOUtils.closeQuietly(in);
+        }
+    }
+
+    /**
+     * Passes all the records of the trace to the sink.
+     */
+    public static void read(InputStream in, TraceSink sink) throws IOException {
+        new BinaryTraceReader(in).read(sink);
+    }
+
+    private void read(TraceSink sink) throws IOException {
+        try {
+            if (in.readInt() != BinaryTraceWriter.MAGIC) {
+                throw new RuntimeException("Unable to read trace: not a trace file");
+            }
+        } catch (EOFException e) {
+            throw new RuntimeException("Unable to read trace: not a trace file", e);
+        }
+        int version = in.readInt();
+        if (version != BinaryTraceWriter.VERSION) {
+            throw new RuntimeException("Unable to read trace: unsupported version " + version);
+        }
+        int type;
+        while ((type = in.read()) != -1) {
+            try {
+                readRecord(type, sink);
+            } catch (EOFException e) {
+                throw new RuntimeException("Unable to read trace: truncated record", e);
+            }
+        }
+    }
+
+    private void readRecord(int type, TraceSink sink) throws IOException {
+        switch (type) {
+        case BinaryTraceWriter.STRING:
+            strings.add(in.readUTF());
+            break;
+        case BinaryTraceWriter.SETTINGS:
+            sink.settings(in.readDouble(), in.readDouble());
+            break;
+        case BinaryTraceWriter.WORKFLOW:
+            sink.workflow(string(), in.readInt(), string());
+            break;
+        case BinaryTraceWriter.VM_LAUNCHED:
+            sink.vmLaunched(in.readDouble(), in.readInt(), in.readInt());
+            break;
+        case BinaryTraceWriter.VM_TERMINATED:
+            sink.vmTerminated(in.readDouble(), in.readInt());
+            break;
+        case BinaryTraceWriter.JOB_STARTED:
+            sink.jobStarted(in.readDouble(), in.readInt(), string(), string(), in.readInt());
+            break;
+        case BinaryTraceWriter.JOB_FINISHED:
+            sink.jobFinished(in.readDouble(), in.readInt(), string(), string(), in.readInt(), in.readBoolean());
+            break;
+        case BinaryTraceWriter.JOB_FAILED:
+            sink.jobFailed(in.readDouble(), in.readInt(), string(), string(), in.readInt(), in.readBoolean());
+            break;
+        case BinaryTraceWriter.TRANSFER_STARTED:
+            sink.transferStarted(in.readDouble(), in.readInt(), in.readBoolean(), string(), in.readLong(),
+                    in.readInt(), in.readInt());
+            break;
+        case BinaryTraceWriter.TRANSFER_FINISHED:
+            sink.transferFinished(in.readDouble(), in.readInt(), in.readBoolean(), in.readLong(), in.readDouble());
+            break;
+        case BinaryTraceWriter.STORAGE_STATE:
+            sink.storageState(in.readDouble(), in.readInt(), in.readInt(), in.readDouble(), in.readDouble());
+            break;
+        default:
+            throw new RuntimeException("Unable to read trace: unknown record type " + type);
+        }
+    }
+
+    private String string() throws IOException {
+        int index = in.readInt();
+        if (index < 0 || index >= strings.size()) {
+            throw new RuntimeException("Unable to read trace: undefined string " + index);
+        }
+        return strings.get(index);
+    }
+}
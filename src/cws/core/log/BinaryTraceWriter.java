@@ -0,0 +1,221 @@
+package cws.core.log;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import cws.core.cloudsim.TraceSink;
+
+/**
+ * Writes the trace of a simulation in a compact binary format, which can be read with {@link BinaryTraceReader} and
+ * converted with {@link TraceExporter}.
+ *
+ * The file consists of (all numbers are big-endian):
+ *
+ * <pre>
+ * int magic, int version
+ * records: byte type, then the fields of the record in the order of the {@link TraceSink} method's parameters
+ * </pre>
+ *
+ * Times, speeds and durations are doubles, ids and counts are ints, sizes are longs and flags are bytes. Strings are
+ * written as ints: every distinct string gets the next index and is defined by a {@link #STRING} record (the UTF-8
+ * string) before the first record which uses it.
+ */
+public class BinaryTraceWriter implements TraceSink, Closeable {
+    /** Identifies trace files */
+    static final int MAGIC = 0x43575354;
+
+    /** Version of the format */
+    static final int VERSION = 1;
+
+    /** Extension of trace files */
+    public static final String EXTENSION = ".trace";
+
+    static final byte STRING = 0;
+    static final byte SETTINGS = 1;
+    static final byte WORKFLOW = 2;
+    static final byte VM_LAUNCHED = 3;
+    static final byte VM_TERMINATED = 4;
+    static final byte JOB_STARTED = 5;
+    static final byte JOB_FINISHED = 6;
+    static final byte JOB_FAILED = 7;
+    static final byte TRANSFER_STARTED = 8;
+    static final byte TRANSFER_FINISHED = 9;
+    static final byte STORAGE_STATE = 10;
+
+    private final DataOutputStream out;
+
+    /** Indices of the strings written so far */
+    private final Map<String, Integer> strings = new HashMap<String, Integer>();
+
+    public BinaryTraceWriter(OutputStream out) {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+        try {
+            this.out.writeInt(MAGIC);
+            this.out.writeInt(VERSION);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to write trace: I/O error", e);
+        }
+    }
+
+    @Override
+    public void settings(double budget, double deadline) {
+        try {
+            out.writeByte(SETTINGS);
+            out.writeDouble(budget);
+            out.writeDouble(deadline);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to write trace: I/O error", e);
+        }
+    }
+
+    @Override
+    public void workflow(String id, int priority, String filename) {
+        try {
+            int idIndex = string(id);
+            int filenameIndex = string(filename);
+            out.writeByte(WORKFLOW);
+            out.writeInt(idIndex);
+            out.writeInt(priority);
+            out.writeInt(filenameIndex);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to write trace: I/O error", e);
+        }
+    }
+
+    @Override
+    public void vmLaunched(double time, int vm, int cores) {
+        try {
+            out.writeByte(VM_LAUNCHED);
+            out.writeDouble(time);
+            out.writeInt(vm);
+            out.writeInt(cores);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to write trace: I/O error", e);
+        }
+    }
+
+    @Override
+    public void vmTerminated(double time, int vm) {
+        try {
+            out.writeByte(VM_TERMINATED);
+            out.writeDouble(time);
+            out.writeInt(vm);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to write trace: I/O error", e);
+        }
+    }
+
+    @Override
+    public void jobStarted(double time, int job, String task, String workflow, int vm) {
+        try {
+            int taskIndex = string(task);
+            int workflowIndex = string(workflow);
+            out.writeByte(JOB_STARTED);
+            out.writeDouble(time);
+            out.writeInt(job);
+            out.writeInt(taskIndex);
+            out.writeInt(workflowIndex);
+            out.writeInt(vm);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to write trace: I/O error", e);
+        }
+    }
+
+    @Override
+    public void jobFinished(double time, int job, String task, String workflow, int vm, boolean retry) {
+        writeJobEnd(JOB_FINISHED, time, job, task, workflow, vm, retry);
+    }
+
+    @Override
+    public void jobFailed(double time, int job, String task, String workflow, int vm, boolean retry) {
+        writeJobEnd(JOB_FAILED, time, job, task, workflow, vm, retry);
+    }
+
+    private void writeJobEnd(byte type, double time, int job, String task, String workflow, int vm, boolean retry) {
+        try {
+            int taskIndex = string(task);
+            int workflowIndex = string(workflow);
+            out.writeByte(type);
+            out.writeDouble(time);
+            out.writeInt(job);
+            out.writeInt(taskIndex);
+            out.writeInt(workflowIndex);
+            out.writeInt(vm);
+            out.writeBoolean(retry);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to write trace: I/O error", e);
+        }
+    }
+
+    @Override
+    public void transferStarted(double time, int transfer, boolean read, String file, long size, int vm, int job) {
+        try {
+            int fileIndex = string(file);
+            out.writeByte(TRANSFER_STARTED);
+            out.writeDouble(time);
+            out.writeInt(transfer);
+            out.writeBoolean(read);
+            out.writeInt(fileIndex);
+            out.writeLong(size);
+            out.writeInt(vm);
+            out.writeInt(job);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to write trace: I/O error", e);
+        }
+    }
+
+    @Override
+    public void transferFinished(double time, int transfer, boolean read, long bytes, double duration) {
+        try {
+            out.writeByte(TRANSFER_FINISHED);
+            out.writeDouble(time);
+            out.writeInt(transfer);
+            out.writeBoolean(read);
+            out.writeLong(bytes);
+            out.writeDouble(duration);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to write trace: I/O error", e);
+        }
+    }
+
+    @Override
+    public void storageState(double time, int readers, int writers, double readSpeed, double writeSpeed) {
+        try {
+            out.writeByte(STORAGE_STATE);
+            out.writeDouble(time);
+            out.writeInt(readers);
+            out.writeInt(writers);
+            out.writeDouble(readSpeed);
+            out.writeDouble(writeSpeed);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to write trace: I/O error", e);
+        }
+    }
+
+    /**
+     * @return The index of the string, written as a {@link #STRING} record if it is a new string.
+     */
+    private int string(String s) throws IOException {
+        Integer index = strings.get(s);
+        if (index == null) {
+            index = strings.size();
+            strings.put(s, index);
+            out.writeByte(STRING);
+            out.writeUTF(s);
+        }
+        return index;
+    }
+
+    /**
+     * Writes the buffered records and closes the stream.
+     */
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,58 @@
+package cws.core.log;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Exports a trace as CSV with one row per record. All the records share the same columns, the columns which are not
+ * fields of a record are empty.
+ */
+class CsvTraceExporter extends RecordTraceExporter {
+    private static final String[] COLUMNS = { "record", "time", "budget", "deadline", "id", "priority", "filename",
+            "vm", "cores", "job", "task", "workflow", "retry", "transfer", "direction", "file", "size", "duration",
+            "readers", "writers", "read_speed", "write_speed" };
+
+    private final Map<String, Integer> columns = new HashMap<String, Integer>();
+    private final String[] row = new String[COLUMNS.length];
+
+    CsvTraceExporter(Writer out) throws IOException {
+        super(out);
+        for (int i = 0; i < COLUMNS.length; i++) {
+            columns.put(COLUMNS[i], i);
+        }
+        System.arraycopy(COLUMNS, 0, row, 0, COLUMNS.length);
+        end();
+    }
+
+    @Override
+    protected void begin(String record) {
+        Arrays.fill(row, "");
+        row[0] = record;
+    }
+
+    @Override
+    protected void field(String name, Object value) {
+        row[columns.get(name)] = escape(String.valueOf(value));
+    }
+
+    @Override
+    protected void end() throws IOException {
+        for (int i = 0; i < row.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.write(row[i]);
+        }
+        out.write('\n');
+    }
+
+    private static String escape(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,60 @@
+package cws.core.log;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Exports a trace as JSON lines, i.e. every record is a JSON object on a separate line, e.g.
+ *
+ * <pre>
+ * {"record":"job_started","time":12.5,"job":7,"task":"ID00001","workflow":"0","vm":3}
+ * </pre>
+ */
+class JsonTraceExporter extends RecordTraceExporter {
+    JsonTraceExporter(Writer out) {
+        super(out);
+    }
+
+    @Override
+    protected void begin(String record) throws IOException {
+        out.write("{\"record\":\"");
+        out.write(record);
+        out.write('"');
+    }
+
+    @Override
+    protected void field(String name, Object value) throws IOException {
+        out.write(",\"");
+        out.write(name);
+        out.write("\":");
+        if (value instanceof String) {
+            writeString((String) value);
+        } else if (value instanceof Double && (((Double) value).isNaN() || ((Double) value).isInfinite())) {
+            // JSON has no literals for these
+            writeString(value.toString());
+        } else {
+            out.write(value.toString());
+        }
+    }
+
+    @Override
+    protected void end() throws IOException {
+        out.write("}\n");
+    }
+
+    private void writeString(String s) throws IOException {
+        out.write('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.write('\\');
+                out.write(c);
+            } else if (c < 0x20) {
+                out.write(String.format("\\u%04x", (int) c));
+            } else {
+                out.write(c);
+            }
+        }
+        out.write('"');
+    }
+}
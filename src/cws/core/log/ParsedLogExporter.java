@@ -0,0 +1,212 @@
+package cws.core.log;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import cws.core.cloudsim.TraceSink;
+
+/**
+ * Exports a trace in the intermediate format read by the validation and visualisation scripts, i.e. the output of
+ * scripts/log_parser/parse_experiment_log.py for the text log of the same simulation.
+ *
+ * As in the script, the records of a job, a transfer or a VM are merged by id and the first value of every field wins.
+ * Entries are sorted by the string representation of their ids, and only the jobs and the transfers which have
+ * finished (or failed) are exported, even if they have not started. Missing values are written as None.
+ *
+ * The only difference concerns VMs launched before the simulation starts: their log lines have no timestamp, so the
+ * script does not recognise them and writes None as their start time and cores, whereas the trace has both.
+ */
+class ParsedLogExporter implements TraceSink {
+    private static final String NONE = "None";
+
+    private String budget = NONE;
+    private String deadline = NONE;
+    private final List<String> workflows = new ArrayList<String>();
+    private final Map<Integer, String[]> vms = new LinkedHashMap<Integer, String[]>();
+    private final Map<Integer, String[]> tasks = new LinkedHashMap<Integer, String[]>();
+    private final Map<Integer, String[]> transfers = new LinkedHashMap<Integer, String[]>();
+    private final List<String> storageStates = new ArrayList<String>();
+
+    // Fields of the entries
+    private static final int VM_STARTED = 0;
+    private static final int VM_FINISHED = 1;
+    private static final int VM_CORES = 2;
+
+    private static final int TASK_WORKFLOW = 0;
+    private static final int TASK_ID = 1;
+    private static final int TASK_VM = 2;
+    private static final int TASK_STARTED = 3;
+    private static final int TASK_FINISHED = 4;
+    private static final int TASK_RESULT = 5;
+
+    private static final int TRANSFER_VM = 0;
+    private static final int TRANSFER_STARTED = 1;
+    private static final int TRANSFER_FINISHED = 2;
+    private static final int TRANSFER_DIRECTION = 3;
+    private static final int TRANSFER_JOB = 4;
+    private static final int TRANSFER_FILE = 5;
+
+    @Override
+    public void settings(double budget, double deadline) {
+        if (this.budget == NONE) {
+            this.budget = Double.toString(budget);
+            this.deadline = Double.toString(deadline);
+        }
+    }
+
+    @Override
+    public void workflow(String id, int priority, String filename) {
+        workflows.add(id + " " + priority + " " + filename);
+    }
+
+    @Override
+    public void vmLaunched(double time, int vm, int cores) {
+        String[] entry = entry(vms, vm, 3);
+        merge(entry, VM_STARTED, Double.toString(time));
+        merge(entry, VM_CORES, Integer.toString(cores));
+    }
+
+    @Override
+    public void vmTerminated(double time, int vm) {
+        merge(entry(vms, vm, 3), VM_FINISHED, Double.toString(time));
+    }
+
+    @Override
+    public void jobStarted(double time, int job, String task, String workflow, int vm) {
+        String[] entry = task(job, task, workflow, vm);
+        merge(entry, TASK_STARTED, Double.toString(time));
+    }
+
+    @Override
+    public void jobFinished(double time, int job, String task, String workflow, int vm, boolean retry) {
+        String[] entry = task(job, task, workflow, vm);
+        merge(entry, TASK_FINISHED, Double.toString(time));
+        merge(entry, TASK_RESULT, retry ? "RETRY_OK" : "OK");
+    }
+
+    @Override
+    public void jobFailed(double time, int job, String task, String workflow, int vm, boolean retry) {
+        String[] entry = task(job, task, workflow, vm);
+        merge(entry, TASK_FINISHED, Double.toString(time));
+        merge(entry, TASK_RESULT, retry ? "RETRY_FAILED" : "FAILED");
+    }
+
+    private String[] task(int job, String task, String workflow, int vm) {
+        String[] entry = entry(tasks, job, 6);
+        merge(entry, TASK_WORKFLOW, workflow);
+        merge(entry, TASK_ID, task);
+        merge(entry, TASK_VM, Integer.toString(vm));
+        return entry;
+    }
+
+    @Override
+    public void transferStarted(double time, int transfer, boolean read, String file, long size, int vm, int job) {
+        String[] entry = entry(transfers, transfer, 6);
+        merge(entry, TRANSFER_VM, Integer.toString(vm));
+        merge(entry, TRANSFER_STARTED, Double.toString(time));
+        merge(entry, TRANSFER_DIRECTION, RecordTraceExporter.direction(read));
+        merge(entry, TRANSFER_JOB, Integer.toString(job));
+        merge(entry, TRANSFER_FILE, file);
+    }
+
+    @Override
+    public void transferFinished(double time, int transfer, boolean read, long bytes, double duration) {
+        merge(entry(transfers, transfer, 6), TRANSFER_FINISHED, Double.toString(time));
+    }
+
+    @Override
+    public void storageState(double time, int readers, int writers, double readSpeed, double writeSpeed) {
+        storageStates.add(String.format("%s %d %d %f %f", time, readers, writers, readSpeed, writeSpeed));
+    }
+
+    private static String[] entry(Map<Integer, String[]> entries, int id, int fields) {
+        String[] entry = entries.get(id);
+        if (entry == null) {
+            entry = new String[fields];
+            entries.put(id, entry);
+        }
+        return entry;
+    }
+
+    private static void merge(String[] entry, int field, String value) {
+        if (entry[field] == null) {
+            entry[field] = value;
+        }
+    }
+
+    /**
+     * Writes the merged entries.
+     */
+    void write(Writer out) throws IOException {
+        out.write(deadline + " " + budget + " 1\n");
+
+        List<Integer> ids = sortedIds(vms);
+        out.write(ids.size() + "\n");
+        for (Integer id : ids) {
+            writeEntry(out, id, vms.get(id));
+        }
+
+        out.write(workflows.size() + "\n");
+        for (String workflow : workflows) {
+            out.write(workflow + "\n");
+        }
+
+        ids = sortedIds(tasks);
+        List<Integer> completed = new ArrayList<Integer>();
+        for (Integer id : ids) {
+            if (tasks.get(id)[TASK_FINISHED] != null) {
+                completed.add(id);
+            }
+        }
+        out.write(completed.size() + "\n");
+        for (Integer id : completed) {
+            writeEntry(out, id, tasks.get(id));
+        }
+
+        ids = sortedIds(transfers);
+        List<Integer> finished = new ArrayList<Integer>();
+        for (Integer id : ids) {
+            if (transfers.get(id)[TRANSFER_FINISHED] != null) {
+                finished.add(id);
+            }
+        }
+        out.write(finished.size() + "\n");
+        for (Integer id : finished) {
+            writeEntry(out, id, transfers.get(id));
+        }
+
+        out.write(storageStates.size() + "\n");
+        for (String state : storageStates) {
+            out.write(state + "\n");
+        }
+    }
+
+    private static void writeEntry(Writer out, int id, String[] fields) throws IOException {
+        out.write(Integer.toString(id));
+        for (String field : fields) {
+            out.write(' ');
+            out.write(field == null ? NONE : field);
+        }
+        out.write('\n');
+    }
+
+    /**
+     * @return The ids sorted as strings, like in the script.
+     */
+    private static List<Integer> sortedIds(Map<Integer, String[]> entries) {
+        List<Integer> ids = new ArrayList<Integer>(entries.keySet());
+        Collections.sort(ids, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                return a.toString().compareTo(b.toString());
+            }
+        });
+        return ids;
+    }
+}
@@ -0,0 +1,174 @@
+package cws.core.log;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import cws.core.cloudsim.TraceSink;
+
+/**
+ * Exports every record of a trace separately, as soon as it is read. Subclasses define how a record with its named
+ * fields is written.
+ */
+abstract class RecordTraceExporter implements TraceSink {
+    protected final Writer out;
+
+    RecordTraceExporter(Writer out) {
+        this.out = out;
+    }
+
+    /** Starts a record of the given type */
+    protected abstract void begin(String record) throws IOException;
+
+    /** Writes a field of the current record, numbers and booleans are written as they are, strings are quoted */
+    protected abstract void field(String name, Object value) throws IOException;
+
+    /** Finishes the current record */
+    protected abstract void end() throws IOException;
+
+    @Override
+    public void settings(double budget, double deadline) {
+        try {
+            begin("settings");
+            field("budget", budget);
+            field("deadline", deadline);
+            end();
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to export trace: I/O error", e);
+        }
+    }
+
+    @Override
+    public void workflow(String id, int priority, String filename) {
+        try {
+            begin("workflow");
+            field("id", id);
+            field("priority", priority);
+            field("filename", filename);
+            end();
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to export trace: I/O error", e);
+        }
+    }
+
+    @Override
+    public void vmLaunched(double time, int vm, int cores) {
+        try {
+            begin("vm_launched");
+            field("time", time);
+            field("vm", vm);
+            field("cores", cores);
+            end();
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to export trace: I/O error", e);
+        }
+    }
+
+    @Override
+    public void vmTerminated(double time, int vm) {
+        try {
+            begin("vm_terminated");
+            field("time", time);
+            field("vm", vm);
+            end();
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to export trace: I/O error", e);
+        }
+    }
+
+    @Override
+    public void jobStarted(double time, int job, String task, String workflow, int vm) {
+        try {
+            begin("job_started");
+            jobFields(time, job, task, workflow, vm);
+            end();
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to export trace: I/O error", e);
+        }
+    }
+
+    @Override
+    public void jobFinished(double time, int job, String task, String workflow, int vm, boolean retry) {
+        try {
+            begin("job_finished");
+            jobFields(time, job, task, workflow, vm);
+            field("retry", retry);
+            end();
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to export trace: I/O error", e);
+        }
+    }
+
+    @Override
+    public void jobFailed(double time, int job, String task, String workflow, int vm, boolean retry) {
+        try {
+            begin("job_failed");
+            jobFields(time, job, task, workflow, vm);
+            field("retry", retry);
+            end();
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to export trace: I/O error", e);
+        }
+    }
+
+    private void jobFields(double time, int job, String task, String workflow, int vm) throws IOException {
+        field("time", time);
+        field("job", job);
+        field("task", task);
+        field("workflow", workflow);
+        field("vm", vm);
+    }
+
+    @Override
+    public void transferStarted(double time, int transfer, boolean read, String file, long size, int vm, int job) {
+        try {
+            begin("transfer_started");
+            field("time", time);
+            field("transfer", transfer);
+            field("direction", direction(read));
+            field("file", file);
+            field("size", size);
+            field("vm", vm);
+            field("job", job);
+            end();
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to export trace: I/O error", e);
+        }
+    }
+
+    @Override
+    public void transferFinished(double time, int transfer, boolean read, long bytes, double duration) {
+        try {
+            begin("transfer_finished");
+            field("time", time);
+            field("transfer", transfer);
+            field("direction", direction(read));
+            field("size", bytes);
+            field("duration", duration);
+            end();
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to export trace: I/O error", e);
+        }
+    }
+
+    @Override
+    public void storageState(double time, int readers, int writers, double readSpeed, double writeSpeed) {
+        try {
+            begin("storage_state");
+            field("time", time);
+            field("readers", readers);
+            field("writers", writers);
+            field("read_speed", readSpeed);
+            field("write_speed", writeSpeed);
+            end();
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to export trace: I/O error", e);
+        }
+    }
+
+    /**
+     * @return The direction of the transfer as used by the validation scripts.
+     */
+    static String direction(boolean read) {
+        return read ? "DOWNLOAD" : "UPLOAD";
+    }
+}
@@ -0,0 +1,66 @@
+package cws.core.log;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import org.apache.commons.io.IOUtils;
+
+import com.google.common.base.Charsets;
+
+/**
+ * Converts binary traces written by {@link BinaryTraceWriter} to text formats:
+ *
+ * <ul>
+ * <li>parsed - the input of the validation and visualisation scripts, as produced by
+ * scripts/log_parser/parse_experiment_log.py from the text log</li>
+ * <li>csv - one row per record</li>
+ * <li>json - one JSON object per record and line</li>
+ * </ul>
+ */
+public class TraceExporter {
+    private TraceExporter() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2 || args.length > 3) {
+            System.err.println("Usage: TraceExporter parsed|csv|json TRACEFILE [OUTPUTFILE]");
+            System.exit(1);
+        }
+        Writer out = null;
+        try {
+            if (args.length == 3) {
+                out = new OutputStreamWriter(new FileOutputStream(args[2]), Charsets.UTF_8);
+            } else {
+                out = new OutputStreamWriter(System.out, Charsets.UTF_8);
+            }
+            export(new File(args[1]), args[0], out);
+        } finally {
+            if (args.length == 3) {
+                IOUtils.closeQuietly(out);
+            }
+        }
+    }
+
+    /**
+     * Exports the trace in the given format.
+     */
+    public static void export(File trace, String format, Writer out) throws IOException {
+        Writer writer = new BufferedWriter(out, 64 * 1024);
+        if (format.equals("parsed")) {
+            ParsedLogExporter exporter = new ParsedLogExporter();
+            BinaryTraceReader.read(trace, exporter);
+            exporter.write(writer);
+        } else if (format.equals("csv")) {
+            BinaryTraceReader.read(trace, new CsvTraceExporter(writer));
+        } else if (format.equals("json")) {
+            BinaryTraceReader.read(trace, new JsonTraceExporter(writer));
+        } else {
+            throw new IllegalArgumentException("Unknown trace format: " + format);
+        }
+        writer.flush();
+    }
+}
@@ -28,6 +28,9 @@ public class WorkflowLog implements JobListener, VMListener, DAGJobListener {
     }
 
     public void printJobs() {
+        if (!cloudsim.isLogEnabled()) {
+            return;
+        }
         StringWriter sw = new StringWriter();
         PrintWriter pw = new PrintWriter(sw, true);
 
@@ -96,6 +99,9 @@ public class WorkflowLog implements JobListener, VMListener, DAGJobListener {
     }
 
     public void printDAGJobs() {
+        if (!cloudsim.isLogEnabled()) {
+            return;
+        }
         StringWriter sw = new StringWriter();
         PrintWriter pw = new PrintWriter(sw, true);
 
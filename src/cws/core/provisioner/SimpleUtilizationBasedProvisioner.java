@@ -33,7 +33,7 @@ public class SimpleUtilizationBasedProvisioner extends HomogeneousProvisioner {
     public void provisionResources(WorkflowEngine engine) {
         // when called for the first time it should obtain the initial number of VMs
         if (initialNumVMs == 0) {
-            initialNumVMs = engine.getAvailableVMs().size();
+            initialNumVMs = engine.getAvailableVMCount();
             if (initialNumVMs == 0) {// send event to initiate next provisioning cycle
                 // We need to wait after initial VMs are created.
                 getCloudsim().send(engine.getId(), engine.getId(), PROVISIONER_INTERVAL,
@@ -95,9 +95,10 @@ public class SimpleUtilizationBasedProvisioner extends HomogeneousProvisioner {
                 numToTerminate = numVMsRunning;
             }
 
-            getCloudsim().log(
-                    "Provisioner: number of instances to terminate: " + numToTerminate + ", numVMsCompleting: "
-                            + numVMsCompleting + ", numVMsRunning: " + numVMsRunning);
+            getCloudsim()
+                    .logMessage(
+                            "Provisioner: number of instances to terminate: %d, numVMsCompleting: %d, numVMsRunning: %d")
+                    .arg(numToTerminate).arg(numVMsCompleting).arg(numVMsRunning).log();
 
             // set of vms scheduled for termination
             Set<VM> toTerminate = new HashSet<VM>();
@@ -141,7 +142,7 @@ public class SimpleUtilizationBasedProvisioner extends HomogeneousProvisioner {
 
             // some instances may be still running so we want to be invoked again to stop them before they reach full
             // billing unit
-            if (engine.getAvailableVMs().size() > 0)
+            if (engine.getAvailableVMCount() > 0)
                 getCloudsim().send(engine.getId(), engine.getId(), PROVISIONER_INTERVAL,
                         WorkflowEvent.PROVISIONING_REQUEST, null);
             // return without further provisioning
@@ -149,11 +150,11 @@ public class SimpleUtilizationBasedProvisioner extends HomogeneousProvisioner {
         }
 
         // compute utilization
-        if (engine.getAvailableVMs().size() == 0) {
+        if (engine.getAvailableVMCount() == 0) {
             // No machines - finish.
             return;
         }
-        double utilization = engine.getBusyVMs().size() / (engine.getAvailableVMs().size());
+        double utilization = engine.getBusyVMCount() / (engine.getAvailableVMCount());
 
         if (!(utilization >= 0.0)) {
             getCloudsim().log(
@@ -175,11 +176,11 @@ public class SimpleUtilizationBasedProvisioner extends HomogeneousProvisioner {
         // then: deploy new instance
         double provisioning_interval = PROVISIONER_INTERVAL;
         if (!finishing_phase && utilization > UPPER_THRESHOLD
-                && engine.getAvailableVMs().size() < maxScaling * initialNumVMs && budget - cost >= vmPrice) {
+                && engine.getAvailableVMCount() < maxScaling * initialNumVMs && budget - cost >= vmPrice) {
 
             VM vm = VMFactory.createVM(environment.getVMType(), getCloudsim());
 
-            getCloudsim().log("Starting VM: " + vm.getId());
+            getCloudsim().logMessage("Starting VM: %d").arg(vm.getId()).log();
             launchVM(vm);
             provisioning_interval = 0;
         } else if (!finishing_phase && utilization < LOWER_THRESHOLD) {
@@ -190,8 +191,8 @@ public class SimpleUtilizationBasedProvisioner extends HomogeneousProvisioner {
             // make sure that if there is only one instance it should be terminated
             int numToTerminate = (int) Math.ceil(numVMsCompleting / 2.0);
             // Do not terminate too many machines. I.e. so that we will get over upper threshold.
-            while (engine.getAvailableVMs().size() - numToTerminate != 0
-                    && (engine.getBusyVMs().size() / (engine.getAvailableVMs().size() - numToTerminate)) > UPPER_THRESHOLD
+            while (engine.getAvailableVMCount() - numToTerminate != 0
+                    && (engine.getBusyVMCount() / (engine.getAvailableVMCount() - numToTerminate)) > UPPER_THRESHOLD
                     && numToTerminate > 0) {
                 numToTerminate--;
             }
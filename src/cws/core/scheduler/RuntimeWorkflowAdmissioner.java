@@ -65,7 +65,8 @@ public final class RuntimeWorkflowAdmissioner extends CWSSimEntity implements Wo
     private boolean isJobAdmittable(DAGJob dj, WorkflowEngine engine) {
         double costEstimate = estimateCost(dj);
         double budgetRemaining = estimateBudgetRemaining(engine);
-        getCloudsim().log(" Cost estimate: " + costEstimate + " Budget remaining: " + budgetRemaining);
+        getCloudsim().logMessage(" Cost estimate: %s Budget remaining: %s").arg(costEstimate).arg(budgetRemaining)
+                .log();
         return costEstimate < budgetRemaining; // TODO(bryk): Add critical path here.
     }
 
@@ -111,9 +112,9 @@ public final class RuntimeWorkflowAdmissioner extends CWSSimEntity implements Wo
         // we add this for safety in order not to underestimate our budget
         double safetyMargin = 0.1;
 
-        getCloudsim().log(
-                " Budget for new VMs: " + rn + " Budget on running VMs: " + rc
-                        + " Remaining budget of admitted workflows: " + ra);
+        getCloudsim()
+                .logMessage(" Budget for new VMs: %s Budget on running VMs: %s Remaining budget of admitted workflows: %s")
+                .arg(rn).arg(rc).arg(ra).log();
 
         return rn + rc - ra - safetyMargin;
     }
@@ -5,18 +5,25 @@ import cws.core.WorkflowEngine;
 import cws.core.cloudsim.CloudSimWrapper;
 import cws.core.engine.Environment;
 import cws.core.jobs.Job;
+import cws.core.dag.Task;
 import cws.core.storage.StorageManager;
 import cws.core.storage.cache.VMCacheManager;
 
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.TreeMap;
 
 /**
  * {@link WorkflowAwareEnsembleScheduler} implementation that is also aware of the underlying storage and schedules jobs
  * to minimize file transfers.
+ * 
+ * The predicted runtime of a task depends on the VM only through the task's input files cached by the VM. The VMs
+ * caching any of them are looked up in the cache manager's {@link cws.core.storage.cache.FileLocationIndex}, and all
+ * the other VMs get the runtime predicted without a VM, so the caches are not probed for every VM and file.
  */
 public class WorkflowAndLocalityAwareEnsembleScheduler extends DAGDynamicScheduler {
     private final VMCacheManager cacheManager;
@@ -38,7 +45,7 @@ public class WorkflowAndLocalityAwareEnsembleScheduler extends DAGDynamicSchedul
      */
     protected boolean scheduleJobsWithTheSamePriority(List<Job> jobs, WorkflowEngine engine) {
         while (!jobs.isEmpty()) {
-            List<VM> freeVms = engine.getFreeVMs();
+            Collection<VM> freeVms = engine.getFreeVMs();
             if (freeVms.isEmpty()) {
                 return false;
             }
@@ -50,31 +57,42 @@ public class WorkflowAndLocalityAwareEnsembleScheduler extends DAGDynamicSchedul
                 }
             }
 
+            // Release times of the busy VMs do not depend on the job
+            Collection<VM> busyVms = engine.getBusyVMs();
+            double[] releaseTimes = new double[busyVms.size()];
+            if (!jobs.isEmpty()) {
+                int i = 0;
+                for (VM vm : busyVms) {
+                    releaseTimes[i++] = vm.getPredictedReleaseTime(storageManager, environment, cacheManager);
+                }
+            }
+
             Job bestJob = null;
             VM bestVM2 = null;
             Double bestSpeedup = null;
             for (Job job : jobs) {
-                VM bestLocalVM = freeVms.get(0);
-                double bestFinishTime = runtimePredictioner.getPredictedRuntime(job.getTask(), bestLocalVM);
+                Task task = job.getTask();
+                double uncachedRuntime = runtimePredictioner.getPredictedRuntime(task, null);
+                Set<VM> cachingVms = cacheManager.getFileLocations().getVMsCachingAny(task.getInputFiles());
+                VM bestLocalVM = freeVms.iterator().next();
+                double bestFinishTime = getPredictedRuntime(task, bestLocalVM, cachingVms, uncachedRuntime);
                 for (VM vm : freeVms) {
-                    double estimatedJobFinish = runtimePredictioner.getPredictedRuntime(job.getTask(), vm);
+                    double estimatedJobFinish = getPredictedRuntime(task, vm, cachingVms, uncachedRuntime);
                     if (estimatedJobFinish <= bestFinishTime) {
                         bestLocalVM = vm;
                         bestFinishTime = estimatedJobFinish;
                     }
                 }
-                List<VM> allVms = engine.getAvailableVMs();
-                for (VM vm : allVms) {
-                    if (!vm.isTerminated() && !vm.isFree()) {
-                        double t = vm.getPredictedReleaseTime(storageManager, environment, cacheManager);
-                        double estimatedJobFinish = runtimePredictioner.getPredictedRuntime(job.getTask(), vm) + t;
-                        if (estimatedJobFinish < bestFinishTime) {
-                            bestLocalVM = vm;
-                            bestFinishTime = estimatedJobFinish;
-                        }
+                int i = 0;
+                for (VM vm : busyVms) {
+                    double t = releaseTimes[i++];
+                    double estimatedJobFinish = getPredictedRuntime(task, vm, cachingVms, uncachedRuntime) + t;
+                    if (estimatedJobFinish < bestFinishTime) {
+                        bestLocalVM = vm;
+                        bestFinishTime = estimatedJobFinish;
                     }
                 }
-                double speedup = runtimePredictioner.getPredictedRuntime(job.getTask(), null) - bestFinishTime;
+                double speedup = uncachedRuntime - bestFinishTime;
                 if (bestSpeedup == null || speedup > bestSpeedup) {
                     bestSpeedup = speedup;
                     bestJob = job;
@@ -89,6 +107,10 @@ public class WorkflowAndLocalityAwareEnsembleScheduler extends DAGDynamicSchedul
         return true;
     }
 
+    private double getPredictedRuntime(Task task, VM vm, Set<VM> cachingVms, double uncachedRuntime) {
+        return cachingVms.contains(vm) ? runtimePredictioner.getPredictedRuntime(task, vm) : uncachedRuntime;
+    }
+
     private final TreeMap<Integer, List<Job>> releasedJobs = new TreeMap<Integer, List<Job>>();
 
     @Override
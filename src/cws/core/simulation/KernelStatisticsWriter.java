@@ -0,0 +1,115 @@
+package cws.core.simulation;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import cws.core.WorkflowEvent;
+import cws.core.cloudsim.CWSSimEntity;
+import cws.core.cloudsim.KernelStatistics;
+
+/**
+ * Writes {@link KernelStatistics} of a simulation as a JSON object, e.g.
+ *
+ * <pre>
+ * {"simulated_time":..., "wall_time":..., "events":..., "events_per_second":..., "simulation_speed":...,
+ *  "max_future_queue_size":..., "events_by_tag":{"JOB_FINISHED":...}, "entity_types":{"VM":{...}},
+ *  "entities":[{"id":0,"name":"Cloud","type":"Cloud","events":...,"process_time":...}]}
+ * </pre>
+ *
+ * Tags are named after the {@link WorkflowEvent} constants and times are in seconds.
+ */
+class KernelStatisticsWriter {
+    /** Extension of the files with kernel statistics */
+    static final String EXTENSION = ".stats.json";
+
+    private KernelStatisticsWriter() {
+    }
+
+    static void write(KernelStatistics statistics, List<CWSSimEntity> entities, Writer out) throws IOException {
+        out.write("{\"simulated_time\":" + statistics.getSimulatedTime());
+        out.write(",\"wall_time\":" + seconds(statistics.getWallTime()));
+        out.write(",\"events\":" + statistics.getEvents());
+        out.write(",\"events_per_second\":" + statistics.getEventRate());
+        out.write(",\"simulation_speed\":" + statistics.getSimulationSpeed());
+        out.write(",\"max_future_queue_size\":" + statistics.getMaxFutureQueueSize());
+
+        out.write(",\n\"events_by_tag\":{");
+        Map<Integer, String> tagNames = getTagNames();
+        boolean first = true;
+        for (int tag = 0; tag < statistics.getTagLimit(); tag++) {
+            long events = statistics.getEvents(tag);
+            if (events > 0) {
+                String name = tagNames.containsKey(tag) ? tagNames.get(tag) : Integer.toString(tag);
+                out.write((first ? "" : ",") + "\"" + name + "\":" + events);
+                first = false;
+            }
+        }
+        out.write("}");
+
+        // Entities of the same class, e.g. all the VMs, are summed up
+        Map<String, long[]> types = new TreeMap<String, long[]>();
+        for (CWSSimEntity entity : entities) {
+            String type = entity.getClass().getSimpleName();
+            long[] sums = types.get(type);
+            if (sums == null) {
+                sums = new long[3];
+                types.put(type, sums);
+            }
+            sums[0]++;
+            sums[1] += statistics.getEntityEvents(entity.getId());
+            sums[2] += statistics.getEntityNanos(entity.getId());
+        }
+        out.write(",\n\"entity_types\":{");
+        first = true;
+        for (Map.Entry<String, long[]> type : types.entrySet()) {
+            long[] sums = type.getValue();
+            out.write((first ? "" : ",") + "\"" + type.getKey() + "\":{\"entities\":" + sums[0] + ",\"events\":"
+                    + sums[1] + ",\"process_time\":" + seconds(sums[2]) + "}");
+            first = false;
+        }
+        out.write("}");
+
+        out.write(",\n\"entities\":[");
+        first = true;
+        for (CWSSimEntity entity : entities) {
+            out.write((first ? "" : ",\n") + "{\"id\":" + entity.getId() + ",\"name\":\"" + entity.getName()
+                    + "\",\"type\":\"" + entity.getClass().getSimpleName() + "\",\"events\":"
+                    + statistics.getEntityEvents(entity.getId()) + ",\"process_time\":"
+                    + seconds(statistics.getEntityNanos(entity.getId())) + "}");
+            first = false;
+        }
+        out.write("]}\n");
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1.0e9;
+    }
+
+    /**
+     * @return The names of the {@link WorkflowEvent} constants by value. Constants with the same value are joined
+     *         with '/'.
+     */
+    static Map<Integer, String> getTagNames() {
+        Map<String, Integer> tags = new TreeMap<String, Integer>();
+        for (Field field : WorkflowEvent.class.getFields()) {
+            if (Modifier.isStatic(field.getModifiers()) && field.getType() == int.class) {
+                try {
+                    tags.put(field.getName(), field.getInt(null));
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        }
+        Map<Integer, String> names = new TreeMap<Integer, String>();
+        for (Map.Entry<String, Integer> tag : tags.entrySet()) {
+            String name = names.get(tag.getValue());
+            names.put(tag.getValue(), name == null ? tag.getKey() : name + "/" + tag.getKey());
+        }
+        return names;
+    }
+}
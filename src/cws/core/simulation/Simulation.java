@@ -3,11 +3,18 @@ package cws.core.simulation;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -17,7 +24,8 @@ import org.apache.commons.cli.Options;
 import org.apache.commons.cli.ParseException;
 import org.apache.commons.cli.PosixParser;
 import org.apache.commons.io.IOUtils;
-import org.cloudbus.cloudsim.Log;
+
+import com.google.common.base.Charsets;
 
 import cws.core.VMFactory;
 import cws.core.algorithms.Algorithm;
@@ -29,18 +37,19 @@ import cws.core.algorithms.SPSS;
 import cws.core.algorithms.StorageAwareSPSS;
 import cws.core.algorithms.StorageAwareWADPDS;
 import cws.core.algorithms.WADPDS;
+import cws.core.cloudsim.AsyncLogSink;
 import cws.core.cloudsim.CloudSimWrapper;
 import cws.core.config.GlobalStorageParamsLoader;
 import cws.core.core.VMType;
 import cws.core.core.VMTypeLoader;
 import cws.core.dag.DAG;
+import cws.core.dag.DAGCache;
 import cws.core.dag.DAGListGenerator;
-import cws.core.dag.DAGParser;
 import cws.core.dag.DAGStats;
-import cws.core.dag.Task;
 import cws.core.engine.Environment;
 import cws.core.engine.EnvironmentFactory;
 import cws.core.exception.IllegalCWSArgumentException;
+import cws.core.log.BinaryTraceWriter;
 import cws.core.storage.StorageManagerStatistics;
 import cws.core.storage.global.GlobalStorageParams;
 
@@ -66,6 +75,18 @@ public class Simulation {
      */
     private static final String DEFAULT_ENABLE_LOGGING = "true";
 
+    /**
+     * Whether to write a binary trace of every simulation, see {@link BinaryTraceWriter}. It contains the information
+     * needed for validation and gantt graphs in a much more compact form than the logs.
+     */
+    private static final String DEFAULT_ENABLE_TRACE = "false";
+
+    /**
+     * Whether to write statistics of the simulation kernel of every simulation to a JSON file, see
+     * {@link KernelStatisticsWriter}. Timing every event makes the simulation a bit slower.
+     */
+    private static final String DEFAULT_KERNEL_STATISTICS = "false";
+
     /**
      * Number of budgets generated. It is ignored when budget is explicitly set.
      */
@@ -91,6 +112,16 @@ public class Simulation {
      */
     private static final String DEFAULT_LOG_TO_STDOUT = "false";
 
+    /**
+     * Number of threads running the simulations of the budget/deadline sweep.
+     */
+    private static final String DEFAULT_THREADS = "1";
+
+    /**
+     * Number of threads evaluating the solutions of static algorithms' planning, 1 means sequential planning.
+     */
+    private static final String DEFAULT_PLANNING_THREADS = "1";
+
     /**
      * Loads VMType from file and/or from CLI args
      */
@@ -148,8 +179,8 @@ public class Simulation {
         scalingFactor.setArgName("FACTOR");
         options.addOption(scalingFactor);
 
-        Option storageCache = new Option("sc", "storage-cache", true, "Storage cache, defaults to "
-                + DEFAULT_STORAGE_CACHE);
+        Option storageCache = new Option("sc", "storage-cache", true,
+                "Storage cache (fifo, lru, lfu, arc, gds or void), defaults to " + DEFAULT_STORAGE_CACHE);
         storageCache.setArgName("CACHE");
         options.addOption(storageCache);
 
@@ -168,6 +199,18 @@ public class Simulation {
         logToStdout.setArgName("BOOL");
         options.addOption(logToStdout);
 
+        Option enableTrace = new Option("et", "enable-trace", true,
+                "Whether to write a binary trace of every simulation next to the output file, defaults to "
+                        + DEFAULT_ENABLE_TRACE);
+        enableTrace.setArgName("BOOL");
+        options.addOption(enableTrace);
+
+        Option kernelStatistics = new Option("kst", "kernel-statistics", true,
+                "Whether to write event statistics of every simulation next to the output file, defaults to "
+                        + DEFAULT_KERNEL_STATISTICS);
+        kernelStatistics.setArgName("BOOL");
+        options.addOption(kernelStatistics);
+
         Option deadline = new Option("d", "deadline", true, "Optional deadline, which overrides max and min deadlines");
         deadline.setArgName("DEADLINE");
         options.addOption(deadline);
@@ -195,6 +238,28 @@ public class Simulation {
         alpha.setArgName("FLOAT");
         options.addOption(alpha);
 
+        Option threads = new Option("t", "threads", true, "Optional number of threads running the sweep, defaults to "
+                + DEFAULT_THREADS);
+        threads.setArgName("N");
+        options.addOption(threads);
+
+        Option planningThreads = new Option("pt", "planning-threads", true,
+                "Optional number of threads evaluating solutions while planning with SPSS, defaults to "
+                        + DEFAULT_PLANNING_THREADS);
+        planningThreads.setArgName("N");
+        options.addOption(planningThreads);
+
+        Option planningTimeLimit = new Option("ptl", "planning-time-limit", true,
+                "Optional wall time limit of planning with SPSS in seconds, planning stops with the DAGs admitted so far"
+                        + " when it is exceeded, no limit by default");
+        planningTimeLimit.setArgName("SECONDS");
+        options.addOption(planningTimeLimit);
+
+        Option dagCacheDir = new Option("dcd", "dag-cache-dir", true,
+                "Optional directory to cache parsed DAGs in, so that other runs do not parse them again");
+        dagCacheDir.setArgName("DIR");
+        options.addOption(dagCacheDir);
+
         VMFactory.buildCliOptions(options);
 
         VMTypeLoader.buildCliOptions(options);
@@ -243,10 +308,28 @@ public class Simulation {
         String storageCacheType = args.getOptionValue("storage-cache", DEFAULT_STORAGE_CACHE);
         boolean enableLogging = Boolean.valueOf(args.getOptionValue("enable-logging", DEFAULT_ENABLE_LOGGING));
         boolean logToStdout = Boolean.valueOf(args.getOptionValue("log-to-stdout", DEFAULT_LOG_TO_STDOUT));
+        boolean enableTrace = Boolean.valueOf(args.getOptionValue("enable-trace", DEFAULT_ENABLE_TRACE));
+        boolean kernelStatistics = Boolean.valueOf(args.getOptionValue("kernel-statistics",
+                DEFAULT_KERNEL_STATISTICS));
         int nbudgets = Integer.parseInt(args.getOptionValue("n-budgets", DEFAULT_N_BUDGETS));
         int ndeadlines = Integer.parseInt(args.getOptionValue("n-deadlines", DEFAULT_N_DEADLINES));
         double maxScaling = Double.parseDouble(args.getOptionValue("max-scaling", DEFAULT_MAX_SCALING));
         double alpha = Double.parseDouble(args.getOptionValue("alpha", DEFAULT_ALPHA));
+        int threads = Integer.parseInt(args.getOptionValue("threads", DEFAULT_THREADS));
+        if (threads < 1) {
+            throw new IllegalCWSArgumentException("Wrong threads: " + threads);
+        }
+        int planningThreads = Integer.parseInt(args.getOptionValue("planning-threads", DEFAULT_PLANNING_THREADS));
+        if (planningThreads < 1) {
+            throw new IllegalCWSArgumentException("Wrong planning threads: " + planningThreads);
+        }
+        double planningTimeLimit = Double.POSITIVE_INFINITY;
+        if (args.hasOption("planning-time-limit")) {
+            planningTimeLimit = Double.parseDouble(args.getOptionValue("planning-time-limit"));
+            if (!(planningTimeLimit >= 0)) {
+                throw new IllegalCWSArgumentException("Wrong planning time limit: " + planningTimeLimit);
+            }
+        }
 
         VMType vmType = vmTypeLoader.determineVMType(args);
         logVMType(vmType);
@@ -256,7 +339,6 @@ public class Simulation {
         CloudSimWrapper cloudsim = new CloudSimWrapper();
         cloudsim.init();
         cloudsim.setLogsEnabled(enableLogging);
-        Log.disable(); // We do not need Cloudsim's logs. We have our own.
 
         // Determine the distribution
         String[] names = null;
@@ -283,6 +365,14 @@ public class Simulation {
 
         if (storageCacheType.equals("fifo")) {
             simulationParams.setStorageCacheType(StorageCacheType.FIFO);
+        } else if (storageCacheType.equals("lru")) {
+            simulationParams.setStorageCacheType(StorageCacheType.LRU);
+        } else if (storageCacheType.equals("lfu")) {
+            simulationParams.setStorageCacheType(StorageCacheType.LFU);
+        } else if (storageCacheType.equals("arc")) {
+            simulationParams.setStorageCacheType(StorageCacheType.ARC);
+        } else if (storageCacheType.equals("gds")) {
+            simulationParams.setStorageCacheType(StorageCacheType.GDS);
         } else if (storageCacheType.equals("void")) {
             simulationParams.setStorageCacheType(StorageCacheType.VOID);
         } else {
@@ -312,10 +402,20 @@ public class Simulation {
         System.out.printf("storageManagerType = %s\n", storageManagerType);
         System.out.printf("storageCache = %s\n", storageCacheType);
         System.out.printf("enableLogging = %b\n", enableLogging);
+        System.out.printf("enableTrace = %b\n", enableTrace);
+        System.out.printf("kernelStatistics = %b\n", kernelStatistics);
         System.out.printf("nbudgets = %d\n", nbudgets);
         System.out.printf("ndeadlines = %d\n", ndeadlines);
         System.out.printf("alpha = %f\n", alpha);
         System.out.printf("maxScaling = %f\n", maxScaling);
+        System.out.printf("threads = %d\n", threads);
+        System.out.printf("planningThreads = %d\n", planningThreads);
+        System.out.printf("planningTimeLimit = %f\n", planningTimeLimit);
+
+        DAGCache dagCache = DAGCache.getSharedCache();
+        if (args.hasOption("dag-cache-dir")) {
+            dagCache = new DAGCache(new File(args.getOptionValue("dag-cache-dir")));
+        }
 
         List<DAG> dags = new ArrayList<DAG>();
         Environment environment = EnvironmentFactory.createEnvironment(cloudsim, simulationParams, vmType);
@@ -325,20 +425,14 @@ public class Simulation {
         double maxTime = 0.0;
         int workflow_id = 0;
         for (String name : names) {
-            DAG dag = DAGParser.parseDAG(new File(name));
+            // Repeated files are parsed only once, every workflow gets its own copy with scaled tasks.
+            DAG dag = dagCache.getDAG(new File(name)).copy(Math.max(scalingFactor, 1.0));
             dag.setId(new Integer(workflow_id).toString());
             System.out.format("Workflow %d, priority = %d, filename = %s%n",
                     workflow_id, names.length - workflow_id, name);
             workflow_id++;
             dags.add(dag);
 
-            if (scalingFactor > 1.0) {
-                for (String tid : dag.getTasks()) {
-                    Task t = dag.getTaskById(tid);
-                    t.scaleSize(scalingFactor);
-                }
-            }
-
             DAGStats dagStats = new DAGStats(dag, environment.getVMType());
 
             minTime = Math.min(minTime, dagStats.getCriticalPathLength())
@@ -382,6 +476,42 @@ public class Simulation {
         System.out.printf("budgets (min, max, step) = %f %f %f\n", minBudget, maxBudget, budgetStep);
         System.out.printf("deadlines (min, max, step) = %f %f %f\n", minDeadline, maxDeadline, deadlineStep);
 
+        SweepContext ctx = new SweepContext();
+        ctx.application = application;
+        ctx.distribution = distribution;
+        ctx.seed = seed;
+        ctx.ensembleSize = ensembleSize;
+        ctx.scalingFactor = scalingFactor;
+        ctx.algorithmName = algorithmName;
+        ctx.storageManagerType = storageManagerType;
+        ctx.storageCacheType = storageCacheType;
+        ctx.enableLogging = enableLogging;
+        ctx.logToStdout = logToStdout;
+        ctx.enableTrace = enableTrace;
+        ctx.kernelStatistics = kernelStatistics;
+        ctx.outputfile = outputfile;
+        ctx.alpha = alpha;
+        ctx.maxScaling = maxScaling;
+        ctx.vmType = vmType;
+        ctx.simulationParams = simulationParams;
+        ctx.dags = dags;
+        ctx.names = names;
+        ctx.minBudget = minBudget;
+        ctx.maxBudget = maxBudget;
+        ctx.minDeadline = minDeadline;
+        ctx.maxDeadline = maxDeadline;
+        if (planningThreads > 1) {
+            ctx.planningPool = new ForkJoinPool(planningThreads);
+        }
+        ctx.planningTimeLimit = planningTimeLimit;
+
+        List<Callable<String>> points = new ArrayList<Callable<String>>();
+        for (double budget = minBudget; budget <= maxBudget + (budgetStep / 2.0); budget += budgetStep) {
+            for (double deadline = minDeadline; deadline <= maxDeadline + (deadlineStep / 2.0); deadline += deadlineStep) {
+                points.add(new SweepPoint(ctx, budget, deadline));
+            }
+        }
+
         PrintStream fileOut = null;
         try {
             fileOut = new PrintStream(new FileOutputStream(outputfile));
@@ -396,90 +526,194 @@ public class Simulation {
                     + "bytesReadFromCache,"
                     + "totalFilesToRead,totalFilesToWrite,totalFilesToTransfer,"
                     + "filesReadFromCache,cacheBytesHitRatio,"
-                    + "readSpeed,writeSpeed,cacheSize,latency,numReplicas");
-
-            for (double budget = minBudget; budget <= maxBudget + (budgetStep / 2.0); budget += budgetStep) {
-                System.out.println();
-                for (double deadline = minDeadline; deadline <= maxDeadline + (deadlineStep / 2.0); deadline += deadlineStep) {
-                    System.out.print(".");
-                    if (enableLogging) {
-                        if (logToStdout) {
-                            cloudsim = new CloudSimWrapper(System.out);
-                        } else {
-                            cloudsim = new CloudSimWrapper(getLogOutputStream(budget, deadline, outputfile));
-                        }
-                    } else {
-                        cloudsim = new CloudSimWrapper();
-                    }
-                    cloudsim.init();
-                    cloudsim.setLogsEnabled(enableLogging);
-                    cloudsim.log("budget = " + budget);
-                    cloudsim.log("deadline = " + deadline);
-                    logWorkflowsDescription(dags, names, cloudsim);
-
-                    environment = EnvironmentFactory.createEnvironment(cloudsim, simulationParams, vmType);
-
-                    Algorithm algorithm = createAlgorithm(alpha, maxScaling, algorithmName, cloudsim, dags, budget,
-                            deadline, environment);
-
-                    algorithm.simulate();
-
-                    AlgorithmStatistics algorithmStatistics = algorithm.getAlgorithmStatistics();
-                    double planningTime = algorithm.getPlanningnWallTime() / 1.0e9;
-                    double simulationTime = cloudsim.getSimulationWallTime() / 1.0e9;
-
-                    fileOut.printf("%s,%s,%d,%d,", application, distribution, seed, ensembleSize);
-                    fileOut.printf("%f,%f,%f,%s,", scalingFactor, budget, deadline, algorithm.getName());
-                    fileOut.printf("%d,%.10f,%.10f,%f,", algorithmStatistics.getFinishedDags().size(),
-                            algorithmStatistics.getExponentialScore(), algorithmStatistics.getLinearScore(),
-                            planningTime);
-                    fileOut.printf("%f,%s,%f,%f,%f,", simulationTime, algorithmStatistics.getScoreBitString(),
-                            algorithmStatistics.getCost(), algorithmStatistics.getLastJobFinishTime(),
-                            algorithmStatistics.getLastDagFinishTime());
-                    fileOut.printf("%f,%f,%f,%f,%f,%f,%f,", algorithmStatistics.getLastVMFinishTime(),
-                            VMFactory.getRuntimeVariance(), VMFactory.getFailureRate(), minBudget, maxBudget,
-                            minDeadline, maxDeadline);
-                    fileOut.printf("%f,%f,", algorithmStatistics.getTimeSpentOnTransfers(),
-                            algorithmStatistics.getTimeSpentOnComputations());
-
-                    StorageManagerStatistics stats = environment.getStorageManagerStatistics();
-                    fileOut.printf("%s,%s,%d,%d,%d,%d,", storageManagerType, storageCacheType,
-                            stats.getTotalBytesToRead(), stats.getTotalBytesToWrite(), stats.getTotalBytesToRead()
-                                    + stats.getTotalBytesToWrite(), stats.getBytesReadFromCache());
-
-                    String cacheBytesHitRatio = "";
-                    if (stats.getTotalBytesToRead() + stats.getTotalBytesToWrite() > 0) {
-                        double cacheHitRatio = (double) stats.getBytesReadFromCache()
-                                / ((double) (stats.getTotalBytesToRead() + stats.getTotalBytesToWrite()));
-                        cacheBytesHitRatio = cacheHitRatio + "";
-                    }
-                    fileOut.printf("%d,%d,%d,%d,%s,", stats.getTotalFilesToRead(), stats.getTotalFilesToWrite(),
-                            stats.getTotalFilesToRead() + stats.getTotalFilesToWrite(), stats.getFilesReadFromCache(),
-                            cacheBytesHitRatio);
-
-                    if (globalStorageParams != null) {
-                        fileOut.printf("%f,%f,%d,%f,%d\n", globalStorageParams.getReadSpeed(),
-                                globalStorageParams.getWriteSpeed(), vmType.getCacheSize(),
-                                globalStorageParams.getLatency(), globalStorageParams.getNumReplicas());
-                    } else {
-                        fileOut.printf(",,,,\n");
-                    }
-                }
-            }
+                    + "cacheHits,cacheMisses,cacheEvictions,"
+                    + "readSpeed,writeSpeed,cacheSize,latency,numReplicas,"
+                    + "consideredDags");
+
+            new SweepExecutor(threads).run(points, fileOut);
             System.out.println();
         } catch (FileNotFoundException e) {
             throw new RuntimeException(e);
         } finally {
             IOUtils.closeQuietly(fileOut);
+            if (ctx.planningPool != null) {
+                ctx.planningPool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Runs a single simulation of the sweep for the given budget and deadline and returns its row of the output file.
+     */
+    private String runSimulation(SweepContext ctx, double budget, double deadline) throws FileNotFoundException {
+        AsyncLogSink logSink = null;
+        CloudSimWrapper cloudsim;
+        if (ctx.enableLogging) {
+            if (ctx.logToStdout) {
+                cloudsim = new CloudSimWrapper(System.out);
+            } else {
+                // Traces are written in the background, the sink is flushed when the simulation finishes
+                logSink = new AsyncLogSink(getLogOutputStream(budget, deadline, ctx.outputfile));
+                cloudsim = new CloudSimWrapper(logSink);
+            }
+        } else {
+            cloudsim = new CloudSimWrapper();
+        }
+        BinaryTraceWriter trace = null;
+
+        Algorithm algorithm;
+        Environment environment;
+        try {
+            cloudsim.init();
+            cloudsim.setLogsEnabled(ctx.enableLogging);
+            VMFactory.initSimulation(cloudsim);
+            cloudsim.setKernelStatisticsEnabled(ctx.kernelStatistics);
+            if (ctx.enableTrace) {
+                trace = new BinaryTraceWriter(new FileOutputStream(getOutputFileName(budget, deadline,
+                        ctx.outputfile, BinaryTraceWriter.EXTENSION)));
+                cloudsim.setTraceSink(trace);
+                trace.settings(budget, deadline);
+            }
+            cloudsim.log("budget = " + budget);
+            cloudsim.log("deadline = " + deadline);
+            logWorkflowsDescription(ctx.dags, ctx.names, cloudsim);
+
+            environment = EnvironmentFactory.createEnvironment(cloudsim, ctx.simulationParams, ctx.vmType);
+
+            algorithm = createAlgorithm(ctx.alpha, ctx.maxScaling, ctx.algorithmName, cloudsim, ctx.dags, budget,
+                    deadline, environment, ctx.planningPool, ctx.planningTimeLimit);
+
+            algorithm.simulate();
+        } finally {
+            IOUtils.closeQuietly(logSink);
+            IOUtils.closeQuietly(trace);
+        }
+        System.out.print(".");
+
+        if (ctx.kernelStatistics) {
+            writeKernelStatistics(cloudsim, getOutputFileName(budget, deadline, ctx.outputfile,
+                    KernelStatisticsWriter.EXTENSION));
+        }
+
+        AlgorithmStatistics algorithmStatistics = algorithm.getAlgorithmStatistics();
+        double planningTime = algorithm.getPlanningnWallTime() / 1.0e9;
+        double simulationTime = cloudsim.getSimulationWallTime() / 1.0e9;
+
+        StringWriter row = new StringWriter();
+        PrintWriter rowOut = new PrintWriter(row);
+        rowOut.printf("%s,%s,%d,%d,", ctx.application, ctx.distribution, ctx.seed, ctx.ensembleSize);
+        rowOut.printf("%f,%f,%f,%s,", ctx.scalingFactor, budget, deadline, algorithm.getName());
+        rowOut.printf("%d,%.10f,%.10f,%f,", algorithmStatistics.getFinishedDags().size(),
+                algorithmStatistics.getExponentialScore(), algorithmStatistics.getLinearScore(), planningTime);
+        rowOut.printf("%f,%s,%f,%f,%f,", simulationTime, algorithmStatistics.getScoreBitString(),
+                algorithmStatistics.getCost(), algorithmStatistics.getLastJobFinishTime(),
+                algorithmStatistics.getLastDagFinishTime());
+        rowOut.printf("%f,%f,%f,%f,%f,%f,%f,", algorithmStatistics.getLastVMFinishTime(),
+                VMFactory.getRuntimeVariance(), VMFactory.getFailureRate(), ctx.minBudget, ctx.maxBudget,
+                ctx.minDeadline, ctx.maxDeadline);
+        rowOut.printf("%f,%f,", algorithmStatistics.getTimeSpentOnTransfers(),
+                algorithmStatistics.getTimeSpentOnComputations());
+
+        StorageManagerStatistics stats = environment.getStorageManagerStatistics();
+        rowOut.printf("%s,%s,%d,%d,%d,%d,", ctx.storageManagerType, ctx.storageCacheType,
+                stats.getTotalBytesToRead(), stats.getTotalBytesToWrite(),
+                stats.getTotalBytesToRead() + stats.getTotalBytesToWrite(), stats.getBytesReadFromCache());
+
+        String cacheBytesHitRatio = "";
+        if (stats.getTotalBytesToRead() + stats.getTotalBytesToWrite() > 0) {
+            double cacheHitRatio = (double) stats.getBytesReadFromCache()
+                    / ((double) (stats.getTotalBytesToRead() + stats.getTotalBytesToWrite()));
+            cacheBytesHitRatio = cacheHitRatio + "";
+        }
+        rowOut.printf("%d,%d,%d,%d,%s,", stats.getTotalFilesToRead(), stats.getTotalFilesToWrite(),
+                stats.getTotalFilesToRead() + stats.getTotalFilesToWrite(), stats.getFilesReadFromCache(),
+                cacheBytesHitRatio);
+        rowOut.printf("%d,%d,%d,", stats.getCacheHits(), stats.getCacheMisses(), stats.getCacheEvictions());
+
+        GlobalStorageParams globalStorageParams = ctx.simulationParams.getStorageParams();
+        if (globalStorageParams != null) {
+            rowOut.printf("%f,%f,%d,%f,%d,", globalStorageParams.getReadSpeed(),
+                    globalStorageParams.getWriteSpeed(), ctx.vmType.getCacheSize(), globalStorageParams.getLatency(),
+                    globalStorageParams.getNumReplicas());
+        } else {
+            rowOut.printf(",,,,,");
+        }
+        rowOut.printf("%d\n", algorithm.getNumConsideredDAGs());
+        rowOut.flush();
+        return row.toString();
+    }
+
+    private void writeKernelStatistics(CloudSimWrapper cloudsim, String fileName) throws FileNotFoundException {
+        Writer out = new OutputStreamWriter(new FileOutputStream(fileName), Charsets.UTF_8);
+        try {
+            KernelStatisticsWriter.write(cloudsim.getKernelStatistics(), cloudsim.getEntities(), out);
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to write kernel statistics: I/O error", e);
+        } finally {
+            IOUtils.closeQuietly(out);
+        }
+    }
+
+    /**
+     * Parameters shared by all the simulations of a sweep.
+     */
+    private static class SweepContext {
+        String application;
+        String distribution;
+        long seed;
+        int ensembleSize;
+        double scalingFactor;
+        String algorithmName;
+        String storageManagerType;
+        String storageCacheType;
+        boolean enableLogging;
+        boolean logToStdout;
+        boolean enableTrace;
+        boolean kernelStatistics;
+        File outputfile;
+        double alpha;
+        double maxScaling;
+        VMType vmType;
+        StorageSimulationParams simulationParams;
+        List<DAG> dags;
+        String[] names;
+        double minBudget;
+        double maxBudget;
+        double minDeadline;
+        double maxDeadline;
+        /** Pool shared by the sweep points for parallel planning, null if planning is sequential */
+        ForkJoinPool planningPool;
+        double planningTimeLimit;
+    }
+
+    /**
+     * A single (budget, deadline) point of the sweep.
+     */
+    private class SweepPoint implements Callable<String> {
+        private final SweepContext ctx;
+        private final double budget;
+        private final double deadline;
+
+        public SweepPoint(SweepContext ctx, double budget, double deadline) {
+            this.ctx = ctx;
+            this.budget = budget;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public String call() throws Exception {
+            return runSimulation(ctx, budget, deadline);
         }
     }
 
     private void logWorkflowsDescription(List<DAG> dags, String[] names, CloudSimWrapper cloudsim) {
         for (int i = 0; i < dags.size(); i++) {
             DAG dag = dags.get(i);
-            String workflowDescription = String.format("Workflow %s, priority = %d, filename = %s", dag.getId(),
-                    dags.size() - i, names[i]);
-            cloudsim.log(workflowDescription);
+            cloudsim.logMessage("Workflow %s, priority = %d, filename = %s").arg(dag.getId()).arg(dags.size() - i)
+                    .arg(names[i]).log();
+            if (cloudsim.isTracing()) {
+                cloudsim.getTraceSink().workflow(dag.getId(), dags.size() - i, names[i]);
+            }
         }
     }
 
@@ -499,19 +733,26 @@ public class Simulation {
         System.out.printf("GS latency = %f\n", globalStorageParams.getLatency());
         System.out.printf("GS chunk transfer time = %f\n", globalStorageParams.getChunkTransferTime());
         System.out.printf("GS replicas number = %d\n", globalStorageParams.getNumReplicas());
+        System.out.printf("GS fluid transfers = %b\n", globalStorageParams.isFluidTransfers());
     }
 
     /**
      * Crates algorithm instance from the given input params.
      * @param environment
+     * @param planningPool pool for parallel planning of static algorithms, null for sequential planning
+     * @param planningTimeLimit wall time limit of planning of static algorithms in seconds, infinite for no limit
      * @return The newly created algorithm instance.
      */
     protected Algorithm createAlgorithm(double alpha, double maxScaling, String algorithmName,
-            CloudSimWrapper cloudsim, List<DAG> dags, double budget, double deadline, Environment environment) {
+            CloudSimWrapper cloudsim, List<DAG> dags, double budget, double deadline, Environment environment,
+            ForkJoinPool planningPool, double planningTimeLimit) {
         AlgorithmStatistics ensembleStatistics = new AlgorithmStatistics(dags, budget, deadline, cloudsim);
 
         if ("SPSS".equals(algorithmName)) {
-            return new SPSS(budget, deadline, dags, alpha, ensembleStatistics, environment, cloudsim);
+            SPSS spss = new SPSS(budget, deadline, dags, alpha, ensembleStatistics, environment, cloudsim);
+            spss.setPlanningPool(planningPool);
+            spss.setPlanningTimeLimit(planningTimeLimit);
+            return spss;
         } else if ("DPDS".equals(algorithmName)) {
             return new DPDS(budget, deadline, dags, maxScaling, ensembleStatistics, environment, cloudsim);
         } else if ("L-DPDS".equals(algorithmName)) {
@@ -519,7 +760,10 @@ public class Simulation {
         } else if ("WADPDS".equals(algorithmName)) {
             return new WADPDS(budget, deadline, dags, maxScaling, ensembleStatistics, environment, cloudsim);
         } else if ("SA-SPSS".equals(algorithmName)) {
-            return new StorageAwareSPSS(budget, deadline, dags, alpha, ensembleStatistics, environment, cloudsim);
+            SPSS spss = new StorageAwareSPSS(budget, deadline, dags, alpha, ensembleStatistics, environment, cloudsim);
+            spss.setPlanningPool(planningPool);
+            spss.setPlanningTimeLimit(planningTimeLimit);
+            return spss;
         } else if ("SA-WADPDS".equals(algorithmName)) {
             return new StorageAwareWADPDS(budget, deadline, dags, maxScaling, ensembleStatistics, environment, cloudsim);
         } else if ("L-SA-WADPDS".equals(algorithmName)) {
@@ -539,7 +783,13 @@ public class Simulation {
      */
     private OutputStream getLogOutputStream(double budget, double deadline, File outputfile)
             throws FileNotFoundException {
-        String name = String.format("%s.b-%.2f-d-%.2f.log", outputfile.getAbsolutePath(), budget, deadline);
-        return new FileOutputStream(new File(name));
+        return new FileOutputStream(getOutputFileName(budget, deadline, outputfile, ".log"));
+    }
+
+    /**
+     * @return The name of a file written by the simulation of the given budget and deadline.
+     */
+    private String getOutputFileName(double budget, double deadline, File outputfile, String extension) {
+        return String.format("%s.b-%.2f-d-%.2f%s", outputfile.getAbsolutePath(), budget, deadline, extension);
     }
 }
@@ -1,5 +1,5 @@
 package cws.core.simulation;
 
 public enum StorageCacheType {
-    FIFO, VOID
+    FIFO, LRU, LFU, ARC, GDS, VOID
 }
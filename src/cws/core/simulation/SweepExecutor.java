@@ -0,0 +1,86 @@
+package cws.core.simulation;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Runs the points of a budget/deadline sweep as independent tasks on a fixed size thread pool.
+ *
+ * Every point produces one row of the output. Rows are written in the order the points were given (i.e. in grid
+ * order), regardless of the order in which the points complete, so the output does not depend on the number of
+ * threads.
+ */
+public class SweepExecutor {
+    /** Number of threads running sweep points */
+    private final int threads;
+
+    public SweepExecutor(int threads) {
+        Preconditions.checkArgument(threads > 0, "Number of threads must be > 0, was: " + threads);
+        this.threads = threads;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Runs all the given points and prints their rows to the given stream in the order of the list.
+     * @param points The sweep points, in grid order. Each returns the row it produced.
+     * @param out The stream to print rows to.
+     */
+    public void run(List<? extends Callable<String>> points, PrintStream out) {
+        if (threads == 1) {
+            // No need for a pool, this also keeps exceptions thrown by points as they are.
+            for (Callable<String> point : points) {
+                out.print(call(point));
+            }
+            return;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<String>> rows = new ArrayList<Future<String>>(points.size());
+            for (Callable<String> point : points) {
+                rows.add(pool.submit(point));
+            }
+            // Waiting for the futures in submission order keeps the rows in grid order.
+            for (Future<String> row : rows) {
+                out.print(getRow(row));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static String call(Callable<String> point) {
+        try {
+            return point.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static String getRow(Future<String> row) {
+        try {
+            return row.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for sweep point", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+}
@@ -11,9 +11,6 @@ import cws.core.dag.Task;
 import cws.core.exception.UnknownWorkflowEventException;
 import cws.core.jobs.Job;
 
-import org.cloudbus.cloudsim.core.SimEntity;
-import org.cloudbus.cloudsim.core.SimEvent;
-
 /**
  * Abstract class for all storage managers. It should be subclassed and implemented.
  *
@@ -109,12 +106,20 @@ public abstract class StorageManager extends CWSSimEntity implements WorkflowEve
      */
     protected abstract void onAfterTaskCompleted(Job job);
 
+    /**
+     * Called when a VM is terminated. Transfers of its jobs which are not progressed in chunks should be stopped here,
+     * as nothing else checks them until they complete. Does nothing by default.
+     * @param vm - the terminated VM
+     */
+    protected void onVMTerminated(VM vm) {
+    }
+
     public StorageManagerStatistics getStorageManagerStatistics() {
         return this.statistics;
     }
 
     /**
-     * @see SimEntity#processEvent(SimEvent)
+     * @see CWSSimEntity#processEvent(CWSSimEvent)
      */
     @Override
     public void processEvent(CWSSimEvent ev) {
@@ -135,6 +140,9 @@ public abstract class StorageManager extends CWSSimEntity implements WorkflowEve
             statistics.addTotalFilesToWrite(jobAfter.getTask().getOutputFiles().size());
             onAfterTaskCompleted(jobAfter);
             break;
+        case WorkflowEvent.STORAGE_VM_TERMINATED:
+            onVMTerminated((VM) ev.getData());
+            break;
         default:
             onUnknownSimEvent(ev);
             break;
@@ -160,7 +168,7 @@ public abstract class StorageManager extends CWSSimEntity implements WorkflowEve
     }
 
     /**
-     * Called on unknown event occurred in {@link #processEvent(SimEvent)}
+     * Called on unknown event occurred in {@link #processEvent(CWSSimEvent)}
      * @param ev - the unknown event which occurred.
      */
     protected void onUnknownSimEvent(CWSSimEvent ev) {
@@ -168,7 +176,7 @@ public abstract class StorageManager extends CWSSimEntity implements WorkflowEve
     }
 
     /**
-     * @see SimEntity#startEntity()
+     * @see CWSSimEntity#startEntity()
      */
     @Override
     public void startEntity() {
@@ -176,7 +184,7 @@ public abstract class StorageManager extends CWSSimEntity implements WorkflowEve
     }
 
     /**
-     * @see SimEntity#shutdownEntity()
+     * @see CWSSimEntity#shutdownEntity()
      */
     @Override
     public void shutdownEntity() {
@@ -4,7 +4,11 @@ import cws.core.cloudsim.CloudSimWrapper;
 import cws.core.simulation.StorageCacheType;
 import cws.core.simulation.StorageSimulationParams;
 import cws.core.simulation.StorageType;
+import cws.core.storage.cache.ARCCacheManager;
 import cws.core.storage.cache.FIFOCacheManager;
+import cws.core.storage.cache.GreedyDualSizeCacheManager;
+import cws.core.storage.cache.LFUCacheManager;
+import cws.core.storage.cache.LRUCacheManager;
 import cws.core.storage.cache.VMCacheManager;
 import cws.core.storage.cache.VoidCacheManager;
 import cws.core.storage.global.GlobalStorageManager;
@@ -15,6 +19,14 @@ public class StorageManagerFactory {
         VMCacheManager cacheManager;
         if (simulationParams.getStorageCacheType() == StorageCacheType.FIFO) {
             cacheManager = new FIFOCacheManager(cloudsim);
+        } else if (simulationParams.getStorageCacheType() == StorageCacheType.LRU) {
+            cacheManager = new LRUCacheManager(cloudsim);
+        } else if (simulationParams.getStorageCacheType() == StorageCacheType.LFU) {
+            cacheManager = new LFUCacheManager(cloudsim);
+        } else if (simulationParams.getStorageCacheType() == StorageCacheType.ARC) {
+            cacheManager = new ARCCacheManager(cloudsim);
+        } else if (simulationParams.getStorageCacheType() == StorageCacheType.GDS) {
+            cacheManager = new GreedyDualSizeCacheManager(cloudsim);
         } else {
             cacheManager = new VoidCacheManager(cloudsim);
         }
@@ -24,6 +36,7 @@ public class StorageManagerFactory {
         } else {
             storageManager = new VoidStorageManager(cloudsim);
         }
+        cacheManager.setStatistics(storageManager.getStorageManagerStatistics());
         return storageManager;
     }
 }
@@ -17,6 +17,12 @@ public class StorageManagerStatistics {
     private int totalFilesToWrite;
     /** The number of files read from cache. */
     private int filesReadFromCache;
+    /** The number of reads of files which were in the cache when the read started. */
+    private int cacheHits;
+    /** The number of reads of files which were not in the cache when the read started. */
+    private int cacheMisses;
+    /** The number of files evicted from the cache. */
+    private int cacheEvictions;
 
     public long getTotalBytesToRead() {
         return totalBytesToRead;
@@ -65,4 +71,28 @@ public class StorageManagerStatistics {
     public void addFilesReadFromCache(int filesRead) {
         this.filesReadFromCache += filesRead;
     }
+
+    public int getCacheHits() {
+        return cacheHits;
+    }
+
+    public void addCacheHits(int hits) {
+        this.cacheHits += hits;
+    }
+
+    public int getCacheMisses() {
+        return cacheMisses;
+    }
+
+    public void addCacheMisses(int misses) {
+        this.cacheMisses += misses;
+    }
+
+    public int getCacheEvictions() {
+        return cacheEvictions;
+    }
+
+    public void addCacheEvictions(int evictions) {
+        this.cacheEvictions += evictions;
+    }
 }
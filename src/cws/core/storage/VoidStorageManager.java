@@ -47,14 +47,19 @@ public class VoidStorageManager extends StorageManager {
 
     /** We need somehow indicate (for validation scripts) that the transfer happened */
     private void logInstantTransfer(Job job, DAGFile file, String type) {
-        String downloadMsg = String.format("Global %s transfer %d started: %s, size: %s, vm: %s, job_id: %d", type,
-                transferId, file.getName(), file.getSize(), job.getVM().getId(), job.getID());
-        String uploadMsg = String.format("Global %s transfer %d finished: %s, bytes transferred: %d, duration: %f",
-                type, transferId, file.getName(), file.getSize(), 0.0);
+        getCloudsim().logMessage("Global %s transfer %d started: %s, size: %s, vm: %s, job_id: %d").arg(type)
+                .arg(transferId).arg(file.getName()).arg(file.getSize()).arg(job.getVM().getId()).arg(job.getID())
+                .log();
+        getCloudsim().logMessage("Global %s transfer %d finished: %s, bytes transferred: %d, duration: %f").arg(type)
+                .arg(transferId).arg(file.getName()).arg(file.getSize()).arg(0.0).log();
+        if (getCloudsim().isTracing()) {
+            boolean read = "read".equals(type);
+            getCloudsim().getTraceSink().transferStarted(getCloudsim().clock(), transferId, read, file.getName(),
+                    file.getSize(), job.getVM().getId(), job.getID());
+            getCloudsim().getTraceSink().transferFinished(getCloudsim().clock(), transferId, read, file.getSize(),
+                    0.0);
+        }
 
         transferId++;
-
-        getCloudsim().log(downloadMsg);
-        getCloudsim().log(uploadMsg);
     }
 }
@@ -0,0 +1,112 @@
+package cws.core.storage.cache;
+
+import cws.core.cloudsim.CloudSimWrapper;
+
+/**
+ * Cache manager with the Adaptive Replacement Cache policy of Megiddo and Modha. Files referenced once and files
+ * referenced more often are kept in separate LRU lists, and the recently evicted files of both lists are remembered
+ * (without their contents) in ghost lists. A reference of a ghost file adapts the share of the cache given to the
+ * files referenced once.
+ *
+ * The files have different sizes, so the lists and the target share are measured in bytes instead of pages.
+ */
+public class ARCCacheManager extends IndexedCacheManager {
+    public ARCCacheManager(CloudSimWrapper cloudsim) {
+        super(cloudsim);
+    }
+
+    @Override
+    protected IndexedCache newCache(long capacity) {
+        return new ARCCache(capacity);
+    }
+
+    private static class ARCCache extends IndexedCache {
+        /** Cached files referenced once */
+        private static final int RECENT = 0;
+        /** Cached files referenced more than once */
+        private static final int FREQUENT = 1;
+        /** Files evicted from RECENT */
+        private static final int RECENT_GHOSTS = 2;
+        /** Files evicted from FREQUENT */
+        private static final int FREQUENT_GHOSTS = 3;
+
+        /** Target size of RECENT in bytes */
+        private double target;
+
+        ARCCache(long capacity) {
+            super(capacity, 4);
+        }
+
+        @Override
+        boolean contains(int file) {
+            int slot = find(file);
+            return slot != NONE && (lists[slot] == RECENT || lists[slot] == FREQUENT);
+        }
+
+        @Override
+        protected void put(int file, long size) {
+            int slot = find(file);
+            if (slot != NONE && (lists[slot] == RECENT || lists[slot] == FREQUENT)) {
+                unlink(slot);
+                linkFirst(FREQUENT, slot);
+                return;
+            }
+            if (slot != NONE) {
+                boolean frequentGhost = lists[slot] == FREQUENT_GHOSTS;
+                if (frequentGhost) {
+                    double ratio = Math.max(1.0, (double) bytes(RECENT_GHOSTS) / bytes(FREQUENT_GHOSTS));
+                    target = Math.max(0.0, target - ratio * size);
+                } else {
+                    double ratio = Math.max(1.0, (double) bytes(FREQUENT_GHOSTS) / bytes(RECENT_GHOSTS));
+                    target = Math.min(getCapacity(), target + ratio * size);
+                }
+                unlink(slot);
+                replace(size, frequentGhost);
+                linkFirst(FREQUENT, slot);
+            } else {
+                replace(size, false);
+                linkFirst(RECENT, newEntry(file, size));
+            }
+            trimGhosts();
+        }
+
+        /**
+         * Evicts files to the ghost lists until there is room for the given size.
+         */
+        private void replace(long size, boolean frequentGhost) {
+            while (bytes(RECENT) + bytes(FREQUENT) + size > getCapacity()) {
+                long recent = bytes(RECENT);
+                int from;
+                if (recent > 0 && (recent > target || (frequentGhost && recent == target) || bytes(FREQUENT) == 0)) {
+                    from = RECENT;
+                } else {
+                    from = FREQUENT;
+                }
+                int victim = last(from);
+                evicted(victim);
+                unlink(victim);
+                linkFirst(from == RECENT ? RECENT_GHOSTS : FREQUENT_GHOSTS, victim);
+            }
+        }
+
+        /**
+         * Forgets the oldest ghosts so that the files referenced once and their ghosts fit in the cache, and all the
+         * files and ghosts fit in twice the cache.
+         */
+        private void trimGhosts() {
+            long capacity = getCapacity();
+            while (bytes(RECENT_GHOSTS) > 0 && bytes(RECENT) + bytes(RECENT_GHOSTS) > capacity) {
+                forget(last(RECENT_GHOSTS));
+            }
+            while (bytes(FREQUENT_GHOSTS) > 0
+                    && bytes(RECENT) + bytes(FREQUENT) + bytes(RECENT_GHOSTS) + bytes(FREQUENT_GHOSTS) > 2 * capacity) {
+                forget(last(FREQUENT_GHOSTS));
+            }
+        }
+
+        private void forget(int ghost) {
+            unlink(ghost);
+            deleteEntry(ghost);
+        }
+    }
+}
@@ -24,6 +24,7 @@ public class FIFOCacheManager extends VMCacheManager {
      * Since we use per-VM cache this inner class is convenient.
      */
     private class VMCache {
+        private final VM vm;
         private long size = 0;
         private long remainingSize = 0;
         // didn't use LinkedHashSet because it doesn't have push/poll methods
@@ -31,6 +32,7 @@ public class FIFOCacheManager extends VMCacheManager {
         private Set<DAGFile> filesSet = new HashSet<DAGFile>();
 
         public VMCache(VM vm) {
+            this.vm = vm;
             this.size = vm.getVmType().getCacheSize();
             this.remainingSize = this.size;
         }
@@ -44,11 +46,13 @@ public class FIFOCacheManager extends VMCacheManager {
                     DAGFile df = filesList.pollLast();
                     filesSet.remove(df);
                     remainingSize += df.getSize();
+                    fileEvicted(df, vm);
                 }
                 if (remainingSize >= file.getSize()) {
                     filesSet.add(file);
                     filesList.push(file);
                     remainingSize -= file.getSize();
+                    fileCached(file, vm);
                 }
             }
         }
@@ -0,0 +1,62 @@
+package cws.core.storage.cache;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import cws.core.VM;
+import cws.core.dag.DAGFile;
+
+/**
+ * Inverted index of a {@link VMCacheManager}: the VMs which have every file in their caches. It is maintained by the
+ * cache manager whenever a file is put to or evicted from a cache, so schedulers can find the VMs with a task's input
+ * files without probing every VM's cache for every file.
+ */
+public class FileLocationIndex {
+    private final Map<DAGFile, Set<VM>> locations = new HashMap<DAGFile, Set<VM>>();
+
+    void add(DAGFile file, VM vm) {
+        Set<VM> vms = locations.get(file);
+        if (vms == null) {
+            vms = new LinkedHashSet<VM>();
+            locations.put(file, vms);
+        }
+        vms.add(vm);
+    }
+
+    void remove(DAGFile file, VM vm) {
+        Set<VM> vms = locations.get(file);
+        if (vms != null) {
+            vms.remove(vm);
+            if (vms.isEmpty()) {
+                locations.remove(file);
+            }
+        }
+    }
+
+    /**
+     * @return Unmodifiable view of the VMs caching the file.
+     */
+    public Set<VM> getVMs(DAGFile file) {
+        Set<VM> vms = locations.get(file);
+        return vms == null ? Collections.<VM> emptySet() : Collections.unmodifiableSet(vms);
+    }
+
+    /**
+     * @return The VMs caching at least one of the files.
+     */
+    public Set<VM> getVMsCachingAny(Collection<DAGFile> files) {
+        Set<VM> vms = new HashSet<VM>();
+        for (DAGFile file : files) {
+            Set<VM> fileVMs = locations.get(file);
+            if (fileVMs != null) {
+                vms.addAll(fileVMs);
+            }
+        }
+        return vms;
+    }
+}
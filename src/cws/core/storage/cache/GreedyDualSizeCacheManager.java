@@ -0,0 +1,142 @@
+package cws.core.storage.cache;
+
+import java.util.Arrays;
+
+import cws.core.cloudsim.CloudSimWrapper;
+
+/**
+ * Cache manager with the GreedyDual-Size policy of Cao and Irani. Every file has a priority of L + 1 / size, where L is
+ * the priority of the last evicted file, and the file with the lowest priority is evicted first. Small files are kept
+ * longer than big ones, which favours the number of files read from the cache, and files which are not referenced
+ * age as L grows. A reference of a cached file restores its priority.
+ */
+public class GreedyDualSizeCacheManager extends IndexedCacheManager {
+    public GreedyDualSizeCacheManager(CloudSimWrapper cloudsim) {
+        super(cloudsim);
+    }
+
+    @Override
+    protected IndexedCache newCache(long capacity) {
+        return new GreedyDualSizeCache(capacity);
+    }
+
+    /**
+     * The entries are kept in a binary heap of slots ordered by priority, and by the time of the last reference on
+     * ties.
+     */
+    private static class GreedyDualSizeCache extends IndexedCache {
+        private double[] priorities = new double[16];
+        private long[] references = new long[16];
+        /** Position of every slot in the heap */
+        private int[] positions = new int[16];
+
+        private int[] heap = new int[16];
+        private int heapSize;
+
+        /** Priority of the last evicted file */
+        private double inflation;
+        private long time;
+        private long used;
+
+        GreedyDualSizeCache(long capacity) {
+            super(capacity, 0);
+        }
+
+        @Override
+        protected void grow(int length) {
+            super.grow(length);
+            priorities = Arrays.copyOf(priorities, length);
+            references = Arrays.copyOf(references, length);
+            positions = Arrays.copyOf(positions, length);
+            heap = Arrays.copyOf(heap, length);
+        }
+
+        @Override
+        boolean contains(int file) {
+            return find(file) != NONE;
+        }
+
+        @Override
+        protected void put(int file, long size) {
+            int slot = find(file);
+            if (slot != NONE) {
+                // The priority can only grow
+                priorities[slot] = priority(size);
+                references[slot] = ++time;
+                siftDown(positions[slot]);
+                return;
+            }
+            while (used + size > getCapacity()) {
+                int victim = heap[0];
+                evicted(victim);
+                inflation = priorities[victim];
+                removeTop();
+                used -= sizes[victim];
+                deleteEntry(victim);
+            }
+            slot = newEntry(file, size);
+            priorities[slot] = priority(size);
+            references[slot] = ++time;
+            used += size;
+            positions[slot] = heapSize;
+            heap[heapSize++] = slot;
+            siftUp(heapSize - 1);
+        }
+
+        private double priority(long size) {
+            return inflation + 1.0 / Math.max(1, size);
+        }
+
+        private boolean before(int a, int b) {
+            if (priorities[a] != priorities[b]) {
+                return priorities[a] < priorities[b];
+            }
+            return references[a] < references[b];
+        }
+
+        private void removeTop() {
+            int last = heap[--heapSize];
+            if (heapSize > 0) {
+                heap[0] = last;
+                positions[last] = 0;
+                siftDown(0);
+            }
+        }
+
+        private void siftUp(int position) {
+            int slot = heap[position];
+            while (position > 0) {
+                int parent = (position - 1) / 2;
+                if (!before(slot, heap[parent])) {
+                    break;
+                }
+                heap[position] = heap[parent];
+                positions[heap[position]] = position;
+                position = parent;
+            }
+            heap[position] = slot;
+            positions[slot] = position;
+        }
+
+        private void siftDown(int position) {
+            int slot = heap[position];
+            while (true) {
+                int child = 2 * position + 1;
+                if (child >= heapSize) {
+                    break;
+                }
+                if (child + 1 < heapSize && before(heap[child + 1], heap[child])) {
+                    child++;
+                }
+                if (!before(heap[child], slot)) {
+                    break;
+                }
+                heap[position] = heap[child];
+                positions[heap[position]] = position;
+                position = child;
+            }
+            heap[position] = slot;
+            positions[slot] = position;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package cws.core.storage.cache;
+
+import java.util.Arrays;
+
+/**
+ * Per-VM cache of an {@link IndexedCacheManager}. Files are identified by interned ids and their entries are kept in
+ * slots of primitive arrays, so no objects are allocated per cached file. Entries can be linked into intrusive doubly
+ * linked lists, whose heads are the most recently used entries. Slots of deleted entries are reused.
+ */
+abstract class IndexedCache {
+    protected static final int NONE = -1;
+
+    private final long capacity;
+
+    /** Slot of every file id plus one, 0 if the file has no entry */
+    private int[] slotOfFile = new int[64];
+
+    protected int[] files = new int[16];
+    protected long[] sizes = new long[16];
+    /** List of every slot, NONE if it is not linked */
+    protected int[] lists = new int[16];
+    private int[] prev = new int[16];
+    private int[] next = new int[16];
+    private int freeSlots = NONE;
+    private int slotLimit;
+
+    /** Files evicted by the current put */
+    private int[] evicted = new int[4];
+    private int evictedCount;
+
+    private final int[] heads;
+    private final int[] tails;
+    private final long[] bytes;
+
+    IndexedCache(long capacity, int listCount) {
+        this.capacity = capacity;
+        this.heads = new int[listCount];
+        this.tails = new int[listCount];
+        this.bytes = new long[listCount];
+        Arrays.fill(heads, NONE);
+        Arrays.fill(tails, NONE);
+    }
+
+    long getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return true if the file is in the cache, false otherwise.
+     */
+    abstract boolean contains(int file);
+
+    /**
+     * Puts the file to the cache or records the reference if it is already there. The file is not bigger than the
+     * cache. Files evicted to make room for the file are reported with {@link #evicted(int)}.
+     */
+    protected abstract void put(int file, long size);
+
+    /**
+     * Puts the file to the cache, see {@link #put(int, long)}.
+     * @return The number of files evicted, see {@link #getEvicted(int)}.
+     */
+    int putFile(int file, long size) {
+        evictedCount = 0;
+        put(file, size);
+        return evictedCount;
+    }
+
+    /**
+     * @return The id of the i-th file evicted by the last {@link #putFile(int, long)}.
+     */
+    int getEvicted(int i) {
+        return evicted[i];
+    }
+
+    /**
+     * Records that the file of the entry has been evicted. The entry may stay, e.g. as a ghost.
+     */
+    protected void evicted(int slot) {
+        if (evictedCount == evicted.length) {
+            evicted = Arrays.copyOf(evicted, evictedCount * 2);
+        }
+        evicted[evictedCount++] = files[slot];
+    }
+
+    /**
+     * @return The slot of the file's entry, NONE if there is no entry.
+     */
+    protected int find(int file) {
+        return file < slotOfFile.length ? slotOfFile[file] - 1 : NONE;
+    }
+
+    /**
+     * @return The slot of a new, unlinked entry of the file.
+     */
+    protected int newEntry(int file, long size) {
+        int slot;
+        if (freeSlots != NONE) {
+            slot = freeSlots;
+            freeSlots = next[slot];
+        } else {
+            slot = slotLimit++;
+            if (slot == files.length) {
+                grow(slot * 2);
+            }
+        }
+        if (file >= slotOfFile.length) {
+            slotOfFile = Arrays.copyOf(slotOfFile, Math.max(file + 1, slotOfFile.length * 2));
+        }
+        slotOfFile[file] = slot + 1;
+        files[slot] = file;
+        sizes[slot] = size;
+        lists[slot] = NONE;
+        return slot;
+    }
+
+    /**
+     * Deletes the unlinked entry.
+     */
+    protected void deleteEntry(int slot) {
+        slotOfFile[files[slot]] = 0;
+        next[slot] = freeSlots;
+        freeSlots = slot;
+    }
+
+    /**
+     * Grows the per-slot arrays. Subclasses with their own per-slot arrays grow them too.
+     */
+    protected void grow(int length) {
+        files = Arrays.copyOf(files, length);
+        sizes = Arrays.copyOf(sizes, length);
+        lists = Arrays.copyOf(lists, length);
+        prev = Arrays.copyOf(prev, length);
+        next = Arrays.copyOf(next, length);
+    }
+
+    /**
+     * Links the entry as the most recently used one of the list.
+     */
+    protected void linkFirst(int list, int slot) {
+        linkAfter(list, NONE, slot);
+    }
+
+    /**
+     * Links the entry after the anchor entry of the list, or first if the anchor is NONE.
+     */
+    protected void linkAfter(int list, int anchor, int slot) {
+        int following = anchor == NONE ? heads[list] : next[anchor];
+        prev[slot] = anchor;
+        next[slot] = following;
+        if (anchor == NONE) {
+            heads[list] = slot;
+        } else {
+            next[anchor] = slot;
+        }
+        if (following == NONE) {
+            tails[list] = slot;
+        } else {
+            prev[following] = slot;
+        }
+        lists[slot] = list;
+        bytes[list] += sizes[slot];
+    }
+
+    /**
+     * Unlinks the entry from its list.
+     */
+    protected void unlink(int slot) {
+        int list = lists[slot];
+        if (prev[slot] == NONE) {
+            heads[list] = next[slot];
+        } else {
+            next[prev[slot]] = next[slot];
+        }
+        if (next[slot] == NONE) {
+            tails[list] = prev[slot];
+        } else {
+            prev[next[slot]] = prev[slot];
+        }
+        lists[slot] = NONE;
+        bytes[list] -= sizes[slot];
+    }
+
+    /**
+     * @return The entry before the given one in its list, i.e. the more recently used one, NONE if it is the first.
+     */
+    protected int previous(int slot) {
+        return prev[slot];
+    }
+
+    /**
+     * @return The entry after the given one in its list, i.e. the less recently used one, NONE if it is the last.
+     */
+    protected int next(int slot) {
+        return next[slot];
+    }
+
+    /**
+     * @return The least recently used entry of the list, NONE if the list is empty.
+     */
+    protected int last(int list) {
+        return tails[list];
+    }
+
+    /**
+     * @return The total size of the files of the list.
+     */
+    protected long bytes(int list) {
+        return bytes[list];
+    }
+}
@@ -0,0 +1,83 @@
+package cws.core.storage.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import cws.core.VM;
+import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.dag.DAGFile;
+
+/**
+ * Base of the cache managers with a replacement policy, see {@link IndexedCache}. Every file is interned to an int id
+ * once, so that the per-VM caches do not hash {@link DAGFile}s. Files are usually the same objects for all the tasks
+ * of a DAG, so ids are looked up by identity first and by {@link DAGFile#equals(Object)} only for other instances.
+ *
+ * Putting a file which is already in the cache counts as a reference of the file for the replacement policy.
+ */
+abstract class IndexedCacheManager extends VMCacheManager {
+    private final Map<DAGFile, Integer> identityIds = new IdentityHashMap<DAGFile, Integer>();
+    private final Map<DAGFile, Integer> ids = new HashMap<DAGFile, Integer>();
+    private final List<DAGFile> files = new ArrayList<DAGFile>();
+    private final Map<VM, IndexedCache> caches = new HashMap<VM, IndexedCache>();
+
+    public IndexedCacheManager(CloudSimWrapper cloudsim) {
+        super(cloudsim);
+    }
+
+    /**
+     * @return A new cache of the given size in bytes.
+     */
+    protected abstract IndexedCache newCache(long capacity);
+
+    @Override
+    public void putFileToCache(DAGFile file, VM vm) {
+        long capacity = vm.getVmType().getCacheSize();
+        if (file.getSize() > capacity) {
+            return;
+        }
+        IndexedCache cache = caches.get(vm);
+        if (cache == null) {
+            cache = newCache(capacity);
+            caches.put(vm, cache);
+        }
+        int id = getFileId(file, true);
+        boolean cached = cache.contains(id);
+        int evicted = cache.putFile(id, file.getSize());
+        for (int i = 0; i < evicted; i++) {
+            fileEvicted(files.get(cache.getEvicted(i)), vm);
+        }
+        if (!cached) {
+            fileCached(file, vm);
+        }
+    }
+
+    @Override
+    public boolean getFileFromCache(DAGFile file, VM vm) {
+        IndexedCache cache = caches.get(vm);
+        if (cache == null) {
+            return false;
+        }
+        int id = getFileId(file, false);
+        return id != IndexedCache.NONE && cache.contains(id);
+    }
+
+    private int getFileId(DAGFile file, boolean create) {
+        Integer id = identityIds.get(file);
+        if (id == null) {
+            id = ids.get(file);
+            if (id == null) {
+                if (!create) {
+                    return IndexedCache.NONE;
+                }
+                id = files.size();
+                ids.put(file, id);
+                files.add(file);
+            }
+            identityIds.put(file, id);
+        }
+        return id;
+    }
+}
@@ -0,0 +1,109 @@
+package cws.core.storage.cache;
+
+import java.util.Arrays;
+
+import cws.core.cloudsim.CloudSimWrapper;
+
+/**
+ * Cache manager which evicts the least frequently used files first, and the least recently used of them on ties. The
+ * frequency of a file is the number of times it was put to the cache since it was last evicted.
+ */
+public class LFUCacheManager extends IndexedCacheManager {
+    public LFUCacheManager(CloudSimWrapper cloudsim) {
+        super(cloudsim);
+    }
+
+    @Override
+    protected IndexedCache newCache(long capacity) {
+        return new LFUCache(capacity);
+    }
+
+    /**
+     * The files are kept in one list ordered by descending frequency from its head, and by recency within the same
+     * frequency, so the last file is evicted first. The most recently used file of every frequency is remembered, so a
+     * reference moves the file to its new place in constant time.
+     */
+    private static class LFUCache extends IndexedCache {
+        private static final int FILES = 0;
+
+        private int[] frequencies = new int[16];
+
+        /** The most recently used file of every frequency, NONE if there is none */
+        private int[] firstOfFrequency = new int[8];
+
+        LFUCache(long capacity) {
+            super(capacity, 1);
+            Arrays.fill(firstOfFrequency, NONE);
+        }
+
+        @Override
+        protected void grow(int length) {
+            super.grow(length);
+            frequencies = Arrays.copyOf(frequencies, length);
+        }
+
+        @Override
+        boolean contains(int file) {
+            return find(file) != NONE;
+        }
+
+        @Override
+        protected void put(int file, long size) {
+            int slot = find(file);
+            if (slot != NONE) {
+                reference(slot);
+                return;
+            }
+            while (bytes(FILES) + size > getCapacity()) {
+                int victim = last(FILES);
+                evicted(victim);
+                leaveFrequency(victim);
+                unlink(victim);
+                deleteEntry(victim);
+            }
+            slot = newEntry(file, size);
+            frequencies[slot] = 1;
+            // Before the files used once, i.e. after the most recently used file used more often
+            int first = firstOfFrequency(1);
+            int anchor = first != NONE ? previous(first) : last(FILES);
+            linkAfter(FILES, anchor, slot);
+            firstOfFrequency[1] = slot;
+        }
+
+        private void reference(int slot) {
+            int frequency = frequencies[slot];
+            int first = firstOfFrequency(frequency + 1);
+            if (first == NONE) {
+                // Before the files of the current frequency, which include this one
+                first = firstOfFrequency[frequency];
+            }
+            int anchor = previous(first);
+            leaveFrequency(slot);
+            unlink(slot);
+            linkAfter(FILES, anchor, slot);
+            frequencies[slot] = frequency + 1;
+            if (frequency + 1 >= firstOfFrequency.length) {
+                int length = firstOfFrequency.length;
+                firstOfFrequency = Arrays.copyOf(firstOfFrequency, length * 2);
+                Arrays.fill(firstOfFrequency, length, length * 2, NONE);
+            }
+            firstOfFrequency[frequency + 1] = slot;
+        }
+
+        /**
+         * Removes the file from the files of its frequency before it is moved or evicted.
+         */
+        private void leaveFrequency(int slot) {
+            int frequency = frequencies[slot];
+            if (firstOfFrequency[frequency] == slot) {
+                int following = next(slot);
+                firstOfFrequency[frequency] = following != NONE && frequencies[following] == frequency ? following
+                        : NONE;
+            }
+        }
+
+        private int firstOfFrequency(int frequency) {
+            return frequency < firstOfFrequency.length ? firstOfFrequency[frequency] : NONE;
+        }
+    }
+}
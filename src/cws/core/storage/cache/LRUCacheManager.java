@@ -0,0 +1,48 @@
+package cws.core.storage.cache;
+
+import cws.core.cloudsim.CloudSimWrapper;
+
+/**
+ * Cache manager which evicts the least recently used files first. Reading or writing a cached file again makes it the
+ * most recently used one.
+ */
+public class LRUCacheManager extends IndexedCacheManager {
+    public LRUCacheManager(CloudSimWrapper cloudsim) {
+        super(cloudsim);
+    }
+
+    @Override
+    protected IndexedCache newCache(long capacity) {
+        return new LRUCache(capacity);
+    }
+
+    private static class LRUCache extends IndexedCache {
+        private static final int FILES = 0;
+
+        LRUCache(long capacity) {
+            super(capacity, 1);
+        }
+
+        @Override
+        boolean contains(int file) {
+            return find(file) != NONE;
+        }
+
+        @Override
+        protected void put(int file, long size) {
+            int slot = find(file);
+            if (slot != NONE) {
+                unlink(slot);
+                linkFirst(FILES, slot);
+                return;
+            }
+            while (bytes(FILES) + size > getCapacity()) {
+                int victim = last(FILES);
+                evicted(victim);
+                unlink(victim);
+                deleteEntry(victim);
+            }
+            linkFirst(FILES, newEntry(file, size));
+        }
+    }
+}
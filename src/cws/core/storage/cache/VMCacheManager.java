@@ -1,10 +1,13 @@
 package cws.core.storage.cache;
 
+import java.util.Arrays;
+
 import cws.core.VM;
 import cws.core.cloudsim.CWSSimEntity;
 import cws.core.cloudsim.CloudSimWrapper;
 import cws.core.dag.DAGFile;
 import cws.core.jobs.Job;
+import cws.core.storage.StorageManagerStatistics;
 
 /**
  * Cache manager. It is intended to store ("cache") input and output files in VM's cache space. <br>
@@ -14,14 +17,82 @@ import cws.core.jobs.Job;
  * <li>{@link #getFileFromCache(DAGFile, Job)} can return true if and only if {@link #putFileToCache(DAGFile, Job)} was
  * called before with the same arguments.</li>
  * <li>Files bigger than VM's cache cannot be put into it.</li>
+ * <li>Implementations report every file put to or evicted from a VM's cache with {@link #fileCached(DAGFile, VM)} and
+ * {@link #fileEvicted(DAGFile, VM)}.</li>
  * </ul>
  * @see {@link cws.core.core.VMType#getCacheSize()}
  */
 public abstract class VMCacheManager extends CWSSimEntity {
+    /** Statistics of the storage manager using this cache, evictions are counted there */
+    private StorageManagerStatistics statistics = new StorageManagerStatistics();
+
+    /** VMs caching every file, implementations report puts and evictions */
+    private final FileLocationIndex fileLocations = new FileLocationIndex();
+
+    /** Version of the cache of every VM by VM id, changed by every put and eviction */
+    private int[] versions = new int[16];
+
     public VMCacheManager(CloudSimWrapper cloudsim) {
         super("VMCacheManager", cloudsim);
     }
 
+    public void setStatistics(StorageManagerStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    protected StorageManagerStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * @return The index of the VMs caching every file.
+     */
+    public FileLocationIndex getFileLocations() {
+        return fileLocations;
+    }
+
+    /**
+     * @return The version of the VM's cache. It is 0 until a file is put to the cache and changes whenever the
+     *         contents of the cache change, so results computed from the cache can be reused while it stays the same.
+     */
+    public int getCacheVersion(VM vm) {
+        int id = vm.getId();
+        return id < versions.length ? versions[id] : 0;
+    }
+
+    /**
+     * @return Whether the file is in the VM's cache. Unlike {@link #getFileFromCache(DAGFile, VM)} it is not an access
+     *         of the file, so it does not change the state of the cache.
+     */
+    public boolean isFileCached(DAGFile file, VM vm) {
+        return fileLocations.getVMs(file).contains(vm);
+    }
+
+    /**
+     * Called by implementations when the file has been put to the VM's cache.
+     */
+    protected void fileCached(DAGFile file, VM vm) {
+        fileLocations.add(file, vm);
+        changed(vm);
+    }
+
+    /**
+     * Called by implementations when the file has been evicted from the VM's cache.
+     */
+    protected void fileEvicted(DAGFile file, VM vm) {
+        fileLocations.remove(file, vm);
+        statistics.addCacheEvictions(1);
+        changed(vm);
+    }
+
+    private void changed(VM vm) {
+        int id = vm.getId();
+        if (id >= versions.length) {
+            versions = Arrays.copyOf(versions, Math.max(id + 1, versions.length * 2));
+        }
+        versions[id]++;
+    }
+
     /**
      * Instructs the manager to put the file to the cache. This is only suggestion and implementations are free to
      * decide what to do.<br>
@@ -0,0 +1,178 @@
+package cws.core.storage.global;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import cws.core.cloudsim.CWSSimEvent;
+
+/**
+ * Active transfers of one kind (reads or writes) of {@link GlobalStorageManager} in the fluid mode.
+ *
+ * All the transfers of the pool progress at the same, congested speed. Instead of updating every transfer whenever
+ * the speed changes, the pool keeps its service, i.e. the number of bytes each transfer active since the creation of
+ * the pool would have transferred so far. A transfer which joins the pool at service s completes at service s + its
+ * remaining bytes, so the transfers are kept in the order of their completion and only the first one determines when
+ * the pool has to be visited next.
+ */
+class FluidTransferPool {
+    /**
+     * Transfers which are closer to their end than this (in seconds at the current speed) are considered completed.
+     * It absorbs floating point errors of rescheduling.
+     */
+    private static final double COMPLETION_TOLERANCE = 1e-9;
+
+    private static class Entry implements Comparable<Entry> {
+        final GlobalStorageTransfer transfer;
+        final double startService;
+        final double completionService;
+        final double startTime;
+
+        Entry(GlobalStorageTransfer transfer, double startService, double startTime) {
+            this.transfer = transfer;
+            this.startService = startService;
+            this.completionService = startService + transfer.getRemainingBytesToTransfer();
+            this.startTime = startTime;
+        }
+
+        @Override
+        public int compareTo(Entry o) {
+            int c = Double.compare(completionService, o.completionService);
+            return c != 0 ? c : transfer.getId() - o.transfer.getId();
+        }
+    }
+
+    private final PriorityQueue<Entry> active = new PriorityQueue<Entry>();
+
+    /** Bytes transferred by every transfer active since the creation of the pool */
+    private double service;
+
+    /** Current speed of every transfer in bytes per second */
+    private double speed;
+
+    /** Simulation time the service was computed at */
+    private double time;
+
+    /** The scheduled completion event, other completion events are stale */
+    private CWSSimEvent completionEvent;
+
+    /** Time of the scheduled completion event, NaN if there is none */
+    private double completionTime = Double.NaN;
+
+    FluidTransferPool(double speed) {
+        this.speed = speed;
+    }
+
+    private void advance(double now) {
+        service += speed * (now - time);
+        time = now;
+    }
+
+    /**
+     * Changes the speed of all the transfers from now on.
+     */
+    void setSpeed(double now, double speed) {
+        advance(now);
+        this.speed = speed;
+    }
+
+    /**
+     * Starts progressing the transfer now.
+     */
+    void add(GlobalStorageTransfer transfer, double now) {
+        advance(now);
+        active.add(new Entry(transfer, service, now));
+    }
+
+    /**
+     * @return The time the first transfer completes at the current speed, NaN if the pool is empty.
+     */
+    double getNextCompletionTime() {
+        Entry first = active.peek();
+        if (first == null) {
+            return Double.NaN;
+        }
+        return time + Math.max(0.0, first.completionService - service) / speed;
+    }
+
+    /**
+     * Removes the transfers which have completed by now. They are updated with the transferred bytes and duration.
+     */
+    List<GlobalStorageTransfer> pollCompleted(double now) {
+        advance(now);
+        List<GlobalStorageTransfer> completed = new ArrayList<GlobalStorageTransfer>();
+        while (!active.isEmpty() && isCompleted(active.peek())) {
+            Entry entry = active.poll();
+            entry.transfer.addBytesTransferred(entry.transfer.getRemainingBytesToTransfer());
+            entry.transfer.addDuration(now - entry.startTime);
+            completed.add(entry.transfer);
+        }
+        return completed;
+    }
+
+    private boolean isCompleted(Entry entry) {
+        double remaining = entry.completionService - service;
+        return remaining <= speed * COMPLETION_TOLERANCE || time + remaining / speed <= time;
+    }
+
+    /**
+     * Removes the transfers which are interrupted now, e.g. because their file was found in the cache. They are
+     * updated with the bytes transferred so far and the duration.
+     */
+    List<GlobalStorageTransfer> removeInterrupted(double now, Condition condition) {
+        List<GlobalStorageTransfer> interrupted = new ArrayList<GlobalStorageTransfer>();
+        if (active.isEmpty()) {
+            return interrupted;
+        }
+        advance(now);
+        Iterator<Entry> it = active.iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            if (condition.isInterrupted(entry.transfer)) {
+                it.remove();
+                entry.transfer.addBytesTransferred(Math.min(service - entry.startService,
+                        entry.transfer.getRemainingBytesToTransfer()));
+                entry.transfer.addDuration(now - entry.startTime);
+                interrupted.add(entry.transfer);
+            }
+        }
+        return interrupted;
+    }
+
+    /**
+     * Decides which transfers are interrupted, see {@link FluidTransferPool#removeInterrupted(double, Condition)}.
+     */
+    interface Condition {
+        boolean isInterrupted(GlobalStorageTransfer transfer);
+    }
+
+    /**
+     * @return The time of the scheduled completion event, NaN if there is none.
+     */
+    double getCompletionTime() {
+        return completionTime;
+    }
+
+    /**
+     * @return The scheduled completion event, null if there is none.
+     */
+    CWSSimEvent getCompletionEvent() {
+        return completionEvent;
+    }
+
+    /**
+     * Remembers the completion event scheduled at the given time, or that there is none if the event is null.
+     */
+    void setCompletion(double completionTime, CWSSimEvent completionEvent) {
+        this.completionTime = completionTime;
+        this.completionEvent = completionEvent;
+    }
+
+    /**
+     * @return Whether the given event is the scheduled completion event.
+     */
+    boolean isCompletion(CWSSimEvent ev) {
+        return ev == completionEvent;
+    }
+}
@@ -12,6 +12,7 @@ import cws.core.storage.cache.VMCacheManager;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -20,6 +21,12 @@ import java.util.Map;
  * 
  * GlobalStorageManager uses {@link VMCacheManager} for caching.
  * 
+ * By default transfers progress in chunks of {@link GlobalStorageParams#getChunkTransferTime()}, each one a separate
+ * event. In the fluid mode ({@link GlobalStorageParams#isFluidTransfers()}) the completion time of transfers is computed
+ * at the current congested speed instead, and recomputed only when the number of readers or writers changes, see
+ * {@link FluidTransferPool}. The transfers of terminated VMs are then stopped as soon as the VM is terminated (see
+ * {@link #onVMTerminated(VM)}) rather than after the current chunk.
+ * 
  * TODO(bryk): randomize parameters under some distribution
  */
 public class GlobalStorageManager extends StorageManager {
@@ -44,6 +51,18 @@ public class GlobalStorageManager extends StorageManager {
     /** Cache manager used by this storage */
     private final VMCacheManager cacheManager;
 
+    /**
+     * Transfer time estimations of tasks, see {@link #getInputTransferTimeEstimation(Task, VM)}. They are dropped when
+     * the task completes.
+     */
+    private final Map<Task, TaskEstimations> estimations = new IdentityHashMap<Task, TaskEstimations>();
+
+    /** Progressing reads in the fluid mode, null otherwise */
+    private final FluidTransferPool readPool;
+
+    /** Progressing writes in the fluid mode, null otherwise */
+    private final FluidTransferPool writePool;
+
     /**
      * Initializes GlobalStorageManager with the appropriate parameters. Check their documentation for more information.
      */
@@ -52,6 +71,13 @@ public class GlobalStorageManager extends StorageManager {
         this.params = params;
         this.cacheManager = cacheManager;
         this.congestedParams = new CongestedGlobalStorageParams(params);
+        if (params.isFluidTransfers()) {
+            this.readPool = new FluidTransferPool(params.getReadSpeed());
+            this.writePool = new FluidTransferPool(params.getWriteSpeed());
+        } else {
+            this.readPool = null;
+            this.writePool = null;
+        }
     }
 
     /**
@@ -81,6 +107,8 @@ public class GlobalStorageManager extends StorageManager {
      */
     @Override
     protected void onAfterTaskCompleted(Job job) {
+        // The task is not estimated any more (unless it is retried, then the estimations are recomputed)
+        estimations.remove(job.getTask());
         if (job.getTask().getOutputFiles().isEmpty()) {
             notifyThatAfterTransfersCompleted(job);
         } else {
@@ -105,7 +133,14 @@ public class GlobalStorageManager extends StorageManager {
      * Starts file read for one of the files in its read queue.
      */
     private void startFileReadForJob(Job job) {
-        startTransfers(remainingToRead, job, reads, WorkflowEvent.GLOBAL_STORAGE_READ_PROGRESS, "read");
+        GlobalStorageTransfer read = startTransfers(remainingToRead, job, reads,
+                WorkflowEvent.GLOBAL_STORAGE_READ_PROGRESS, "read");
+        // Every read is either a hit or a miss, depending on the cache when it starts
+        if (cacheManager.isFileCached(read.getFile(), job.getVM())) {
+            statistics.addCacheHits(1);
+        } else {
+            statistics.addCacheMisses(1);
+        }
         congestedParams.addReads(1);
         updateSpeedCongestion();
     }
@@ -117,8 +152,9 @@ public class GlobalStorageManager extends StorageManager {
      * @param transfers - the map with active transfers this transfer belongs to (e.g. writes or reads).
      * @param progressEvent - the event that will be sent upon transfer start.
      * @param transferType - the type of this transfer, e.g. "write".
+     * @return The started transfer.
      */
-    private void startTransfers(Map<Job, List<DAGFile>> filesRemaining, Job job,
+    private GlobalStorageTransfer startTransfers(Map<Job, List<DAGFile>> filesRemaining, Job job,
             Map<Job, List<GlobalStorageTransfer>> transfers, int progressEvent, String transferType) {
         List<GlobalStorageTransfer> jobTransfers = transfers.get(job);
         if (jobTransfers == null) {
@@ -133,13 +169,20 @@ public class GlobalStorageManager extends StorageManager {
             throw new IllegalStateException("Remaining files cannot be empty");
         }
         DAGFile file = remainingFiles.remove(remainingFiles.size() - 1);
-        GlobalStorageTransfer write = new GlobalStorageTransfer(job, file);
+        int transferId = getCloudsim().getIds().nextGlobalStorageTransferId();
+        GlobalStorageTransfer write = new GlobalStorageTransfer(job, file, transferId);
         jobTransfers.add(write);
         
-        String logMsg = String.format("Global %s transfer %s started: %s, size: %s, vm: %s, job_id: %d", transferType,
-                write.getId(), write.getFile().getName(), write.getFile().getSize(), job.getVM().getId(), job.getID());
-        getCloudsim().log(logMsg);
+        getCloudsim().logMessage("Global %s transfer %s started: %s, size: %s, vm: %s, job_id: %d").arg(transferType)
+                .arg(write.getId()).arg(write.getFile().getName()).arg(write.getFile().getSize())
+                .arg(job.getVM().getId()).arg(job.getID()).log();
+        if (getCloudsim().isTracing()) {
+            getCloudsim().getTraceSink().transferStarted(getCloudsim().clock(), write.getId(),
+                    "read".equals(transferType), write.getFile().getName(), write.getFile().getSize(),
+                    job.getVM().getId(), job.getID());
+        }
         getCloudsim().send(getId(), getId(), params.getLatency(), progressEvent, write);
+        return write;
     }
 
     /**
@@ -152,6 +195,9 @@ public class GlobalStorageManager extends StorageManager {
             startFileWriteForJob(write.getJob());
         }
         cacheManager.putFileToCache(write.getFile(), write.getJob().getVM());
+        if (readPool != null) {
+            finishCachedReads(write.getFile(), write.getJob().getVM());
+        }
         congestedParams.removeWrites(1);
         updateSpeedCongestion();
     }
@@ -166,6 +212,9 @@ public class GlobalStorageManager extends StorageManager {
             startFileReadForJob(read.getJob());
         }
         cacheManager.putFileToCache(read.getFile(), read.getJob().getVM());
+        if (readPool != null) {
+            finishCachedReads(read.getFile(), read.getJob().getVM());
+        }
         congestedParams.removeReads(1);
         updateSpeedCongestion();
     }
@@ -180,10 +229,13 @@ public class GlobalStorageManager extends StorageManager {
     private boolean onTransferFinished(GlobalStorageTransfer transfer, Map<Job, List<GlobalStorageTransfer>> transfers,
             String transferType, Map<Job, List<DAGFile>> remainingFiles) {
         if (!transfer.getJob().getVM().isTerminated()) {
-            String logMsg = String.format("Global %s transfer %s finished: %s, bytes transferred: %d, duration: %f",
-                    transferType, transfer.getId(), transfer.getFile().getName(), transfer.getFile().getSize(),
-                    transfer.getDuration());
-            getCloudsim().log(logMsg);
+            getCloudsim().logMessage("Global %s transfer %s finished: %s, bytes transferred: %d, duration: %f")
+                    .arg(transferType).arg(transfer.getId()).arg(transfer.getFile().getName())
+                    .arg(transfer.getFile().getSize()).arg(transfer.getDuration()).log();
+            if (getCloudsim().isTracing()) {
+                getCloudsim().getTraceSink().transferFinished(getCloudsim().clock(), transfer.getId(),
+                        "read".equals(transferType), transfer.getFile().getSize(), transfer.getDuration());
+            }
         }
         List<GlobalStorageTransfer> jobTransfers = transfers.get(transfer.getJob());
         jobTransfers.remove(transfer);
@@ -209,6 +261,14 @@ public class GlobalStorageManager extends StorageManager {
         case WorkflowEvent.GLOBAL_STORAGE_WRITE_PROGRESS:
             onWriteProgress((GlobalStorageTransfer) ev.getData());
             break;
+        case WorkflowEvent.GLOBAL_STORAGE_READS_COMPLETION:
+            onCompletion(readPool, ev, WorkflowEvent.GLOBAL_STORAGE_READS_COMPLETION,
+                    WorkflowEvent.GLOBAL_STORAGE_READ_FINISHED);
+            break;
+        case WorkflowEvent.GLOBAL_STORAGE_WRITES_COMPLETION:
+            onCompletion(writePool, ev, WorkflowEvent.GLOBAL_STORAGE_WRITES_COMPLETION,
+                    WorkflowEvent.GLOBAL_STORAGE_WRITE_FINISHED);
+            break;
         default:
             super.onUnknownSimEvent(ev);
             break;
@@ -224,10 +284,13 @@ public class GlobalStorageManager extends StorageManager {
         if (hasStorageStateNotChanged()) {
             return;
         }
-        getCloudsim().log(
-                String.format("GS state has changed: readers = %d, writers = %d, read_speed = %f, write_speed = %f",
-                        congestedParams.getNumReads(), congestedParams.getNumWrites(), congestedParams.getReadSpeed(),
-                        congestedParams.getWriteSpeed()));
+        getCloudsim().logMessage("GS state has changed: readers = %d, writers = %d, read_speed = %f, write_speed = %f")
+                .arg(congestedParams.getNumReads()).arg(congestedParams.getNumWrites())
+                .arg(congestedParams.getReadSpeed()).arg(congestedParams.getWriteSpeed()).log();
+        if (getCloudsim().isTracing()) {
+            getCloudsim().getTraceSink().storageState(getCloudsim().clock(), congestedParams.getNumReads(),
+                    congestedParams.getNumWrites(), congestedParams.getReadSpeed(), congestedParams.getWriteSpeed());
+        }
 
         lastNumReads = congestedParams.getNumReads();
         lastNumWrites = congestedParams.getNumWrites();
@@ -241,6 +304,9 @@ public class GlobalStorageManager extends StorageManager {
     private void onWriteProgress(GlobalStorageTransfer write) {
         if (write.isCompleted() || write.getJob().getVM().isTerminated()) {
             getCloudsim().sendNow(getId(), getId(), WorkflowEvent.GLOBAL_STORAGE_WRITE_FINISHED, write);
+        } else if (writePool != null) {
+            writePool.add(write, getCloudsim().clock());
+            scheduleCompletion(writePool, WorkflowEvent.GLOBAL_STORAGE_WRITES_COMPLETION);
         } else {
             progressTransfer(write, WorkflowEvent.GLOBAL_STORAGE_WRITE_PROGRESS, congestedParams.getWriteSpeed());
         }
@@ -256,11 +322,101 @@ public class GlobalStorageManager extends StorageManager {
                 statistics.addFilesReadFromCache(1);
             }
             getCloudsim().sendNow(getId(), getId(), WorkflowEvent.GLOBAL_STORAGE_READ_FINISHED, read);
+        } else if (readPool != null) {
+            readPool.add(read, getCloudsim().clock());
+            scheduleCompletion(readPool, WorkflowEvent.GLOBAL_STORAGE_READS_COMPLETION);
         } else {
             progressTransfer(read, WorkflowEvent.GLOBAL_STORAGE_READ_PROGRESS, congestedParams.getReadSpeed());
         }
     }
 
+    /**
+     * Called on GLOBAL_STORAGE_READS_COMPLETION and GLOBAL_STORAGE_WRITES_COMPLETION events in the fluid mode.
+     * Finishes the completed transfers of the pool.
+     */
+    private void onCompletion(FluidTransferPool pool, CWSSimEvent ev, int completionEvent, int finishedEvent) {
+        if (!pool.isCompletion(ev)) {
+            // Rescheduled after it was due
+            return;
+        }
+        pool.setCompletion(Double.NaN, null);
+        for (GlobalStorageTransfer transfer : pool.pollCompleted(getCloudsim().clock())) {
+            getCloudsim().sendNow(getId(), getId(), finishedEvent, transfer);
+        }
+        scheduleCompletion(pool, completionEvent);
+    }
+
+    /**
+     * Makes sure the completion event of the pool is sent when its first transfer completes at the current speed. The
+     * previously scheduled event is cancelled if the time has changed.
+     */
+    private void scheduleCompletion(FluidTransferPool pool, int completionEvent) {
+        double time = pool.getNextCompletionTime();
+        double scheduled = pool.getCompletionTime();
+        if (time == scheduled || (Double.isNaN(time) && Double.isNaN(scheduled))) {
+            return;
+        }
+        if (pool.getCompletionEvent() != null) {
+            getCloudsim().cancel(pool.getCompletionEvent());
+        }
+        CWSSimEvent ev = null;
+        if (!Double.isNaN(time)) {
+            ev = getCloudsim().sendCancellable(getId(), getId(), Math.max(0.0, time - getCloudsim().clock()),
+                    completionEvent, null);
+        }
+        pool.setCompletion(time, ev);
+    }
+
+    /**
+     * Finishes the progressing reads of the file to the VM if the file is now in the VM's cache, as
+     * {@link #onReadProgress(GlobalStorageTransfer)} does in the chunked mode.
+     */
+    private void finishCachedReads(final DAGFile file, final VM vm) {
+        List<GlobalStorageTransfer> cached = readPool.removeInterrupted(getCloudsim().clock(),
+                new FluidTransferPool.Condition() {
+                    @Override
+                    public boolean isInterrupted(GlobalStorageTransfer read) {
+                        return read.getJob().getVM() == vm && read.getFile().equals(file)
+                                && cacheManager.getFileFromCache(file, vm);
+                    }
+                });
+        for (GlobalStorageTransfer read : cached) {
+            statistics.addBytesReadFromCache(read.getFile().getSize());
+            statistics.addFilesReadFromCache(1);
+            getCloudsim().sendNow(getId(), getId(), WorkflowEvent.GLOBAL_STORAGE_READ_FINISHED, read);
+        }
+    }
+
+    /**
+     * In the fluid mode, finishes the progressing transfers of the terminated VM. The shares of the other transfers are
+     * recomputed when the finished transfers are removed from the storage state.
+     */
+    @Override
+    protected void onVMTerminated(VM vm) {
+        if (readPool != null) {
+            finishTransfersOfVM(readPool, vm, WorkflowEvent.GLOBAL_STORAGE_READ_FINISHED);
+            finishTransfersOfVM(writePool, vm, WorkflowEvent.GLOBAL_STORAGE_WRITE_FINISHED);
+            scheduleCompletion(readPool, WorkflowEvent.GLOBAL_STORAGE_READS_COMPLETION);
+            scheduleCompletion(writePool, WorkflowEvent.GLOBAL_STORAGE_WRITES_COMPLETION);
+        }
+    }
+
+    /**
+     * Finishes the progressing transfers of the pool whose jobs run on the given VM.
+     */
+    private void finishTransfersOfVM(FluidTransferPool pool, final VM vm, int finishedEvent) {
+        List<GlobalStorageTransfer> terminated = pool.removeInterrupted(getCloudsim().clock(),
+                new FluidTransferPool.Condition() {
+                    @Override
+                    public boolean isInterrupted(GlobalStorageTransfer transfer) {
+                        return transfer.getJob().getVM() == vm;
+                    }
+                });
+        for (GlobalStorageTransfer transfer : terminated) {
+            getCloudsim().sendNow(getId(), getId(), finishedEvent, transfer);
+        }
+    }
+
     /**
      * Progresses transfer by transferring some amount of bytes for params.getChunkTransferTime() time. If there are
      * less bytes to transfer than we can we transfer for shorter time.
@@ -288,13 +444,28 @@ public class GlobalStorageManager extends StorageManager {
      * Trivial transfer estimation based on read speed. This seems good enough, but we might change the
      * implementation in the future
      * 
+     * The estimation without a VM, or on a VM which has not cached anything yet, is computed once per task. The
+     * estimations on other VMs are reused until the VM's cache changes, see {@link VMCacheManager#getCacheVersion(VM)}.
+     * 
      * @see StorageManager#getTotalTransferTimeEstimation(Task)
      */
     @Override
     public double getInputTransferTimeEstimation(final Task task, final VM vm) {
+        TaskEstimations taskEstimations = getEstimations(task);
+        if (vm == null) {
+            return taskEstimations.uncachedInputTime;
+        }
+        int version = cacheManager.getCacheVersion(vm);
+        if (version == 0) {
+            return taskEstimations.uncachedInputTime;
+        }
+        return taskEstimations.getInputTime(vm, version);
+    }
+
+    private double estimateInputTransferTime(final Task task, final VM vm) {
         double time = 0.0;
         for (final DAGFile file : task.getInputFiles()) {
-            if (!this.cacheManager.getFileFromCache(file, vm)) {
+            if (vm == null || !this.cacheManager.getFileFromCache(file, vm)) {
                 time += file.getSize() / this.params.getReadSpeed();
                 time += this.params.getLatency();
             }
@@ -304,12 +475,16 @@ public class GlobalStorageManager extends StorageManager {
 
     /**
      * Trivial transfer estimation based on write speed. This seems good enough, but we might change the
-     * implementation in the future
+     * implementation in the future. It is computed once per task.
      *
      * @see StorageManager#getTotalTransferTimeEstimation(Task)
      */
     @Override
     public double getOutputTransferTimeEstimation(final Task task, final VM vm) {
+        return getEstimations(task).outputTime;
+    }
+
+    private double estimateOutputTransferTime(final Task task) {
         double time = 0.0;
         for (final DAGFile file : task.getOutputFiles()) {
             time += file.getSize() / this.params.getWriteSpeed();
@@ -318,6 +493,71 @@ public class GlobalStorageManager extends StorageManager {
         return time;
     }
 
+    private TaskEstimations getEstimations(Task task) {
+        TaskEstimations taskEstimations = estimations.get(task);
+        if (taskEstimations == null || !taskEstimations.isValid()) {
+            taskEstimations = new TaskEstimations(task);
+            estimations.put(task, taskEstimations);
+        }
+        return taskEstimations;
+    }
+
+    /**
+     * Transfer time estimations of a task. They are recomputed if files are added to the task.
+     */
+    private class TaskEstimations {
+        private final Task task;
+        private final int inputFiles;
+        private final int outputFiles;
+        private final double uncachedInputTime;
+        private final double outputTime;
+        /** Input transfer times on the VMs the task was estimated on, created when needed */
+        private Map<VM, InputTime> inputTimes;
+
+        TaskEstimations(Task task) {
+            this.task = task;
+            this.inputFiles = task.getInputFiles().size();
+            this.outputFiles = task.getOutputFiles().size();
+            this.uncachedInputTime = estimateInputTransferTime(task, null);
+            this.outputTime = estimateOutputTransferTime(task);
+        }
+
+        boolean isValid() {
+            return inputFiles == task.getInputFiles().size() && outputFiles == task.getOutputFiles().size();
+        }
+
+        double getInputTime(VM vm, int version) {
+            if (inputTimes == null) {
+                inputTimes = new IdentityHashMap<VM, InputTime>(4);
+            }
+            InputTime inputTime = inputTimes.get(vm);
+            if (inputTime == null) {
+                inputTime = new InputTime();
+                inputTimes.put(vm, inputTime);
+            }
+            if (inputTime.version != version) {
+                inputTime.version = version;
+                inputTime.time = estimateInputTransferTime(task, vm);
+            }
+            return inputTime.time;
+        }
+    }
+
+    /**
+     * Input transfer time on a VM and the version of the VM's cache it was computed at, 0 if it was not computed yet.
+     */
+    private static class InputTime {
+        private int version;
+        private double time;
+    }
+
+    /**
+     * @return Whether transfer time estimations of the task are kept.
+     */
+    boolean hasEstimations(Task task) {
+        return estimations.containsKey(task);
+    }
+
     /**
      * Simulates congestion.
      * Updates read and write speeds based on numbers of currently active transfer.
@@ -340,6 +580,14 @@ public class GlobalStorageManager extends StorageManager {
             }
         }
         congestedParams.setReadSpeed(readSpeed);
+
+        if (readPool != null) {
+            double now = getCloudsim().clock();
+            readPool.setSpeed(now, readSpeed);
+            writePool.setSpeed(now, writeSpeed);
+            scheduleCompletion(readPool, WorkflowEvent.GLOBAL_STORAGE_READS_COMPLETION);
+            scheduleCompletion(writePool, WorkflowEvent.GLOBAL_STORAGE_WRITES_COMPLETION);
+        }
     }
 
     public GlobalStorageParams getParams() {
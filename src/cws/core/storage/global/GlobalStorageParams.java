@@ -14,6 +14,8 @@ public class GlobalStorageParams {
 
     private static final double DEFAULT_CHUNK_TRANSFER_TIME = 1;
 
+    private static final boolean DEFAULT_FLUID_TRANSFERS = false;
+
     /** Average read speed of the storage, in bytes per second.*/
     private double readSpeed;
 
@@ -32,12 +34,19 @@ public class GlobalStorageParams {
      */
     private double chunkTransferTime = DEFAULT_CHUNK_TRANSFER_TIME;
 
+    /**
+     * Whether transfers complete at the time computed from the current congested speed instead of progressing in
+     * chunks. It needs far fewer events, see {@link GlobalStorageManager}.
+     */
+    private boolean fluidTransfers = DEFAULT_FLUID_TRANSFERS;
+
     public void storeProperties(Properties properties) {
         properties.setProperty("readSpeed", "" + readSpeed);
         properties.setProperty("writeSpeed", "" + writeSpeed);
         properties.setProperty("chunkTransferTime", "" + chunkTransferTime);
         properties.setProperty("latency", "" + latency);
         properties.setProperty("numReplicas", "" + numReplicas);
+        properties.setProperty("fluidTransfers", "" + fluidTransfers);
     }
 
     public static GlobalStorageParams readProperties(Properties properties) {
@@ -48,6 +57,8 @@ public class GlobalStorageParams {
                 DEFAULT_CHUNK_TRANSFER_TIME + ""));
         params.latency = Double.valueOf(properties.getProperty("latency", DEFAULT_LATENCY + ""));
         params.numReplicas = Integer.valueOf(properties.getProperty("numReplicas", DEFAULT_NUM_REPLICAS + ""));
+        params.fluidTransfers = Boolean.valueOf(properties.getProperty("fluidTransfers", DEFAULT_FLUID_TRANSFERS
+                + ""));
         return params;
     }
 
@@ -56,7 +67,7 @@ public class GlobalStorageParams {
      */
     public String getName() {
         return "rs_" + readSpeed + "ws_" + writeSpeed + "ctt_" + chunkTransferTime + "l_" + latency + "nr_"
-                + numReplicas;
+                + numReplicas + (fluidTransfers ? "ft_true" : "");
     }
 
     public double getReadSpeed() {
@@ -91,6 +102,14 @@ public class GlobalStorageParams {
         this.chunkTransferTime = chunkTransferTime;
     }
 
+    public boolean isFluidTransfers() {
+        return fluidTransfers;
+    }
+
+    public void setFluidTransfers(boolean fluidTransfers) {
+        this.fluidTransfers = fluidTransfers;
+    }
+
     public int getNumReplicas() {
         return numReplicas;
     }
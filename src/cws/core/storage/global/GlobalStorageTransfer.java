@@ -20,9 +20,6 @@ public class GlobalStorageTransfer {
     /** Unique transfer task identifier */
     private int id;
 
-    /** Next ID for a transfer task */
-    private static int next_id = 0;
-
     /**
      * Transfer's duration. It should have proper value after transfer finish. In the meantime it can have some
      * intermediate increasing value.
@@ -37,9 +34,10 @@ public class GlobalStorageTransfer {
     /**
      * @param job - the job this transfer transfers file from/to
      * @param file - the transferred file
+     * @param id - unique transfer task identifier
      */
-    public GlobalStorageTransfer(Job job, DAGFile file) {
-        this.id = next_id++;
+    public GlobalStorageTransfer(Job job, DAGFile file, int id) {
+        this.id = id;
 
         this.job = job;
         this.file = file;
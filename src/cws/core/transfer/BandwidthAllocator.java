@@ -0,0 +1,353 @@
+package cws.core.transfer;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Computes max-min fair bandwidth of transfers incrementally, using the progressive filling algorithm.
+ *
+ * Every transfer is a flow through three nodes: its source port, its destination port and its link. The allocation of
+ * a flow depends only on the flows it is (transitively) connected with through shared nodes, so when a flow is added
+ * or removed only the connected components of its nodes are recomputed. The state of flows and nodes is kept between
+ * the calls in primitive arrays indexed by slots, which are reused after flows and nodes are removed.
+ */
+class BandwidthAllocator {
+    private static final int PATH = 3;
+
+    // Nodes
+
+    /** Slots of the ports and links with flows */
+    private final Map<Object, Integer> nodeSlots = new HashMap<Object, Integer>();
+    private Object[] nodeKeys = new Object[16];
+    private double[] nodeCapacity = new double[16];
+    /** Slots of the flows through every node, the first nodeFlowCount[node] are valid */
+    private int[][] nodeFlows = new int[16][];
+    private int[] nodeFlowCount = new int[16];
+    private int[] freeNodes = new int[16];
+    private int freeNodeCount;
+    private int nodeSlotLimit;
+
+    // Flows
+
+    private final Map<Transfer, Integer> flowSlots = new HashMap<Transfer, Integer>();
+    /** Nodes of every flow, PATH per flow, -1 if the node is the same as a previous one of the path */
+    private int[] flowPath = new int[16 * PATH];
+    /** Position of the flow in the list of flows of each node of its path */
+    private int[] flowPosition = new int[16 * PATH];
+    private double[] flowAllocation = new double[16];
+    private int[] freeFlows = new int[16];
+    private int freeFlowCount;
+    private int flowSlotLimit;
+
+    // Recomputation
+
+    /** Nodes whose components have to be recomputed */
+    private int[] dirtyNodes = new int[16];
+    private int dirtyNodeCount;
+
+    /** Number of the current {@link #allocate()} call when it visited the node */
+    private int[] nodeEpoch = new int[16];
+    private int epoch;
+
+    /** Marks of flows visited and allocated in the current component */
+    private int[] flowMark = new int[16];
+    private int mark;
+
+    /** Number of components recomputed so far */
+    private long recomputedComponents;
+
+    // Scratch space of progressive filling, indexed by node slot
+    private double[] remainingCapacity = new double[16];
+    private int[] remainingFlows = new int[16];
+    private int[] componentNodes = new int[16];
+
+    // Binary heap of (share, node) used by progressive filling
+    private double[] heapShares = new double[16];
+    private int[] heapNodes = new int[16];
+    private int heapSize;
+
+    /**
+     * Adds the transfer. Its bandwidth is computed by the next {@link #allocate()}.
+     */
+    void add(Transfer transfer) {
+        if (flowSlots.containsKey(transfer)) {
+            throw new IllegalArgumentException("Duplicate transfer: " + transfer);
+        }
+        int flow = newFlowSlot();
+        flowSlots.put(transfer, flow);
+        flowAllocation[flow] = 0.0;
+        Object[] path = { transfer.getSourcePort(), transfer.getDestinationPort(), transfer.getLink() };
+        double[] bandwidth = { transfer.getSourcePort().getBandwidth(), transfer.getDestinationPort().getBandwidth(),
+                transfer.getLink().getBandwidth() };
+        for (int i = 0; i < PATH; i++) {
+            int node = getNodeSlot(path[i], bandwidth[i]);
+            boolean repeated = false;
+            for (int j = 0; j < i; j++) {
+                repeated |= flowPath[flow * PATH + j] == node;
+            }
+            if (repeated) {
+                flowPath[flow * PATH + i] = -1;
+                continue;
+            }
+            flowPath[flow * PATH + i] = node;
+            flowPosition[flow * PATH + i] = nodeFlowCount[node];
+            if (nodeFlows[node] == null) {
+                nodeFlows[node] = new int[4];
+            } else if (nodeFlowCount[node] == nodeFlows[node].length) {
+                nodeFlows[node] = Arrays.copyOf(nodeFlows[node], nodeFlowCount[node] * 2);
+            }
+            nodeFlows[node][nodeFlowCount[node]++] = flow;
+            markDirty(node);
+        }
+    }
+
+    /**
+     * Removes the transfer. The bandwidth of the other transfers is recomputed by the next {@link #allocate()}.
+     */
+    void remove(Transfer transfer) {
+        Integer slot = flowSlots.remove(transfer);
+        if (slot == null) {
+            throw new IllegalArgumentException("Unknown transfer: " + transfer);
+        }
+        int flow = slot;
+        for (int i = 0; i < PATH; i++) {
+            int node = flowPath[flow * PATH + i];
+            if (node < 0) {
+                continue;
+            }
+            // Move the last flow of the node to the position of the removed one
+            int position = flowPosition[flow * PATH + i];
+            int last = --nodeFlowCount[node];
+            int moved = nodeFlows[node][last];
+            nodeFlows[node][position] = moved;
+            if (moved != flow) {
+                flowPosition[moved * PATH + pathIndex(moved, node)] = position;
+            }
+            if (nodeFlowCount[node] == 0) {
+                freeNode(node);
+            } else {
+                markDirty(node);
+            }
+        }
+        freeFlows[freeFlowCount++] = flow;
+    }
+
+    /**
+     * @return The bandwidth of the transfer computed by the last {@link #allocate()}.
+     */
+    double getBandwidth(Transfer transfer) {
+        Integer flow = flowSlots.get(transfer);
+        if (flow == null) {
+            throw new IllegalArgumentException("Unknown transfer: " + transfer);
+        }
+        return flowAllocation[flow];
+    }
+
+    /**
+     * @return The number of transfers.
+     */
+    int size() {
+        return flowSlots.size();
+    }
+
+    /**
+     * Recomputes the bandwidth of the transfers connected with the transfers added or removed since the last call.
+     */
+    void allocate() {
+        epoch++;
+        for (int i = 0; i < dirtyNodeCount; i++) {
+            int node = dirtyNodes[i];
+            if (nodeFlowCount[node] > 0 && nodeEpoch[node] != epoch) {
+                allocateComponent(node);
+            }
+        }
+        dirtyNodeCount = 0;
+    }
+
+    /**
+     * Progressive filling of the connected component of the node: the flows of the node with the smallest fair share
+     * get the share and are removed from their other nodes, until all the flows have their bandwidth.
+     */
+    private void allocateComponent(int start) {
+        recomputedComponents++;
+        mark++;
+        int nodes = 0;
+        nodeEpoch[start] = epoch;
+        componentNodes[nodes++] = start;
+        for (int i = 0; i < nodes; i++) {
+            int node = componentNodes[i];
+            for (int j = 0; j < nodeFlowCount[node]; j++) {
+                int flow = nodeFlows[node][j];
+                if (flowMark[flow] == mark) {
+                    continue;
+                }
+                flowMark[flow] = mark;
+                for (int k = 0; k < PATH; k++) {
+                    int other = flowPath[flow * PATH + k];
+                    if (other >= 0 && nodeEpoch[other] != epoch) {
+                        nodeEpoch[other] = epoch;
+                        componentNodes[nodes++] = other;
+                    }
+                }
+            }
+        }
+
+        heapSize = 0;
+        for (int i = 0; i < nodes; i++) {
+            int node = componentNodes[i];
+            remainingCapacity[node] = nodeCapacity[node];
+            remainingFlows[node] = nodeFlowCount[node];
+            push(remainingCapacity[node] / remainingFlows[node], node);
+        }
+        // Flows are marked again once they have their bandwidth
+        int allocated = ++mark;
+        while (heapSize > 0) {
+            double share = heapShares[0];
+            int node = pop();
+            if (remainingFlows[node] == 0 || share != remainingCapacity[node] / remainingFlows[node]) {
+                // Stale entry, the node has been updated since
+                continue;
+            }
+            share = Math.max(share, 0.0);
+            for (int j = 0; j < nodeFlowCount[node]; j++) {
+                int flow = nodeFlows[node][j];
+                if (flowMark[flow] == allocated) {
+                    continue;
+                }
+                flowMark[flow] = allocated;
+                flowAllocation[flow] = share;
+                for (int k = 0; k < PATH; k++) {
+                    int other = flowPath[flow * PATH + k];
+                    if (other < 0) {
+                        continue;
+                    }
+                    remainingCapacity[other] -= share;
+                    remainingFlows[other]--;
+                    if (other != node && remainingFlows[other] > 0) {
+                        push(remainingCapacity[other] / remainingFlows[other], other);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The number of connected components recomputed by {@link #allocate()} so far.
+     */
+    long getRecomputedComponents() {
+        return recomputedComponents;
+    }
+
+    private int pathIndex(int flow, int node) {
+        for (int i = 0; i < PATH; i++) {
+            if (flowPath[flow * PATH + i] == node) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Flow is not connected with the node");
+    }
+
+    private void markDirty(int node) {
+        if (dirtyNodeCount == dirtyNodes.length) {
+            dirtyNodes = Arrays.copyOf(dirtyNodes, dirtyNodeCount * 2);
+        }
+        dirtyNodes[dirtyNodeCount++] = node;
+    }
+
+    private int getNodeSlot(Object key, double capacity) {
+        Integer slot = nodeSlots.get(key);
+        if (slot != null) {
+            return slot;
+        }
+        int node;
+        if (freeNodeCount > 0) {
+            node = freeNodes[--freeNodeCount];
+        } else {
+            node = nodeSlotLimit++;
+            if (node == nodeKeys.length) {
+                int length = node * 2;
+                nodeKeys = Arrays.copyOf(nodeKeys, length);
+                nodeCapacity = Arrays.copyOf(nodeCapacity, length);
+                nodeFlows = Arrays.copyOf(nodeFlows, length);
+                nodeFlowCount = Arrays.copyOf(nodeFlowCount, length);
+                freeNodes = Arrays.copyOf(freeNodes, length);
+                nodeEpoch = Arrays.copyOf(nodeEpoch, length);
+                remainingCapacity = Arrays.copyOf(remainingCapacity, length);
+                remainingFlows = Arrays.copyOf(remainingFlows, length);
+                componentNodes = Arrays.copyOf(componentNodes, length);
+            }
+        }
+        nodeSlots.put(key, node);
+        nodeKeys[node] = key;
+        nodeCapacity[node] = capacity;
+        nodeFlowCount[node] = 0;
+        return node;
+    }
+
+    private void freeNode(int node) {
+        nodeSlots.remove(nodeKeys[node]);
+        nodeKeys[node] = null;
+        freeNodes[freeNodeCount++] = node;
+    }
+
+    private int newFlowSlot() {
+        if (freeFlowCount > 0) {
+            return freeFlows[--freeFlowCount];
+        }
+        int flow = flowSlotLimit++;
+        if (flow == flowAllocation.length) {
+            int length = flow * 2;
+            flowPath = Arrays.copyOf(flowPath, length * PATH);
+            flowPosition = Arrays.copyOf(flowPosition, length * PATH);
+            flowAllocation = Arrays.copyOf(flowAllocation, length);
+            freeFlows = Arrays.copyOf(freeFlows, length);
+            flowMark = Arrays.copyOf(flowMark, length);
+        }
+        return flow;
+    }
+
+    private void push(double share, int node) {
+        if (heapSize == heapShares.length) {
+            heapShares = Arrays.copyOf(heapShares, heapSize * 2);
+            heapNodes = Arrays.copyOf(heapNodes, heapSize * 2);
+        }
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (heapShares[parent] <= share) {
+                break;
+            }
+            heapShares[i] = heapShares[parent];
+            heapNodes[i] = heapNodes[parent];
+            i = parent;
+        }
+        heapShares[i] = share;
+        heapNodes[i] = node;
+    }
+
+    private int pop() {
+        int top = heapNodes[0];
+        double share = heapShares[--heapSize];
+        int node = heapNodes[heapSize];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && heapShares[child + 1] < heapShares[child]) {
+                child++;
+            }
+            if (share <= heapShares[child]) {
+                break;
+            }
+            heapShares[i] = heapShares[child];
+            heapNodes[i] = heapNodes[child];
+            i = child;
+        }
+        heapShares[i] = share;
+        heapNodes[i] = node;
+        return top;
+    }
+}
@@ -1,5 +1,7 @@
 package cws.core.transfer;
 
+import cws.core.cloudsim.CloudSimWrapper;
+
 /**
  * This object represents a link between two network elements. It has a fixed
  * available bandwidth, a latency, and a maximum transmission unit (MTU).
@@ -24,9 +26,6 @@ package cws.core.transfer;
  * @author Gideon Juve <juve@usc.edu>
  */
 public class Link {
-    /** Next link ID */
-    private static int next_id = 0;
-
     /** Default MTU for Ethernet is 1500 bytes */
     private static final int DEFAULT_MTU = 1500;
 
@@ -46,9 +45,10 @@ public class Link {
      * @param bandwidth Bandwidth of link in Mbps
      * @param rtt Round-trip latency in ms
      * @param mtu MTU of link in bytes
+     * @param cloudsim Simulation the link belongs to, its id is unique within it
      */
-    public Link(double bandwidth, double rtt, int mtu) {
-        this.id = next_id++;
+    public Link(double bandwidth, double rtt, int mtu, CloudSimWrapper cloudsim) {
+        this.id = cloudsim.getIds().nextLinkId();
         this.bandwidth = bandwidth;
         this.rtt = rtt;
         this.mtu = mtu;
@@ -57,9 +57,10 @@ public class Link {
     /**
      * @param bandwidth Bandwidth of link in Mbps
      * @param rtt Round-trip latency in ms
+     * @param cloudsim Simulation the link belongs to, its id is unique within it
      */
-    public Link(double bandwidth, double rtt) {
-        this(bandwidth, rtt, DEFAULT_MTU);
+    public Link(double bandwidth, double rtt, CloudSimWrapper cloudsim) {
+        this(bandwidth, rtt, DEFAULT_MTU, cloudsim);
     }
 
     public double getBandwidth() {
@@ -1,8 +1,7 @@
 package cws.core.transfer;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 
 import cws.core.WorkflowEvent;
@@ -37,9 +36,15 @@ import cws.core.exception.UnknownWorkflowEventException;
  * Because transfers share ports and links, and transfers may start and stop at
  * different times, the bandwidth assigned to each transfer may change. Each
  * time a new transfer is started, or an existing transfer completes, we
- * recompute the bandwidth assigned to every transfer in the simulation. The
- * algorithm used to compute the bandwidth ensures max-min fairness between
- * streams sharing constrained ports and links.
+ * recompute the bandwidth assigned to the transfers sharing ports and links
+ * with it, see {@link BandwidthAllocator}. The algorithm used to compute the
+ * bandwidth ensures max-min fairness between streams sharing constrained
+ * ports and links.
+ * 
+ * There is at most one pending UPDATE_TRANSFER_PROGRESS event, at the time the
+ * next transfer completes. It is cancelled and rescheduled when the bandwidth
+ * changes, and transfers whose handshakes complete at the same time share a
+ * single update, see {@link #getAvoidedUpdates()}.
  * 
  * @author Gideon Juve <juve@usc.edu>
  */
@@ -53,10 +58,22 @@ public class TransferManager extends CWSSimEntity {
     /** Listeners for transfer events */
     private HashSet<TransferListener> listeners;
 
+    /** Bandwidth of the active transfers */
+    private BandwidthAllocator allocator = new BandwidthAllocator();
+
+    /** Time of the pending UPDATE_TRANSFER_PROGRESS event, NaN if there is none */
+    private double updateTime = Double.NaN;
+
+    /** The pending UPDATE_TRANSFER_PROGRESS event, other update events are stale */
+    private CWSSimEvent updateEvent;
+
+    /** Number of updates served by the pending event instead of a wakeup of their own */
+    private long avoidedUpdates;
+
     public TransferManager(CloudSimWrapper cloudsim) {
         super("TransferManager", cloudsim);
         activeTransfers = new HashSet<Transfer>();
-        listeners = new HashSet<TransferListener>();
+        listeners = new LinkedHashSet<TransferListener>();
     }
 
     public void addListener(TransferListener tl) {
@@ -67,6 +84,14 @@ public class TransferManager extends CWSSimEntity {
         listeners.remove(tl);
     }
 
+    /**
+     * @return The number of UPDATE_TRANSFER_PROGRESS wakeups avoided by
+     *         cancelling, rescheduling and coalescing the pending update.
+     */
+    public long getAvoidedUpdates() {
+        return avoidedUpdates;
+    }
+
     @Override
     public void startEntity() {
         /* Do nothing */
@@ -82,7 +107,7 @@ public class TransferManager extends CWSSimEntity {
             handshakeComplete((Transfer) ev.getData());
             break;
         case WorkflowEvent.UPDATE_TRANSFER_PROGRESS:
-            updateProgress();
+            onUpdate(ev);
             break;
         case WorkflowEvent.FINAL_ACK_RECEIVED:
             finalAckReceived((Transfer) ev.getData());
@@ -125,11 +150,43 @@ public class TransferManager extends CWSSimEntity {
 
         // Add the transfer to the active transfers list
         this.activeTransfers.add(t);
+        allocator.add(t);
 
-        // Update the progress of all transfers
+        // Update the progress of all transfers once all the handshakes
+        // completing now have been processed
+        scheduleUpdate(0.0);
+    }
+
+    /** Called on UPDATE_TRANSFER_PROGRESS event */
+    private void onUpdate(CWSSimEvent ev) {
+        if (ev != updateEvent) {
+            // Rescheduled after it was due
+            return;
+        }
+        updateTime = Double.NaN;
+        updateEvent = null;
         updateProgress();
     }
 
+    /**
+     * Makes sure the progress is updated after the given delay. The pending
+     * update is kept if it is due at the same time and cancelled otherwise.
+     */
+    private void scheduleUpdate(double delay) {
+        double time = getCloudsim().clock() + delay;
+        if (time == updateTime) {
+            avoidedUpdates++;
+            return;
+        }
+        if (updateEvent != null) {
+            getCloudsim().cancel(updateEvent);
+            avoidedUpdates++;
+        }
+        updateTime = time;
+        updateEvent = getCloudsim().sendCancellable(getId(), getId(), delay, WorkflowEvent.UPDATE_TRANSFER_PROGRESS,
+                null);
+    }
+
     /** Update progress of active transfers */
     private void updateProgress() {
         // Log.printLine(CloudSim.clock() + " Transfer manager: updating progress, active transfers: " +
@@ -150,6 +207,7 @@ public class TransferManager extends CWSSimEntity {
         // Remove any completed transfers
         for (Transfer t : completedTransfers) {
             activeTransfers.remove(t);
+            allocator.remove(t);
 
             // It takes 1 RTT to get the final ACK
             double rttSec = t.getRTT() * MSEC_TO_SEC;
@@ -159,23 +217,23 @@ public class TransferManager extends CWSSimEntity {
         // If there are still some transfers remaining
         if (activeTransfers.size() > 0) {
 
-            // Recompute bandwidth for remaining transfers
-            Transfer[] transfers = activeTransfers.toArray(new Transfer[0]);
-            double[] allocations = TransferManager.allocateBandwidth(transfers);
+            // Recompute bandwidth of the transfers affected by the added and removed ones
+            allocator.allocate();
 
             // Update bandwidth
-            for (int i = 0; i < transfers.length; i++) {
+            for (Transfer t : activeTransfers) {
+                double allocation = allocator.getBandwidth(t);
 
                 // Did bandwidth change by more than 1bps?
-                boolean changed = Math.abs(transfers[i].getCurrentBandwidth() - allocations[i]) >= 0.000001;
+                boolean changed = Math.abs(t.getCurrentBandwidth() - allocation) >= 0.000001;
 
-                // Update bandwidth
-                transfers[i].updateBandwidth(allocations[i]);
+                // Update bandwidth, which also restarts progress accounting of unchanged transfers
+                t.updateBandwidth(allocation);
 
                 // If bandwidth changed, notify listeners
                 if (changed) {
                     for (TransferListener tl : listeners) {
-                        tl.bandwidthChanged(transfers[i]);
+                        tl.bandwidthChanged(t);
                     }
                 }
             }
@@ -185,126 +243,25 @@ public class TransferManager extends CWSSimEntity {
             for (Transfer t : activeTransfers) {
                 nextUpdate = Math.min(nextUpdate, t.estimateTimeRemaining());
             }
-            getCloudsim().send(getId(), getId(), nextUpdate, WorkflowEvent.UPDATE_TRANSFER_PROGRESS);
+            scheduleUpdate(nextUpdate);
         }
     }
 
-    /** A node is a network element with a bandwidth capacity */
-    private static class Node {
-        public HashSet<Flow> flows = new HashSet<Flow>();
-        public double capacity = 0.0;
-    }
-
-    /** A flow is the bandwidth allocated to a transfer */
-    private static class Flow {
-        public Node[] path = new Node[3];
-        public double allocation = 0.0;
-    }
-
     /**
      * Called when we need to compute the bandwidth assigned to each
      * transfer. This uses the progressive filling algorithm.
      */
     public static double[] allocateBandwidth(Transfer[] transfers) {
-
-        Flow[] flows = new Flow[transfers.length];
-        ArrayList<Node> nodes = new ArrayList<Node>();
-
-        // These are used to find the set of unique Ports and Links
-        HashMap<Port, Node> ports = new HashMap<Port, Node>();
-        HashMap<Link, Node> links = new HashMap<Link, Node>();
-
-        // This loop just sets up the data structures
-        for (int i = 0; i < transfers.length; i++) {
-            Node n;
-
-            // Create a flow for each transfer
-            Transfer t = transfers[i];
-            Flow f = flows[i] = new Flow();
-
-            // Add the source port
-            Port src = t.getSourcePort();
-            if (ports.containsKey(src)) {
-                n = ports.get(src);
-            } else {
-                n = new Node();
-                nodes.add(n);
-                n.capacity = src.getBandwidth();
-                ports.put(src, n);
-            }
-            n.flows.add(f);
-            f.path[0] = n;
-
-            // Add the destination port
-            Port dest = t.getDestinationPort();
-            if (ports.containsKey(dest)) {
-                n = ports.get(dest);
-            } else {
-                n = new Node();
-                nodes.add(n);
-                n.capacity = dest.getBandwidth();
-                ports.put(dest, n);
-            }
-            n.flows.add(f);
-            f.path[1] = n;
-
-            // Add the link
-            Link link = t.getLink();
-            if (links.containsKey(link)) {
-                n = links.get(link);
-            } else {
-                n = new Node();
-                nodes.add(n);
-                n.capacity = link.getBandwidth();
-                links.put(link, n);
-            }
-            n.flows.add(f);
-            f.path[2] = n;
-        }
-
-        // As long as there are nodes remaining that have flows
-        int nnodes = nodes.size();
-        while (nnodes > 0) {
-
-            // Find the node with the smallest remaining fair share
-            Node minNode = null;
-            double minShare = Double.MAX_VALUE;
-            for (Node n : nodes) {
-                double share = n.capacity / n.flows.size();
-                if (share <= minShare) {
-                    minShare = share;
-                    minNode = n;
-                }
-            }
-
-            // Allocate the min share to each flow that uses the min node
-            Flow[] myflows = minNode.flows.toArray(new Flow[0]);
-            for (Flow f : myflows) {
-                f.allocation += minShare;
-                for (Node n : f.path) {
-                    n.capacity -= minShare;
-                    n.flows.remove(f);
-                }
-            }
-
-            // Remove all nodes with no remaining flows
-            int i = 0;
-            while (i < nnodes) {
-                Node n = nodes.get(i);
-                if (n.flows.size() == 0) {
-                    // Swap with the last node
-                    nnodes--;
-                    nodes.set(i, nodes.get(nnodes));
-                } else {
-                    i++;
-                }
-            }
+        BandwidthAllocator allocator = new BandwidthAllocator();
+        for (Transfer t : transfers) {
+            allocator.add(t);
         }
+        allocator.allocate();
 
         // Return allocations
         double[] allocations = new double[transfers.length];
         for (int i = 0; i < transfers.length; i++) {
-            allocations[i] = flows[i].allocation;
+            allocations[i] = allocator.getBandwidth(transfers[i]);
         }
         return allocations;
     }
@@ -0,0 +1,125 @@
+package cws.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import cws.core.cloudsim.CWSSimEntity;
+import cws.core.cloudsim.CWSSimEvent;
+import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.core.VMType;
+import cws.core.core.VMTypeBuilder;
+import cws.core.dag.DAG;
+import cws.core.dag.DAGJob;
+import cws.core.dag.Task;
+import cws.core.jobs.Job;
+import cws.core.provisioner.ConstantDistribution;
+import cws.core.storage.VoidStorageManager;
+
+public class CloudTest {
+    private CloudSimWrapper cloudsim;
+    private Cloud cloud;
+
+    /**
+     * Launches the VMs, runs one job on every VM and terminates the VMs, recording the free and busy VMs.
+     */
+    private class CloudDriver extends CWSSimEntity {
+        private final List<VM> vms;
+        private final List<String> states = new ArrayList<String>();
+        private int launched;
+        private int finished;
+
+        public CloudDriver(List<VM> vms, CloudSimWrapper cloudsim) {
+            super("CloudDriver", cloudsim);
+            this.vms = vms;
+        }
+
+        @Override
+        public void startEntity() {
+            for (VM vm : vms) {
+                cloud.launchVM(getId(), vm);
+            }
+        }
+
+        @Override
+        public void processEvent(CWSSimEvent ev) {
+            switch (ev.getTag()) {
+            case WorkflowEvent.VM_LAUNCHED:
+                if (++launched == vms.size()) {
+                    record();
+                    for (VM vm : vms) {
+                        vm.jobSubmit(new Job(new DAGJob(new DAG(), 1), new Task("task" + vm.getId(),
+                                "transformation", 1000), getId(), getCloudsim()));
+                    }
+                    record();
+                }
+                break;
+            case WorkflowEvent.JOB_FINISHED:
+                if (++finished == 1) {
+                    record();
+                    cloud.terminateVM(vms.get(0));
+                    record();
+                }
+                break;
+            case WorkflowEvent.VM_TERMINATED:
+                record();
+                break;
+            }
+        }
+
+        private void record() {
+            states.add(cloud.getAvailableVMCount() + " free=" + cloud.getFreeVMs() + " busy=" + cloud.getBusyVMs());
+        }
+    }
+
+    @Before
+    public void setUp() {
+        cloudsim = new CloudSimWrapper();
+        cloudsim.init();
+        new VoidStorageManager(cloudsim);
+        cloud = new Cloud(cloudsim);
+    }
+
+    @Test
+    public void shouldTrackFreeAndBusyVMs() {
+        VMType oneCore = vmType(1, 100);
+        VMType twoCores = vmType(2, 1000);
+        VM slow = VMFactory.createVM(oneCore, cloudsim);
+        VM fast = VMFactory.createVM(twoCores, cloudsim);
+        CloudDriver driver = new CloudDriver(Arrays.asList(slow, fast), cloudsim);
+
+        cloudsim.startSimulation();
+
+        String both = "[" + slow + ", " + fast + "]";
+        assertEquals(Arrays.asList(
+                // Launched
+                "2 free=" + both + " busy=[]",
+                // The slow VM runs a job on its only core, the fast one still has an idle core
+                "2 free=[" + fast + "] busy=[" + slow + "]",
+                // The fast VM finished first
+                "2 free=[" + fast + "] busy=[" + slow + "]",
+                // The terminated VM is neither free nor busy, but available until the deprovisioning delay passes
+                "2 free=[" + fast + "] busy=[]",
+                "1 free=[" + fast + "] busy=[]"), driver.states);
+        assertTrue(cloud.getFreeVMs().contains(fast));
+        assertFalse(cloud.getAvailableVMs().contains(slow));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldNotModifyViews() {
+        cloud.getFreeVMs().clear();
+    }
+
+    private VMType vmType(int cores, int mips) {
+        return VMTypeBuilder.newBuilder().mips(mips).cores(cores).price(1.0)
+                .provisioningTime(new ConstantDistribution(0.0)).deprovisioningTime(new ConstantDistribution(1.0))
+                .build();
+    }
+}
@@ -1,13 +1,21 @@
 package cws.core;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertTrue;
 
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.apache.commons.cli.PosixParser;
 import org.cloudbus.cloudsim.distributions.ContinuousDistribution;
 import org.cloudbus.cloudsim.distributions.LognormalDistr;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
 import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.core.VMType;
+import cws.core.core.VMTypeBuilder;
 
 public class VMFactoryTest {
 
@@ -35,4 +43,35 @@ public class VMFactoryTest {
         assertTrue(provisioningDelayDistribution.sample() > 0.0);
         assertTrue(deprovisioningDelayDistribution.sample() > 0.0);
     }
+
+    @After
+    public void tearDown() throws ParseException {
+        readCliOptions();
+    }
+
+    private void readCliOptions(String... args) throws ParseException {
+        Options options = new Options();
+        VMFactory.buildCliOptions(options);
+        VMFactory.readCliOptions(new PosixParser().parse(options, args), 7);
+    }
+
+    @Test
+    public void shouldGiveEverySimulationItsOwnRandomGenerators() throws ParseException {
+        readCliOptions("--runtime-variance", "0.5", "--failure-rate", "0.5");
+        VMType vmType = VMTypeBuilder.newBuilder().mips(1).cores(1).price(1.0).build();
+        CloudSimWrapper other = new CloudSimWrapper();
+        other.init();
+        VMFactory.initSimulation(cloudsim);
+        VMFactory.initSimulation(other);
+        VM vm = VMFactory.createVM(vmType, cloudsim);
+        VM otherVM = VMFactory.createVM(vmType, other);
+
+        assertNotSame(vm.getRuntimeDistribution(), otherVM.getRuntimeDistribution());
+        assertNotSame(vm.getFailureModel(), otherVM.getFailureModel());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(vm.getRuntimeDistribution().getActualRuntime(100.0), otherVM.getRuntimeDistribution()
+                    .getActualRuntime(100.0), 0.0);
+            assertEquals(vm.getFailureModel().failureOccurred(), otherVM.getFailureModel().failureOccurred());
+        }
+    }
 }
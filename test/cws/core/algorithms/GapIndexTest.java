@@ -0,0 +1,114 @@
+package cws.core.algorithms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class GapIndexTest {
+    private GapIndex index;
+
+    @Before
+    public void setUp() {
+        index = new GapIndex();
+    }
+
+    @Test
+    public void shouldFindNoGapInEmptySchedule() {
+        assertTrue(Double.isNaN(index.findFirstFit(0.0, 10.0, 100.0)));
+    }
+
+    @Test
+    public void shouldNotUseTimeBeforeFirstSlot() {
+        index.add(100.0, 110.0);
+        assertTrue(Double.isNaN(index.findFirstFit(0.0, 10.0, 1000.0)));
+    }
+
+    @Test
+    public void shouldFindFirstGapTheTaskFitsIn() {
+        index.add(0.0, 10.0);
+        index.add(15.0, 20.0);
+        index.add(40.0, 50.0);
+        index.add(100.0, 110.0);
+
+        assertEquals(10.0, index.findFirstFit(0.0, 5.0, 1000.0), 0.0);
+        assertEquals(20.0, index.findFirstFit(0.0, 6.0, 1000.0), 0.0);
+        assertEquals(50.0, index.findFirstFit(0.0, 30.0, 1000.0), 0.0);
+        assertEquals(55.0, index.findFirstFit(55.0, 30.0, 1000.0), 0.0);
+        assertTrue(Double.isNaN(index.findFirstFit(0.0, 30.0, 70.0)));
+        assertTrue(Double.isNaN(index.findFirstFit(0.0, 51.0, 1000.0)));
+    }
+
+    @Test
+    public void shouldKeepGapsOfCopy() {
+        index.add(0.0, 10.0);
+        index.add(40.0, 50.0);
+        GapIndex copy = new GapIndex(index);
+        copy.add(10.0, 40.0);
+
+        assertEquals(10.0, index.findFirstFit(0.0, 30.0, 1000.0), 0.0);
+        assertTrue(Double.isNaN(copy.findFirstFit(0.0, 1.0, 1000.0)));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void shouldRejectOverlappingSlots() {
+        index.add(0.0, 10.0);
+        index.add(5.0, 8.0);
+    }
+
+    @Test
+    public void shouldMatchLinearScan() {
+        Random rng = new Random(5);
+        TreeMap<Double, Double> schedule = new TreeMap<Double, Double>();
+        for (int step = 0; step < 300; step++) {
+            double earliestStart = rng.nextInt(5000) + rng.nextDouble();
+            double runtime = rng.nextInt(200) + rng.nextDouble();
+            double deadline = earliestStart + runtime + rng.nextInt(3000);
+
+            double expected = linearScan(schedule, earliestStart, runtime, deadline);
+            double actual = index.findFirstFit(earliestStart, runtime, deadline);
+            if (Double.isNaN(expected)) {
+                assertTrue(Double.isNaN(actual));
+            } else {
+                assertEquals(expected, actual, 0.0);
+            }
+
+            // Schedule the task in the gap, or append it with a random gap as SPSS would
+            double start = expected;
+            if (Double.isNaN(start)) {
+                double lastEnd = schedule.isEmpty() ? 0.0 : schedule.lastEntry().getValue();
+                start = Math.max(earliestStart, lastEnd + (rng.nextBoolean() ? 0.0 : rng.nextInt(100)));
+            }
+            schedule.put(start, start + runtime);
+            index.add(start, start + runtime);
+            assertEquals(schedule.size(), index.size());
+        }
+    }
+
+    /**
+     * The gap search of SPSS over a schedule of slot starts and finishes.
+     */
+    private static double linearScan(TreeMap<Double, Double> schedule, double earliestStart, double runtime,
+            double deadline) {
+        double lastEnd = -1;
+        for (Map.Entry<Double, Double> slot : schedule.entrySet()) {
+            double begin = lastEnd;
+            double end = slot.getKey();
+            lastEnd = slot.getValue();
+            if (begin < 0 || begin == end) {
+                continue;
+            }
+            double ast = begin >= earliestStart ? begin : earliestStart;
+            double aft = ast + runtime;
+            if (aft <= end && aft <= deadline) {
+                return ast;
+            }
+        }
+        return Double.NaN;
+    }
+}
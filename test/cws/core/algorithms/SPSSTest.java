@@ -0,0 +1,109 @@
+package cws.core.algorithms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.core.VMType;
+import cws.core.core.VMTypeBuilder;
+import cws.core.dag.DAG;
+import cws.core.dag.DAGParser;
+import cws.core.engine.Environment;
+import cws.core.storage.VoidStorageManager;
+
+public class SPSSTest {
+    private static final double BUDGET = 1e9;
+    private static final double DEADLINE = 600.0;
+
+    private CloudSimWrapper cloudsim;
+    private Environment environment;
+    private List<DAG> dags;
+
+    @Before
+    public void setUp() {
+        cloudsim = new CloudSimWrapper();
+        cloudsim.init();
+        VMType vmType = VMTypeBuilder.newBuilder().mips(1).cores(1).price(1.0).build();
+        environment = new Environment(vmType, new VoidStorageManager(cloudsim));
+        dags = new ArrayList<DAG>();
+        dags.add(DAGParser.parseDAG(new File("dags/Montage_1000.dag")));
+        dags.add(DAGParser.parseDAG(new File("dags/CyberShake_1000.dag")));
+    }
+
+    @Test
+    public void shouldPlanTheSameInParallel() throws Exception {
+        List<List<String>> sequential = plan(null);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<List<String>> parallel = plan(pool);
+            assertTrue("Plan too small to be evaluated in parallel: " + sequential.size(), sequential.size() > 100);
+            assertEquals(sequential, parallel);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldConsiderNoDAGsWhenPlanningTimeLimitIsExceeded() {
+        SPSS spss = newSPSS();
+        spss.setPlanningTimeLimit(0.0);
+        spss.plan();
+        assertEquals(0, spss.getNumConsideredDAGs());
+    }
+
+    @Test
+    public void shouldKeepAdmittedDAGsWhenPlanningTimeLimitIsExceeded() {
+        List<DAG> small = new ArrayList<DAG>();
+        small.add(DAGParser.parseDAG(new File("dags/Montage_25.dag")));
+        small.add(DAGParser.parseDAG(new File("dags/CyberShake_30.dag")));
+        small.add(DAGParser.parseDAG(new File("dags/CyberShake_50.dag")));
+        AlgorithmStatistics statistics = new AlgorithmStatistics(small, BUDGET, DEADLINE, cloudsim);
+        SPSS spss = new SPSS(BUDGET, DEADLINE, small, 0.7, statistics, environment, cloudsim) {
+            @Override
+            protected long getWallTime() {
+                // Planning of every DAG takes one second
+                return getNumConsideredDAGs() * 1000000000L;
+            }
+        };
+        spss.setPlanningTimeLimit(1.5);
+        spss.simulate();
+
+        assertEquals(2, spss.getNumConsideredDAGs());
+        assertEquals(new HashSet<DAG>(small.subList(0, 2)), new HashSet<DAG>(statistics.getFinishedDags()));
+    }
+
+    private SPSS newSPSS() {
+        return new SPSS(BUDGET, DEADLINE, dags, 0.7, new AlgorithmStatistics(dags, BUDGET, DEADLINE, cloudsim),
+                environment, cloudsim);
+    }
+
+    /**
+     * @return Task ids and start times of the slots of every resource of the plan of all the DAGs.
+     */
+    private List<List<String>> plan(ForkJoinPool pool) throws Exception {
+        SPSS spss = newSPSS();
+        spss.setPlanningPool(pool);
+        StaticAlgorithm.Plan plan = spss.new Plan();
+        for (DAG dag : dags) {
+            plan = spss.planDAG(dag, plan);
+        }
+        List<List<String>> resources = new ArrayList<List<String>>();
+        for (StaticAlgorithm.Resource r : plan.resources) {
+            List<String> slots = new ArrayList<String>();
+            for (StaticAlgorithm.Slot slot : r.schedule.values()) {
+                slots.add(slot.task.getId() + "@" + slot.start);
+            }
+            resources.add(slots);
+        }
+        return resources;
+    }
+}
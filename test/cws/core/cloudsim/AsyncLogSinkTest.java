@@ -0,0 +1,75 @@
+package cws.core.cloudsim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
+
+import org.junit.Test;
+
+public class AsyncLogSinkTest {
+    /** Stream which records whether it was closed */
+    private static class RecordingStream extends ByteArrayOutputStream {
+        boolean closed;
+
+        @Override
+        public void close() throws IOException {
+            closed = true;
+        }
+    }
+
+    @Test
+    public void shouldWriteSameLinesAsPrintStreamSink() throws IOException {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        PrintStreamLogSink printSink = new PrintStreamLogSink(new PrintStream(expected));
+        RecordingStream actual = new RecordingStream();
+        // Tiny blocks, so that the writer has to keep up with the logging thread
+        AsyncLogSink asyncSink = new AsyncLogSink(actual, 16, 2);
+
+        for (int i = 0; i < 1000; i++) {
+            for (LogSink sink : new LogSink[] { printSink, asyncSink }) {
+                sink.log(Double.NaN, "budget = " + i);
+                sink.log(i * 0.5, "VM " + i + " started");
+                sink.log(i, "a line which is longer than a block: " + i);
+                sink.log(i, "zażółć gęślą jaźń");
+            }
+        }
+        printSink.flush();
+        asyncSink.flush();
+        assertEquals(expected.toString(Charset.defaultCharset().name()),
+                actual.toString(Charset.defaultCharset().name()));
+
+        asyncSink.close();
+        assertTrue(actual.closed);
+    }
+
+    @Test
+    public void shouldFlushWhenSimulationFinishes() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AsyncLogSink sink = new AsyncLogSink(out);
+        CloudSimWrapper cloudsim = new CloudSimWrapper(sink);
+        cloudsim.init();
+        cloudsim.log("before");
+
+        cloudsim.startSimulation();
+
+        assertEquals("before" + System.getProperty("line.separator"), out.toString());
+        sink.close();
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void shouldReportWriteErrors() throws IOException {
+        AsyncLogSink sink = new AsyncLogSink(new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("disk full");
+            }
+        });
+        sink.log(1.0, "message");
+        sink.flush();
+    }
+}
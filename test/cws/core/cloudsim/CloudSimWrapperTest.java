@@ -0,0 +1,261 @@
+package cws.core.cloudsim;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.base.Predicate;
+
+import cws.core.stub.SimEntityStub;
+
+public class CloudSimWrapperTest {
+    private CloudSimWrapper cloudsim;
+
+    /** Records received tags along with the time they were received at */
+    private static class Recorder extends CWSSimEntity {
+        private final List<String> received;
+
+        public Recorder(String name, CloudSimWrapper cloudsim, List<String> received) {
+            super(name, cloudsim);
+            this.received = received;
+        }
+
+        @Override
+        public void processEvent(CWSSimEvent ev) {
+            received.add(getName() + ":" + ev.getTag() + "@" + getCloudsim().clock());
+        }
+    }
+
+    @Before
+    public void setUp() {
+        cloudsim = new CloudSimWrapper();
+        cloudsim.init();
+        cloudsim.setLogsEnabled(false);
+    }
+
+    @Test
+    public void shouldAssignIdsAndFindEntitiesByName() {
+        SimEntityStub a = new SimEntityStub("a", cloudsim);
+        SimEntityStub b = new SimEntityStub("b", cloudsim);
+
+        assertEquals(0, a.getId());
+        assertEquals(1, b.getId());
+        assertEquals(1, cloudsim.getEntityId("b"));
+        assertSame(a, cloudsim.getEntityByName("a"));
+        assertEquals(-1, cloudsim.getEntityId("c"));
+        assertNull(cloudsim.getEntityByName("c"));
+    }
+
+    @Test
+    public void shouldDeliverEventsInTimeThenEntityThenSendOrder() {
+        List<String> received = new ArrayList<String>();
+        Recorder a = new Recorder("a", cloudsim, received);
+        Recorder b = new Recorder("b", cloudsim, received);
+
+        cloudsim.send(-1, b.getId(), 1.0, 1);
+        cloudsim.send(-1, a.getId(), 2.0, 2);
+        cloudsim.send(-1, b.getId(), 1.0, 3);
+        cloudsim.send(-1, a.getId(), 1.0, 4);
+
+        assertEquals(2.0, cloudsim.startSimulation(), 0.0);
+        assertEquals("[a:4@1.0, b:1@1.0, b:3@1.0, a:2@2.0]", received.toString());
+        assertEquals(0.0, cloudsim.clock(), 0.0);
+    }
+
+    @Test
+    public void shouldStartEntitiesCreatedDuringSimulation() {
+        final List<String> received = new ArrayList<String>();
+        final Recorder[] created = new Recorder[1];
+        SimEntityStub creator = new SimEntityStub("creator", cloudsim) {
+            @Override
+            public void processEvent(CWSSimEvent ev) {
+                created[0] = new Recorder("created", getCloudsim(), received) {
+                    @Override
+                    public void startEntity() {
+                        getCloudsim().send(getId(), getId(), 1.0, 7);
+                    }
+                };
+            }
+        };
+        cloudsim.send(-1, creator.getId(), 5.0, 0);
+
+        cloudsim.startSimulation();
+
+        assertEquals("[created:7@6.0]", received.toString());
+    }
+
+    @Test
+    public void shouldCancelFutureEvents() {
+        List<String> received = new ArrayList<String>();
+        Recorder a = new Recorder("a", cloudsim, received);
+        cloudsim.send(a.getId(), a.getId(), 1.0, 1);
+        cloudsim.send(a.getId(), a.getId(), 2.0, 2);
+
+        cloudsim.cancelAll(a.getId(), new Predicate<CWSSimEvent>() {
+            @Override
+            public boolean apply(CWSSimEvent ev) {
+                return ev.getTag() == 1;
+            }
+        });
+        cloudsim.startSimulation();
+
+        assertEquals("[a:2@2.0]", received.toString());
+    }
+
+    @Test
+    public void shouldSkipCancelledEventsWithoutAdvancingClock() {
+        List<String> received = new ArrayList<String>();
+        Recorder a = new Recorder("a", cloudsim, received);
+        CWSSimEvent first = cloudsim.sendCancellable(a.getId(), a.getId(), 1.0, 1, null);
+        cloudsim.send(a.getId(), a.getId(), 2.0, 2);
+        CWSSimEvent last = cloudsim.sendCancellable(a.getId(), a.getId(), 3.0, 3, null);
+
+        cloudsim.cancel(first);
+        cloudsim.cancel(last);
+
+        assertEquals(2.0, cloudsim.startSimulation(), 0.0);
+        assertEquals("[a:2@2.0]", received.toString());
+    }
+
+    @Test
+    public void shouldRunSimulationsIndependently() {
+        CloudSimWrapper other = new CloudSimWrapper();
+        other.init();
+        List<String> received = new ArrayList<String>();
+        Recorder a = new Recorder("a", cloudsim, received);
+        Recorder otherA = new Recorder("a", other, received);
+        cloudsim.send(-1, a.getId(), 3.0, 1);
+        other.send(-1, otherA.getId(), 4.0, 2);
+
+        assertEquals(3.0, cloudsim.startSimulation(), 0.0);
+        assertEquals("[a:1@3.0]", received.toString());
+        assertEquals(4.0, other.startSimulation(), 0.0);
+    }
+
+    @Test
+    public void shouldFormatLogMessagesWithTimeWhenRunning() {
+        final List<String> logged = new ArrayList<String>();
+        CloudSimWrapper logging = new CloudSimWrapper(new LogSink() {
+            @Override
+            public void log(double time, String message) {
+                logged.add(time + " " + message);
+            }
+
+            @Override
+            public void flush() {
+            }
+        });
+        logging.init();
+        new SimEntityStub("a", logging) {
+            @Override
+            public void startEntity() {
+                getCloudsim().send(getId(), getId(), 1.5, 0);
+            }
+
+            @Override
+            public void processEvent(CWSSimEvent ev) {
+                getCloudsim().logMessage("Job %d (retry = %s) on VM %s finished in %f").arg(3).arg(true)
+                        .arg(getName()).arg(0.25).log();
+            }
+        };
+        logging.logMessage("budget = %s, size = %d").arg(4.0).arg(10L).log();
+
+        logging.startSimulation();
+
+        assertEquals("[NaN budget = 4.0, size = 10, 1.5 Job 3 (retry = true) on VM a finished in 0.250000]",
+                logged.toString());
+    }
+
+    @Test
+    public void shouldLogMessagesStartedWhileBuildingOtherMessages() {
+        final List<String> logged = new ArrayList<String>();
+        final CloudSimWrapper logging = new CloudSimWrapper(new LogSink() {
+            @Override
+            public void log(double time, String message) {
+                logged.add(message);
+            }
+
+            @Override
+            public void flush() {
+            }
+        });
+        logging.init();
+        Object loggingArg = new Object() {
+            @Override
+            public String toString() {
+                logging.logMessage("inner %d").arg(2).log();
+                return "arg";
+            }
+        };
+        LogMessage outer = logging.logMessage("outer %d %s %d").arg(1);
+        logging.logMessage("nested %d").arg(5).log();
+        outer.arg(loggingArg).arg(3).log();
+
+        assertEquals("[nested 5, inner 2, outer 1 arg 3]", logged.toString());
+    }
+
+    @Test
+    public void shouldNotFormatDisabledLogMessages() {
+        Object unformattable = new Object() {
+            @Override
+            public String toString() {
+                throw new AssertionError("Disabled message was formatted");
+            }
+        };
+        cloudsim.logMessage("%s").arg(unformattable).log();
+        assertSame(cloudsim.logMessage("a"), cloudsim.logMessage("b"));
+        assertFalse(cloudsim.isLogEnabled());
+        assertFalse(new CloudSimWrapper((LogSink) null).isLogEnabled());
+    }
+
+    @Test
+    public void shouldCollectKernelStatistics() {
+        assertNull(cloudsim.getKernelStatistics());
+        cloudsim.setKernelStatisticsEnabled(true);
+        List<String> received = new ArrayList<String>();
+        Recorder a = new Recorder("a", cloudsim, received);
+        Recorder b = new Recorder("b", cloudsim, received);
+        cloudsim.send(-1, a.getId(), 1.0, 1);
+        cloudsim.send(-1, b.getId(), 1.0, 1);
+        cloudsim.send(-1, b.getId(), 2.0, 3);
+
+        cloudsim.startSimulation();
+
+        KernelStatistics statistics = cloudsim.getKernelStatistics();
+        assertEquals(3, statistics.getEvents());
+        assertEquals(2, statistics.getEvents(1));
+        assertEquals(0, statistics.getEvents(2));
+        assertEquals(1, statistics.getEvents(3));
+        assertEquals(4, statistics.getTagLimit());
+        assertEquals(1, statistics.getEntityEvents(a.getId()));
+        assertEquals(2, statistics.getEntityEvents(b.getId()));
+        assertEquals(3, statistics.getMaxFutureQueueSize());
+        assertEquals(2.0, statistics.getSimulatedTime(), 0.0);
+        assertEquals(cloudsim.getSimulationWallTime(), statistics.getWallTime(), 0.0);
+    }
+
+    @Test
+    public void shouldResetKernelStatisticsOnInit() {
+        cloudsim.setKernelStatisticsEnabled(true);
+        Recorder a = new Recorder("a", cloudsim, new ArrayList<String>());
+        cloudsim.send(-1, a.getId(), 1.0, 1);
+        cloudsim.startSimulation();
+
+        cloudsim.init();
+
+        assertEquals(0, cloudsim.getKernelStatistics().getEvents());
+        assertEquals(0, cloudsim.getKernelStatistics().getMaxFutureQueueSize());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNegativeDelay() {
+        cloudsim.send(-1, 0, -1.0, 0);
+    }
+}
@@ -176,4 +176,22 @@ public class GlobalStorageParamsLoaderCliTest {
         loader.overrideConfigFromFileWithCliArgs(config, args);
     }
 
+    @Test
+    public void shouldEnableToOverrideFluidTransfers() throws ParseException {
+        CommandLine args = CommandLineBuilder.fromOptions(options)
+                .addOption(GlobalStorageParamsLoader.GS_FLUID_TRANSFERS_OPTION_NAME, "true").build();
+
+        loader.overrideConfigFromFileWithCliArgs(config, args);
+
+        assertEquals(true, config.get(GlobalStorageParamsLoader.GS_FLUID_TRANSFERS_CONFIG_ENTRY));
+    }
+
+    @Test(expected = IllegalCWSArgumentException.class)
+    public void shouldFailIfOverrideFluidTransfersWithInvalidValue() throws ParseException {
+        CommandLine args = CommandLineBuilder.fromOptions(options)
+                .addOption(GlobalStorageParamsLoader.GS_FLUID_TRANSFERS_OPTION_NAME, "2.3").build();
+
+        loader.overrideConfigFromFileWithCliArgs(config, args);
+    }
+
 }
@@ -218,4 +218,27 @@ public class GlobalStorageParamsLoaderTest {
         loader.loadParams(config);
     }
 
+    @Test
+    public void shouldNotUseFluidTransfersByDefault() {
+        GlobalStorageParams globalStorageParams = loader.loadParams(config);
+
+        assertEquals(false, globalStorageParams.isFluidTransfers());
+    }
+
+    @Test
+    public void shouldLoadFluidTransfers() {
+        config.put(GlobalStorageParamsLoader.GS_FLUID_TRANSFERS_CONFIG_ENTRY, true);
+
+        GlobalStorageParams globalStorageParams = loader.loadParams(config);
+
+        assertEquals(true, globalStorageParams.isFluidTransfers());
+    }
+
+    @Test(expected = IllegalCWSArgumentException.class)
+    public void shouldFailIfFluidTransfersIsNotABoolean() {
+        config.put(GlobalStorageParamsLoader.GS_FLUID_TRANSFERS_CONFIG_ENTRY, "yes");
+
+        loader.loadParams(config);
+    }
+
 }
@@ -0,0 +1,91 @@
+package cws.core.dag;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DAGBinaryFormatTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void shouldReadWrittenTextDAG() throws IOException {
+        DAG dag = DAGParser.parseDAG(new File("dags/CyberShake_100.dag"));
+        File file = tmp.newFile("CyberShake_100" + DAGBinaryFormat.EXTENSION);
+        DAGBinaryFormat.write(dag, file);
+        assertSameDAG(dag, DAGBinaryFormat.read(file));
+    }
+
+    @Test
+    public void shouldReadWrittenDAX() throws IOException {
+        DAG dag = DAGParser.parseDAX(new File("dags/Montage_25.xml"));
+        File file = tmp.newFile("Montage_25" + DAGBinaryFormat.EXTENSION);
+        DAGBinaryFormat.write(dag, file);
+        assertSameDAG(dag, DAGParser.parse(file));
+    }
+
+    @Test
+    public void shouldConvertToFileWithBinaryExtension() {
+        assertEquals(new File("dags", "test.dag.bdag"), DAGBinaryFormat.getBinaryFile(new File("dags/test.dag")));
+        assertEquals(new File("dags", "test.xml.bdag"), DAGBinaryFormat.getBinaryFile(new File("dags/test.xml")));
+        assertEquals(new File("dags", "MONTAGE.n.1000.0.dag.bdag"),
+                DAGBinaryFormat.getBinaryFile(new File("dags/MONTAGE.n.1000.0.dag")));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void shouldRejectTextFile() {
+        DAGBinaryFormat.read(new File("dags/test.dag"));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void shouldRejectTruncatedFile() throws IOException {
+        File file = tmp.newFile("test" + DAGBinaryFormat.EXTENSION);
+        DAGBinaryFormat.write(DAGParser.parseDAG(new File("dags/test.dag")), file);
+        byte[] bytes = FileUtils.readFileToByteArray(file);
+        FileUtils.writeByteArrayToFile(file, Arrays.copyOf(bytes, bytes.length / 2));
+        DAGBinaryFormat.read(file);
+    }
+
+    private void assertSameDAG(DAG expected, DAG actual) {
+        assertEquals(expected.numTasks(), actual.numTasks());
+        assertEquals(expected.numFiles(), actual.numFiles());
+        for (String name : expected.getFiles()) {
+            assertEquals(expected.getFileSize(name), actual.getFileSize(name));
+        }
+        for (String id : expected.getTasks()) {
+            Task task = expected.getTaskById(id);
+            Task other = actual.getTaskById(id);
+            assertNotNull(other);
+            assertEquals(task.getTransformation(), other.getTransformation());
+            assertEquals(task.getSize(), other.getSize(), 0.0);
+            assertSameTasks(task.getParents(), other.getParents());
+            assertSameTasks(task.getChildren(), other.getChildren());
+            assertSameFiles(task.getInputFiles(), other.getInputFiles());
+            assertSameFiles(task.getOutputFiles(), other.getOutputFiles());
+        }
+    }
+
+    private void assertSameTasks(List<Task> expected, List<Task> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getId(), actual.get(i).getId());
+        }
+    }
+
+    private void assertSameFiles(List<DAGFile> expected, List<DAGFile> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getName(), actual.get(i).getName());
+            assertEquals(expected.get(i).getSize(), actual.get(i).getSize());
+        }
+    }
+}
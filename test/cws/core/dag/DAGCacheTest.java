@@ -0,0 +1,140 @@
+package cws.core.dag;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DAGCacheTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void shouldReturnSameDAGForSameFile() {
+        DAGCache cache = new DAGCache(null);
+        DAG dag = cache.getDAG(new File("dags/test.dag"));
+        assertSame(dag, cache.getDAG(new File("dags/../dags/test.dag")));
+        assertTrue(dag.isImmutable());
+    }
+
+    @Test
+    public void shouldReparseModifiedFile() throws IOException {
+        File file = tmp.newFile("test.dag");
+        FileUtils.copyFile(new File("dags/test.dag"), file);
+        DAGCache cache = new DAGCache(null);
+        DAG dag = cache.getDAG(file);
+
+        file.setLastModified(file.lastModified() - 10000);
+        DAG reparsed = cache.getDAG(file);
+        assertNotSame(dag, reparsed);
+        assertEquals(dag.numTasks(), reparsed.numTasks());
+    }
+
+    @Test
+    public void shouldReadDAGFromCacheDirectory() throws IOException {
+        File dir = tmp.newFolder("cache");
+        DAG parsed = new DAGCache(dir).getDAG(new File("dags/Montage_25.xml"));
+        assertEquals(1, dir.listFiles().length);
+
+        DAG read = new DAGCache(dir).getDAG(new File("dags/Montage_25.xml"));
+        assertNotSame(parsed, read);
+        assertSameStructure(parsed, read);
+    }
+
+    @Test
+    public void shouldLoadConvertedBinaryDAG() throws IOException {
+        File file = tmp.newFile("test.dag");
+        FileUtils.copyFile(new File("dags/test.dag"), file);
+        File binary = DAGBinaryFormat.getBinaryFile(file);
+        DAGBinaryFormat.write(DAGParser.parseDAG(new File("dags/psmerge_small.dag")), binary);
+        binary.setLastModified(file.lastModified() + 10000);
+
+        // The binary file is newer, so it is used instead of the text file.
+        assertEquals(96, new DAGCache(null).getDAG(file).numTasks());
+
+        binary.setLastModified(file.lastModified() - 10000);
+        assertEquals(4, new DAGCache(null).getDAG(file).numTasks());
+    }
+
+    @Test
+    public void shouldNotMixBinaryDAGsOfSiblingsWithDifferentExtensions() throws IOException {
+        File text = tmp.newFile("Montage_25.dag");
+        FileUtils.copyFile(new File("dags/test.dag"), text);
+        File dax = tmp.newFile("Montage_25.xml");
+        FileUtils.copyFile(new File("dags/Montage_25.xml"), dax);
+        File binary = DAGBinaryFormat.getBinaryFile(dax);
+        DAGBinaryFormat.write(DAGParser.parse(dax), binary);
+        binary.setLastModified(Math.max(text.lastModified(), dax.lastModified()) + 10000);
+
+        assertEquals(4, new DAGCache(null).getDAG(text).numTasks());
+        assertEquals(25, new DAGCache(null).getDAG(dax).numTasks());
+    }
+
+    @Test
+    public void shouldIgnoreInvalidCacheEntry() throws IOException {
+        File entry = tmp.newFile("invalid.dagcache");
+        FileUtils.writeStringToFile(entry, "not a DAG");
+        assertNull(DAGCache.read(entry));
+    }
+
+    @Test
+    public void shouldCopyWithScaledSizes() {
+        DAG dag = new DAGCache(null).getDAG(new File("dags/psmerge_small.dag"));
+        DAG copy = dag.copy(2.0);
+        assertSameStructure(dag, copy);
+        for (String id : dag.getTasks()) {
+            Task task = dag.getTaskById(id);
+            Task copied = copy.getTaskById(id);
+            assertNotSame(task, copied);
+            assertEquals(task.getSize() * 2.0, copied.getSize(), 0.0);
+        }
+        // The copy is mutable.
+        copy.setId("1");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotModifyCachedDAG() {
+        DAG dag = new DAGCache(null).getDAG(new File("dags/test.dag"));
+        dag.setId("1");
+    }
+
+    private void assertSameStructure(DAG expected, DAG actual) {
+        assertEquals(expected.numTasks(), actual.numTasks());
+        assertEquals(expected.numFiles(), actual.numFiles());
+        for (String name : expected.getFiles()) {
+            assertEquals(expected.getFileSize(name), actual.getFileSize(name));
+        }
+        for (String id : expected.getTasks()) {
+            Task task = expected.getTaskById(id);
+            Task other = actual.getTaskById(id);
+            assertNotNull(other);
+            assertEquals(task.getTransformation(), other.getTransformation());
+            assertEquals(task.getParents().size(), other.getParents().size());
+            for (int i = 0; i < task.getParents().size(); i++) {
+                assertEquals(task.getParents().get(i).getId(), other.getParents().get(i).getId());
+            }
+            assertEquals(task.getChildren().size(), other.getChildren().size());
+            assertSameFiles(task.getInputFiles(), other.getInputFiles());
+            assertSameFiles(task.getOutputFiles(), other.getOutputFiles());
+        }
+    }
+
+    private void assertSameFiles(List<DAGFile> expected, List<DAGFile> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getName(), actual.get(i).getName());
+            assertEquals(expected.get(i).getSize(), actual.get(i).getSize());
+        }
+    }
+}
@@ -76,4 +76,50 @@ public class DAGJobTest {
         assertTrue(dj.isFinished());
     }
 
+    @Test
+    public void testFanIn() {
+        DAG dag = new DAG();
+        int width = 100;
+        dag.addTask(new Task("sink", "test::sink", 1));
+        for (int i = 0; i < width; i++) {
+            dag.addTask(new Task("t" + i, "test::t", 1));
+            dag.addEdge("t" + i, "sink");
+        }
+
+        DAGJob dj = new DAGJob(dag, 0);
+        assertEquals(width, dj.readyTasks());
+        for (int i = 0; i < width; i++) {
+            Task t = dj.nextReadyTask();
+            assertTrue(dj.isReleased(t));
+            dj.completeTask(t);
+            assertTrue(dj.isComplete(t));
+            // The sink is released only after all its parents are completed
+            assertEquals(i == width - 1 ? 1 : width - i - 1, dj.readyTasks());
+        }
+        Task sink = dj.nextReadyTask();
+        assertEquals("sink", sink.getId());
+        assertFalse(dj.isFinished());
+        dj.completeTask(sink);
+        assertTrue(dj.isFinished());
+    }
+
+    @Test
+    public void testTaskOfOtherDAG() {
+        DAG dag = diamondDAG();
+        DAG other = diamondDAG();
+        DAGJob dj = new DAGJob(dag, 0);
+        Task a = dj.nextReadyTask();
+        dj.completeTask(a);
+
+        assertTrue(dj.isComplete(a));
+        assertFalse(dj.isComplete(other.getTaskById("a")));
+        assertFalse(dj.isReleased(other.getTaskById("b")));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testCompleteUnreleasedTask() {
+        DAG dag = diamondDAG();
+        DAGJob dj = new DAGJob(dag, 0);
+        dj.completeTask(dag.getTaskById("d"));
+    }
 }
@@ -3,10 +3,19 @@ package cws.core.dag;
 import static org.junit.Assert.assertEquals;
 
 import java.io.File;
+import java.io.IOException;
 
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import cws.core.dag.exception.DAGFileNotFoundException;
 
 public class DAGParserTest {
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
     @Test
     public void testSmall() {
         DAG dag = DAGParser.parseDAG(new File("dags/psmerge_small.dag"));
@@ -33,4 +42,43 @@ public class DAGParserTest {
         assertEquals(2, t.getInputFiles().size());
         assertEquals(2, t.getOutputFiles().size());
     }
+
+    @Test
+    public void testRecordSyntax() throws IOException {
+        DAG dag = parse("  # comment\r\nfile a.txt 10\r\n\tFILE b.txt +20 \r\n\r\n"
+                + "task t1 x 1.5e1\nTask t2 x 0.1\nTASK t3 x -2.50\n"
+                + "edge t1 t2\nEDGE t1 t3\nINPUTS t1 a.txt\nOUTPUTS t1 b.txt a.txt\nINPUTS t2 b.txt");
+        assertEquals(3, dag.numTasks());
+        assertEquals(20, dag.getFileSize("b.txt"));
+        assertEquals(15.0, dag.getTaskById("t1").getSize(), 0.0);
+        assertEquals(0.1, dag.getTaskById("t2").getSize(), 0.0);
+        assertEquals(-2.5, dag.getTaskById("t3").getSize(), 0.0);
+        Task t1 = dag.getTaskById("t1");
+        assertEquals(2, t1.getChildren().size());
+        assertEquals(dag.getTaskById("t3"), t1.getChildren().get(1));
+        assertEquals(t1, dag.getTaskById("t2").getParents().get(0));
+        assertEquals("a.txt", t1.getOutputFiles().get(1).getName());
+        assertEquals(10, t1.getOutputFiles().get(1).getSize());
+    }
+
+    @Test(expected = DAGFileNotFoundException.class)
+    public void testUnknownFile() throws IOException {
+        parse("TASK t1 x 1\nINPUTS t1 a.txt");
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testUnknownTask() throws IOException {
+        parse("TASK t1 x 1\nEDGE t1 t2");
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testInvalidRecord() throws IOException {
+        parse("TASK t1 x");
+    }
+
+    private DAG parse(String text) throws IOException {
+        File file = tmp.newFile("parsed.dag");
+        FileUtils.writeStringToFile(file, text);
+        return DAGParser.parseDAG(file);
+    }
 }
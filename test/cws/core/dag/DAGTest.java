@@ -0,0 +1,72 @@
+package cws.core.dag;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+
+import org.junit.Test;
+
+public class DAGTest {
+    @Test
+    public void shouldIndexTasksInOrderOfAddition() {
+        DAG dag = new DAG();
+        Task a = new Task("a", "", 1.0);
+        Task b = new Task("b", "", 1.0);
+        assertEquals(-1, a.getIndex());
+        dag.addTask(a);
+        dag.addTask(b);
+        assertEquals(0, a.getIndex());
+        assertEquals(1, b.getIndex());
+        assertSame(b, dag.getTask(1));
+    }
+
+    @Test
+    public void shouldUpdateAdjacencyAfterAddingEdges() {
+        DAG dag = new DAG();
+        dag.addTask(new Task("a", "", 1.0));
+        dag.addTask(new Task("b", "", 1.0));
+        dag.addTask(new Task("c", "", 1.0));
+        dag.addEdge("a", "c");
+        assertArrayEquals(new int[] { 0 }, dag.getParentIndices(2));
+
+        dag.addEdge("b", "c");
+        assertArrayEquals(new int[] { 0, 1 }, dag.getParentIndices(2));
+        assertArrayEquals(new int[] { 2 }, dag.getChildIndices(1));
+        assertArrayEquals(new int[] {}, dag.getParentIndices(0));
+    }
+
+    @Test
+    public void shouldMatchTaskLists() {
+        DAG dag = DAGParser.parseDAG(new File("dags/CyberShake_30.dag")).copy(1.0);
+        for (int i = 0; i < dag.numTasks(); i++) {
+            Task task = dag.getTask(i);
+            assertEquals(i, task.getIndex());
+            int[] parents = dag.getParentIndices(i);
+            assertEquals(task.getParents().size(), parents.length);
+            for (int j = 0; j < parents.length; j++) {
+                assertSame(task.getParents().get(j), dag.getTask(parents[j]));
+            }
+            int[] children = dag.getChildIndices(i);
+            assertEquals(task.getChildren().size(), children.length);
+            for (int j = 0; j < children.length; j++) {
+                assertSame(task.getChildren().get(j), dag.getTask(children[j]));
+            }
+        }
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldNotModifyParentsOfImmutableDAG() {
+        DAG dag = DAGParser.parseDAG(new File("dags/CyberShake_30.dag"));
+        dag.makeImmutable();
+        dag.getTask(1).getParents().add(dag.getTask(0));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldNotModifyChildrenOfImmutableDAG() {
+        DAG dag = DAGParser.parseDAG(new File("dags/CyberShake_30.dag"));
+        dag.makeImmutable();
+        dag.getTask(0).getChildren().clear();
+    }
+}
@@ -1,8 +1,11 @@
 package cws.core.dag.algorithms;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 import java.io.File;
+import java.util.Arrays;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -70,4 +73,21 @@ public class CriticalPathTest {
         CriticalPath cp = new CriticalPath(order, environment.getVMType());
         assertEquals(221.84, cp.getCriticalPathLength(), 0.00001);
     }
+
+    @Test
+    public void memoizedPerRuntimes() {
+        DAG dag = DAGParser.parseDAG(new File("dags/cptest.dag"));
+        TopologicalOrder order = TopologicalOrder.of(dag);
+        double[] runtimes = new double[dag.numTasks()];
+        Arrays.fill(runtimes, 1.0);
+        CriticalPath cp = CriticalPath.of(order, runtimes);
+        assertEquals(5.0, cp.getCriticalPathLength(), 0.00001);
+        assertSame(cp, CriticalPath.of(order, runtimes.clone()));
+
+        runtimes[dag.getTaskById("E").getIndex()] = 2.0;
+        CriticalPath longer = CriticalPath.of(order, runtimes);
+        assertNotSame(cp, longer);
+        assertEquals(6.0, longer.getCriticalPathLength(), 0.00001);
+        assertEquals(5.0, cp.getCriticalPathLength(), 0.00001);
+    }
 }
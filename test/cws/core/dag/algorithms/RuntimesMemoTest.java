@@ -0,0 +1,65 @@
+package cws.core.dag.algorithms;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import cws.core.dag.DAG;
+import cws.core.dag.Task;
+
+public class RuntimesMemoTest {
+    private DAG dag;
+    private int computations;
+    private RuntimesMemo<Double> memo;
+
+    @Before
+    public void setUp() {
+        dag = new DAG();
+        dag.addTask(new Task("A", "a", 1.0));
+        computations = 0;
+        memo = new RuntimesMemo<Double>() {
+            @Override
+            protected Double compute(TopologicalOrder order, double[] runtimes) {
+                computations++;
+                return runtimes[0];
+            }
+        };
+    }
+
+    @Test
+    public void shouldComputeOncePerRuntimes() {
+        TopologicalOrder order = TopologicalOrder.of(dag);
+        double[] runtimes = { 2.0 };
+        assertEquals(2.0, memo.get(order, runtimes), 0.0);
+        runtimes[0] = 3.0;
+        assertEquals(3.0, memo.get(order, runtimes), 0.0);
+        assertEquals(2.0, memo.get(order, new double[] { 2.0 }), 0.0);
+        assertEquals(2, computations);
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedRuntimes() {
+        TopologicalOrder order = TopologicalOrder.of(dag);
+        for (int i = 0; i <= RuntimesMemo.MAX_MEMOIZED_RUNTIMES; i++) {
+            memo.get(order, new double[] { i });
+            // Keeps the first runtimes recently used
+            memo.get(order, new double[] { 0 });
+        }
+        assertEquals(RuntimesMemo.MAX_MEMOIZED_RUNTIMES + 1, computations);
+
+        memo.get(order, new double[] { 0 });
+        assertEquals(RuntimesMemo.MAX_MEMOIZED_RUNTIMES + 1, computations);
+        memo.get(order, new double[] { 1 });
+        assertEquals(RuntimesMemo.MAX_MEMOIZED_RUNTIMES + 2, computations);
+    }
+
+    @Test
+    public void shouldRecomputeAfterDAGIsModified() {
+        double[] runtimes = { 2.0 };
+        memo.get(TopologicalOrder.of(dag), runtimes);
+        dag.addTask(new Task("B", "b", 1.0));
+        memo.get(TopologicalOrder.of(dag), runtimes);
+        assertEquals(2, computations);
+    }
+}
@@ -0,0 +1,87 @@
+package cws.core.dag.algorithms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import cws.core.dag.DAG;
+import cws.core.dag.Task;
+
+public class TaskLevelsTest {
+    private DAG dag;
+    private double[] runtimes;
+
+    @Before
+    public void setUp() {
+        // Diamond: A -> B, A -> C, B -> D, C -> D
+        dag = new DAG();
+        dag.addTask(new Task("A", "a", 1.0));
+        dag.addTask(new Task("B", "b", 2.0));
+        dag.addTask(new Task("C", "c", 3.0));
+        dag.addTask(new Task("D", "d", 4.0));
+        dag.addEdge("A", "B");
+        dag.addEdge("A", "C");
+        dag.addEdge("B", "D");
+        dag.addEdge("C", "D");
+        runtimes = new double[dag.numTasks()];
+        for (String id : dag.getTasks()) {
+            Task task = dag.getTaskById(id);
+            runtimes[task.getIndex()] = task.getSize();
+        }
+    }
+
+    private int index(String id) {
+        return dag.getTaskById(id).getIndex();
+    }
+
+    @Test
+    public void shouldComputeLevelsAndAggregates() {
+        TaskLevels levels = new TaskLevels(TopologicalOrder.of(dag), runtimes);
+
+        assertEquals(3, levels.getNumLevels());
+        assertEquals(0, levels.getLevel(index("A")));
+        assertEquals(1, levels.getLevel(index("B")));
+        assertEquals(1, levels.getLevel(index("C")));
+        assertEquals(2, levels.getLevel(index("D")));
+
+        assertEquals(4.0, levels.getTotalTasks(), 0.0);
+        assertEquals(2.0, levels.getTotalTasks(1), 0.0);
+        assertEquals(10.0, levels.getTotalRuntime(), 0.0);
+        assertEquals(5.0, levels.getTotalRuntime(1), 0.0);
+    }
+
+    @Test
+    public void shouldComputeSpareTimeFractions() {
+        TaskLevels levels = new TaskLevels(TopologicalOrder.of(dag), runtimes);
+        double[] fractions = levels.getSpareTimeFractions(0.5);
+
+        assertEquals(0.5 * 1 / 4 + 0.5 * 1 / 10, fractions[0], 1e-12);
+        assertEquals(0.5 * 2 / 4 + 0.5 * 5 / 10, fractions[1], 1e-12);
+        assertEquals(0.5 * 1 / 4 + 0.5 * 4 / 10, fractions[2], 1e-12);
+        assertEquals(1.0, fractions[0] + fractions[1] + fractions[2], 1e-12);
+        assertSame(fractions, levels.getSpareTimeFractions(0.5));
+        assertEquals(0.4, levels.getSpareTimeFractions(0.0)[2], 1e-12);
+    }
+
+    @Test
+    public void memoizedPerRuntimesUntilModified() {
+        TopologicalOrder order = TopologicalOrder.of(dag);
+        TaskLevels levels = TaskLevels.of(order, runtimes);
+        assertSame(levels, TaskLevels.of(order, runtimes.clone()));
+
+        runtimes[index("D")] = 5.0;
+        TaskLevels slower = TaskLevels.of(order, runtimes);
+        assertNotSame(levels, slower);
+        assertEquals(11.0, slower.getTotalRuntime(), 0.0);
+        assertEquals(10.0, levels.getTotalRuntime(), 0.0);
+
+        dag.addTask(new Task("E", "e", 1.0));
+        dag.addEdge("D", "E");
+        double[] extended = new double[dag.numTasks()];
+        TaskLevels modified = TaskLevels.of(TopologicalOrder.of(dag), extended);
+        assertEquals(4, modified.getNumLevels());
+    }
+}
@@ -30,6 +30,37 @@ public class TopologicalOrderTest {
         checkTopologicalSort(dag);
     }
 
+    @Test
+    public void deepChain() {
+        // Deep enough to overflow the stack of a recursive search
+        DAG dag = new DAG();
+        int length = 100000;
+        for (int i = 0; i < length; i++) {
+            dag.addTask(new Task("t" + i, "chain", 1.0));
+            if (i > 0) {
+                dag.addEdge("t" + (i - 1), "t" + i);
+            }
+        }
+        int i = 0;
+        for (Task t : new TopologicalOrder(dag)) {
+            assertEquals("t" + i++, t.getId());
+        }
+        assertEquals(length, i);
+    }
+
+    @Test
+    public void memoizedUntilModified() {
+        DAG dag = DAGParser.parseDAG(new File("dags/test.dag"));
+        TopologicalOrder order = TopologicalOrder.of(dag);
+        assertSame(order.getTaskIndices(), TopologicalOrder.of(dag).getTaskIndices());
+
+        dag.addTask(new Task("ID004", "postprocess", 1.0));
+        dag.addEdge("ID003", "ID004");
+        TopologicalOrder modified = TopologicalOrder.of(dag);
+        assertEquals(dag.numTasks(), modified.getTaskIndices().length);
+        checkTopologicalSort(dag);
+    }
+
     void checkTopologicalSort(DAG dag) {
         // Compute the topological order
         TopologicalOrder order = new TopologicalOrder(dag);
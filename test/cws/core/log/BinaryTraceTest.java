@@ -0,0 +1,139 @@
+package cws.core.log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class BinaryTraceTest {
+
+    private byte[] writeTrace() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BinaryTraceWriter writer = new BinaryTraceWriter(bytes);
+        writer.settings(100.0, 3600.0);
+        writer.workflow("Montage", 2, "montage.dag");
+        writer.workflow("Cybershake", 1, "cybershake.dag");
+        writer.vmLaunched(0.0, 12, 1);
+        writer.transferStarted(1.0, 0, true, "input.txt", 1000, 12, 20);
+        writer.transferFinished(2.5, 0, true, 1000, 1.5);
+        writer.storageState(2.5, 0, 0, 10.0, 10.0);
+        writer.jobStarted(2.5, 20, "ID00000", "Montage", 12);
+        writer.jobFinished(7.5, 20, "ID00000", "Montage", 12, false);
+        writer.jobStarted(7.5, 21, "ID00001", "Montage", 12);
+        writer.jobFailed(8.0, 21, "ID00001", "Montage", 12, true);
+        writer.jobStarted(8.0, 3, "ID00000", "Cybershake", 12);
+        writer.transferStarted(8.0, 1, false, "output.txt", 10, 12, 20);
+        writer.vmTerminated(9.0, 12);
+        writer.close();
+        return bytes.toByteArray();
+    }
+
+    private String export(byte[] trace, RecordTraceExporterFactory factory) throws IOException {
+        StringWriter out = new StringWriter();
+        BinaryTraceReader.read(new ByteArrayInputStream(trace), factory.create(out));
+        return out.toString();
+    }
+
+    private interface RecordTraceExporterFactory {
+        RecordTraceExporter create(StringWriter out) throws IOException;
+    }
+
+    @Test
+    public void shouldExportParsedLog() throws IOException {
+        ParsedLogExporter exporter = new ParsedLogExporter();
+        BinaryTraceReader.read(new ByteArrayInputStream(writeTrace()), exporter);
+        StringWriter out = new StringWriter();
+        exporter.write(out);
+
+        // The unfinished job 3 and transfer 1 are skipped, ids are sorted as strings
+        assertEquals("3600.0 100.0 1\n"
+                + "1\n"
+                + "12 0.0 9.0 1\n"
+                + "2\n"
+                + "Montage 2 montage.dag\n"
+                + "Cybershake 1 cybershake.dag\n"
+                + "2\n"
+                + "20 Montage ID00000 12 2.5 7.5 OK\n"
+                + "21 Montage ID00001 12 7.5 8.0 RETRY_FAILED\n"
+                + "1\n"
+                + "0 12 1.0 2.5 DOWNLOAD 20 input.txt\n"
+                + "1\n"
+                + "2.5 0 0 10.000000 10.000000\n", out.toString());
+    }
+
+    @Test
+    public void shouldExportParsedLogOfJobFailedBeforeStarting() throws IOException {
+        ParsedLogExporter exporter = new ParsedLogExporter();
+        exporter.jobStarted(1.0, 4, "ID00000", "Montage", 12);
+        exporter.jobFailed(3.0, 5, "ID00001", "Montage", 12, false);
+        StringWriter out = new StringWriter();
+        exporter.write(out);
+
+        // Like the script, only the finish is required
+        assertEquals("None None 1\n"
+                + "0\n"
+                + "0\n"
+                + "1\n"
+                + "5 Montage ID00001 12 None 3.0 FAILED\n"
+                + "0\n"
+                + "0\n", out.toString());
+    }
+
+    @Test
+    public void shouldExportCsv() throws IOException {
+        String csv = export(writeTrace(), new RecordTraceExporterFactory() {
+            @Override
+            public RecordTraceExporter create(StringWriter out) throws IOException {
+                return new CsvTraceExporter(out);
+            }
+        });
+        String[] lines = csv.split("\n");
+        // Header and one row per record
+        assertEquals(15, lines.length);
+        assertEquals(lines[0].split(",", -1).length, lines[1].split(",", -1).length);
+        assertEquals(lines[0].split(",", -1).length, lines[14].split(",", -1).length);
+    }
+
+    @Test
+    public void shouldExportJsonLines() throws IOException {
+        String json = export(writeTrace(), new RecordTraceExporterFactory() {
+            @Override
+            public RecordTraceExporter create(StringWriter out) throws IOException {
+                return new JsonTraceExporter(out);
+            }
+        });
+        String[] lines = json.split("\n");
+        assertEquals(14, lines.length);
+        assertEquals("{\"record\":\"vm_terminated\",\"time\":9.0,\"vm\":12}", lines[13]);
+    }
+
+    @Test
+    public void shouldRejectWrongMagic() throws IOException {
+        byte[] trace = writeTrace();
+        trace[0] = 0;
+        try {
+            BinaryTraceReader.read(new ByteArrayInputStream(trace), new ParsedLogExporter());
+            fail("Expected exception");
+        } catch (RuntimeException e) {
+            assertEquals("Unable to read trace: not a trace file", e.getMessage());
+        }
+    }
+
+    @Test
+    public void shouldRejectTruncatedTrace() throws IOException {
+        byte[] trace = writeTrace();
+        try {
+            BinaryTraceReader.read(new ByteArrayInputStream(Arrays.copyOf(trace, trace.length - 3)),
+                    new ParsedLogExporter());
+            fail("Expected exception");
+        } catch (RuntimeException e) {
+            assertEquals("Unable to read trace: truncated record", e.getMessage());
+        }
+    }
+}
@@ -8,7 +8,6 @@ import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
-import org.cloudbus.cloudsim.core.CloudSim;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentMatcher;
@@ -19,6 +18,7 @@ import com.google.common.collect.ImmutableList;
 import cws.core.VM;
 import cws.core.WorkflowEngine;
 import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.cloudsim.IdGenerator;
 import cws.core.dag.DAG;
 import cws.core.dag.DAGFile;
 import cws.core.dag.DAGJob;
@@ -36,8 +36,8 @@ public class EnsembleDynamicSchedulerUnitTest {
 
     @Before
     public void setUp() throws Exception {
-        CloudSim.init(0, null, false);
         cloudsim = mock(CloudSimWrapper.class);
+        when(cloudsim.getIds()).thenReturn(new IdGenerator());
         environment = mock(Environment.class);
 
         scheduler = new EnsembleDynamicScheduler(cloudsim, environment);
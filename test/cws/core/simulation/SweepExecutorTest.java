@@ -0,0 +1,60 @@
+package cws.core.simulation;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.junit.Test;
+
+public class SweepExecutorTest {
+
+    private List<Callable<String>> points(final int n) {
+        List<Callable<String>> points = new ArrayList<Callable<String>>();
+        for (int i = 0; i < n; i++) {
+            final int point = i;
+            points.add(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    // Earlier points take longer, so they finish last when run in parallel.
+                    Thread.sleep(n - point);
+                    return point + "\n";
+                }
+            });
+        }
+        return points;
+    }
+
+    private String run(int threads, List<Callable<String>> points) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new SweepExecutor(threads).run(points, new PrintStream(out));
+        return out.toString();
+    }
+
+    @Test
+    public void shouldWriteRowsInGridOrder() {
+        String sequential = run(1, points(20));
+        assertEquals(sequential, run(4, points(20)));
+        assertEquals("0\n1\n2\n", sequential.substring(0, 6));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRethrowPointFailure() {
+        List<Callable<String>> points = points(3);
+        points.add(new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                throw new IllegalStateException();
+            }
+        });
+        run(2, points);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNoThreads() {
+        new SweepExecutor(0);
+    }
+}
@@ -3,6 +3,7 @@ package cws.core.storage;
 import cws.core.VM;
 import cws.core.WorkflowEvent;
 import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.dag.DAG;
 import cws.core.dag.DAGFile;
 import cws.core.dag.Task;
 import cws.core.exception.UnknownWorkflowEventException;
@@ -11,7 +12,6 @@ import junit.framework.Assert;
 
 import java.util.Random;
 
-import org.cloudbus.cloudsim.core.CloudSim;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Matchers;
@@ -49,15 +49,15 @@ public abstract class StorageManagerTest {
 
     @Test
     public void testEmptySimulation() {
-        CloudSim.startSimulation();
+        cloudsim.startSimulation();
     }
 
     @Test
     public void testBeforeTaskStartOnJobWithNoFiles() {
         Mockito.when(task.getInputFiles()).thenReturn(ImmutableList.<DAGFile>of());
         skipEvent(100, WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED, cloudsim);
-        CloudSim.send(-1, storageManager.getId(), random.nextDouble(), WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
-        CloudSim.startSimulation();
+        cloudsim.send(-1, storageManager.getId(), random.nextDouble(), WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
+        cloudsim.startSimulation();
 
         Mockito.verify(cloudsim).send(Matchers.anyInt(), Matchers.eq(100), Matchers.anyDouble(),
                 Matchers.eq(WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED), Matchers.any());
@@ -67,8 +67,8 @@ public abstract class StorageManagerTest {
     public void testAfterTaskCompletedOnJobWithNoFiles() {
         Mockito.when(task.getOutputFiles()).thenReturn(ImmutableList.<DAGFile>of());
         skipEvent(100, WorkflowEvent.STORAGE_ALL_AFTER_TRANSFERS_COMPLETED, cloudsim);
-        CloudSim.send(-1, storageManager.getId(), random.nextDouble(), WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
-        CloudSim.startSimulation();
+        cloudsim.send(-1, storageManager.getId(), random.nextDouble(), WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
+        cloudsim.startSimulation();
 
         Mockito.verify(cloudsim).send(Matchers.anyInt(), Matchers.eq(100), Matchers.anyDouble(),
                 Matchers.eq(WorkflowEvent.STORAGE_ALL_AFTER_TRANSFERS_COMPLETED), Matchers.any());
@@ -80,8 +80,8 @@ public abstract class StorageManagerTest {
                 ImmutableList.of(new DAGFile("abc.txt", 2442, null), new DAGFile("def.txt", 327879, null));
         Mockito.when(task.getInputFiles()).thenReturn(files);
         skipEvent(100, WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED, cloudsim);
-        CloudSim.send(-1, storageManager.getId(), random.nextDouble(), WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
-        CloudSim.startSimulation();
+        cloudsim.send(-1, storageManager.getId(), random.nextDouble(), WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
+        cloudsim.startSimulation();
 
         Mockito.verify(cloudsim).send(Matchers.anyInt(), Matchers.eq(100), Matchers.anyDouble(),
                 Matchers.eq(WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED), Matchers.any());
@@ -93,16 +93,16 @@ public abstract class StorageManagerTest {
                 ImmutableList.of(new DAGFile("abc.txt", 2442, null), new DAGFile("def.txt", 327879, null));
         Mockito.when(task.getOutputFiles()).thenReturn(files);
         skipEvent(100, WorkflowEvent.STORAGE_ALL_AFTER_TRANSFERS_COMPLETED, cloudsim);
-        CloudSim.send(-1, storageManager.getId(), random.nextDouble(), WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
-        CloudSim.startSimulation();
+        cloudsim.send(-1, storageManager.getId(), random.nextDouble(), WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
+        cloudsim.startSimulation();
         Mockito.verify(cloudsim).send(Matchers.anyInt(), Matchers.eq(100), Matchers.anyDouble(),
                 Matchers.eq(WorkflowEvent.STORAGE_ALL_AFTER_TRANSFERS_COMPLETED), Matchers.any());
     }
 
     @Test(expected = UnknownWorkflowEventException.class)
     public void testUnknownMsg() {
-        CloudSim.send(storageManager.getId(), storageManager.getId(), random.nextDouble(), 21434243, null);
-        CloudSim.startSimulation();
+        cloudsim.send(storageManager.getId(), storageManager.getId(), random.nextDouble(), 21434243, null);
+        cloudsim.startSimulation();
     }
 
     @Test
@@ -116,8 +116,10 @@ public abstract class StorageManagerTest {
         ImmutableList<DAGFile> files =
                 ImmutableList.of(new DAGFile("abc.txt", 2442, null), new DAGFile("def.txt", 327879, null));
         Task t = new Task("xx", "xx", 222);
-        t.addInputFiles(files);
-        t.addOutputFiles(files);
+        DAG dag = new DAG();
+        dag.addTask(t);
+        dag.setInputs(t.getId(), files);
+        dag.setOutputs(t.getId(), files);
         double time = storageManager.getTotalTransferTimeEstimation(t);
         Assert.assertTrue(time >= 0.0); // just very simple assert, nothing more we can assume
     }
@@ -128,8 +130,8 @@ public abstract class StorageManagerTest {
                 ImmutableList.of(new DAGFile("abc.txt", 333, null), new DAGFile("def.txt", 444, null));
         Mockito.when(task.getOutputFiles()).thenReturn(files);
         skipEvent(100, WorkflowEvent.STORAGE_ALL_AFTER_TRANSFERS_COMPLETED, cloudsim);
-        CloudSim.send(-1, storageManager.getId(), random.nextDouble(), WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
-        CloudSim.startSimulation();
+        cloudsim.send(-1, storageManager.getId(), random.nextDouble(), WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
+        cloudsim.startSimulation();
         Assert.assertEquals(777, storageManager.getStorageManagerStatistics().getTotalBytesToWrite());
         Assert.assertEquals(2, storageManager.getStorageManagerStatistics().getTotalFilesToWrite());
 
@@ -145,8 +147,8 @@ public abstract class StorageManagerTest {
                 ImmutableList.of(new DAGFile("abc.txt", 222, null), new DAGFile("def.txt", 333, null));
         Mockito.when(task.getInputFiles()).thenReturn(files);
         skipEvent(100, WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED, cloudsim);
-        CloudSim.send(-1, storageManager.getId(), random.nextDouble(), WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
-        CloudSim.startSimulation();
+        cloudsim.send(-1, storageManager.getId(), random.nextDouble(), WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
+        cloudsim.startSimulation();
         Assert.assertEquals(555, storageManager.getStorageManagerStatistics().getTotalBytesToRead());
         Assert.assertEquals(0, storageManager.getStorageManagerStatistics().getBytesReadFromCache());
         Assert.assertEquals(2, storageManager.getStorageManagerStatistics().getTotalFilesToRead());
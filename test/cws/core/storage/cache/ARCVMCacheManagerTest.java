@@ -0,0 +1,57 @@
+package cws.core.storage.cache;
+
+import junit.framework.Assert;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import cws.core.dag.DAGFile;
+
+/**
+ * Tests for {@link ARCCacheManager}
+ */
+public class ARCVMCacheManagerTest extends VMCacheManagerTest {
+    @Before
+    public void setUp() {
+        cm = new ARCCacheManager(cloudsim);
+    }
+
+    @Test
+    public void shouldKeepFrequentFilesDuringScan() {
+        Mockito.when(vmType.getCacheSize()).thenReturn((long) 400);
+        DAGFile a = new DAGFile("a", 100, null);
+        DAGFile b = new DAGFile("b", 100, null);
+        cm.putFileToCache(a, job.getVM());
+        cm.putFileToCache(a, job.getVM());
+        cm.putFileToCache(b, job.getVM());
+        cm.putFileToCache(b, job.getVM());
+        // A scan of files used once only replaces files used once
+        for (int i = 0; i < 10; i++) {
+            cm.putFileToCache(new DAGFile("scan" + i, 100, null), job.getVM());
+        }
+
+        Assert.assertTrue(cm.getFileFromCache(a, job.getVM()));
+        Assert.assertTrue(cm.getFileFromCache(b, job.getVM()));
+        Assert.assertTrue(cm.getFileFromCache(new DAGFile("scan9", 100, null), job.getVM()));
+        Assert.assertFalse(cm.getFileFromCache(new DAGFile("scan0", 100, null), job.getVM()));
+    }
+
+    @Test
+    public void shouldNotReportGhostFilesAsCached() {
+        Mockito.when(vmType.getCacheSize()).thenReturn((long) 200);
+        DAGFile a = new DAGFile("a", 100, null);
+        DAGFile b = new DAGFile("b", 100, null);
+        DAGFile c = new DAGFile("c", 100, null);
+        cm.putFileToCache(a, job.getVM());
+        cm.putFileToCache(b, job.getVM());
+        cm.putFileToCache(c, job.getVM());
+        Assert.assertFalse(cm.getFileFromCache(a, job.getVM()));
+
+        // A reference of the evicted file brings it back as a frequent one
+        cm.putFileToCache(a, job.getVM());
+        Assert.assertTrue(cm.getFileFromCache(a, job.getVM()));
+        Assert.assertTrue(cm.getFileFromCache(c, job.getVM()));
+        Assert.assertFalse(cm.getFileFromCache(b, job.getVM()));
+    }
+}
@@ -0,0 +1,48 @@
+package cws.core.storage.cache;
+
+import junit.framework.Assert;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import cws.core.dag.DAGFile;
+
+/**
+ * Tests for {@link GreedyDualSizeCacheManager}
+ */
+public class GreedyDualSizeVMCacheManagerTest extends VMCacheManagerTest {
+    @Before
+    public void setUp() {
+        cm = new GreedyDualSizeCacheManager(cloudsim);
+    }
+
+    @Test
+    public void shouldEvictBigFilesFirst() {
+        Mockito.when(vmType.getCacheSize()).thenReturn((long) 300);
+        DAGFile big = new DAGFile("big", 200, null);
+        DAGFile small = new DAGFile("small", 50, null);
+        DAGFile other = new DAGFile("other", 100, null);
+        cm.putFileToCache(small, job.getVM());
+        cm.putFileToCache(big, job.getVM());
+        cm.putFileToCache(other, job.getVM());
+
+        Assert.assertFalse(cm.getFileFromCache(big, job.getVM()));
+        Assert.assertTrue(cm.getFileFromCache(small, job.getVM()));
+        Assert.assertTrue(cm.getFileFromCache(other, job.getVM()));
+    }
+
+    @Test
+    public void shouldAgeFilesWhichAreNotUsed() {
+        Mockito.when(vmType.getCacheSize()).thenReturn((long) 100);
+        DAGFile small = new DAGFile("small", 10, null);
+        cm.putFileToCache(small, job.getVM());
+        // Every eviction raises the priority of new files, until they outweigh the unused small file
+        for (int i = 0; i < 20; i++) {
+            cm.putFileToCache(new DAGFile("big" + i, 90, null), job.getVM());
+        }
+        cm.putFileToCache(new DAGFile("last", 95, null), job.getVM());
+
+        Assert.assertFalse(cm.getFileFromCache(small, job.getVM()));
+    }
+}
@@ -0,0 +1,63 @@
+package cws.core.storage.cache;
+
+import junit.framework.Assert;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import cws.core.dag.DAGFile;
+
+/**
+ * Tests for {@link LFUCacheManager}
+ */
+public class LFUVMCacheManagerTest extends VMCacheManagerTest {
+    @Before
+    public void setUp() {
+        cm = new LFUCacheManager(cloudsim);
+    }
+
+    @Test
+    public void shouldEvictLeastFrequentlyUsedFile() {
+        Mockito.when(vmType.getCacheSize()).thenReturn((long) 300);
+        DAGFile a = new DAGFile("a", 100, null);
+        DAGFile b = new DAGFile("b", 100, null);
+        DAGFile c = new DAGFile("c", 100, null);
+        DAGFile d = new DAGFile("d", 100, null);
+        cm.putFileToCache(a, job.getVM());
+        cm.putFileToCache(a, job.getVM());
+        cm.putFileToCache(a, job.getVM());
+        cm.putFileToCache(b, job.getVM());
+        cm.putFileToCache(b, job.getVM());
+        cm.putFileToCache(c, job.getVM());
+        // c is used least often, even though it is the most recently used one
+        cm.putFileToCache(d, job.getVM());
+
+        Assert.assertTrue(cm.getFileFromCache(a, job.getVM()));
+        Assert.assertTrue(cm.getFileFromCache(b, job.getVM()));
+        Assert.assertFalse(cm.getFileFromCache(c, job.getVM()));
+        Assert.assertTrue(cm.getFileFromCache(d, job.getVM()));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedOfEquallyUsedFiles() {
+        Mockito.when(vmType.getCacheSize()).thenReturn((long) 300);
+        DAGFile a = new DAGFile("a", 100, null);
+        DAGFile b = new DAGFile("b", 100, null);
+        DAGFile c = new DAGFile("c", 100, null);
+        DAGFile d = new DAGFile("d", 100, null);
+        cm.putFileToCache(a, job.getVM());
+        cm.putFileToCache(b, job.getVM());
+        cm.putFileToCache(c, job.getVM());
+        cm.putFileToCache(b, job.getVM());
+        cm.putFileToCache(a, job.getVM());
+        cm.putFileToCache(c, job.getVM());
+        // All are used twice and b was used the longest time ago
+        cm.putFileToCache(d, job.getVM());
+
+        Assert.assertTrue(cm.getFileFromCache(a, job.getVM()));
+        Assert.assertFalse(cm.getFileFromCache(b, job.getVM()));
+        Assert.assertTrue(cm.getFileFromCache(c, job.getVM()));
+        Assert.assertTrue(cm.getFileFromCache(d, job.getVM()));
+    }
+}
@@ -0,0 +1,73 @@
+package cws.core.storage.cache;
+
+import junit.framework.Assert;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import cws.core.dag.DAGFile;
+import cws.core.storage.StorageManagerStatistics;
+
+/**
+ * Tests for {@link LRUCacheManager}
+ */
+public class LRUVMCacheManagerTest extends VMCacheManagerTest {
+    @Before
+    public void setUp() {
+        cm = new LRUCacheManager(cloudsim);
+    }
+
+    @Test
+    public void shouldCacheOneFile() {
+        Mockito.when(vmType.getCacheSize()).thenReturn((long) 100);
+        DAGFile df = new DAGFile("xxxxxx", 100, null);
+        cm.putFileToCache(df, job.getVM());
+        Assert.assertTrue(cm.getFileFromCache(df, job.getVM()));
+        Assert.assertTrue(cm.getFileFromCache(new DAGFile("xxxxxx", 100, null), job.getVM()));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedFile() {
+        StorageManagerStatistics statistics = new StorageManagerStatistics();
+        cm.setStatistics(statistics);
+        Mockito.when(vmType.getCacheSize()).thenReturn((long) 300);
+        DAGFile a = new DAGFile("a", 100, null);
+        DAGFile b = new DAGFile("b", 100, null);
+        DAGFile c = new DAGFile("c", 100, null);
+        DAGFile d = new DAGFile("d", 100, null);
+        cm.putFileToCache(a, job.getVM());
+        cm.putFileToCache(b, job.getVM());
+        cm.putFileToCache(c, job.getVM());
+        // a is used again, so b is the least recently used one
+        cm.putFileToCache(a, job.getVM());
+        cm.putFileToCache(d, job.getVM());
+
+        Assert.assertTrue(cm.getFileFromCache(a, job.getVM()));
+        Assert.assertFalse(cm.getFileFromCache(b, job.getVM()));
+        Assert.assertTrue(cm.getFileFromCache(c, job.getVM()));
+        Assert.assertTrue(cm.getFileFromCache(d, job.getVM()));
+        Assert.assertEquals(1, statistics.getCacheEvictions());
+    }
+
+    @Test
+    public void shouldEvictSeveralFilesForBigFile() {
+        StorageManagerStatistics statistics = new StorageManagerStatistics();
+        cm.setStatistics(statistics);
+        Mockito.when(vmType.getCacheSize()).thenReturn((long) 300);
+        DAGFile a = new DAGFile("a", 100, null);
+        DAGFile b = new DAGFile("b", 100, null);
+        DAGFile c = new DAGFile("c", 100, null);
+        DAGFile big = new DAGFile("big", 250, null);
+        cm.putFileToCache(a, job.getVM());
+        cm.putFileToCache(b, job.getVM());
+        cm.putFileToCache(c, job.getVM());
+        cm.putFileToCache(big, job.getVM());
+
+        Assert.assertFalse(cm.getFileFromCache(a, job.getVM()));
+        Assert.assertFalse(cm.getFileFromCache(b, job.getVM()));
+        Assert.assertFalse(cm.getFileFromCache(c, job.getVM()));
+        Assert.assertTrue(cm.getFileFromCache(big, job.getVM()));
+        Assert.assertEquals(3, statistics.getCacheEvictions());
+    }
+}
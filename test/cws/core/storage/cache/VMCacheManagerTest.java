@@ -1,5 +1,8 @@
 package cws.core.storage.cache;
 
+import java.util.Arrays;
+import java.util.Random;
+
 import junit.framework.Assert;
 
 import org.junit.Before;
@@ -54,4 +57,71 @@ public abstract class VMCacheManagerTest {
         cm.putFileToCache(file, job.getVM());
         Assert.assertFalse(cm.getFileFromCache(file, job.getVM()));
     }
+
+    @Test
+    public void shouldNotExceedCacheSize() {
+        long cacheSize = 1000;
+        Mockito.when(vmType.getCacheSize()).thenReturn(cacheSize);
+        Random rng = new Random(7);
+        DAGFile[] files = new DAGFile[40];
+        for (int i = 0; i < files.length; i++) {
+            files[i] = new DAGFile("file" + i, 1 + rng.nextInt(300), null);
+        }
+        for (int i = 0; i < 2000; i++) {
+            // Skewed references, so that some files are referenced much more often than others
+            int index = (int) (files.length * Math.pow(rng.nextDouble(), 3));
+            cm.putFileToCache(files[index], job.getVM());
+            long cached = 0;
+            for (DAGFile file : files) {
+                if (cm.getFileFromCache(file, job.getVM())) {
+                    cached += file.getSize();
+                }
+            }
+            Assert.assertTrue(cached <= cacheSize);
+        }
+    }
+
+    @Test
+    public void shouldIndexLocationsOfCachedFiles() {
+        Mockito.when(vmType.getCacheSize()).thenReturn((long) 500);
+        Random rng = new Random(11);
+        DAGFile[] files = new DAGFile[20];
+        for (int i = 0; i < files.length; i++) {
+            files[i] = new DAGFile("file" + i, 1 + rng.nextInt(200), null);
+        }
+        for (int i = 0; i < 500; i++) {
+            cm.putFileToCache(files[rng.nextInt(files.length)], job.getVM());
+            for (DAGFile file : files) {
+                Assert.assertEquals(cm.getFileFromCache(file, job.getVM()),
+                        cm.getFileLocations().getVMs(file).contains(job.getVM()));
+            }
+        }
+    }
+
+    @Test
+    public void shouldChangeVersionWhenCacheChanges() {
+        Mockito.when(vmType.getCacheSize()).thenReturn((long) 500);
+        Assert.assertEquals(0, cm.getCacheVersion(job.getVM()));
+        Random rng = new Random(13);
+        DAGFile[] files = new DAGFile[20];
+        for (int i = 0; i < files.length; i++) {
+            files[i] = new DAGFile("file" + i, 1 + rng.nextInt(200), null);
+        }
+        for (int i = 0; i < 500; i++) {
+            boolean[] before = cachedFiles(files);
+            int version = cm.getCacheVersion(job.getVM());
+            cm.putFileToCache(files[rng.nextInt(files.length)], job.getVM());
+            if (!Arrays.equals(before, cachedFiles(files))) {
+                Assert.assertTrue(version != cm.getCacheVersion(job.getVM()));
+            }
+        }
+    }
+
+    private boolean[] cachedFiles(DAGFile[] files) {
+        boolean[] cached = new boolean[files.length];
+        for (int i = 0; i < files.length; i++) {
+            cached[i] = cm.getFileFromCache(files[i], job.getVM());
+        }
+        return cached;
+    }
 }
@@ -5,7 +5,6 @@ import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-import org.cloudbus.cloudsim.core.CloudSim;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Matchers;
@@ -16,6 +15,7 @@ import com.google.common.collect.ImmutableList;
 import cws.core.VM;
 import cws.core.WorkflowEvent;
 import cws.core.cloudsim.CloudSimWrapper;
+import cws.core.core.VMType;
 import cws.core.dag.DAGFile;
 import cws.core.dag.Task;
 import cws.core.jobs.Job;
@@ -67,9 +67,10 @@ public class GlobalStorageManagerCacheTest {
 
         when(task.getInputFiles()).thenReturn(files);
         StorageManagerTest.skipEvent(100, WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED, cloudsim);
-        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
-        CloudSim.startSimulation();
+        cloudsim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
+        cloudsim.startSimulation();
 
+        verify(cacheManager).isFileCached(df, job.getVM()); // counted the miss ...
         verify(cacheManager, Mockito.atLeastOnce()).getFileFromCache(df, job.getVM()); // tried to get ...
         verify(cacheManager).putFileToCache(df, job.getVM()); // and then put
         Mockito.verifyNoMoreInteractions(cacheManager);
@@ -80,13 +81,15 @@ public class GlobalStorageManagerCacheTest {
     @Test
     public void testStorageGetsInputFilesFromCache() {
         Mockito.doNothing().when(cacheManager).putFileToCache(eq(df), eq(vm));
+        when(cacheManager.isFileCached(eq(df), eq(vm))).thenReturn(true);
         when(cacheManager.getFileFromCache(eq(df), eq(vm))).thenReturn(true);
 
         when(task.getInputFiles()).thenReturn(files);
         StorageManagerTest.skipEvent(100, WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED, cloudsim);
-        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
-        assertEquals(0.01, CloudSim.startSimulation(), 0.01); // Cache latency.
+        cloudsim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
+        assertEquals(0.01, cloudsim.startSimulation(), 0.01); // Cache latency.
 
+        verify(cacheManager).isFileCached(df, job.getVM());
         verify(cacheManager, Mockito.atLeastOnce()).getFileFromCache(df, job.getVM());
         verify(cacheManager).putFileToCache(df, job.getVM());
         Mockito.verifyNoMoreInteractions(cacheManager);
@@ -101,21 +104,42 @@ public class GlobalStorageManagerCacheTest {
 
         when(task.getInputFiles()).thenReturn(files);
         StorageManagerTest.skipEvent(100, WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED, cloudsim);
-        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
-        CloudSim.startSimulation();
+        cloudsim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
+        cloudsim.startSimulation();
 
         assertEquals(2442, storageManager.getStorageManagerStatistics().getTotalBytesToRead());
         assertEquals(2442, storageManager.getStorageManagerStatistics().getBytesReadFromCache());
     }
 
+    @Test
+    public void shouldCountOneHitOrMissPerRead() {
+        VMCacheManager fifo = new FIFOCacheManager(cloudsim);
+        GlobalStorageManager manager = new GlobalStorageManager(params, fifo, cloudsim);
+        VMType vmType = Mockito.mock(VMType.class);
+        when(vmType.getCacheSize()).thenReturn(1000000L);
+        when(vm.getVmType()).thenReturn(vmType);
+        DAGFile cached = new DAGFile("cached.txt", sz, null);
+        fifo.putFileToCache(cached, vm);
+
+        when(task.getInputFiles()).thenReturn(ImmutableList.of(cached, df));
+        StorageManagerTest.skipEvent(100, WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED, cloudsim);
+        cloudsim.send(-1, manager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
+        cloudsim.startSimulation();
+
+        // The uncached file is in the cache when it is finished, but it is still only a miss
+        assertEquals(1, manager.getStorageManagerStatistics().getCacheHits());
+        assertEquals(1, manager.getStorageManagerStatistics().getCacheMisses());
+        assertEquals(sz, manager.getStorageManagerStatistics().getBytesReadFromCache());
+    }
+
     @Test
     public void testStorageCachesOutputFiles() {
         Mockito.doNothing().when(cacheManager).putFileToCache(eq(df), eq(vm));
 
         when(task.getOutputFiles()).thenReturn(files);
         StorageManagerTest.skipEvent(100, WorkflowEvent.STORAGE_ALL_AFTER_TRANSFERS_COMPLETED, cloudsim);
-        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
-        CloudSim.startSimulation();
+        cloudsim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
+        cloudsim.startSimulation();
 
         verify(cacheManager).putFileToCache(df, job.getVM()); // only saves to cache
         Mockito.verifyNoMoreInteractions(cacheManager);
@@ -0,0 +1,52 @@
+package cws.core.storage.global;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+
+import cws.core.WorkflowEvent;
+import cws.core.cloudsim.KernelStatistics;
+import cws.core.dag.DAGFile;
+
+/**
+ * Runs all the {@link GlobalStorageManagerTest} tests with fluid transfers.
+ */
+public class GlobalStorageManagerFluidTest extends GlobalStorageManagerTest {
+    @Override
+    protected boolean isFluidTransfers() {
+        return true;
+    }
+
+    /**
+     * The transfer is dropped as soon as the VM is terminated, not after the current chunk.
+     */
+    @Override
+    @Test
+    public void testTerminated() {
+        long size = 1234567;
+        double terminateTime = 444;
+        double time = runWriteOfTerminatedVM(size, terminateTime);
+        assertEquals(terminateTime, time, 0.01);
+        assertTrue(terminateTime < size / params.getWriteSpeed());
+    }
+
+    @Test
+    public void shouldNotSendProgressEventsPerChunk() {
+        cloudsim.setKernelStatisticsEnabled(true);
+        long size = 1000000;
+        when(task.getInputFiles()).thenReturn(ImmutableList.of(new DAGFile("abc.txt", size, null)));
+        skipEvent(100, WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED, cloudsim);
+        cloudsim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
+        double time = cloudsim.startSimulation();
+
+        assertEquals(size / params.getReadSpeed() + params.getLatency(), time, 0.01);
+        KernelStatistics statistics = cloudsim.getKernelStatistics();
+        assertEquals(1, statistics.getEvents(WorkflowEvent.GLOBAL_STORAGE_READ_PROGRESS));
+        assertEquals(1, statistics.getEvents(WorkflowEvent.GLOBAL_STORAGE_READS_COMPLETION));
+        assertTrue(statistics.getEntityEvents(storageManager.getId()) < 10);
+    }
+}
@@ -1,6 +1,8 @@
 package cws.core.storage.global;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -9,16 +11,18 @@ import static org.mockito.Mockito.when;
 import cws.core.Cloud;
 import cws.core.VM;
 import cws.core.WorkflowEvent;
+import cws.core.core.VMType;
+import cws.core.dag.DAG;
 import cws.core.dag.DAGFile;
 import cws.core.dag.Task;
 import cws.core.jobs.Job;
 import cws.core.storage.StorageManagerTest;
+import cws.core.storage.cache.FIFOCacheManager;
 import cws.core.storage.cache.VMCacheManager;
 
 import java.util.ArrayList;
 import java.util.List;
 
-import org.cloudbus.cloudsim.core.CloudSim;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Matchers;
@@ -46,16 +50,24 @@ public class GlobalStorageManagerTest extends StorageManagerTest {
         params.setLatency(20);
         params.setNumReplicas(1);
         params.setChunkTransferTime(1);
+        params.setFluidTransfers(isFluidTransfers());
         storageManager = new GlobalStorageManager(params, cacheManager, cloudsim);
     }
 
+    /**
+     * @return Whether the tested storage uses fluid transfers.
+     */
+    protected boolean isFluidTransfers() {
+        return false;
+    }
+
     @Test
     public void testGlobalStorageReadTransferTime() {
         long sz = 2442;
         when(task.getInputFiles()).thenReturn(ImmutableList.of(new DAGFile("abc.txt", sz, null)));
         skipEvent(100, WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED, cloudsim);
-        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
-        double time = CloudSim.startSimulation();
+        cloudsim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
+        double time = cloudsim.startSimulation();
 
         verify(cloudsim).send(Matchers.anyInt(), Matchers.eq(100), Matchers.anyDouble(),
                 Matchers.eq(WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED), Matchers.any());
@@ -67,8 +79,8 @@ public class GlobalStorageManagerTest extends StorageManagerTest {
         long sz = 2442;
         when(task.getOutputFiles()).thenReturn(ImmutableList.of(new DAGFile("abc.txt", sz, null)));
         skipEvent(100, WorkflowEvent.STORAGE_ALL_AFTER_TRANSFERS_COMPLETED, cloudsim);
-        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
-        double time = CloudSim.startSimulation();
+        cloudsim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
+        double time = cloudsim.startSimulation();
 
         verify(cloudsim).send(Matchers.anyInt(), Matchers.eq(100), Matchers.anyDouble(),
                 Matchers.eq(WorkflowEvent.STORAGE_ALL_AFTER_TRANSFERS_COMPLETED), Matchers.any());
@@ -81,8 +93,8 @@ public class GlobalStorageManagerTest extends StorageManagerTest {
         ImmutableList<DAGFile> files = ImmutableList.of(new DAGFile("abc.txt", sz, null), new DAGFile("abc2.txt", sz, null));
         when(task.getOutputFiles()).thenReturn(files);
         skipEvent(100, WorkflowEvent.STORAGE_ALL_AFTER_TRANSFERS_COMPLETED, cloudsim);
-        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
-        double time = CloudSim.startSimulation();
+        cloudsim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
+        double time = cloudsim.startSimulation();
 
         verify(cloudsim).send(Matchers.anyInt(), Matchers.eq(100), Matchers.anyDouble(),
                 Matchers.eq(WorkflowEvent.STORAGE_ALL_AFTER_TRANSFERS_COMPLETED), Matchers.any());
@@ -132,9 +144,9 @@ public class GlobalStorageManagerTest extends StorageManagerTest {
         ImmutableList<DAGFile> files = ImmutableList.of(new DAGFile("abc.txt", size, null));
         when(task.getOutputFiles()).thenReturn(files);
         skipEvent(100, WorkflowEvent.STORAGE_ALL_AFTER_TRANSFERS_COMPLETED, cloudsim);
-        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
-        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job2);
-        double time = CloudSim.startSimulation();
+        cloudsim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
+        cloudsim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job2);
+        double time = cloudsim.startSimulation();
 
         verify(cloudsim, Mockito.times(2)).send(Matchers.anyInt(), Matchers.eq(100), Matchers.anyDouble(),
                 Matchers.eq(WorkflowEvent.STORAGE_ALL_AFTER_TRANSFERS_COMPLETED), Matchers.any());
@@ -148,8 +160,8 @@ public class GlobalStorageManagerTest extends StorageManagerTest {
         ImmutableList<DAGFile> files = ImmutableList.of(new DAGFile("abc.txt", size, null));
         when(task.getInputFiles()).thenReturn(files);
         skipEvent(100, WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED, cloudsim);
-        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
-        double time = CloudSim.startSimulation();
+        cloudsim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
+        double time = cloudsim.startSimulation();
 
         verify(cloudsim).send(Matchers.anyInt(), Matchers.eq(100), Matchers.anyDouble(),
                 Matchers.eq(WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED), Matchers.any());
@@ -174,9 +186,9 @@ public class GlobalStorageManagerTest extends StorageManagerTest {
         ImmutableList<DAGFile> files = ImmutableList.of(new DAGFile("abc.txt", size, null));
         when(task.getInputFiles()).thenReturn(files);
         skipEvent(100, WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED, cloudsim);
-        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
-        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job2);
-        double time = CloudSim.startSimulation();
+        cloudsim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job);
+        cloudsim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_BEFORE_TASK_START, job2);
+        double time = cloudsim.startSimulation();
 
         verify(cloudsim, Mockito.times(2)).send(Matchers.anyInt(), Matchers.eq(100), Matchers.anyDouble(),
                 Matchers.eq(WorkflowEvent.STORAGE_ALL_BEFORE_TRANSFERS_COMPLETED), Matchers.any());
@@ -185,9 +197,18 @@ public class GlobalStorageManagerTest extends StorageManagerTest {
 
     @Test
     public void testTerminated() {
-        long size = 1234567;
         double terminateTime = 444;
+        double time = runWriteOfTerminatedVM(1234567, terminateTime);
+        assertEquals(time, terminateTime + params.getChunkTransferTime(), 0.01);
+    }
+
+    /**
+     * Runs a write whose VM is terminated at the given time.
+     * @return simulation time
+     */
+    protected double runWriteOfTerminatedVM(long size, double terminateTime) {
         Cloud cloud = new Cloud(cloudsim);
+        cloud.setStorageManager(storageManager);
 
         ImmutableList<DAGFile> files = ImmutableList.of(new DAGFile("abc.txt", size, null));
         when(task.getOutputFiles()).thenReturn(files);
@@ -198,23 +219,27 @@ public class GlobalStorageManagerTest extends StorageManagerTest {
         when(vm.isTerminated()).thenReturn(false);
         when(vm.getOwner()).thenReturn(100);
         Mockito.verifyNoMoreInteractions(vm);
-        CloudSim.send(cloud.getId(), cloud.getId(), 0, WorkflowEvent.VM_LAUNCH, vm);
-        CloudSim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
-        CloudSim.send(cloud.getId(), cloud.getId(), terminateTime, WorkflowEvent.VM_TERMINATE, vm);
+        cloudsim.send(cloud.getId(), cloud.getId(), 0, WorkflowEvent.VM_LAUNCH, vm);
+        cloudsim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
+        cloudsim.send(cloud.getId(), cloud.getId(), terminateTime, WorkflowEvent.VM_TERMINATE, vm);
+        // The owner does not exist
+        Mockito.doNothing().when(cloudsim)
+                .send(Matchers.anyInt(), Matchers.eq(100), Matchers.anyDouble(),
+                        Matchers.eq(WorkflowEvent.VM_TERMINATED), Matchers.any());
+        // The mocked VM is terminated when the cloud notifies the storage manager about it
         Mockito.doAnswer(new Answer<Void>() {
             @Override
             public Void answer(InvocationOnMock invocation) throws Throwable {
                 when(vm.isTerminated()).thenReturn(true);
+                invocation.callRealMethod();
                 return null;
             }
         })
                 .when(cloudsim)
-                .send(Matchers.anyInt(), Matchers.eq(100), Matchers.anyDouble(),
-                        Matchers.eq(WorkflowEvent.VM_TERMINATED), Matchers.any());
+                .send(Matchers.anyInt(), Matchers.eq(storageManager.getId()), Matchers.anyDouble(),
+                        Matchers.eq(WorkflowEvent.STORAGE_VM_TERMINATED), Matchers.any());
 
-        double time = CloudSim.startSimulation();
-
-        assertEquals(time, terminateTime + params.getChunkTransferTime(), 0.01);
+        return cloudsim.startSimulation();
     }
 
     @Test
@@ -223,7 +248,9 @@ public class GlobalStorageManagerTest extends StorageManagerTest {
         List<DAGFile> files = new ArrayList<DAGFile>();
         files.add(new DAGFile("abc.txt", sz, null));
         Task t = new Task("xx", "xx", 222);
-        t.addInputFiles(files);
+        DAG dag = new DAG();
+        dag.addTask(t);
+        dag.setInputs(t.getId(), files);
         double time = storageManager.getTotalTransferTimeEstimation(t);
         assertEquals(sz / params.getReadSpeed() + params.getLatency(), time, 0.00001);
     }
@@ -234,8 +261,51 @@ public class GlobalStorageManagerTest extends StorageManagerTest {
         long sz = 22222;
         files.add(new DAGFile("abc.txt", sz, null));
         Task t = new Task("xx", "xx", 222);
-        t.addOutputFiles(files);
+        DAG dag = new DAG();
+        dag.addTask(t);
+        dag.setOutputs(t.getId(), files);
         double time = storageManager.getTotalTransferTimeEstimation(t);
         assertEquals(sz / params.getWriteSpeed() + params.getLatency(), time, 0.00001);
     }
+
+    @Test
+    public void shouldReestimateInputTransferWhenCacheChanges() {
+        VMCacheManager fifo = new FIFOCacheManager(cloudsim);
+        GlobalStorageManager manager = new GlobalStorageManager(params, fifo, cloudsim);
+        VMType vmType = mock(VMType.class);
+        when(vmType.getCacheSize()).thenReturn(1000000L);
+        VM vm = mock(VM.class);
+        when(vm.getId()).thenReturn(7);
+        when(vm.getVmType()).thenReturn(vmType);
+        DAGFile first = new DAGFile("abc.txt", 22222, null);
+        DAGFile second = new DAGFile("def.txt", 11111, null);
+        Task t = new Task("xx", "xx", 222);
+        DAG dag = new DAG();
+        dag.addTask(t);
+        dag.setInputs(t.getId(), ImmutableList.of(first, second));
+        double firstTime = first.getSize() / params.getReadSpeed() + params.getLatency();
+        double secondTime = second.getSize() / params.getReadSpeed() + params.getLatency();
+
+        assertEquals(firstTime + secondTime, manager.getInputTransferTimeEstimation(t, vm), 0.00001);
+        fifo.putFileToCache(first, vm);
+        assertEquals(secondTime, manager.getInputTransferTimeEstimation(t, vm), 0.00001);
+        assertEquals(firstTime + secondTime, manager.getInputTransferTimeEstimation(t, null), 0.00001);
+        fifo.putFileToCache(second, vm);
+        assertEquals(0.0, manager.getInputTransferTimeEstimation(t, vm), 0.00001);
+    }
+
+    @Test
+    public void shouldDropEstimationsOfCompletedTask() {
+        long sz = 2442;
+        when(task.getInputFiles()).thenReturn(ImmutableList.<DAGFile> of());
+        when(task.getOutputFiles()).thenReturn(ImmutableList.of(new DAGFile("abc.txt", sz, null)));
+        GlobalStorageManager manager = (GlobalStorageManager) storageManager;
+        manager.getTotalTransferTimeEstimation(task);
+        assertTrue(manager.hasEstimations(task));
+
+        skipEvent(100, WorkflowEvent.STORAGE_ALL_AFTER_TRANSFERS_COMPLETED, cloudsim);
+        cloudsim.send(-1, storageManager.getId(), 0, WorkflowEvent.STORAGE_AFTER_TASK_COMPLETED, job);
+        cloudsim.startSimulation();
+        assertFalse(manager.hasEstimations(task));
+    }
 }
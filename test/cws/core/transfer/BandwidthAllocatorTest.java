@@ -0,0 +1,222 @@
+package cws.core.transfer;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import cws.core.cloudsim.CloudSimWrapper;
+
+public class BandwidthAllocatorTest {
+    private static final double DELTA = 1e-9;
+
+    private CloudSimWrapper cloudsim;
+    private BandwidthAllocator allocator;
+
+    @Before
+    public void setUp() {
+        cloudsim = new CloudSimWrapper();
+        cloudsim.init();
+        allocator = new BandwidthAllocator();
+    }
+
+    private Transfer transfer(Port source, Port destination, Link link) {
+        return new Transfer(source, destination, link, 1000, 0, cloudsim);
+    }
+
+    @Test
+    public void shouldShareSourcePortEvenly() {
+        Port source = new Port(100, cloudsim);
+        Link link = new Link(1000, 10, cloudsim);
+        Transfer first = transfer(source, new Port(1000, cloudsim), link);
+        Transfer second = transfer(source, new Port(1000, cloudsim), link);
+        allocator.add(first);
+        allocator.add(second);
+        allocator.allocate();
+
+        assertEquals(50, allocator.getBandwidth(first), DELTA);
+        assertEquals(50, allocator.getBandwidth(second), DELTA);
+    }
+
+    @Test
+    public void shouldRecomputeEachComponentOnceWhenDirtyNodesAlternate() {
+        Port sourceA = new Port(100, cloudsim);
+        Port destinationA = new Port(1000, cloudsim);
+        Link linkA = new Link(1000, 10, cloudsim);
+        Port sourceB = new Port(60, cloudsim);
+        Port destinationB = new Port(1000, cloudsim);
+        Link linkB = new Link(1000, 10, cloudsim);
+        Transfer a1 = transfer(sourceA, destinationA, linkA);
+        Transfer b1 = transfer(sourceB, destinationB, linkB);
+        Transfer a2 = transfer(sourceA, destinationA, linkA);
+        Transfer b2 = transfer(sourceB, destinationB, linkB);
+        allocator.add(a1);
+        allocator.add(b1);
+        allocator.add(a2);
+        allocator.add(b2);
+        allocator.allocate();
+
+        assertEquals(2, allocator.getRecomputedComponents());
+        assertEquals(50, allocator.getBandwidth(a1), DELTA);
+        assertEquals(50, allocator.getBandwidth(a2), DELTA);
+        assertEquals(30, allocator.getBandwidth(b1), DELTA);
+        assertEquals(30, allocator.getBandwidth(b2), DELTA);
+
+        allocator.remove(a1);
+        allocator.remove(b1);
+        allocator.allocate();
+
+        assertEquals(4, allocator.getRecomputedComponents());
+        assertEquals(100, allocator.getBandwidth(a2), DELTA);
+        assertEquals(60, allocator.getBandwidth(b2), DELTA);
+    }
+
+    @Test
+    public void shouldGiveCapacityLeftByBottleneckToOtherTransfers() {
+        Port source = new Port(100, cloudsim);
+        Transfer slow = transfer(source, new Port(20, cloudsim), new Link(1000, 10, cloudsim));
+        Transfer fast = transfer(source, new Port(1000, cloudsim), new Link(1000, 10, cloudsim));
+        allocator.add(slow);
+        allocator.add(fast);
+        allocator.allocate();
+
+        assertEquals(20, allocator.getBandwidth(slow), DELTA);
+        assertEquals(80, allocator.getBandwidth(fast), DELTA);
+    }
+
+    @Test
+    public void shouldRecomputeAfterRemoval() {
+        Port source = new Port(100, cloudsim);
+        Link link = new Link(1000, 10, cloudsim);
+        Transfer first = transfer(source, new Port(1000, cloudsim), link);
+        Transfer second = transfer(source, new Port(1000, cloudsim), link);
+        allocator.add(first);
+        allocator.add(second);
+        allocator.allocate();
+        allocator.remove(first);
+        allocator.allocate();
+
+        assertEquals(1, allocator.size());
+        assertEquals(100, allocator.getBandwidth(second), DELTA);
+    }
+
+    @Test
+    public void shouldNotRecomputeDisconnectedTransfers() {
+        Transfer first = transfer(new Port(100, cloudsim), new Port(100, cloudsim), new Link(1000, 10, cloudsim));
+        allocator.add(first);
+        allocator.allocate();
+        assertEquals(100, allocator.getBandwidth(first), DELTA);
+
+        Port source = new Port(10, cloudsim);
+        Link link = new Link(1000, 10, cloudsim);
+        Transfer second = transfer(source, new Port(100, cloudsim), link);
+        Transfer third = transfer(source, new Port(100, cloudsim), link);
+        allocator.add(second);
+        allocator.add(third);
+        allocator.allocate();
+
+        assertEquals(100, allocator.getBandwidth(first), DELTA);
+        assertEquals(5, allocator.getBandwidth(second), DELTA);
+        assertEquals(5, allocator.getBandwidth(third), DELTA);
+    }
+
+    @Test
+    public void shouldCountTheSamePortOnce() {
+        Port port = new Port(100, cloudsim);
+        Transfer local = transfer(port, port, new Link(1000, 10, cloudsim));
+        allocator.add(local);
+        allocator.allocate();
+
+        assertEquals(100, allocator.getBandwidth(local), DELTA);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectUnknownTransfer() {
+        allocator.remove(transfer(new Port(100, cloudsim), new Port(100, cloudsim), new Link(1000, 10, cloudsim)));
+    }
+
+    @Test
+    public void shouldMatchFullRecomputationWhenTransfersComeAndGo() {
+        Random rng = new Random(7);
+        Port[] ports = new Port[8];
+        for (int i = 0; i < ports.length; i++) {
+            ports[i] = new Port(10 + rng.nextInt(1000), cloudsim);
+        }
+        Link[] links = new Link[3];
+        for (int i = 0; i < links.length; i++) {
+            links[i] = new Link(10 + rng.nextInt(2000), 10, cloudsim);
+        }
+
+        List<Transfer> active = new ArrayList<Transfer>();
+        for (int step = 0; step < 500; step++) {
+            if (active.isEmpty() || rng.nextDouble() < 0.55) {
+                Transfer t = transfer(ports[rng.nextInt(ports.length)], ports[rng.nextInt(ports.length)],
+                        links[rng.nextInt(links.length)]);
+                active.add(t);
+                allocator.add(t);
+            } else {
+                allocator.remove(active.remove(rng.nextInt(active.size())));
+            }
+            allocator.allocate();
+
+            Map<Transfer, Double> expected = progressiveFilling(active);
+            for (Transfer t : active) {
+                assertEquals(expected.get(t), allocator.getBandwidth(t), 1e-6);
+            }
+        }
+    }
+
+    /**
+     * Straightforward progressive filling over all the transfers.
+     */
+    private static Map<Transfer, Double> progressiveFilling(List<Transfer> transfers) {
+        Map<Object, Double> capacity = new HashMap<Object, Double>();
+        for (Transfer t : transfers) {
+            capacity.put(t.getSourcePort(), t.getSourcePort().getBandwidth());
+            capacity.put(t.getDestinationPort(), t.getDestinationPort().getBandwidth());
+            capacity.put(t.getLink(), t.getLink().getBandwidth());
+        }
+        Map<Transfer, Double> allocations = new HashMap<Transfer, Double>();
+        while (allocations.size() < transfers.size()) {
+            Object bottleneck = null;
+            double share = Double.MAX_VALUE;
+            for (Object node : capacity.keySet()) {
+                int flows = 0;
+                for (Transfer t : transfers) {
+                    if (!allocations.containsKey(t) && path(t).contains(node)) {
+                        flows++;
+                    }
+                }
+                if (flows > 0 && capacity.get(node) / flows < share) {
+                    share = capacity.get(node) / flows;
+                    bottleneck = node;
+                }
+            }
+            for (Transfer t : transfers) {
+                if (!allocations.containsKey(t) && path(t).contains(bottleneck)) {
+                    allocations.put(t, share);
+                    for (Object node : path(t)) {
+                        capacity.put(node, capacity.get(node) - share);
+                    }
+                }
+            }
+        }
+        return allocations;
+    }
+
+    private static List<Object> path(Transfer t) {
+        List<Object> path = new ArrayList<Object>();
+        for (Object node : new Object[] { t.getSourcePort(), t.getDestinationPort(), t.getLink() }) {
+            if (!path.contains(node)) {
+                path.add(node);
+            }
+        }
+        return path;
+    }
+}
@@ -1,5 +1,8 @@
 package cws.core.transfer;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
@@ -24,6 +27,8 @@ public class TransferManagerTest {
     private class TransferDriver extends CWSSimEntity {
         private TransferManager tm;
         private List<Transfer> transfers;
+        private boolean simultaneous;
+        private int completed;
 
         public TransferDriver(CloudSimWrapper cloudsim) {
             super("TransferDriver", cloudsim);
@@ -34,17 +39,25 @@ public class TransferManagerTest {
             this.transfers = transfers;
         }
 
+        public void setSimultaneous(boolean simultaneous) {
+            this.simultaneous = simultaneous;
+        }
+
         @Override
         public void startEntity() {
             Random rng = new Random(0);
             // Submit all the transfers
             for (Transfer t : transfers) {
-                getCloudsim().send(getId(), tm.getId(), rng.nextDouble(), WorkflowEvent.NEW_TRANSFER, t);
+                double delay = simultaneous ? 0.0 : rng.nextDouble();
+                getCloudsim().send(getId(), tm.getId(), delay, WorkflowEvent.NEW_TRANSFER, t);
             }
         }
 
         @Override
         public void processEvent(CWSSimEvent ev) {
+            if (ev.getTag() == WorkflowEvent.TRANSFER_COMPLETE) {
+                completed++;
+            }
         }
 
         @Override
@@ -67,12 +80,12 @@ public class TransferManagerTest {
 
         TransferDriver td = new TransferDriver(cloudsim);
 
-        Port a = new Port(1000);
+        Port a = new Port(1000, cloudsim);
         Port[] b = new Port[4];
         for (int i = 0; i < 4; i++) {
-            b[i] = new Port(1000);
+            b[i] = new Port(1000, cloudsim);
         }
-        Link l = new Link(1000, 1000.0);
+        Link l = new Link(1000, 1000.0, cloudsim);
         List<Transfer> transfers = new ArrayList<Transfer>();
 
         for (int i = 0; i < 24; i++) {
@@ -84,4 +97,27 @@ public class TransferManagerTest {
 
         cloudsim.startSimulation();
     }
+
+    @Test
+    public void shouldCoalesceUpdatesOfSimultaneousTransfers() {
+        TransferDriver td = new TransferDriver(cloudsim);
+        td.setSimultaneous(true);
+
+        Port a = new Port(1000, cloudsim);
+        Link l = new Link(1000, 1000.0, cloudsim);
+        List<Transfer> transfers = new ArrayList<Transfer>();
+        for (int i = 0; i < 8; i++) {
+            transfers.add(new Transfer(a, new Port(1000, cloudsim), l, (i + 1) * MB, td.getId(), cloudsim));
+        }
+        td.setTransfers(transfers);
+
+        cloudsim.startSimulation();
+
+        assertEquals(8, td.completed);
+        // The handshakes complete at the same time, so 7 of them share the update of the first one
+        assertTrue(td.tm.getAvoidedUpdates() >= 7);
+        for (int i = 1; i < transfers.size(); i++) {
+            assertTrue(transfers.get(i - 1).getFinishTime() < transfers.get(i).getFinishTime());
+        }
+    }
 }